@@ -82,6 +82,9 @@ public class NLPXMLContextLoader extends BaseSimpleXMLContextLoader<INLPContext>
             }
             node.getNodeData().setId(atts.getValue("id"));
             pathToRoot.addLast(node);
+        } else if ("children".equals(localName)) {
+            ensureChildrenCapacity(atts);
+            content = new StringBuilder();
         } else if ("label".equals(localName)) {
             label = new Label();
             INLPNode n = ((INLPNode) pathToRoot.getLast());
@@ -132,11 +135,7 @@ public class NLPXMLContextLoader extends BaseSimpleXMLContextLoader<INLPContext>
             token = null;
         } else if ("node".equals(localName)) {
             pathToRoot.removeLast();
-
-            nodesParsed++;
-            if (0 == (nodesParsed % 1000)) {
-                log.info("nodes parsed: " + nodesParsed);
-            }
+            countNode();
         }
     }
 }
@@ -7,5 +7,5 @@ import it.unitn.disi.smatch.data.trees.IBaseNode;
 /**
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
-public abstract class BaseContextPipelineComponent<E extends IBaseNode> extends BasePipelineComponent<IBaseContext<E>> implements IBaseContextPipelineComponent<E> {
+public abstract class BaseContextPipelineComponent<E extends IBaseNode<E, ?>> extends BasePipelineComponent<IBaseContext<E>> implements IBaseContextPipelineComponent<E> {
 }
@@ -12,23 +12,22 @@ import java.util.List;
  *
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
-public abstract class BaseNodeProcessingContextPipelineComponent extends BaseContextPipelineComponent<IBaseNode> {
+public abstract class BaseNodeProcessingContextPipelineComponent<E extends IBaseNode<E, ?>> extends BaseContextPipelineComponent<E> {
 
-    @SuppressWarnings("unchecked")
-    public void process(IBaseContext<IBaseNode> instance) throws PipelineComponentException {
+    public void process(IBaseContext<E> instance) throws PipelineComponentException {
         //go DFS, processing node-by-node, keeping path-to-root as context
-        ArrayList<IBaseNode> queue = new ArrayList<IBaseNode>();
-        ArrayList<IBaseNode> pathToRoot = new ArrayList<IBaseNode>();
+        ArrayList<E> queue = new ArrayList<E>();
+        ArrayList<E> pathToRoot = new ArrayList<E>();
         queue.add(instance.getRoot());
 
         while (!queue.isEmpty()) {
-            IBaseNode currentNode = queue.remove(0);
+            E currentNode = queue.remove(0);
             if (null == currentNode) {
                 pathToRoot.remove(pathToRoot.size() - 1);
             } else {
                 processNode(currentNode, pathToRoot);
 
-                List<IBaseNode> children = currentNode.getChildrenList();
+                List<E> children = currentNode.getChildrenList();
                 if (0 < children.size()) {
                     queue.add(0, null);
                     pathToRoot.add(currentNode);
@@ -40,5 +39,5 @@ public abstract class BaseNodeProcessingContextPipelineComponent extends BaseCon
         }
     }
 
-    protected abstract void processNode(IBaseNode currentNode, ArrayList<IBaseNode> pathToRoot);
+    protected abstract void processNode(E currentNode, ArrayList<E> pathToRoot);
 }
\ No newline at end of file
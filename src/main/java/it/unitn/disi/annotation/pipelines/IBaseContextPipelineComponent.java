@@ -7,5 +7,5 @@ import it.unitn.disi.smatch.data.trees.IBaseNode;
 /**
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
-public interface IBaseContextPipelineComponent<E extends IBaseNode> extends IBasePipelineComponent<IBaseContext<E>> {
+public interface IBaseContextPipelineComponent<E extends IBaseNode<E, ?>> extends IBasePipelineComponent<IBaseContext<E>> {
 }
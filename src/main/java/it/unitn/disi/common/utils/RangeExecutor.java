@@ -0,0 +1,135 @@
+package it.unitn.disi.common.utils;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs a task over a range of rows in parallel on a fork/join pool. The range is split into parts, several per
+ * thread to balance the load.
+ * <p/>
+ * Each run uses a pool of its own, which is shut down before the run returns, therefore no threads outlive the run.
+ * With one thread or one row the task runs in the calling thread.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class RangeExecutor {
+
+    /**
+     * A task over a range of rows.
+     *
+     * @param <E> checked exception thrown by the task
+     */
+    public interface IRangeTask<E extends Exception> {
+
+        /**
+         * Processes the rows from the range.
+         *
+         * @param from the first row of the range
+         * @param to   the row following the range
+         * @throws E E
+         */
+        void run(int from, int to) throws E;
+    }
+
+    // rows are split into this many ranges per thread to balance the load
+    private static final int RANGES_PER_THREAD = 8;
+
+    private final int threads;
+
+    /**
+     * Creates an executor.
+     *
+     * @param threads number of threads, positive
+     */
+    public RangeExecutor(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads should be positive: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Runs the task over the rows from 0 to count and waits for it to finish.
+     *
+     * @param count          number of rows
+     * @param task           task
+     * @param exceptionClass class of the checked exception thrown by the task
+     * @param <E>            checked exception thrown by the task
+     * @throws E the exception thrown by the task
+     */
+    public <E extends Exception> void run(int count, IRangeTask<E> task, Class<E> exceptionClass) throws E {
+        final int threshold = Math.max(1, count / (threads * RANGES_PER_THREAD));
+        if (1 == threads || count <= 1) {
+            for (int from = 0; from < count; from += threshold) {
+                task.run(from, Math.min(count, from + threshold));
+            }
+        } else {
+            final ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                pool.invoke(new RangeAction<E>(task, 0, count, threshold));
+            } catch (RuntimeException e) {
+                // the pool might rethrow a copy of the exception
+                for (Throwable cause = e; null != cause; cause = cause.getCause()) {
+                    if (exceptionClass.isInstance(cause)) {
+                        throw exceptionClass.cast(cause);
+                    }
+                }
+                throw e;
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Carries checked exceptions out of the pool.
+     */
+    private static class RangeFailure extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private RangeFailure(Exception cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * Runs the task over a range of rows, splitting it while it is larger than the threshold.
+     */
+    private static class RangeAction<E extends Exception> extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient IRangeTask<E> task;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        private RangeAction(IRangeTask<E> task, int from, int to, int threshold) {
+            this.task = task;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                try {
+                    task.run(from, to);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new RangeFailure(e);
+                }
+            } else {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new RangeAction<E>(task, from, middle, threshold), new RangeAction<E>(task, middle, to, threshold));
+            }
+        }
+    }
+}
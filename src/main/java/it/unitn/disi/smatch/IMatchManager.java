@@ -13,6 +13,9 @@ import it.unitn.disi.smatch.preprocessors.IContextPreprocessor;
 import it.unitn.disi.smatch.renderers.context.IBaseContextRenderer;
 import it.unitn.disi.smatch.renderers.mapping.IMappingRenderer;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * Interface for matching related functionalities.<br>
  * The following code can be used in order to obtain an instance of IMatchManager interface.<br>
@@ -186,4 +189,53 @@ public interface IMatchManager extends IConfigurable {
      * @throws SMatchException SMatchException
      */
     IContextMapping<INode> match(IContext sourceContext, IContext targetContext) throws SMatchException;
+
+    /**
+     * Matches the source context with each of the target contexts and renders the mappings. Contexts which are not
+     * preprocessed are preprocessed, the source once. The next target is loaded while the current one is matched and
+     * matchers keep the data computed for the source between the targets. Only the context loader runs in the
+     * background, preprocessing and matching run on the calling thread.
+     * <p/>
+     * By default loads, matches and renders the targets one by one with {@link #match(IContext, IContext)}.
+     *
+     * @param sourceContext interface to source context to be matched
+     * @param targetFiles   target context file names
+     * @param outputFiles   mapping file names, one for each target
+     * @throws SMatchException SMatchException
+     */
+    default void batchMatch(IContext sourceContext, List<String> targetFiles, List<String> outputFiles) throws SMatchException {
+        if (targetFiles.size() != outputFiles.size()) {
+            throw new SMatchException("Each target needs an output file.");
+        }
+        for (int i = 0; i < targetFiles.size(); i++) {
+            final IBaseContext targetContext = loadContext(targetFiles.get(i));
+            if (!(targetContext instanceof IContext)) {
+                throw new SMatchException("To match contexts, use context loaders supporting IContextLoader.");
+            }
+            renderMapping(match(sourceContext, (IContext) targetContext), outputFiles.get(i));
+        }
+    }
+
+    /**
+     * Updates a mapping after some nodes of its contexts changed. Changed nodes are preprocessed again, concept at
+     * node formulas are rebuilt in their subtrees and only the node pairs involving these subtrees are matched again.
+     * Relations of other pairs are copied from the mapping, relations of removed nodes are dropped.
+     * <p/>
+     * Needs a context preprocessor implementing
+     * {@link it.unitn.disi.smatch.preprocessors.IIncrementalContextPreprocessor} and a tree matcher implementing
+     * {@link it.unitn.disi.smatch.matchers.structure.tree.IIncrementalTreeMatcher}, otherwise both contexts are matched
+     * from scratch.
+     * <p/>
+     * By default matches both contexts from scratch with {@link #match(IContext, IContext)}.
+     *
+     * @param mapping            mapping between the contexts before the change
+     * @param changedSourceNodes source nodes which were added, moved or relabeled
+     * @param changedTargetNodes target nodes which were added, moved or relabeled
+     * @return updated mapping
+     * @throws SMatchException SMatchException
+     */
+    default IContextMapping<INode> rematch(IContextMapping<INode> mapping, Collection<INode> changedSourceNodes,
+                                           Collection<INode> changedTargetNodes) throws SMatchException {
+        return match(mapping.getSourceContext(), mapping.getTargetContext());
+    }
 }
\ No newline at end of file
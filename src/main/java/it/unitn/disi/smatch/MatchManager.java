@@ -6,22 +6,27 @@ import it.unitn.disi.common.utils.MiscUtils;
 import it.unitn.disi.smatch.classifiers.IContextClassifier;
 import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
 import it.unitn.disi.smatch.data.mappings.IContextMapping;
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
 import it.unitn.disi.smatch.data.mappings.IMappingFactory;
+import it.unitn.disi.smatch.data.mappings.MatrixMapping;
 import it.unitn.disi.smatch.data.trees.Context;
 import it.unitn.disi.smatch.data.trees.IBaseContext;
 import it.unitn.disi.smatch.data.trees.IContext;
 import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.data.trees.TreeIndex;
 import it.unitn.disi.smatch.filters.IMappingFilter;
 import it.unitn.disi.smatch.loaders.context.IBaseContextLoader;
 import it.unitn.disi.smatch.loaders.context.IContextLoader;
 import it.unitn.disi.smatch.loaders.mapping.IMappingLoader;
 import it.unitn.disi.smatch.matchers.element.IMatcherLibrary;
+import it.unitn.disi.smatch.matchers.structure.tree.IIncrementalTreeMatcher;
 import it.unitn.disi.smatch.matchers.structure.tree.ITreeMatcher;
 import it.unitn.disi.smatch.oracles.ILinguisticOracle;
 import it.unitn.disi.smatch.oracles.ISenseMatcher;
 import it.unitn.disi.smatch.oracles.wordnet.InMemoryWordNetBinaryArray;
 import it.unitn.disi.smatch.oracles.wordnet.WordNet;
 import it.unitn.disi.smatch.preprocessors.IContextPreprocessor;
+import it.unitn.disi.smatch.preprocessors.IIncrementalContextPreprocessor;
 import it.unitn.disi.smatch.renderers.context.IBaseContextRenderer;
 import it.unitn.disi.smatch.renderers.context.IContextRenderer;
 import it.unitn.disi.smatch.renderers.mapping.IMappingRenderer;
@@ -29,12 +34,22 @@ import java.io.File;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 
+import java.io.BufferedReader;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * MatchManager controls the process of matching, loads contexts and performs other auxiliary work.
@@ -65,11 +80,15 @@ public class MatchManager extends Configurable implements IMatchManager {
     private static final String USAGE = "Usage: MatchManager <command> <arguments> [options]\n" +
             " Commands: \n" +
             " wntoflat                                   create cached WordNet files for fast matching\n" +
+            " wntoflat mapped                            convert cached WordNet arrays into memory-mapped format\n" +
             " convert <input> <output>                   read input file and write it into output file\n" +
             " convert <source> <target> <input> <output> read source, target and input mapping, and write the output mapping\n" +
             " offline <input> <output>                   read input file, preprocess it and write it into output file\n" +
             " online <source> <target> <output>          read source and target files, run matching and write the output file\n" +
             " filter <source> <target> <input> <output>  read source and target files, input mapping, run filtering and write the output mapping\n" +
+            " batch <source> <manifest>                  read source and match it with each target from manifest lines <target>TAB<output>\n" +
+            " server [port] [threads]                    serve online matching jobs on a local port, see MatchServer. Each thread\n" +
+            "                                            matches with its own match manager, configured with MatchServer.* keys\n" +
             "\n" +
             " Options: \n" +
             " -config=file.properties                    read configuration from file.properties instead of default S-Match.properties\n" +
@@ -113,6 +132,9 @@ public class MatchManager extends Configurable implements IMatchManager {
     private static final String MAPPING_FACTORY_KEY = "MappingFactory";
     private IMappingFactory mappingFactory = null;
 
+    // match server configuration key, used by the server command
+    private static final String MATCH_SERVER_KEY = "MatchServer";
+
     public static IMatchManager getInstance() throws SMatchException {
         return new MatchManager();
     }
@@ -277,8 +299,12 @@ public class MatchManager extends Configurable implements IMatchManager {
     public IContextMapping<INode> online(IContext sourceContext, IContext targetContext) throws SMatchException {
         // Performs element level matching which computes the relation between labels.
         IContextMapping<IAtomicConceptOfLabel> acolMapping = elementLevelMatching(sourceContext, targetContext);
-        // Performs structure level matching which computes the relation between nodes.
-        return structureLevelMatching(sourceContext, targetContext, acolMapping);
+        try {
+            // Performs structure level matching which computes the relation between nodes.
+            return structureLevelMatching(sourceContext, targetContext, acolMapping);
+        } finally {
+            release(acolMapping);
+        }
     }
 
     public IContextMapping<INode> match(IContext sourceContext, IContext targetContext) throws SMatchException {
@@ -290,6 +316,211 @@ public class MatchManager extends Configurable implements IMatchManager {
         return result;
     }
 
+    public void batchMatch(IContext sourceContext, List<String> targetFiles, List<String> outputFiles) throws SMatchException {
+        if (!(contextLoader instanceof IContextLoader)) {
+            throw new SMatchException("To match contexts, use context loaders supporting IContextLoader.");
+        }
+        if (targetFiles.size() != outputFiles.size()) {
+            throw new SMatchException("Each target needs an output file.");
+        }
+        if (null == treeMatcher) {
+            throw new SMatchException("Tree matcher is not configured.");
+        }
+
+        log.info("Batch matching " + targetFiles.size() + " targets started...");
+        if (!sourceContext.getRoot().getNodeData().isSubtreePreprocessed()) {
+            offline(sourceContext);
+        }
+        // targets are loaded one ahead of matching, preprocessing components are not thread-safe and run here
+        final ExecutorService preparer = Executors.newSingleThreadExecutor();
+        treeMatcher.setSourceContext(sourceContext);
+        try {
+            Future<IContext> next = null;
+            if (0 < targetFiles.size()) {
+                next = preparer.submit(new TargetPreparer(targetFiles.get(0)));
+            }
+            for (int i = 0; i < targetFiles.size(); i++) {
+                final IContext targetContext = getPrepared(next);
+                if (i + 1 < targetFiles.size()) {
+                    next = preparer.submit(new TargetPreparer(targetFiles.get(i + 1)));
+                }
+                if (!targetContext.getRoot().getNodeData().isSubtreePreprocessed()) {
+                    offline(targetContext);
+                }
+                log.info("Matching target " + (i + 1) + " of " + targetFiles.size() + ": " + targetFiles.get(i));
+                final IContextMapping<INode> mapping = online(sourceContext, targetContext);
+                try {
+                    renderMapping(mapping, outputFiles.get(i));
+                } finally {
+                    release(mapping);
+                }
+            }
+        } finally {
+            treeMatcher.setSourceContext(null);
+            preparer.shutdownNow();
+        }
+        log.info("Batch matching finished");
+    }
+
+    public IContextMapping<INode> rematch(IContextMapping<INode> mapping, Collection<INode> changedSourceNodes,
+                                          Collection<INode> changedTargetNodes) throws SMatchException {
+        final IContext sourceContext = mapping.getSourceContext();
+        final IContext targetContext = mapping.getTargetContext();
+        if (!(contextPreprocessor instanceof IIncrementalContextPreprocessor)) {
+            log.info("Context preprocessor does not support incremental preprocessing, matching from scratch");
+            return match(sourceContext, targetContext);
+        }
+        if (!(treeMatcher instanceof IIncrementalTreeMatcher)) {
+            log.info("Tree matcher does not support incremental matching, matching from scratch");
+            return match(sourceContext, targetContext);
+        }
+        if (null == contextClassifier) {
+            throw new SMatchException("Context classifier is not configured.");
+        }
+        if (null == matcherLibrary) {
+            throw new SMatchException("Matcher library is not configured.");
+        }
+
+        log.info("Rematching started...");
+        final TreeIndex<INode> sourceIndex = sourceContext.getTreeIndex();
+        final TreeIndex<INode> targetIndex = targetContext.getTreeIndex();
+        final BitSet sourceChanged = getNumbers(sourceIndex, changedSourceNodes);
+        final BitSet targetChanged = getNumbers(targetIndex, changedTargetNodes);
+        final BitSet sourceAffected = getSubtrees(sourceIndex, sourceChanged);
+        final BitSet targetAffected = getSubtrees(targetIndex, targetChanged);
+
+        final List<INode> sourceNodes = getNodes(sourceIndex, sourceAffected);
+        final List<INode> targetNodes = getNodes(targetIndex, targetAffected);
+        refresh(sourceContext, getNodes(sourceIndex, sourceChanged), sourceNodes);
+        refresh(targetContext, getNodes(targetIndex, targetChanged), targetNodes);
+
+        // node pairs involving the subtrees need relations between all acols of the other side and the acols of the
+        // subtrees with their ancestors
+        log.info("Element level matching of " + sourceNodes.size() + " source and " + targetNodes.size() + " target nodes...");
+        final IContextMapping<IAtomicConceptOfLabel> acolMapping = mappingFactory.getACoLMappingInstance(sourceContext, targetContext);
+        if (!sourceNodes.isEmpty()) {
+            matcherLibrary.elementLevelMatching(acolMapping, getNodes(sourceIndex, getAncestors(sourceIndex, sourceAffected)), targetContext.getNodesList());
+        }
+        if (!targetNodes.isEmpty()) {
+            matcherLibrary.elementLevelMatching(acolMapping, sourceContext.getNodesList(), getNodes(targetIndex, getAncestors(targetIndex, targetAffected)));
+        }
+
+        log.info("Structure level matching...");
+        final IContextMapping<INode> result = mappingFactory.getContextMappingInstance(sourceContext, targetContext);
+        for (IMappingElement<INode> e : mapping) {
+            final int source = sourceIndex.getNumber(e.getSource());
+            final int target = targetIndex.getNumber(e.getTarget());
+            if (0 <= source && 0 <= target && !sourceAffected.get(source) && !targetAffected.get(target)) {
+                result.setRelation(e.getSource(), e.getTarget(), e.getRelation());
+            }
+        }
+        try {
+            ((IIncrementalTreeMatcher) treeMatcher).treeMatch(result, acolMapping, sourceNodes, targetNodes);
+        } finally {
+            release(acolMapping);
+        }
+        log.info("Rematching finished, returning links: " + result.size());
+        return result;
+    }
+
+    /**
+     * Preprocesses the changed nodes again and rebuilds the concept at node formulas of their subtrees.
+     *
+     * @param context  context
+     * @param changed  changed nodes
+     * @param subtrees nodes of the subtrees of the changed nodes, parents first
+     * @throws SMatchException SMatchException
+     */
+    private void refresh(IContext context, List<INode> changed, List<INode> subtrees) throws SMatchException {
+        if (!changed.isEmpty()) {
+            ((IIncrementalContextPreprocessor) contextPreprocessor).preprocess(context, changed);
+            contextClassifier.buildCNodeFormulas(context, subtrees);
+        }
+    }
+
+    /**
+     * Releases the resources held by the mapping, such as the file of a memory-mapped matrix, once the mapping has
+     * been rendered or filtered.
+     *
+     * @param mapping mapping
+     */
+    static void release(IContextMapping<?> mapping) {
+        if (mapping instanceof MatrixMapping) {
+            ((MatrixMapping<?>) mapping).release();
+        }
+    }
+
+    private static BitSet getNumbers(TreeIndex<INode> index, Collection<INode> nodes) {
+        final BitSet result = new BitSet(index.size());
+        for (INode node : nodes) {
+            final int number = index.getNumber(node);
+            // removed nodes are not indexed
+            if (0 <= number) {
+                result.set(number);
+            }
+        }
+        return result;
+    }
+
+    private static BitSet getSubtrees(TreeIndex<INode> index, BitSet numbers) {
+        final BitSet result = new BitSet(index.size());
+        for (int i = numbers.nextSetBit(0); 0 <= i; i = numbers.nextSetBit(index.getSubtreeEnd(i))) {
+            result.set(i, index.getSubtreeEnd(i));
+        }
+        return result;
+    }
+
+    private static BitSet getAncestors(TreeIndex<INode> index, BitSet subtrees) {
+        final BitSet result = (BitSet) subtrees.clone();
+        for (int i = subtrees.nextSetBit(0); 0 <= i; i = subtrees.nextSetBit(index.getSubtreeEnd(i))) {
+            for (int a = index.getParent(i); 0 <= a && !result.get(a); a = index.getParent(a)) {
+                result.set(a);
+            }
+        }
+        return result;
+    }
+
+    private static List<INode> getNodes(TreeIndex<INode> index, BitSet numbers) {
+        final List<INode> result = new ArrayList<INode>(numbers.cardinality());
+        for (int i = numbers.nextSetBit(0); 0 <= i; i = numbers.nextSetBit(i + 1)) {
+            result.add(index.getNode(i));
+        }
+        return result;
+    }
+
+    /**
+     * Loads and, if needed, preprocesses a target context for batch matching.
+     */
+    private class TargetPreparer implements Callable<IContext> {
+        private final String fileName;
+
+        private TargetPreparer(String fileName) {
+            this.fileName = fileName;
+        }
+
+        public IContext call() throws SMatchException {
+            return (IContext) loadContext(fileName);
+        }
+    }
+
+    private static IContext getPrepared(Future<IContext> future) throws SMatchException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error(errMessage, e);
+            throw new SMatchException(errMessage, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SMatchException) {
+                throw (SMatchException) e.getCause();
+            }
+            final String errMessage = e.getCause().getClass().getSimpleName() + ": " + e.getCause().getMessage();
+            log.error(errMessage, e.getCause());
+            throw new SMatchException(errMessage, e.getCause());
+        }
+    }
+
     @Override
     public boolean setProperties(Properties newProperties) throws ConfigurableException {
         if (log.isEnabledFor(Level.INFO)) {
@@ -355,6 +586,16 @@ public class MatchManager extends Configurable implements IMatchManager {
         WordNet.createWordNetCaches(GLOBAL_PREFIX + LINGUISTIC_ORACLE_KEY, properties);
     }
 
+    /**
+     * Converts cached WordNet arrays into the format which is memory-mapped instead of being read into memory.
+     *
+     * @param properties configuration
+     * @throws SMatchException SMatchException
+     */
+    private void convertWordNetToMapped(Properties properties) throws SMatchException {
+        InMemoryWordNetBinaryArray.convertWordNetCaches(GLOBAL_PREFIX + SENSE_MATCHER_KEY, properties);
+    }
+
     /**
      * Provides a command line interface to the match manager.
      *
@@ -423,7 +664,11 @@ public class MatchManager extends Configurable implements IMatchManager {
             mm.setProperties(config);
 
             if ("wntoflat".equals(args[0])) {
-                mm.convertWordNetToFlat(config);
+                if (1 < args.length && "mapped".equals(args[1])) {
+                    mm.convertWordNetToMapped(config);
+                } else {
+                    mm.convertWordNetToFlat(config);
+                }
             } else if ("convert".equals(args[0])) {
                 if (2 < args.length) {
                     if (3 == args.length) {
@@ -442,6 +687,7 @@ public class MatchManager extends Configurable implements IMatchManager {
                             IContext ctxTarget = (IContext) mm.loadContext(targetFile);
                             IContextMapping<INode> map = mm.loadMapping(ctxSource, ctxTarget, inputFile);
                             mm.renderMapping(map, outputFile);
+                            release(map);
                         } else {
                             System.out.println("To convert a mapping, use context loaders supporting IContextLoader.");
                         }
@@ -473,6 +719,7 @@ public class MatchManager extends Configurable implements IMatchManager {
                         IContext ctxTarget = (IContext) mm.loadContext(targetFile);
                         IContextMapping<INode> result = mm.online(ctxSource, ctxTarget);
                         mm.renderMapping(result, outputFile);
+                        release(result);
                     } else {
                         System.out.println("To match contexts, use context loaders supporting IContextLoader.");
                     }
@@ -491,13 +738,68 @@ public class MatchManager extends Configurable implements IMatchManager {
                         IContext ctxTarget = (IContext) mm.loadContext(targetFile);
                         IContextMapping<INode> mapInput = mm.loadMapping(ctxSource, ctxTarget, inputFile);
                         IContextMapping<INode> mapOutput = mm.filterMapping(mapInput);
+                        if (mapOutput != mapInput) {
+                            release(mapInput);
+                        }
                         mm.renderMapping(mapOutput, outputFile);
+                        release(mapOutput);
                     } else {
                         System.out.println("To filter a mapping, use context loaders supporting IContextLoader.");
                     }
                 } else {
                     System.out.println("Not enough arguments for mappingFilter command.");
                 }
+            } else if ("batch".equals(args[0])) {
+                if (2 < args.length) {
+                    String sourceFile = args[1];
+                    String manifestFile = args[2];
+                    if (mm.getContextLoader() instanceof IContextLoader) {
+                        List<String> targetFiles = new ArrayList<String>();
+                        List<String> outputFiles = new ArrayList<String>();
+                        BufferedReader manifest = new BufferedReader(new InputStreamReader(new FileInputStream(manifestFile), "UTF-8"));
+                        try {
+                            String line;
+                            while (null != (line = manifest.readLine())) {
+                                if (!line.trim().isEmpty()) {
+                                    String[] files = line.split("\t");
+                                    if (2 != files.length) {
+                                        throw new SMatchException("Manifest line should contain target and output files separated by tab: " + line);
+                                    }
+                                    targetFiles.add(files[0]);
+                                    outputFiles.add(files[1]);
+                                }
+                            }
+                        } finally {
+                            manifest.close();
+                        }
+                        IContext ctxSource = (IContext) mm.loadContext(sourceFile);
+                        mm.batchMatch(ctxSource, targetFiles, outputFiles);
+                    } else {
+                        System.out.println("To match contexts, use context loaders supporting IContextLoader.");
+                    }
+                } else {
+                    System.out.println("Not enough arguments for batch command.");
+                }
+            } else if ("server".equals(args[0])) {
+                int port = MatchServer.DEFAULT_PORT;
+                int threads = Runtime.getRuntime().availableProcessors();
+                if (1 < args.length) {
+                    port = Integer.parseInt(args[1]);
+                }
+                if (2 < args.length) {
+                    threads = Integer.parseInt(args[2]);
+                }
+                // each worker needs its own match manager, Global. components are shared
+                List<IMatchManager> managers = new ArrayList<IMatchManager>();
+                managers.add(mm);
+                for (int i = 1; i < threads; i++) {
+                    MatchManager worker = new MatchManager();
+                    worker.setProperties(config);
+                    managers.add(worker);
+                }
+                MatchServer server = new MatchServer(managers, port, 16 * threads);
+                server.setProperties(getComponentProperties(MATCH_SERVER_KEY + ".", config));
+                server.serve();
             } else {
                 System.out.println("Unrecognized command.");
             }
@@ -0,0 +1,465 @@
+package it.unitn.disi.smatch;
+
+import it.unitn.disi.common.components.Configurable;
+import it.unitn.disi.common.components.ConfigurableException;
+import it.unitn.disi.smatch.data.mappings.IContextMapping;
+import it.unitn.disi.smatch.data.trees.IContext;
+import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.loaders.context.IContextLoader;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves match jobs over a local socket, keeping a configured match manager with its oracles, sense matchers and
+ * models loaded between the jobs. Listens on the loopback interface only.
+ * <p/>
+ * A job is a connection. The client sends header lines key=value, terminated by an empty line:
+ * <ul>
+ * <li>command: online (default) to match preprocessed contexts, match to preprocess and match, shutdown to stop the
+ * server;</li>
+ * <li>token: the shutdown token, required by the shutdown command;</li>
+ * <li>source, target: context file names, relative to the base directory of the server;</li>
+ * <li>source.length, target.length: instead of file names, the contexts are sent inline, after the empty line,
+ * source first, as the given number of bytes in the format of the configured context loader;</li>
+ * <li>filter: true to filter the mapping with the configured mapping filter.</li>
+ * </ul>
+ * The server answers with a line OK, followed by the mapping in the format of the configured mapping renderer, or
+ * with a line ERROR and the error message, and closes the connection.
+ * <p/>
+ * The server is configured with the properties:
+ * <ul>
+ * <li>shutdownToken: the token of the shutdown command, without it remote shutdown is disabled;</li>
+ * <li>baseDirectory: directory with the context files the jobs may name, without it contexts are accepted only
+ * inline;</li>
+ * <li>maxContentLength: the largest inline context accepted, in bytes, 256 MB by default;</li>
+ * <li>timeout: read timeout in milliseconds, 0 for none, one minute by default. A connection which sends nothing for
+ * this time is closed.</li>
+ * </ul>
+ * <p/>
+ * The components of a match manager keep state while working, therefore each worker matches with its own match
+ * manager, and the number of workers is the number of match managers given. Jobs above the workers wait in a bounded
+ * queue, jobs above that are refused with an error.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class MatchServer extends Configurable {
+
+    private static final Logger log = Logger.getLogger(MatchServer.class);
+
+    /**
+     * Default port.
+     */
+    public static final int DEFAULT_PORT = 7389;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    // longest header line accepted
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    /**
+     * Default read timeout, in milliseconds.
+     */
+    public static final int DEFAULT_TIMEOUT = 60 * 1000;
+
+    /**
+     * Default largest inline context, in bytes.
+     */
+    public static final long DEFAULT_MAX_CONTENT_LENGTH = 256L * 1024 * 1024;
+
+    private static final String SHUTDOWN_TOKEN_KEY = "shutdownToken";
+    private String shutdownToken = null;
+
+    private static final String BASE_DIRECTORY_KEY = "baseDirectory";
+    private File baseDirectory = null;
+
+    private static final String MAX_CONTENT_LENGTH_KEY = "maxContentLength";
+    private long maxContentLength = DEFAULT_MAX_CONTENT_LENGTH;
+
+    private static final String TIMEOUT_KEY = "timeout";
+    private int timeout = DEFAULT_TIMEOUT;
+
+    private static final String COMMAND_KEY = "command";
+    private static final String TOKEN_KEY = "token";
+    private static final String SOURCE_KEY = "source";
+    private static final String TARGET_KEY = "target";
+    private static final String LENGTH_SUFFIX = ".length";
+    private static final String FILTER_KEY = "filter";
+
+    // match managers not used by a worker
+    private final BlockingQueue<IMatchManager> managers;
+    private final ServerSocket serverSocket;
+    private final ThreadPoolExecutor workers;
+    private volatile boolean running = true;
+
+    /**
+     * Creates a server listening on the loopback interface, with a worker for each match manager.
+     *
+     * @param managers  configured match managers, one for each worker
+     * @param port      port to listen on, 0 to pick a free one
+     * @param queueSize number of jobs waiting for a worker
+     * @throws SMatchException SMatchException
+     */
+    public MatchServer(List<IMatchManager> managers, int port, int queueSize) throws SMatchException {
+        if (managers.isEmpty()) {
+            throw new SMatchException("No match managers to serve jobs with.");
+        }
+        for (IMatchManager mm : managers) {
+            if (!(mm.getContextLoader() instanceof IContextLoader)) {
+                throw new SMatchException("To match contexts, use context loaders supporting IContextLoader.");
+            }
+            if (null == mm.getMappingRenderer()) {
+                throw new SMatchException("Mapping renderer is not configured.");
+            }
+        }
+        this.managers = new ArrayBlockingQueue<IMatchManager>(managers.size(), false, managers);
+        final int threads = managers.size();
+        try {
+            serverSocket = new ServerSocket(port, queueSize, InetAddress.getByName(null));
+        } catch (IOException e) {
+            final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error(errMessage, e);
+            throw new SMatchException(errMessage, e);
+        }
+        workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueSize));
+    }
+
+    @Override
+    public boolean setProperties(Properties newProperties) throws ConfigurableException {
+        boolean result = super.setProperties(newProperties);
+        if (result) {
+            shutdownToken = newProperties.getProperty(SHUTDOWN_TOKEN_KEY);
+            if (null != shutdownToken && shutdownToken.isEmpty()) {
+                shutdownToken = null;
+            }
+
+            baseDirectory = null;
+            final String directory = newProperties.getProperty(BASE_DIRECTORY_KEY);
+            if (null != directory && !directory.isEmpty()) {
+                try {
+                    baseDirectory = new File(directory).getCanonicalFile();
+                } catch (IOException e) {
+                    final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+                    log.error(errMessage, e);
+                    throw new ConfigurableException(errMessage, e);
+                }
+            }
+
+            maxContentLength = DEFAULT_MAX_CONTENT_LENGTH;
+            if (newProperties.containsKey(MAX_CONTENT_LENGTH_KEY)) {
+                maxContentLength = Long.parseLong(newProperties.getProperty(MAX_CONTENT_LENGTH_KEY));
+            }
+
+            timeout = DEFAULT_TIMEOUT;
+            if (newProperties.containsKey(TIMEOUT_KEY)) {
+                timeout = Integer.parseInt(newProperties.getProperty(TIMEOUT_KEY));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the port the server listens on
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts and serves jobs until the server is shut down.
+     *
+     * @throws SMatchException SMatchException
+     */
+    public void serve() throws SMatchException {
+        log.info("Serving match jobs on port " + getPort() + " with " + workers.getMaximumPoolSize() + " workers");
+        try {
+            while (running) {
+                final Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                } catch (SocketException e) {
+                    if (running) {
+                        throw e;
+                    }
+                    break;
+                }
+                try {
+                    workers.execute(new Runnable() {
+                        public void run() {
+                            serve(socket);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    log.warn("Job refused, all workers are busy");
+                    try {
+                        respondError(socket.getOutputStream(), "Server is busy");
+                    } finally {
+                        socket.close();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error(errMessage, e);
+            throw new SMatchException(errMessage, e);
+        } finally {
+            shutdown();
+            try {
+                workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        log.info("Match server stopped");
+    }
+
+    /**
+     * Stops accepting jobs. Jobs accepted before are finished.
+     */
+    public void shutdown() {
+        running = false;
+        workers.shutdown();
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            log.warn(e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
+    private void serve(Socket socket) {
+        final long start = System.currentTimeMillis();
+        File sourceFile = null;
+        File targetFile = null;
+        File outputFile = null;
+        try {
+            try {
+                socket.setSoTimeout(timeout);
+                final InputStream in = new BufferedInputStream(socket.getInputStream());
+                final OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+                try {
+                    final Map<String, String> job = readHeader(in);
+                    final String command = job.containsKey(COMMAND_KEY) ? job.get(COMMAND_KEY) : "online";
+                    if ("shutdown".equals(command)) {
+                        if (null == shutdownToken) {
+                            throw new SMatchException("Remote shutdown is disabled");
+                        }
+                        if (!isShutdownToken(job.get(TOKEN_KEY))) {
+                            log.warn("Shutdown with a wrong token refused");
+                            throw new SMatchException("Wrong shutdown token");
+                        }
+                        log.info("Shutdown requested");
+                        shutdown();
+                        respondOK(out);
+                    } else if ("online".equals(command) || "match".equals(command)) {
+                        if (job.containsKey(SOURCE_KEY + LENGTH_SUFFIX)) {
+                            sourceFile = readContent(in, job, SOURCE_KEY);
+                        }
+                        if (job.containsKey(TARGET_KEY + LENGTH_SUFFIX)) {
+                            targetFile = readContent(in, job, TARGET_KEY);
+                        }
+                        final String source = null == sourceFile ? getFileName(job, SOURCE_KEY) : sourceFile.getPath();
+                        final String target = null == targetFile ? getFileName(job, TARGET_KEY) : targetFile.getPath();
+                        outputFile = File.createTempFile("smatch-mapping", ".tmp");
+                        match(source, target, "match".equals(command), Boolean.parseBoolean(job.get(FILTER_KEY)), outputFile.getPath());
+                        respondOK(out);
+                        copy(outputFile, out);
+                        log.info("Job finished in " + (System.currentTimeMillis() - start) + " ms");
+                    } else {
+                        throw new SMatchException("Unrecognized command: " + command);
+                    }
+                } catch (SMatchException e) {
+                    respondError(out, e.getMessage());
+                } catch (RuntimeException e) {
+                    final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+                    log.error(errMessage, e);
+                    respondError(out, errMessage);
+                } finally {
+                    out.close();
+                }
+            } finally {
+                socket.close();
+                delete(sourceFile);
+                delete(targetFile);
+                delete(outputFile);
+            }
+        } catch (IOException e) {
+            log.error(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void match(String source, String target, boolean offline, boolean filter, String outputFile) throws SMatchException {
+        final IMatchManager mm;
+        try {
+            mm = managers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SMatchException("Interrupted while waiting for a match manager", e);
+        }
+        try {
+            IContext ctxSource = (IContext) mm.loadContext(source);
+            IContext ctxTarget = (IContext) mm.loadContext(target);
+            if (offline) {
+                mm.offline(ctxSource);
+                mm.offline(ctxTarget);
+            }
+            IContextMapping<INode> result = mm.online(ctxSource, ctxTarget);
+            if (filter) {
+                final IContextMapping<INode> filtered = mm.filterMapping(result);
+                if (filtered != result) {
+                    MatchManager.release(result);
+                }
+                result = filtered;
+            }
+            try {
+                mm.renderMapping(result, outputFile);
+            } finally {
+                MatchManager.release(result);
+            }
+        } finally {
+            managers.add(mm);
+        }
+    }
+
+    private boolean isShutdownToken(String token) {
+        // compares in the same time whatever the token
+        return null != token && MessageDigest.isEqual(shutdownToken.getBytes(UTF8), token.getBytes(UTF8));
+    }
+
+    private static Map<String, String> readHeader(InputStream in) throws IOException, SMatchException {
+        final Map<String, String> result = new HashMap<String, String>();
+        String line = readLine(in);
+        while (!line.isEmpty()) {
+            final int eqIdx = line.indexOf('=');
+            if (-1 == eqIdx) {
+                throw new SMatchException("Malformed header line: " + line);
+            }
+            result.put(line.substring(0, eqIdx).trim(), line.substring(eqIdx + 1).trim());
+            line = readLine(in);
+        }
+        return result;
+    }
+
+    private static String readLine(InputStream in) throws IOException, SMatchException {
+        final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b = in.read();
+        while (-1 != b && '\n' != b) {
+            if (MAX_LINE_LENGTH <= line.size()) {
+                throw new SMatchException("Header line is too long");
+            }
+            line.write(b);
+            b = in.read();
+        }
+        if (-1 == b && 0 == line.size()) {
+            throw new SMatchException("Unexpected end of the job");
+        }
+        String result = new String(line.toByteArray(), UTF8);
+        if (result.endsWith("\r")) {
+            result = result.substring(0, result.length() - 1);
+        }
+        return result;
+    }
+
+    private String getFileName(Map<String, String> job, String key) throws IOException, SMatchException {
+        final String name = job.get(key);
+        if (null == name || name.isEmpty()) {
+            throw new SMatchException("Job has neither " + key + " nor " + key + LENGTH_SUFFIX);
+        }
+        if (null == baseDirectory) {
+            throw new SMatchException("Context files are disabled, send " + key + LENGTH_SUFFIX + " and the " + key + " inline");
+        }
+        final File result = new File(baseDirectory, name).getCanonicalFile();
+        if (result.equals(baseDirectory) || !result.toPath().startsWith(baseDirectory.toPath())) {
+            throw new SMatchException("The " + key + " is outside the base directory: " + name);
+        }
+        return result.getPath();
+    }
+
+    private File readContent(InputStream in, Map<String, String> job, String key) throws IOException, SMatchException {
+        final long length;
+        try {
+            length = Long.parseLong(job.get(key + LENGTH_SUFFIX));
+        } catch (NumberFormatException e) {
+            throw new SMatchException("Malformed " + key + LENGTH_SUFFIX + ": " + job.get(key + LENGTH_SUFFIX), e);
+        }
+        if (length < 0 || maxContentLength < length) {
+            throw new SMatchException("The " + key + LENGTH_SUFFIX + " " + length + " is not between 0 and " + maxContentLength);
+        }
+        final File result = File.createTempFile("smatch-" + key, ".tmp");
+        final OutputStream out = new FileOutputStream(result);
+        try {
+            final byte[] buffer = new byte[64 * 1024];
+            long left = length;
+            while (0 < left) {
+                final int read = in.read(buffer, 0, (int) Math.min(buffer.length, left));
+                if (-1 == read) {
+                    throw new EOFException("Unexpected end of " + key + ", " + left + " bytes missing");
+                }
+                out.write(buffer, 0, read);
+                left -= read;
+            }
+        } catch (IOException e) {
+            out.close();
+            delete(result);
+            throw e;
+        } finally {
+            out.close();
+        }
+        return result;
+    }
+
+    private static void copy(File file, OutputStream out) throws IOException {
+        final InputStream in = new FileInputStream(file);
+        try {
+            final byte[] buffer = new byte[64 * 1024];
+            int read = in.read(buffer);
+            while (-1 != read) {
+                out.write(buffer, 0, read);
+                read = in.read(buffer);
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void respondOK(OutputStream out) throws IOException {
+        out.write("OK\n".getBytes(UTF8));
+    }
+
+    private static void respondError(OutputStream out, String message) throws IOException {
+        out.write(("ERROR " + String.valueOf(message).replace('\n', ' ') + "\n").getBytes(UTF8));
+        out.flush();
+    }
+
+    private static void delete(File file) {
+        if (null != file && file.exists() && !file.delete()) {
+            log.warn("Cannot delete " + file);
+        }
+    }
+}
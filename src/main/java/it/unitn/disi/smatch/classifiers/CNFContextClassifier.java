@@ -9,6 +9,8 @@ import it.unitn.disi.smatch.data.trees.INode;
 import it.unitn.disi.smatch.data.trees.INodeData;
 import org.apache.log4j.Logger;
 
+import java.util.List;
+
 /**
  * Create concept at node formulas for each node of the context. Converts
  * concept at node formula into CNF.
@@ -25,6 +27,12 @@ public class CNFContextClassifier extends Configurable implements IContextClassi
         }
     }
 
+    public void buildCNodeFormulas(IContext context, List<INode> nodes) throws ContextClassifierException {
+        for (INode node : nodes) {
+            buildCNode(node);
+        }
+    }
+
     /**
      * Constructs c@node formula for the concept.
      *
@@ -53,6 +61,14 @@ public class CNFContextClassifier extends Configurable implements IContextClassi
         }
 
         nd.setcNodeFormula(path.toString());
+        // compile it once here, node matchers use the compiled formula
+        try {
+            nd.getcNodeClauses();
+        } catch (IllegalArgumentException e) {
+            final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error(errMessage, e);
+            throw new ContextClassifierException(errMessage, e);
+        }
     }
 
     /**
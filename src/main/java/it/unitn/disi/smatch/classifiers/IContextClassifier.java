@@ -2,6 +2,9 @@ package it.unitn.disi.smatch.classifiers;
 
 import it.unitn.disi.common.components.IConfigurable;
 import it.unitn.disi.smatch.data.trees.IContext;
+import it.unitn.disi.smatch.data.trees.INode;
+
+import java.util.List;
 
 /**
  * Interface for classifiers.
@@ -18,4 +21,15 @@ public interface IContextClassifier extends IConfigurable {
      * @throws ContextClassifierException ContextClassifierException
      */
     void buildCNodeFormulas(IContext context) throws ContextClassifierException;
+
+    /**
+     * Constructs concept@node formulas for some nodes of the context, for example for the subtrees of the changed
+     * nodes. A concept@node formula depends on the formulas of the ancestors, therefore parents should precede
+     * children in the list.
+     *
+     * @param context the context with concept at label formulas
+     * @param nodes   nodes of the context
+     * @throws ContextClassifierException ContextClassifierException
+     */
+    void buildCNodeFormulas(IContext context, List<INode> nodes) throws ContextClassifierException;
 }
@@ -0,0 +1,174 @@
+package it.unitn.disi.smatch.data.formulas;
+
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.trees.INode;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Concept at node formula compiled into integer clauses. The formula is a conjunction of disjunctive clauses stored
+ * in a single literals array. Literals refer to the node matching task acols, that is the acols of the node followed
+ * by the acols of its ancestors up to the root, as +/-(position + 1). This makes the compiled formula independent of
+ * variable numbering of a particular SAT problem.
+ * <p/>
+ * Instances are immutable.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public final class CNFFormula {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final int[] literals;
+    // exclusive end of each clause in literals
+    private final int[] clauseEnds;
+    private final int variableCount;
+
+    public CNFFormula(int[] literals, int[] clauseEnds, int variableCount) {
+        this.literals = literals;
+        this.clauseEnds = clauseEnds;
+        this.variableCount = variableCount;
+    }
+
+    /**
+     * Returns the number of clauses.
+     *
+     * @return the number of clauses
+     */
+    public int getClauseCount() {
+        return clauseEnds.length;
+    }
+
+    /**
+     * Returns the offset of the first literal of the clause.
+     *
+     * @param clause clause index
+     * @return the offset of the first literal of the clause
+     */
+    public int getClauseStart(int clause) {
+        return 0 == clause ? 0 : clauseEnds[clause - 1];
+    }
+
+    /**
+     * Returns the offset after the last literal of the clause.
+     *
+     * @param clause clause index
+     * @return the offset after the last literal of the clause
+     */
+    public int getClauseEnd(int clause) {
+        return clauseEnds[clause];
+    }
+
+    /**
+     * Returns the literal at offset.
+     *
+     * @param offset offset of the literal
+     * @return the literal
+     */
+    public int getLiteral(int offset) {
+        return literals[offset];
+    }
+
+    /**
+     * Returns the number of node matching task acols the formula was compiled against.
+     *
+     * @return the number of variables
+     */
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    /**
+     * Compiles the concept at node formula of the node. Follows the tokenization of the string formula used by the
+     * node matchers: clauses are separated by &amp;, literals by |, parentheses and spaces, and a negation sign
+     * standing alone negates the next literal.
+     *
+     * @param node node with the concept at node formula
+     * @return compiled formula
+     * @throws IllegalArgumentException if the formula refers to an acol outside of the node matching task
+     */
+    public static CNFFormula compile(INode node) {
+        // acol id -> position in the node matching task acols
+        HashMap<String, Integer> positions = new HashMap<String, Integer>();
+        int variableCount = 0;
+        for (INode curNode = node; null != curNode; curNode = curNode.getParent()) {
+            final String prefix = curNode.getNodeData().getId() + ".";
+            for (IAtomicConceptOfLabel acol : curNode.getNodeData().getACoLsList()) {
+                positions.put(prefix + Integer.toString(acol.getId()), variableCount);
+                variableCount++;
+            }
+        }
+
+        final String formula = node.getNodeData().getcNodeFormula();
+        if (null == formula || formula.isEmpty()) {
+            return new CNFFormula(EMPTY, EMPTY, variableCount);
+        }
+
+        int[] literals = new int[8];
+        int literalCount = 0;
+        int[] clauseEnds = new int[4];
+        int clauseCount = 0;
+
+        boolean savedNegation = false;
+        final int length = formula.length();
+        int clauseStart = 0;
+        while (clauseStart < length) {
+            int clauseEnd = formula.indexOf('&', clauseStart);
+            if (-1 == clauseEnd) {
+                clauseEnd = length;
+            }
+            if (clauseStart < clauseEnd) {
+                int tokenStart = clauseStart;
+                while (tokenStart < clauseEnd) {
+                    while (tokenStart < clauseEnd && isDelimiter(formula.charAt(tokenStart))) {
+                        tokenStart++;
+                    }
+                    int tokenEnd = tokenStart;
+                    while (tokenEnd < clauseEnd && !isDelimiter(formula.charAt(tokenEnd))) {
+                        tokenEnd++;
+                    }
+                    if (tokenStart < tokenEnd) {
+                        boolean negation = false;
+                        if ('~' == formula.charAt(tokenStart)) {
+                            negation = true;
+                            tokenStart++;
+                        }
+                        if (tokenEnd - tokenStart < 2) {
+                            savedNegation = true;
+                        } else {
+                            final String var = formula.substring(tokenStart, tokenEnd);
+                            Integer position = positions.get(var);
+                            if (null == position) {
+                                throw new IllegalArgumentException("Unknown acol " + var + " in the formula of the node " + node.getNodeData().getId());
+                            }
+                            int literal = position + 1;
+                            if (negation || savedNegation) {
+                                savedNegation = false;
+                                literal = -literal;
+                            }
+                            if (literals.length == literalCount) {
+                                literals = Arrays.copyOf(literals, 2 * literalCount);
+                            }
+                            literals[literalCount] = literal;
+                            literalCount++;
+                        }
+                    }
+                    tokenStart = tokenEnd;
+                }
+                if (clauseEnds.length == clauseCount) {
+                    clauseEnds = Arrays.copyOf(clauseEnds, 2 * clauseCount);
+                }
+                clauseEnds[clauseCount] = literalCount;
+                clauseCount++;
+            }
+            clauseStart = clauseEnd + 1;
+        }
+
+        return new CNFFormula(Arrays.copyOf(literals, literalCount), Arrays.copyOf(clauseEnds, clauseCount), variableCount);
+    }
+
+    private static boolean isDelimiter(char c) {
+        return '|' == c || '(' == c || ')' == c || ' ' == c;
+    }
+}
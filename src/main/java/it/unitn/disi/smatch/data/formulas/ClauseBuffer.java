@@ -0,0 +1,259 @@
+package it.unitn.disi.smatch.data.formulas;
+
+import java.util.Arrays;
+
+/**
+ * Reusable buffer for a SAT problem in CNF. Clauses are stored as DIMACS literals in a single growing array, which is
+ * kept between the problems, so that building a problem for a node matching task does not produce garbage. Binary
+ * clauses added with {@link #addBinaryClause(int, int)} are deduplicated with an open-addressing hash set.
+ * <p/>
+ * Not thread-safe.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class ClauseBuffer {
+
+    private int[] literals = new int[256];
+    private int literalCount = 0;
+    // exclusive end of each clause in literals
+    private int[] clauseEnds = new int[64];
+    private int clauseCount = 0;
+    private int variableCount = 0;
+
+    // binary clauses, packed as two ints into a long, 0 marks an empty slot
+    private long[] binaryClauses = new long[64];
+    private int binaryClauseCount = 0;
+    // occupied slots of binaryClauses, to clear them without sweeping the whole table
+    private int[] binaryClauseSlots = new int[32];
+
+    /**
+     * Empties the buffer keeping the allocated memory.
+     */
+    public void clear() {
+        literalCount = 0;
+        clauseCount = 0;
+        variableCount = 0;
+        for (int i = 0; i < binaryClauseCount; i++) {
+            binaryClauses[binaryClauseSlots[i]] = 0L;
+        }
+        binaryClauseCount = 0;
+    }
+
+    /**
+     * Drops the clauses and variables added after the buffer had clauseCount clauses and variableCount variables.
+     * Use it to share a common part, like axioms, between several problems. Deduplicated binary clauses should not be
+     * dropped.
+     *
+     * @param clauseCount   number of clauses to keep
+     * @param variableCount number of variables to keep
+     */
+    public void truncate(int clauseCount, int variableCount) {
+        this.clauseCount = clauseCount;
+        this.literalCount = 0 == clauseCount ? 0 : clauseEnds[clauseCount - 1];
+        this.variableCount = variableCount;
+    }
+
+    public int getClauseCount() {
+        return clauseCount;
+    }
+
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    /**
+     * Reserves variables. Variables are numbered from 1.
+     *
+     * @param count how many variables to reserve
+     * @return the number of the first reserved variable
+     */
+    public int newVariables(int count) {
+        final int result = variableCount + 1;
+        variableCount += count;
+        return result;
+    }
+
+    public int getClauseStart(int clause) {
+        return 0 == clause ? 0 : clauseEnds[clause - 1];
+    }
+
+    public int getClauseEnd(int clause) {
+        return clauseEnds[clause];
+    }
+
+    public int getLiteral(int offset) {
+        return literals[offset];
+    }
+
+    /**
+     * Adds a literal to the clause being built. The clause is finished with {@link #endClause()}.
+     *
+     * @param literal DIMACS literal
+     */
+    public void addLiteral(int literal) {
+        if (literals.length == literalCount) {
+            literals = Arrays.copyOf(literals, 2 * literalCount);
+        }
+        literals[literalCount] = literal;
+        literalCount++;
+    }
+
+    /**
+     * Finishes the clause being built.
+     */
+    public void endClause() {
+        if (clauseEnds.length == clauseCount) {
+            clauseEnds = Arrays.copyOf(clauseEnds, 2 * clauseCount);
+        }
+        clauseEnds[clauseCount] = literalCount;
+        clauseCount++;
+    }
+
+    /**
+     * Adds a binary clause unless the same clause has already been added with this method. Tautologies are skipped.
+     *
+     * @param literal1 first DIMACS literal
+     * @param literal2 second DIMACS literal
+     * @return true if the clause was added
+     */
+    public boolean addBinaryClause(int literal1, int literal2) {
+        if (literal1 == -literal2) {
+            return false;
+        }
+        final long key = literal1 < literal2
+                ? ((long) literal1 << 32) | (literal2 & 0xFFFFFFFFL)
+                : ((long) literal2 << 32) | (literal1 & 0xFFFFFFFFL);
+        if (binaryClauses.length <= 2 * binaryClauseCount) {
+            rehash();
+        }
+        final int mask = binaryClauses.length - 1;
+        int slot = hash(key) & mask;
+        while (0L != binaryClauses[slot]) {
+            if (key == binaryClauses[slot]) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        binaryClauses[slot] = key;
+        binaryClauseSlots[binaryClauseCount] = slot;
+        binaryClauseCount++;
+
+        addLiteral(literal1);
+        addLiteral(literal2);
+        endClause();
+        return true;
+    }
+
+    /**
+     * Adds the clauses of the formula, translating its literals into variables. Each clause can be guarded by a
+     * selector variable: guard -&gt; clause.
+     *
+     * @param formula   compiled formula
+     * @param variables variables[i] is the variable number for the formula literal i + 1
+     * @param guard     selector variable or 0 for none
+     */
+    public void addFormula(CNFFormula formula, int[] variables, int guard) {
+        for (int i = 0; i < formula.getClauseCount(); i++) {
+            if (0 != guard) {
+                addLiteral(-guard);
+            }
+            for (int j = formula.getClauseStart(i); j < formula.getClauseEnd(i); j++) {
+                addLiteral(translate(formula.getLiteral(j), variables));
+            }
+            endClause();
+        }
+    }
+
+    /**
+     * Adds the negation of the formula. Each clause with more than one literal gets an auxiliary variable equivalent
+     * to it, then a single clause, a disjunction of negated unit clauses and negated auxiliary variables, states the
+     * negation. Only this last clause is guarded by a selector variable: guard -&gt; not formula. Empty clauses are
+     * ignored and if nothing remains to negate, no clause is added.
+     *
+     * @param formula   compiled formula
+     * @param variables variables[i] is the variable number for the formula literal i + 1
+     * @param guard     selector variable or 0 for none
+     */
+    public void addNegatedFormula(CNFFormula formula, int[] variables, int guard) {
+        final int firstAux = variableCount + 1;
+        int aux = variableCount;
+        for (int i = 0; i < formula.getClauseCount(); i++) {
+            final int start = formula.getClauseStart(i);
+            final int end = formula.getClauseEnd(i);
+            if (1 < end - start) {
+                aux++;
+                for (int j = start; j < end; j++) {
+                    addLiteral(aux);
+                    addLiteral(-translate(formula.getLiteral(j), variables));
+                    endClause();
+                }
+                addLiteral(-aux);
+                for (int j = start; j < end; j++) {
+                    addLiteral(translate(formula.getLiteral(j), variables));
+                }
+                endClause();
+            }
+        }
+        variableCount = aux;
+
+        final int clauseStart = literalCount;
+        aux = firstAux;
+        for (int i = 0; i < formula.getClauseCount(); i++) {
+            final int start = formula.getClauseStart(i);
+            final int end = formula.getClauseEnd(i);
+            if (1 == end - start) {
+                addLiteral(-translate(formula.getLiteral(start), variables));
+            } else if (1 < end - start) {
+                addLiteral(-aux);
+                aux++;
+            }
+        }
+        if (clauseStart < literalCount) {
+            if (0 != guard) {
+                addLiteral(-guard);
+            }
+            endClause();
+        }
+    }
+
+    /**
+     * Appends the problem in DIMACS format.
+     *
+     * @param dimacs where to append the problem
+     */
+    public void appendDIMACS(StringBuilder dimacs) {
+        dimacs.append("p cnf ").append(variableCount).append(' ').append(clauseCount).append('\n');
+        int j = 0;
+        for (int i = 0; i < clauseCount; i++) {
+            for (; j < clauseEnds[i]; j++) {
+                dimacs.append(literals[j]).append(' ');
+            }
+            dimacs.append("0\n");
+        }
+    }
+
+    private static int translate(int literal, int[] variables) {
+        return 0 < literal ? variables[literal - 1] : -variables[-literal - 1];
+    }
+
+    private static int hash(long key) {
+        key = key * 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+
+    private void rehash() {
+        long[] old = binaryClauses;
+        binaryClauses = new long[2 * old.length];
+        binaryClauseSlots = Arrays.copyOf(binaryClauseSlots, old.length);
+        final int mask = binaryClauses.length - 1;
+        for (int i = 0; i < binaryClauseCount; i++) {
+            final long key = old[binaryClauseSlots[i]];
+            int slot = hash(key) & mask;
+            while (0L != binaryClauses[slot]) {
+                slot = (slot + 1) & mask;
+            }
+            binaryClauses[slot] = key;
+            binaryClauseSlots[i] = slot;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package it.unitn.disi.smatch.data.mappings;
 
 import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
 import it.unitn.disi.smatch.data.matrices.IIndexedObject;
+import it.unitn.disi.smatch.data.matrices.IMatchMatrix;
 import it.unitn.disi.smatch.data.matrices.IMatchMatrixFactory;
 import it.unitn.disi.smatch.data.trees.IContext;
 import it.unitn.disi.smatch.data.trees.INode;
@@ -17,6 +18,10 @@ public class ACoLMatrixMapping extends MatrixMapping<IAtomicConceptOfLabel> {
         super(factory, source, target);
     }
 
+    public ACoLMatrixMapping(IMatchMatrix matrix, IContext source, IContext target) {
+        super(matrix, source, target);
+    }
+
     @Override
     protected int getRowCount(IContext c) {
         return getACoLCount(c);
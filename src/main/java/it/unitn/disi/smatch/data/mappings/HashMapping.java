@@ -164,6 +164,31 @@ public class HashMapping<T> extends BaseMapping<T> implements IContextMapping<T>
         return new Itr(entries.keySet().iterator());
     }
 
+    @Override
+    public IMappingCursor<T> cursor() {
+        final Iterator<Map.Entry<NodePair<T, T>, Integer>> i = entries.entrySet().iterator();
+        return new IMappingCursor<T>() {
+            private Map.Entry<NodePair<T, T>, Integer> current;
+
+            public boolean next() {
+                current = i.hasNext() ? i.next() : null;
+                return null != current;
+            }
+
+            public T getSource() {
+                return current.getKey().getKey();
+            }
+
+            public T getTarget() {
+                return current.getKey().getValue();
+            }
+
+            public char getRelation() {
+                return relations.charAt(current.getValue());
+            }
+        };
+    }
+
     public boolean add(IMappingElement<T> e) {
         return setRelation(e.getSource(), e.getTarget(), e.getRelation());
     }
@@ -2,6 +2,8 @@ package it.unitn.disi.smatch.data.mappings;
 
 import it.unitn.disi.smatch.data.trees.IContext;
 
+import java.util.Iterator;
+
 /**
  * Interface for context mappings.
  *
@@ -13,4 +15,34 @@ public interface IContextMapping<T> extends IMapping<T> {
 
     IContext getTargetContext();
 
+    /**
+     * Returns a cursor over the links of the mapping, which visits them without creating mapping elements.
+     * By default the cursor walks the elements of the iterator. Mappings which can visit their links without
+     * creating elements should override this method.
+     *
+     * @return a cursor over the links of the mapping
+     */
+    default IMappingCursor<T> cursor() {
+        final Iterator<IMappingElement<T>> i = iterator();
+        return new IMappingCursor<T>() {
+            private IMappingElement<T> current;
+
+            public boolean next() {
+                current = i.hasNext() ? i.next() : null;
+                return null != current;
+            }
+
+            public T getSource() {
+                return current.getSource();
+            }
+
+            public T getTarget() {
+                return current.getTarget();
+            }
+
+            public char getRelation() {
+                return current.getRelation();
+            }
+        };
+    }
 }
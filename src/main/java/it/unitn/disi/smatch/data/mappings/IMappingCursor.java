@@ -0,0 +1,40 @@
+package it.unitn.disi.smatch.data.mappings;
+
+/**
+ * A cursor over the links of a mapping. Unlike an iterator, it does not create an element for each link, the same
+ * cursor is moved from link to link. The cursor is positioned before the first link.
+ * <p/>
+ * The mapping should not be modified while the cursor is used.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public interface IMappingCursor<T> {
+
+    /**
+     * Moves the cursor to the next link.
+     *
+     * @return true if the cursor is at a link, false if there are no more links
+     */
+    boolean next();
+
+    /**
+     * Returns the source of the current link.
+     *
+     * @return the source of the current link
+     */
+    T getSource();
+
+    /**
+     * Returns the target of the current link.
+     *
+     * @return the target of the current link
+     */
+    T getTarget();
+
+    /**
+     * Returns the relation of the current link.
+     *
+     * @return the relation of the current link
+     */
+    char getRelation();
+}
@@ -0,0 +1,467 @@
+package it.unitn.disi.smatch.data.mappings;
+
+import it.unitn.disi.common.components.Configurable;
+import it.unitn.disi.common.components.ConfigurableException;
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.matrices.IIndexedObject;
+import it.unitn.disi.smatch.data.trees.IContext;
+import it.unitn.disi.smatch.data.trees.INode;
+
+import java.util.*;
+
+/**
+ * Mapping for sparse mappings, such as loaded or filtered ones. Keeps the links in an open-addressing hash table
+ * keyed by (source index &lt;&lt; 32) + target index, with relations in a parallel byte array. A link takes about
+ * 12-24 bytes, instead of about a hundred bytes of {@link HashMapping}.
+ * <p/>
+ * Links are iterated ordered by source and target indexes. The links of a source or a target are found by a binary
+ * search in the keys sorted by source or by target, which are cached until the mapping is modified. The mapping is not
+ * synchronized.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class IndexedHashMapping<T extends IIndexedObject> extends BaseMapping<T> implements IContextMapping<T>, IMappingFactory {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    protected Properties properties;
+
+    private T[] sources;
+    private T[] targets;
+
+    // 0 relation marks an empty slot
+    private long[] keys;
+    private byte[] relations;
+    private int mask;
+    private int elementCount;
+
+    // keys in order, cached until the mapping is modified
+    private long[] sortedKeys;
+    // keys with swapped halves, (target index << 32) + source index, in order, cached until the mapping is modified
+    private long[] sortedTargetKeys;
+
+    private transient int modCount;
+
+    private class IndexedHashMappingCursor implements IMappingCursor<T> {
+
+        private final long[] order = getSortedKeys();
+        private int position = -1;
+        private long key;
+        private char relation;
+
+        public boolean next() {
+            while (position + 1 < order.length) {
+                position++;
+                key = order[position];
+                // the link might have been removed through an iterator
+                relation = IndexedHashMapping.this.getRelation(key);
+                if (IMappingElement.IDK != relation) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public T getSource() {
+            return sources[(int) (key >>> 32)];
+        }
+
+        public T getTarget() {
+            return targets[(int) key];
+        }
+
+        public char getRelation() {
+            return relation;
+        }
+    }
+
+    private class IndexedHashMappingIterator implements Iterator<IMappingElement<T>> {
+
+        private int expectedModCount;
+        private final IndexedHashMappingCursor cursor;
+        private IMappingElement<T> next;
+        private IMappingElement<T> current;
+
+        private IndexedHashMappingIterator() {
+            expectedModCount = modCount;
+            cursor = new IndexedHashMappingCursor();
+            next = findNext();
+        }
+
+        public boolean hasNext() {
+            return null != next;
+        }
+
+        public IMappingElement<T> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (null == next) {
+                throw new NoSuchElementException();
+            }
+
+            current = next;
+            next = findNext();
+            return current;
+        }
+
+        public void remove() {
+            if (null == current) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            setRelation(current.getSource(), current.getTarget(), IMappingElement.IDK);
+            expectedModCount = modCount;
+            current = null;
+        }
+
+        private IMappingElement<T> findNext() {
+            IMappingElement<T> result = null;
+            if (cursor.next()) {
+                result = new MappingElement<T>(cursor.getSource(), cursor.getTarget(), cursor.getRelation());
+            }
+            return result;
+        }
+    }
+
+    public IndexedHashMapping() {
+        properties = new Properties();
+    }
+
+    public IndexedHashMapping(Properties properties) {
+        this.properties = properties;
+    }
+
+    @SuppressWarnings("unchecked")
+    public IndexedHashMapping(IContext sourceContext, IContext targetContext) {
+        this();
+        this.sourceContext = sourceContext;
+        this.targetContext = targetContext;
+        // counts and indexes them
+        sources = (T[]) new IIndexedObject[getRowCount(sourceContext)];
+        targets = (T[]) new IIndexedObject[getColCount(targetContext)];
+
+        initRows(sourceContext, sources);
+        initCols(targetContext, targets);
+
+        initTable(INITIAL_CAPACITY);
+    }
+
+    protected void initCols(IContext targetContext, IIndexedObject[] targets) {
+        // void
+    }
+
+    protected void initRows(IContext sourceContext, IIndexedObject[] sources) {
+        // void
+    }
+
+    protected int getColCount(IContext c) {
+        return -1;
+    }
+
+    protected int getRowCount(IContext c) {
+        return -1;
+    }
+
+    public Properties getProperties() {
+        return properties;
+    }
+
+    public boolean setProperties(Properties newProperties) throws ConfigurableException {
+        boolean result = !newProperties.equals(properties);
+        if (result) {
+            properties.clear();
+            properties.putAll(newProperties);
+        }
+        return result;
+    }
+
+    public boolean setProperties(String fileName) throws ConfigurableException {
+        return setProperties(Configurable.loadProperties(fileName));
+    }
+
+    public IContextMapping<INode> getContextMappingInstance(IContext source, IContext target) {
+        return new NodesHashMapping(source, target);
+    }
+
+    public IContextMapping<IAtomicConceptOfLabel> getACoLMappingInstance(IContext source, IContext target) {
+        return new ACoLHashMapping(source, target);
+    }
+
+    public char getRelation(T source, T target) {
+        if (isSource(source) && isTarget(target)) {
+            return getRelation(getKey(source.getIndex(), target.getIndex()));
+        }
+        return IMappingElement.IDK;
+    }
+
+    public boolean setRelation(final T source, final T target, final char relation) {
+        if (!isSource(source) || !isTarget(target)) {
+            return false;
+        }
+        if (relation < 1 || Byte.MAX_VALUE < relation) {
+            throw new IllegalArgumentException("Unsupported relation: " + relation);
+        }
+
+        final long key = getKey(source.getIndex(), target.getIndex());
+        final int slot = findSlot(key);
+        if (0 == relations[slot]) {
+            if (IMappingElement.IDK == relation) {
+                return false;
+            }
+            keys[slot] = key;
+            relations[slot] = (byte) relation;
+            elementCount++;
+            if (relations.length * 3 <= elementCount * 4) {
+                initTable(2 * relations.length);
+            }
+        } else if (IMappingElement.IDK == relation) {
+            removeSlot(slot);
+            elementCount--;
+        } else if (relation != relations[slot]) {
+            relations[slot] = (byte) relation;
+        } else {
+            return false;
+        }
+        modified();
+        return true;
+    }
+
+    public List<IMappingElement<T>> getSources(final T source) {
+        if (isSource(source)) {
+            final int sIdx = source.getIndex();
+            ArrayList<IMappingElement<T>> result = new ArrayList<IMappingElement<T>>();
+            final long[] order = getSortedKeys();
+            for (int i = findFirst(order, sIdx); i < order.length && sIdx == (int) (order[i] >>> 32); i++) {
+                result.add(new MappingElement<T>(source, targets[(int) order[i]], getRelation(order[i])));
+            }
+            return result;
+        } else {
+            return Collections.emptyList();
+        }
+    }
+
+    public List<IMappingElement<T>> getTargets(T target) {
+        if (isTarget(target)) {
+            final int tIdx = target.getIndex();
+            ArrayList<IMappingElement<T>> result = new ArrayList<IMappingElement<T>>();
+            final long[] order = getSortedTargetKeys();
+            for (int i = findFirst(order, tIdx); i < order.length && tIdx == (int) (order[i] >>> 32); i++) {
+                final int sIdx = (int) order[i];
+                result.add(new MappingElement<T>(sources[sIdx], target, getRelation(getKey(sIdx, tIdx))));
+            }
+            return result;
+        } else {
+            return Collections.emptyList();
+        }
+    }
+
+    public int size() {
+        return elementCount;
+    }
+
+    public boolean isEmpty() {
+        return 0 == elementCount;
+    }
+
+    public boolean contains(Object o) {
+        return 0 <= findLink(o);
+    }
+
+    public Iterator<IMappingElement<T>> iterator() {
+        return new IndexedHashMappingIterator();
+    }
+
+    @Override
+    public IMappingCursor<T> cursor() {
+        return new IndexedHashMappingCursor();
+    }
+
+    public boolean add(IMappingElement<T> e) {
+        return setRelation(e.getSource(), e.getTarget(), e.getRelation());
+    }
+
+    public boolean remove(Object o) {
+        final int slot = findLink(o);
+        if (0 <= slot) {
+            removeSlot(slot);
+            elementCount--;
+            modified();
+            return true;
+        }
+        return false;
+    }
+
+    public void clear() {
+        keys = null;
+        relations = null;
+        initTable(INITIAL_CAPACITY);
+        elementCount = 0;
+        modified();
+    }
+
+    private void modified() {
+        modCount++;
+        sortedKeys = null;
+        sortedTargetKeys = null;
+    }
+
+    private boolean isSource(T source) {
+        return 0 <= getIndex(source, sources);
+    }
+
+    private boolean isTarget(T target) {
+        return 0 <= getIndex(target, targets);
+    }
+
+    /**
+     * Returns the index of the object if it is among the objects.
+     *
+     * @param o       object
+     * @param objects sources or targets
+     * @return index or -1
+     */
+    private static int getIndex(Object o, IIndexedObject[] objects) {
+        if (o instanceof IIndexedObject) {
+            final int index = ((IIndexedObject) o).getIndex();
+            if (0 <= index && index < objects.length && o == objects[index]) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the slot of the link if the object is a link of the mapping.
+     *
+     * @param o object
+     * @return slot or -1
+     */
+    private int findLink(Object o) {
+        if (o instanceof IMappingElement) {
+            final IMappingElement<?> e = (IMappingElement<?>) o;
+            final int sIdx = getIndex(e.getSource(), sources);
+            final int tIdx = getIndex(e.getTarget(), targets);
+            if (0 <= sIdx && 0 <= tIdx && IMappingElement.IDK != e.getRelation()) {
+                final int slot = findSlot(getKey(sIdx, tIdx));
+                if (0 != relations[slot] && e.getRelation() == relations[slot]) {
+                    return slot;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private char getRelation(long key) {
+        final byte relation = relations[findSlot(key)];
+        return 0 == relation ? IMappingElement.IDK : (char) relation;
+    }
+
+    private long[] getSortedKeys() {
+        long[] result = sortedKeys;
+        if (null == result) {
+            result = new long[elementCount];
+            int i = 0;
+            for (int slot = 0; slot < relations.length; slot++) {
+                if (0 != relations[slot]) {
+                    result[i] = keys[slot];
+                    i++;
+                }
+            }
+            Arrays.sort(result);
+            sortedKeys = result;
+        }
+        return result;
+    }
+
+    private long[] getSortedTargetKeys() {
+        long[] result = sortedTargetKeys;
+        if (null == result) {
+            result = new long[elementCount];
+            int i = 0;
+            for (int slot = 0; slot < relations.length; slot++) {
+                if (0 != relations[slot]) {
+                    result[i] = getKey((int) keys[slot], (int) (keys[slot] >>> 32));
+                    i++;
+                }
+            }
+            Arrays.sort(result);
+            sortedTargetKeys = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the position of the first key with the higher half in the sorted keys.
+     *
+     * @param order sorted keys
+     * @param index the higher half of the key
+     * @return position of the first key or of the key following them
+     */
+    private static int findFirst(long[] order, int index) {
+        final int result = Arrays.binarySearch(order, getKey(index, 0));
+        return result < 0 ? -(result + 1) : result;
+    }
+
+    /**
+     * Returns the slot with the key or the empty slot where the key should be.
+     *
+     * @param key key
+     * @return slot
+     */
+    private int findSlot(long key) {
+        int slot = hash(key) & mask;
+        while (0 != relations[slot] && key != keys[slot]) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Empties the slot, moving back the following keys of the probe sequence, so that lookups need no deletion marks.
+     *
+     * @param slot slot to empty
+     */
+    private void removeSlot(int slot) {
+        int hole = slot;
+        int next = (slot + 1) & mask;
+        while (0 != relations[next]) {
+            final int home = hash(keys[next]) & mask;
+            if (((next - hole) & mask) <= ((next - home) & mask)) {
+                keys[hole] = keys[next];
+                relations[hole] = relations[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        relations[hole] = 0;
+    }
+
+    private void initTable(int capacity) {
+        final long[] oldKeys = keys;
+        final byte[] oldRelations = relations;
+        keys = new long[capacity];
+        relations = new byte[capacity];
+        mask = capacity - 1;
+        if (null != oldRelations) {
+            for (int i = 0; i < oldRelations.length; i++) {
+                if (0 != oldRelations[i]) {
+                    final int slot = findSlot(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    relations[slot] = oldRelations[i];
+                }
+            }
+        }
+    }
+
+    private static long getKey(int source, int target) {
+        return ((long) source << 32) | (target & 0xFFFFFFFFL);
+    }
+
+    private static int hash(long key) {
+        key = (key ^ (key >>> 33)) * 0xFF51AFD7ED558CCDL;
+        return (int) (key ^ (key >>> 33));
+    }
+}
@@ -6,15 +6,21 @@ import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
 import it.unitn.disi.smatch.data.matrices.IIndexedObject;
 import it.unitn.disi.smatch.data.matrices.IMatchMatrix;
 import it.unitn.disi.smatch.data.matrices.IMatchMatrixFactory;
+import it.unitn.disi.smatch.data.matrices.ISparseMatchMatrix;
+import it.unitn.disi.smatch.data.matrices.MappedMatchMatrix;
 import it.unitn.disi.smatch.data.trees.IContext;
 import it.unitn.disi.smatch.data.trees.INode;
 import org.apache.log4j.Logger;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Manages a mapping using a matrix. Needs a configuration key matchMatrixFactory with a class implementing
  * {@link it.unitn.disi.smatch.data.matrices.IMatchMatrixFactory} to produce matrix instances.
+ * <p/>
+ * Relations of different sources (rows) can be set concurrently, provided the matrix keeps rows independent, as
+ * matrices of this package do. Over an {@link ISparseMatchMatrix} the mapping visits only the stored cells.
  *
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
@@ -29,18 +35,76 @@ public class MatrixMapping<T extends IIndexedObject> extends BaseMapping<T> impl
     protected IMatchMatrix matrix;
 
     // for set size();
-    private int elementCount;
+    private final AtomicInteger elementCount = new AtomicInteger();
 
     private T[] sources;
     private T[] targets;
 
     private volatile transient int modCount;
 
+    private class MatrixMappingCursor implements IMappingCursor<T> {
+
+        private int curRow = -1;
+        // column of the current cell, or its position in a sparse matrix
+        private int curCol = -1;
+        private int rowEnd = 0;
+        private char relation;
+        // relations of the current row
+        private final char[] row;
+        private final ISparseMatchMatrix sparse;
+
+        private MatrixMappingCursor() {
+            if (matrix instanceof ISparseMatchMatrix) {
+                sparse = (ISparseMatchMatrix) matrix;
+                row = null;
+            } else {
+                sparse = null;
+                row = new char[matrix.getY()];
+            }
+        }
+
+        public boolean next() {
+            curCol++;
+            while (true) {
+                while (rowEnd <= curCol) {
+                    curRow++;
+                    if (matrix.getX() <= curRow) {
+                        return false;
+                    }
+                    if (null == sparse) {
+                        matrix.getRow(curRow, row);
+                        curCol = 0;
+                        rowEnd = matrix.getY();
+                    } else {
+                        curCol = sparse.getRowStart(curRow);
+                        rowEnd = sparse.getRowEnd(curRow);
+                    }
+                }
+                relation = null == sparse ? row[curCol] : sparse.getRelation(curRow, curCol);
+                if (IMappingElement.IDK != relation) {
+                    return true;
+                }
+                curCol++;
+            }
+        }
+
+        public T getSource() {
+            return sources[curRow];
+        }
+
+        public T getTarget() {
+            return targets[null == sparse ? curCol : sparse.getColumn(curRow, curCol)];
+        }
+
+        public char getRelation() {
+            return relation;
+        }
+    }
+
     private class MatrixMappingIterator implements Iterator<IMappingElement<T>> {
 
         private int expectedModCount;
-        private int curRow;
-        private int curCol;
+        private MatrixMappingCursor cursor;
         private IMappingElement<T> next;
         private IMappingElement<T> current;
 
@@ -49,8 +113,7 @@ public class MatrixMapping<T extends IIndexedObject> extends BaseMapping<T> impl
             if (0 == size()) {
                 next = null;
             } else {
-                curRow = -1;
-                curCol = matrix.getY() - 1;
+                cursor = new MatrixMappingCursor();
                 next = findNext();
             }
         }
@@ -86,18 +149,8 @@ public class MatrixMapping<T extends IIndexedObject> extends BaseMapping<T> impl
 
         private IMappingElement<T> findNext() {
             IMappingElement<T> result = null;
-            char relation = IMappingElement.IDK;
-            do {
-                curCol++;
-                if (matrix.getY() == curCol) {
-                    curRow++;
-                    curCol = 0;
-                }
-            }
-            while (curRow < matrix.getX() && curCol < matrix.getY() && IMappingElement.IDK == (relation = matrix.get(curRow, curCol)));
-
-            if (IMappingElement.IDK != relation) {
-                result = new MappingElement<T>(sources[curRow], targets[curCol], relation);
+            if (cursor.next()) {
+                result = new MappingElement<T>(cursor.getSource(), cursor.getTarget(), cursor.getRelation());
             }
             return result;
         }
@@ -132,10 +185,70 @@ public class MatrixMapping<T extends IIndexedObject> extends BaseMapping<T> impl
         initRows(sourceContext, sources);
         initCols(targetContext, targets);
 
-        elementCount = 0;
         modCount = 0;
     }
 
+    /**
+     * Creates a mapping over a matrix with relations, for example, a reopened
+     * {@link it.unitn.disi.smatch.data.matrices.MappedMatchMatrix}.
+     *
+     * @param matrix        matrix with relations between sources and targets
+     * @param sourceContext source context
+     * @param targetContext target context
+     */
+    @SuppressWarnings("unchecked")
+    public MatrixMapping(IMatchMatrix matrix, IContext sourceContext, IContext targetContext) {
+        this.sourceContext = sourceContext;
+        this.targetContext = targetContext;
+        this.matrix = matrix;
+        // counts and indexes them
+        int rows = getRowCount(sourceContext);
+        int cols = getColCount(targetContext);
+        if (rows != matrix.getX() || cols != matrix.getY()) {
+            throw new IllegalArgumentException("Matrix " + matrix.getX() + "x" + matrix.getY()
+                    + " does not match the contexts " + rows + "x" + cols);
+        }
+
+        sources = (T[]) new IIndexedObject[rows];
+        targets = (T[]) new IIndexedObject[cols];
+
+        initRows(sourceContext, sources);
+        initCols(targetContext, targets);
+
+        final char[] row = new char[cols];
+        int count = 0;
+        for (int i = 0; i < rows; i++) {
+            matrix.getRow(i, row);
+            for (int j = 0; j < cols; j++) {
+                if (IMappingElement.IDK != row[j]) {
+                    count++;
+                }
+            }
+        }
+        elementCount.set(count);
+
+        modCount = 0;
+    }
+
+    /**
+     * Returns the matrix with relations.
+     *
+     * @return the matrix with relations
+     */
+    public IMatchMatrix getMatrix() {
+        return matrix;
+    }
+
+    /**
+     * Releases the resources held by the matrix, such as the file of a
+     * {@link it.unitn.disi.smatch.data.matrices.MappedMatchMatrix}. The mapping can not be used afterwards.
+     */
+    public void release() {
+        if (matrix instanceof MappedMatchMatrix) {
+            ((MappedMatchMatrix) matrix).release();
+        }
+    }
+
     protected void initCols(IContext targetContext, IIndexedObject[] targets) {
         // void
     }
@@ -174,19 +287,20 @@ public class MatrixMapping<T extends IIndexedObject> extends BaseMapping<T> impl
     }
 
     public boolean setRelation(final T source, final T target, final char relation) {
+        final char oldRelation = matrix.get(source.getIndex(), target.getIndex());
         final boolean result =
                 source == sources[source.getIndex()] &&
                         target == targets[target.getIndex()] &&
-                        relation == matrix.get(source.getIndex(), target.getIndex());
+                        relation == oldRelation;
 
         if (!result) {
             if (source == sources[source.getIndex()] && target == targets[target.getIndex()]) {
                 modCount++;
                 matrix.set(source.getIndex(), target.getIndex(), relation);
                 if (IMappingElement.IDK == relation) {
-                    elementCount--;
-                } else {
-                    elementCount++;
+                    elementCount.decrementAndGet();
+                } else if (IMappingElement.IDK == oldRelation) {
+                    elementCount.incrementAndGet();
                 }
             }
         }
@@ -198,10 +312,22 @@ public class MatrixMapping<T extends IIndexedObject> extends BaseMapping<T> impl
         final int sIdx = source.getIndex();
         if (0 <= sIdx && sIdx < sources.length && (source == sources[sIdx])) {
             ArrayList<IMappingElement<T>> result = new ArrayList<IMappingElement<T>>();
+            if (matrix instanceof ISparseMatchMatrix) {
+                final ISparseMatchMatrix sparse = (ISparseMatchMatrix) matrix;
+                final int end = sparse.getRowEnd(sIdx);
+                for (int k = sparse.getRowStart(sIdx); k < end; k++) {
+                    final char relation = sparse.getRelation(sIdx, k);
+                    if (IMappingElement.IDK != relation) {
+                        result.add(new MappingElement<T>(sources[sIdx], targets[sparse.getColumn(sIdx, k)], relation));
+                    }
+                }
+                return result;
+            }
+            final char[] row = new char[matrix.getY()];
+            matrix.getRow(sIdx, row);
             for (int j = 0; j < targets.length; j++) {
-                char rel = matrix.get(sIdx, j);
-                if (IMappingElement.IDK != rel) {
-                    result.add(new MappingElement<T>(sources[sIdx], targets[j], rel));
+                if (IMappingElement.IDK != row[j]) {
+                    result.add(new MappingElement<T>(sources[sIdx], targets[j], row[j]));
                 }
             }
             return result;
@@ -227,11 +353,11 @@ public class MatrixMapping<T extends IIndexedObject> extends BaseMapping<T> impl
     }
 
     public int size() {
-        return elementCount;
+        return elementCount.get();
     }
 
     public boolean isEmpty() {
-        return 0 == elementCount;
+        return 0 == elementCount.get();
     }
 
     public boolean contains(Object o) {
@@ -255,6 +381,11 @@ public class MatrixMapping<T extends IIndexedObject> extends BaseMapping<T> impl
         return new MatrixMappingIterator();
     }
 
+    @Override
+    public IMappingCursor<T> cursor() {
+        return new MatrixMappingCursor();
+    }
+
     public boolean add(IMappingElement<T> e) {
         return setRelation(e.getSource(), e.getTarget(), e.getRelation());
     }
@@ -282,7 +413,7 @@ public class MatrixMapping<T extends IIndexedObject> extends BaseMapping<T> impl
         final int cols = matrix.getY();
         matrix.init(rows, cols);
 
-        elementCount = 0;
+        elementCount.set(0);
     }
 
     public IContextMapping<INode> getContextMappingInstance(IContext source, IContext target) {
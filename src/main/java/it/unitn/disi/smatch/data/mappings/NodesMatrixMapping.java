@@ -1,6 +1,7 @@
 package it.unitn.disi.smatch.data.mappings;
 
 import it.unitn.disi.smatch.data.matrices.IIndexedObject;
+import it.unitn.disi.smatch.data.matrices.IMatchMatrix;
 import it.unitn.disi.smatch.data.matrices.IMatchMatrixFactory;
 import it.unitn.disi.smatch.data.trees.IContext;
 import it.unitn.disi.smatch.data.trees.INode;
@@ -16,6 +17,10 @@ public class NodesMatrixMapping extends MatrixMapping<INode> {
         super(factory, source, target);
     }
 
+    public NodesMatrixMapping(IMatchMatrix matrix, IContext source, IContext target) {
+        super(matrix, source, target);
+    }
+
     @Override
     protected int getRowCount(IContext c) {
         return getNodeCount(c);
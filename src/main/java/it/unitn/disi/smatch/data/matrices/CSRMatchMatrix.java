@@ -0,0 +1,229 @@
+package it.unitn.disi.smatch.data.matrices;
+
+import it.unitn.disi.common.components.Configurable;
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+
+import java.util.Arrays;
+
+/**
+ * Sparse matrix for matching results, which keeps the cells of each row in the compressed sparse row (CSR) form:
+ * columns and relations sorted by column, found by binary search and read in place through
+ * {@link ISparseMatchMatrix}.
+ * <p/>
+ * Each row is built and sorted on its own. A cell after the last one of the row is appended in place, which is how
+ * rows are usually filled. Other new cells go to a short unsorted buffer at the end of the row, which is merged into
+ * the sorted cells when it grows or when the row is read. Reads and writes may therefore be interleaved without
+ * reorganizing the whole matrix.
+ * <p/>
+ * Rows are locked separately, so different rows can be written from several threads at once.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class CSRMatchMatrix extends Configurable implements ISparseMatchMatrix, IMatchMatrixFactory {
+
+    // rows are locked by stripes
+    private static final int LOCK_COUNT = 64;
+    // the buffer of a row is merged when it is longer than this or than the share of the sorted cells
+    private static final int MIN_BUFFER = 16;
+    private static final int BUFFER_SHARE_SHIFT = 3;
+
+    private int x = 0;
+    private int y = 0;
+
+    // cells of row x: sorted ones are 0..sorted[x], buffered ones are sorted[x]..sizes[x]
+    private int[][] columns = null;
+    private char[][] relations = null;
+    private int[] sorted = null;
+    private int[] sizes = null;
+
+    private final Object[] locks = new Object[LOCK_COUNT];
+
+    public CSRMatchMatrix() {
+        for (int i = 0; i < LOCK_COUNT; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public void init(int x, int y) {
+        this.x = x;
+        this.y = y;
+        columns = new int[x][];
+        relations = new char[x][];
+        sorted = new int[x];
+        sizes = new int[x];
+    }
+
+    public char get(int x, int y) {
+        synchronized (getLock(x)) {
+            final int position = find(x, y);
+            return position < 0 ? IMappingElement.IDK : relations[x][position];
+        }
+    }
+
+    public boolean set(int x, int y, final char value) {
+        synchronized (getLock(x)) {
+            final int position = find(x, y);
+            if (0 <= position) {
+                final char oldValue = relations[x][position];
+                relations[x][position] = value;
+                return oldValue != value;
+            }
+            if (IMappingElement.IDK == value) {
+                return false;
+            }
+            append(x, y, value);
+            return true;
+        }
+    }
+
+    public void getRow(int x, char[] row) {
+        synchronized (getLock(x)) {
+            merge(x);
+            Arrays.fill(row, 0, y, IMappingElement.IDK);
+            for (int k = 0; k < sizes[x]; k++) {
+                row[columns[x][k]] = relations[x][k];
+            }
+        }
+    }
+
+    public void setRow(int x, char[] row) {
+        synchronized (getLock(x)) {
+            for (int j = 0; j < y; j++) {
+                set(x, j, row[j]);
+            }
+        }
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getRowStart(int x) {
+        synchronized (getLock(x)) {
+            merge(x);
+            return 0;
+        }
+    }
+
+    public int getRowEnd(int x) {
+        synchronized (getLock(x)) {
+            merge(x);
+            return sizes[x];
+        }
+    }
+
+    public int getColumn(int x, int position) {
+        return columns[x][position];
+    }
+
+    public char getRelation(int x, int position) {
+        return relations[x][position];
+    }
+
+    public IMatchMatrix getInstance() {
+        return new CSRMatchMatrix();
+    }
+
+    /**
+     * Merges the buffered cells of all rows, so that the rows can be read from several threads without modifying
+     * them.
+     */
+    public void freeze() {
+        for (int i = 0; i < x; i++) {
+            synchronized (getLock(i)) {
+                merge(i);
+            }
+        }
+    }
+
+    private Object getLock(int x) {
+        return locks[x & (LOCK_COUNT - 1)];
+    }
+
+    private int find(int x, int y) {
+        if (null == columns[x]) {
+            return -1;
+        }
+        final int position = Arrays.binarySearch(columns[x], 0, sorted[x], y);
+        if (0 <= position) {
+            return position;
+        }
+        for (int k = sorted[x]; k < sizes[x]; k++) {
+            if (y == columns[x][k]) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    private void append(int x, int y, char value) {
+        if (null == columns[x]) {
+            columns[x] = new int[4];
+            relations[x] = new char[4];
+        } else if (columns[x].length == sizes[x]) {
+            columns[x] = Arrays.copyOf(columns[x], 2 * sizes[x]);
+            relations[x] = Arrays.copyOf(relations[x], 2 * sizes[x]);
+        }
+        final int size = sizes[x];
+        columns[x][size] = y;
+        relations[x][size] = value;
+        sizes[x] = size + 1;
+        if (sorted[x] == size && (0 == size || columns[x][size - 1] < y)) {
+            // in order, extends the sorted cells
+            sorted[x] = size + 1;
+        } else if (Math.max(MIN_BUFFER, sorted[x] >>> BUFFER_SHARE_SHIFT) < sizes[x] - sorted[x]) {
+            merge(x);
+        }
+    }
+
+    /**
+     * Merges the buffered cells of the row into the sorted ones and drops cells with the IDK relation.
+     *
+     * @param x row
+     */
+    private void merge(int x) {
+        final int size = sizes[x];
+        if (sorted[x] == size) {
+            return;
+        }
+        // column and relation of each buffered cell
+        final int bufferSize = size - sorted[x];
+        final long[] buffer = new long[bufferSize];
+        for (int k = 0; k < bufferSize; k++) {
+            buffer[k] = ((long) columns[x][sorted[x] + k] << 16) | relations[x][sorted[x] + k];
+        }
+        Arrays.sort(buffer);
+
+        final int[] newColumns = new int[Math.max(4, size)];
+        final char[] newRelations = new char[newColumns.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < sorted[x] || j < bufferSize) {
+            final int column;
+            final char relation;
+            if (j == bufferSize || (i < sorted[x] && columns[x][i] < (int) (buffer[j] >>> 16))) {
+                column = columns[x][i];
+                relation = relations[x][i];
+                i++;
+            } else {
+                column = (int) (buffer[j] >>> 16);
+                relation = (char) buffer[j];
+                j++;
+            }
+            if (IMappingElement.IDK != relation) {
+                newColumns[count] = column;
+                newRelations[count] = relation;
+                count++;
+            }
+        }
+        columns[x] = newColumns;
+        relations[x] = newRelations;
+        sorted[x] = count;
+        sizes[x] = count;
+    }
+}
@@ -35,6 +35,32 @@ public interface IMatchMatrix {
      */
     boolean set(int x, int y, char value);
 
+    /**
+     * Copies a row into an array. By default reads the row element by element, implementations override it with
+     * bulk copies.
+     *
+     * @param x   row
+     * @param row an array at least as long as the column count
+     */
+    default void getRow(int x, char[] row) {
+        for (int j = 0; j < getY(); j++) {
+            row[j] = get(x, j);
+        }
+    }
+
+    /**
+     * Sets a row from an array. By default writes the row element by element, implementations override it with
+     * bulk copies.
+     *
+     * @param x   row
+     * @param row an array at least as long as the column count
+     */
+    default void setRow(int x, char[] row) {
+        for (int j = 0; j < getY(); j++) {
+            set(x, j, row[j]);
+        }
+    }
+
     /**
      * Returns row count.
      *
@@ -0,0 +1,45 @@
+package it.unitn.disi.smatch.data.matrices;
+
+/**
+ * An interface to a matrix with matching results which keeps only the cells with relations, row by row. The cells of
+ * row x have positions from getRowStart(x) to getRowEnd(x), sorted by column, and can be read without copying.
+ * Positions are valid until the matrix is modified. Cells might hold the IDK relation.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public interface ISparseMatchMatrix extends IMatchMatrix {
+
+    /**
+     * Returns the position of the first cell of the row.
+     *
+     * @param x row
+     * @return position of the first cell of the row
+     */
+    int getRowStart(int x);
+
+    /**
+     * Returns the position after the last cell of the row.
+     *
+     * @param x row
+     * @return position after the last cell of the row
+     */
+    int getRowEnd(int x);
+
+    /**
+     * Returns the column of the cell.
+     *
+     * @param x        row
+     * @param position cell position
+     * @return column
+     */
+    int getColumn(int x, int position);
+
+    /**
+     * Returns the relation of the cell.
+     *
+     * @param x        row
+     * @param position cell position
+     * @return relation
+     */
+    char getRelation(int x, int position);
+}
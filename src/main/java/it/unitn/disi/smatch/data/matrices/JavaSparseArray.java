@@ -117,6 +117,39 @@ public class JavaSparseArray extends Configurable implements IMatchMatrix, IMatc
         return result;
     }
 
+    public void getRow(int x, char[] row) {
+        Arrays.fill(row, 0, cols, IMappingElement.IDK);
+        if (null != index[x]) {
+            for (int k = 0; k < index[x].length; k++) {
+                row[index[x][k]] = value[x][k];
+            }
+        }
+    }
+
+    public void setRow(int x, char[] row) {
+        int count = 0;
+        for (int j = 0; j < cols; j++) {
+            if (IMappingElement.IDK != row[j]) {
+                count++;
+            }
+        }
+        if (0 == count) {
+            index[x] = null;
+            value[x] = null;
+        } else {
+            index[x] = new int[count];
+            value[x] = new char[count];
+            int k = 0;
+            for (int j = 0; j < cols; j++) {
+                if (IMappingElement.IDK != row[j]) {
+                    index[x][k] = j;
+                    value[x][k] = row[j];
+                    k++;
+                }
+            }
+        }
+    }
+
     public int getX() {
         return rows;
     }
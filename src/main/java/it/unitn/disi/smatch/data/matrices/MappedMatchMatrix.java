@@ -0,0 +1,301 @@
+package it.unitn.disi.smatch.data.matrices;
+
+import it.unitn.disi.common.components.Configurable;
+import it.unitn.disi.common.components.ConfigurableException;
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * Matrix for matching results kept in a memory-mapped file instead of the heap, for mappings larger than the heap
+ * or the memory. Relations are packed as in {@link PackedMatchMatrix}, 4 bits per cell, and the file is mapped in
+ * chunks, therefore the matrix can be larger than 2 GB. The operating system pages the matrix in and out.
+ * <p/>
+ * Accepts the following configuration parameters:
+ * <p/>
+ * directory - where the matrix files are created, by default the temporary directory. The files are deleted when
+ * the matrix is released with {@link #release()}, or on exit.
+ * <p/>
+ * chunkSize - size of the mapped chunks in bytes, a power of two, 1 GB by default.
+ * <p/>
+ * A computed matrix can be saved with {@link #save(String)} and reopened with {@link #open(String)}. A reopened matrix
+ * is not deleted on release.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class MappedMatchMatrix extends Configurable implements IMatchMatrix, IMatchMatrixFactory {
+
+    private static final Logger log = Logger.getLogger(MappedMatchMatrix.class);
+
+    private static final String DIRECTORY_KEY = "directory";
+    private String directory = System.getProperty("java.io.tmpdir");
+
+    private static final String CHUNK_SIZE_KEY = "chunkSize";
+    private static final int MAX_CHUNK_SIZE = 1 << 30;
+    private int chunkSize = MAX_CHUNK_SIZE;
+
+    // "SMMATRIX" little-endian, followed by version, rows and columns
+    private static final long MAGIC = 0x58495254414D4D53L;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+
+    private File file = null;
+    // whether the file was created by the matrix and is deleted on release
+    private boolean temporary = false;
+    private int x = 0;
+    private int y = 0;
+    private int wordsPerRow = 0;
+
+    // words of the matrix in chunks of 2^chunkWordBits words
+    private int chunkWordBits;
+    private long chunkWordMask;
+    private MappedByteBuffer[] buffers = null;
+    private LongBuffer[] chunks = null;
+
+    public MappedMatchMatrix() {
+        setChunkSize(MAX_CHUNK_SIZE);
+    }
+
+    private MappedMatchMatrix(String directory, int chunkSize) {
+        this.directory = directory;
+        setChunkSize(chunkSize);
+    }
+
+    @Override
+    public boolean setProperties(Properties newProperties) throws ConfigurableException {
+        boolean result = super.setProperties(newProperties);
+        if (result) {
+            if (newProperties.containsKey(DIRECTORY_KEY)) {
+                directory = newProperties.getProperty(DIRECTORY_KEY);
+            }
+
+            if (newProperties.containsKey(CHUNK_SIZE_KEY)) {
+                final int newChunkSize = Integer.parseInt(newProperties.getProperty(CHUNK_SIZE_KEY));
+                if (newChunkSize < 8 || MAX_CHUNK_SIZE < newChunkSize || 0 != (newChunkSize & (newChunkSize - 1))) {
+                    final String errMessage = "Chunk size should be a power of two between 8 and " + MAX_CHUNK_SIZE + ": " + newChunkSize;
+                    log.error(errMessage);
+                    throw new ConfigurableException(errMessage);
+                }
+                setChunkSize(newChunkSize);
+            }
+        }
+        return result;
+    }
+
+    public void init(int x, int y) {
+        try {
+            final File newFile = File.createTempFile("matrix", ".smm", new File(directory));
+            newFile.deleteOnExit();
+            map(newFile, x, y, true);
+            // the old file is not needed, mapped pages stay valid until they are collected
+            deleteFile();
+            file = newFile;
+            temporary = true;
+        } catch (IOException e) {
+            final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error(errMessage, e);
+            throw new IllegalStateException(errMessage, e);
+        }
+    }
+
+    public char get(int x, int y) {
+        final long index = (long) x * wordsPerRow + (y >>> PackedMatchMatrix.WORD_SHIFT);
+        final long word = chunks[(int) (index >>> chunkWordBits)].get((int) (index & chunkWordMask));
+        return PackedMatchMatrix.RELATIONS[(int) ((word >>> ((y & PackedMatchMatrix.CELL_INDEX_MASK) << 2)) & PackedMatchMatrix.CELL_MASK)];
+    }
+
+    public boolean set(int x, int y, final char value) {
+        final long code = PackedMatchMatrix.getCode(value);
+        final long index = (long) x * wordsPerRow + (y >>> PackedMatchMatrix.WORD_SHIFT);
+        final LongBuffer chunk = chunks[(int) (index >>> chunkWordBits)];
+        final int offset = (int) (index & chunkWordMask);
+        final int shift = (y & PackedMatchMatrix.CELL_INDEX_MASK) << 2;
+        final long word = chunk.get(offset);
+        final long newWord = (word & ~(PackedMatchMatrix.CELL_MASK << shift)) | (code << shift);
+        chunk.put(offset, newWord);
+        return word != newWord;
+    }
+
+    public void getRow(int x, char[] row) {
+        long index = (long) x * wordsPerRow;
+        for (int start = 0; start < y; start += PackedMatchMatrix.CELLS_PER_WORD) {
+            long word = chunks[(int) (index >>> chunkWordBits)].get((int) (index & chunkWordMask));
+            index++;
+            final int end = Math.min(y, start + PackedMatchMatrix.CELLS_PER_WORD);
+            if (0 == word) {
+                Arrays.fill(row, start, end, IMappingElement.IDK);
+            } else {
+                for (int j = start; j < end; j++) {
+                    row[j] = PackedMatchMatrix.RELATIONS[(int) (word & PackedMatchMatrix.CELL_MASK)];
+                    word = word >>> PackedMatchMatrix.BITS;
+                }
+            }
+        }
+    }
+
+    public void setRow(int x, char[] row) {
+        long index = (long) x * wordsPerRow;
+        for (int start = 0; start < y; start += PackedMatchMatrix.CELLS_PER_WORD) {
+            final int end = Math.min(y, start + PackedMatchMatrix.CELLS_PER_WORD);
+            long word = 0;
+            for (int j = end - 1; j >= start; j--) {
+                word = (word << PackedMatchMatrix.BITS) | PackedMatchMatrix.getCode(row[j]);
+            }
+            chunks[(int) (index >>> chunkWordBits)].put((int) (index & chunkWordMask), word);
+            index++;
+        }
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public IMatchMatrix getInstance() {
+        return new MappedMatchMatrix(directory, chunkSize);
+    }
+
+    /**
+     * Returns the file with the matrix.
+     *
+     * @return the file with the matrix
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Writes the changes of the matrix to the file.
+     */
+    public void flush() {
+        if (null != buffers) {
+            for (MappedByteBuffer buffer : buffers) {
+                buffer.force();
+            }
+        }
+    }
+
+    /**
+     * Releases the matrix: unmaps it and deletes its file, unless the matrix was opened from a saved file. The matrix
+     * can not be used afterwards, until it is initialized again.
+     */
+    public void release() {
+        buffers = null;
+        chunks = null;
+        x = 0;
+        y = 0;
+        wordsPerRow = 0;
+        deleteFile();
+        file = null;
+    }
+
+    /**
+     * Saves a copy of the matrix, which can be reopened with {@link #open(String)}.
+     *
+     * @param fileName where to save the matrix
+     * @throws IOException IOException
+     */
+    public void save(String fileName) throws IOException {
+        flush();
+        Files.copy(file.toPath(), new File(fileName).toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Opens a saved matrix. Changes of the matrix are written into the file.
+     *
+     * @param fileName file with the matrix
+     * @return the matrix
+     * @throws IOException IOException
+     */
+    public static MappedMatchMatrix open(String fileName) throws IOException {
+        final File matrixFile = new File(fileName);
+        final int rows;
+        final int cols;
+        RandomAccessFile raf = new RandomAccessFile(matrixFile, "r");
+        try {
+            if (raf.length() < HEADER_SIZE || MAGIC != Long.reverseBytes(raf.readLong())) {
+                throw new IOException("Not a matrix file: " + fileName);
+            }
+            final int version = Integer.reverseBytes(raf.readInt());
+            if (VERSION != version) {
+                throw new IOException("Unsupported version of matrix file " + fileName + ": " + version);
+            }
+            rows = Integer.reverseBytes(raf.readInt());
+            cols = Integer.reverseBytes(raf.readInt());
+        } finally {
+            raf.close();
+        }
+
+        MappedMatchMatrix result = new MappedMatchMatrix();
+        result.map(matrixFile, rows, cols, false);
+        result.file = matrixFile;
+        return result;
+    }
+
+    private void deleteFile() {
+        // on some systems a mapped file can not be deleted, then it is deleted on exit
+        if (null != file && temporary && !file.delete()) {
+            log.warn("Cannot delete " + file);
+        }
+        temporary = false;
+    }
+
+    private void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+        chunkWordBits = Integer.numberOfTrailingZeros(chunkSize / 8);
+        chunkWordMask = (1L << chunkWordBits) - 1;
+    }
+
+    private void map(File matrixFile, int x, int y, boolean create) throws IOException {
+        final int newWordsPerRow = (y + PackedMatchMatrix.CELLS_PER_WORD - 1) / PackedMatchMatrix.CELLS_PER_WORD;
+        final long words = (long) x * newWordsPerRow;
+        final long dataSize = 8 * words;
+
+        RandomAccessFile raf = new RandomAccessFile(matrixFile, "rw");
+        try {
+            if (create) {
+                raf.writeLong(Long.reverseBytes(MAGIC));
+                raf.writeInt(Integer.reverseBytes(VERSION));
+                raf.writeInt(Integer.reverseBytes(x));
+                raf.writeInt(Integer.reverseBytes(y));
+                // the file is sparse and reads as zeros, that is IDK
+                raf.setLength(HEADER_SIZE + dataSize);
+            } else if (raf.length() < HEADER_SIZE + dataSize) {
+                throw new IOException("Matrix file is truncated: " + matrixFile);
+            }
+
+            final int chunkCount = (int) ((words + chunkWordMask) >>> chunkWordBits);
+            final MappedByteBuffer[] newBuffers = new MappedByteBuffer[chunkCount];
+            final LongBuffer[] newChunks = new LongBuffer[chunkCount];
+            final FileChannel channel = raf.getChannel();
+            for (int i = 0; i < chunkCount; i++) {
+                final long position = HEADER_SIZE + ((long) i << chunkWordBits) * 8;
+                final long size = Math.min((long) chunkSize, HEADER_SIZE + dataSize - position);
+                newBuffers[i] = channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+                newChunks[i] = newBuffers[i].order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            }
+
+            buffers = newBuffers;
+            chunks = newChunks;
+            wordsPerRow = newWordsPerRow;
+            this.x = x;
+            this.y = y;
+        } finally {
+            raf.close();
+        }
+    }
+}
@@ -37,6 +37,14 @@ public class MatchMatrix extends Configurable implements IMatchMatrix, IMatchMat
         return result;
     }
 
+    public void getRow(int x, char[] row) {
+        System.arraycopy(matrix[x], 0, row, 0, y);
+    }
+
+    public void setRow(int x, char[] row) {
+        System.arraycopy(row, 0, matrix[x], 0, y);
+    }
+
     public int getX() {
         return x;
     }
@@ -0,0 +1,127 @@
+package it.unitn.disi.smatch.data.matrices;
+
+import it.unitn.disi.common.components.Configurable;
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+
+import java.util.Arrays;
+
+/**
+ * Matrix for matching results which packs relations into 4 bits per cell of a single long array, 16 cells per long,
+ * instead of a char per cell in an array per row. Rows are laid out one after another and start at a long boundary,
+ * therefore different rows can be written concurrently.
+ * <p/>
+ * Only the relations of {@link IMappingElement} can be stored.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class PackedMatchMatrix extends Configurable implements IMatchMatrix, IMatchMatrixFactory {
+
+    static final int BITS = 4;
+    static final int CELLS_PER_WORD = Long.SIZE / BITS;
+    // column to word and cell in the word
+    static final int WORD_SHIFT = 4;
+    static final int CELL_INDEX_MASK = CELLS_PER_WORD - 1;
+    static final long CELL_MASK = (1L << BITS) - 1;
+
+    // IDK has code 0, so a new array is filled with IDK
+    static final char[] RELATIONS = {
+            IMappingElement.IDK,
+            IMappingElement.EQUIVALENCE,
+            IMappingElement.LESS_GENERAL,
+            IMappingElement.MORE_GENERAL,
+            IMappingElement.DISJOINT,
+            IMappingElement.ENTAILED_LESS_GENERAL,
+            IMappingElement.ENTAILED_MORE_GENERAL,
+            IMappingElement.ENTAILED_DISJOINT
+    };
+
+    private static final byte[] CODES = new byte[128];
+
+    static {
+        Arrays.fill(CODES, (byte) -1);
+        for (int i = 0; i < RELATIONS.length; i++) {
+            CODES[RELATIONS[i]] = (byte) i;
+        }
+    }
+
+    private int x = 0;
+    private int y = 0;
+    private int wordsPerRow = 0;
+    private long[] words = null;
+
+    public void init(int x, int y) {
+        wordsPerRow = (y + CELLS_PER_WORD - 1) / CELLS_PER_WORD;
+        final long length = (long) x * (long) wordsPerRow;
+        if (Integer.MAX_VALUE - 8 < length) {
+            throw new IllegalArgumentException("Matrix is too large: " + x + "x" + y);
+        }
+        words = new long[(int) length];
+        this.x = x;
+        this.y = y;
+    }
+
+    public char get(int x, int y) {
+        final long word = words[x * wordsPerRow + (y >>> WORD_SHIFT)];
+        return RELATIONS[(int) ((word >>> ((y & CELL_INDEX_MASK) << 2)) & CELL_MASK)];
+    }
+
+    public boolean set(int x, int y, final char value) {
+        final long code = getCode(value);
+        final int index = x * wordsPerRow + (y >>> WORD_SHIFT);
+        final int shift = (y & CELL_INDEX_MASK) << 2;
+        final long word = words[index];
+        final long newWord = (word & ~(CELL_MASK << shift)) | (code << shift);
+        words[index] = newWord;
+        return word != newWord;
+    }
+
+    public void getRow(int x, char[] row) {
+        int index = x * wordsPerRow;
+        for (int start = 0; start < y; start += CELLS_PER_WORD) {
+            long word = words[index];
+            index++;
+            final int end = Math.min(y, start + CELLS_PER_WORD);
+            if (0 == word) {
+                Arrays.fill(row, start, end, IMappingElement.IDK);
+            } else {
+                for (int j = start; j < end; j++) {
+                    row[j] = RELATIONS[(int) (word & CELL_MASK)];
+                    word = word >>> BITS;
+                }
+            }
+        }
+    }
+
+    public void setRow(int x, char[] row) {
+        int index = x * wordsPerRow;
+        for (int start = 0; start < y; start += CELLS_PER_WORD) {
+            final int end = Math.min(y, start + CELLS_PER_WORD);
+            long word = 0;
+            for (int j = end - 1; j >= start; j--) {
+                word = (word << BITS) | getCode(row[j]);
+            }
+            words[index] = word;
+            index++;
+        }
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public IMatchMatrix getInstance() {
+        return new PackedMatchMatrix();
+    }
+
+    static long getCode(char value) {
+        final int code = value < CODES.length ? CODES[value] : -1;
+        if (code < 0) {
+            throw new IllegalArgumentException("Unsupported relation: " + value);
+        }
+        return code;
+    }
+}
@@ -11,19 +11,22 @@ import java.util.List;
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
 @SuppressWarnings({"unchecked"})
-public class BaseContext<E extends IBaseNode> implements IBaseContext<E>, IBaseTreeStructureChangedListener<E> {
+public class BaseContext<E extends IBaseNode<E, ?>> implements IBaseContext<E>, IBaseTreeStructureChangedListener<E> {
 
     protected E root;
     protected ArrayList<E> nodes;
+    protected TreeIndex<E> treeIndex;
 
     public BaseContext() {
         root = null;
         nodes = null;
+        treeIndex = null;
     }
 
     public void setRoot(E root) {
         this.root = root;
         root.addTreeStructureChangedListener(this);
+        treeStructureChanged(root);
     }
 
     public E getRoot() {
@@ -45,6 +48,7 @@ public class BaseContext<E extends IBaseNode> implements IBaseContext<E>, IBaseT
     public E createRoot() {
         root = (E) new BaseNode();
         root.addTreeStructureChangedListener(this);
+        treeStructureChanged(root);
         return root;
     }
 
@@ -69,7 +73,7 @@ public class BaseContext<E extends IBaseNode> implements IBaseContext<E>, IBaseT
             if (hasRoot()) {
                 nodes = new ArrayList<E>();
                 nodes.add(root);
-                nodes.addAll(root.getDescendantsList());
+                addDescendants(root, nodes);
                 nodes.trimToSize();
                 return Collections.unmodifiableList(nodes);
             } else {
@@ -78,8 +82,33 @@ public class BaseContext<E extends IBaseNode> implements IBaseContext<E>, IBaseT
         }
     }
 
+    /**
+     * Adds descendants in the order of {@link IBaseNode#getDescendantsList()}, without caching the lists in the nodes.
+     *
+     * @param node   a node
+     * @param result list to add the descendants to
+     */
+    private void addDescendants(E node, List<E> result) {
+        final List<E> children = node.getChildrenList();
+        result.addAll(children);
+        for (E child : children) {
+            addDescendants(child, result);
+        }
+    }
+
+    public TreeIndex<E> getTreeIndex() {
+        TreeIndex<E> result = treeIndex;
+        if (null == result) {
+            // the index is immutable, so it is safe to read it from several threads
+            result = new TreeIndex<E>(root);
+            treeIndex = result;
+        }
+        return result;
+    }
+
     public void treeStructureChanged(E node) {
         nodes = null;
+        treeIndex = null;
     }
 
     public void trim() {
@@ -443,7 +443,25 @@ public class BaseNode<E extends IBaseNode, I extends IBaseNodeData> extends Inde
         }
     }
 
+    /**
+     * Makes room for a number of children, to avoid growing the list of children one by one.
+     *
+     * @param capacity the expected number of children
+     */
+    public void ensureChildrenCapacity(int capacity) {
+        if (null == children) {
+            if (0 < capacity) {
+                children = new ArrayList<E>(capacity);
+            }
+        } else {
+            children.ensureCapacity(capacity);
+        }
+    }
+
     public void trim() {
+        // cached lists are rebuilt on demand
+        ancestors = null;
+        descendants = null;
         if (null != children) {
             children.trimToSize();
             for (IBaseNode child : children) {
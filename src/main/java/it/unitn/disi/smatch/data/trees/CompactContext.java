@@ -0,0 +1,558 @@
+package it.unitn.disi.smatch.data.trees;
+
+import it.unitn.disi.smatch.data.formulas.CNFFormula;
+import it.unitn.disi.smatch.data.ling.AtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Context which stores the tree in columns instead of node objects. Structure is kept in int arrays of parents,
+ * first and last children and next siblings, names and provenances are numbers in a pool of unique strings, and
+ * formulas are ranges of a single char buffer shared by all nodes. Nodes are {@link CompactNode} views, which hold
+ * only a node number, therefore a large context takes several times less memory than with {@link Node} objects,
+ * which carry their own lists and strings.
+ * <p/>
+ * Nodes of the context can be moved only within the context. Storage of removed nodes is not reclaimed. The context
+ * is not synchronized.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class CompactContext extends BaseContext<INode> implements IContext {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // to make default node ids unique within JVM
+    private static final AtomicLong contextCount = new AtomicLong();
+
+    private static final IAtomicConceptOfLabel[] NO_ACOLS = new IAtomicConceptOfLabel[0];
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final long contextNumber;
+
+    private int size;
+    private CompactNode[] views;
+
+    // structure, -1 for none
+    private int[] parents;
+    private int[] firstChildren;
+    private int[] lastChildren;
+    private int[] nextSiblings;
+    private int[] childCounts;
+
+    // numbers of names and provenances in the string pool, -1 for null
+    private int[] names;
+    private int[] provenances;
+    private final ArrayList<String> strings;
+    // lookup of the pool, dropped by trim and rebuilt when needed
+    private HashMap<String, Integer> stringNumbers;
+
+    private String[] ids;
+
+    // formulas are UTF-8 encoded ranges of the buffer, length -1 for null
+    private byte[] text;
+    private int textLength;
+    private int[] cLabStarts;
+    private int[] cLabLengths;
+    private int[] cNodeStarts;
+    private int[] cNodeLengths;
+
+    private IAtomicConceptOfLabel[][] acols;
+    private final BitSet sources;
+    private final BitSet preprocessed;
+
+    // allocated on first use
+    private CNFFormula[] cNodeClauses;
+    private Object[] userObjects;
+
+    public CompactContext() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates a context with a room for a number of nodes.
+     *
+     * @param capacity the expected number of nodes
+     */
+    public CompactContext(int capacity) {
+        super();
+        contextNumber = contextCount.getAndIncrement();
+        size = 0;
+        strings = new ArrayList<String>();
+        stringNumbers = new HashMap<String, Integer>();
+        text = new byte[Math.max(INITIAL_CAPACITY, capacity)];
+        textLength = 0;
+        sources = new BitSet();
+        preprocessed = new BitSet();
+        allocate(Math.max(1, capacity));
+    }
+
+    @Override
+    public void setRoot(INode root) {
+        if (root instanceof CompactNode && this == ((CompactNode) root).getContext()) {
+            super.setRoot(root);
+        } else {
+            throw new IllegalArgumentException("root should be a node of this context");
+        }
+    }
+
+    @Override
+    public INode createNode() {
+        // newNode may grow the views
+        final int number = newNode();
+        return views[number];
+    }
+
+    @Override
+    public INode createNode(String name) {
+        INode result = createNode();
+        result.getNodeData().setName(name);
+        return result;
+    }
+
+    @Override
+    public INode createRoot() {
+        final int number = newNode();
+        root = views[number];
+        root.addTreeStructureChangedListener(this);
+        treeStructureChanged(root);
+        return root;
+    }
+
+    @Override
+    public INode createRoot(String name) {
+        INode result = createRoot();
+        result.getNodeData().setName(name);
+        return result;
+    }
+
+    @Override
+    public List<INode> getNodesList() {
+        if (null == nodes) {
+            if (hasRoot()) {
+                nodes = new ArrayList<INode>(size);
+                nodes.add(root);
+                addDescendants(((CompactNode) root).getNumber(), nodes);
+                nodes.trimToSize();
+            } else {
+                return Collections.emptyList();
+            }
+        }
+        return Collections.unmodifiableList(nodes);
+    }
+
+    /**
+     * Shrinks the storage to the number of nodes and drops the lookup table of the string pool.
+     */
+    @Override
+    public void trim() {
+        if (size < parents.length) {
+            resize(size);
+        }
+        if (textLength < text.length) {
+            text = Arrays.copyOf(text, textLength);
+        }
+        strings.trimToSize();
+        stringNumbers = null;
+        for (int i = 0; i < size; i++) {
+            for (IAtomicConceptOfLabel acol : acols[i]) {
+                if (acol instanceof AtomicConceptOfLabel) {
+                    ((AtomicConceptOfLabel) acol).trim();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of nodes created in the context, including removed ones.
+     *
+     * @return the number of nodes created in the context
+     */
+    public int size() {
+        return size;
+    }
+
+    int newNode() {
+        if (parents.length == size) {
+            resize(Math.max(size + 1, size + (size >> 1)));
+        }
+        final int result = size;
+        size++;
+        parents[result] = -1;
+        firstChildren[result] = -1;
+        lastChildren[result] = -1;
+        nextSiblings[result] = -1;
+        childCounts[result] = 0;
+        names[result] = getStringNumber("");
+        provenances[result] = -1;
+        acols[result] = NO_ACOLS;
+        views[result] = new CompactNode(this, result);
+        return result;
+    }
+
+    CompactNode getView(int number) {
+        return 0 <= number ? views[number] : null;
+    }
+
+    // structure
+
+    int getParent(int number) {
+        return parents[number];
+    }
+
+    int getFirstChild(int number) {
+        return firstChildren[number];
+    }
+
+    int getNextSibling(int number) {
+        return nextSiblings[number];
+    }
+
+    int getChildCount(int number) {
+        return childCounts[number];
+    }
+
+    int getChildAt(int number, int index) {
+        if (index < 0 || childCounts[number] <= index) {
+            throw new ArrayIndexOutOfBoundsException("node has no child " + index);
+        }
+        int child = firstChildren[number];
+        for (int i = 0; i < index; i++) {
+            child = nextSiblings[child];
+        }
+        return child;
+    }
+
+    int getChildIndex(int number, int child) {
+        int index = 0;
+        for (int i = firstChildren[number]; -1 != i; i = nextSiblings[i]) {
+            if (i == child) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    /**
+     * Inserts the child among the children of the node. The child should not have a parent.
+     *
+     * @param number node number
+     * @param index  position among the children
+     * @param child  child number
+     */
+    void link(int number, int index, int child) {
+        if (index < 0 || childCounts[number] < index) {
+            throw new ArrayIndexOutOfBoundsException("node has no child " + index);
+        }
+        parents[child] = number;
+        if (0 == index) {
+            nextSiblings[child] = firstChildren[number];
+            firstChildren[number] = child;
+            if (-1 == lastChildren[number]) {
+                lastChildren[number] = child;
+            }
+        } else if (childCounts[number] == index) {
+            nextSiblings[child] = -1;
+            nextSiblings[lastChildren[number]] = child;
+            lastChildren[number] = child;
+        } else {
+            final int previous = getChildAt(number, index - 1);
+            nextSiblings[child] = nextSiblings[previous];
+            nextSiblings[previous] = child;
+        }
+        childCounts[number]++;
+    }
+
+    /**
+     * Removes the node from the children of its parent.
+     *
+     * @param child node number
+     */
+    void unlink(int child) {
+        final int parent = parents[child];
+        if (-1 == parent) {
+            return;
+        }
+        int previous = -1;
+        for (int i = firstChildren[parent]; i != child; i = nextSiblings[i]) {
+            previous = i;
+        }
+        if (-1 == previous) {
+            firstChildren[parent] = nextSiblings[child];
+        } else {
+            nextSiblings[previous] = nextSiblings[child];
+        }
+        if (lastChildren[parent] == child) {
+            lastChildren[parent] = previous;
+        }
+        nextSiblings[child] = -1;
+        parents[child] = -1;
+        childCounts[parent]--;
+    }
+
+    /**
+     * Returns the node following the given one in pre-order within the subtree.
+     *
+     * @param subtree the root of the subtree
+     * @param number  a node of the subtree
+     * @return the next node of the subtree or -1 after the last one
+     */
+    int getNextInSubtree(int subtree, int number) {
+        if (-1 != firstChildren[number]) {
+            return firstChildren[number];
+        }
+        while (number != subtree) {
+            if (-1 != nextSiblings[number]) {
+                return nextSiblings[number];
+            }
+            number = parents[number];
+        }
+        return -1;
+    }
+
+    /**
+     * Adds descendants in the order of {@link IBaseNode#getDescendantsList()}: children first, then descendants
+     * of each child.
+     *
+     * @param number node number
+     * @param result list to add the descendants to
+     */
+    void addDescendants(int number, List<INode> result) {
+        for (int i = firstChildren[number]; -1 != i; i = nextSiblings[i]) {
+            result.add(views[i]);
+        }
+        for (int i = firstChildren[number]; -1 != i; i = nextSiblings[i]) {
+            addDescendants(i, result);
+        }
+    }
+
+    // data
+
+    String getName(int number) {
+        return getString(names[number]);
+    }
+
+    void setName(int number, String name) {
+        names[number] = getStringNumber(name);
+    }
+
+    String getProvenance(int number) {
+        return getString(provenances[number]);
+    }
+
+    void setProvenance(int number, String provenance) {
+        provenances[number] = getStringNumber(provenance);
+    }
+
+    String getId(int number) {
+        String result = ids[number];
+        if (null == result) {
+            result = "n" + number + "_c" + contextNumber;
+        }
+        return result;
+    }
+
+    void setId(int number, String id) {
+        ids[number] = id;
+    }
+
+    String getcLabFormula(int number) {
+        final int length = cLabLengths[number];
+        return -1 == length ? null : new String(text, cLabStarts[number], length, UTF8);
+    }
+
+    void setcLabFormula(int number, String formula) {
+        final byte[] bytes = null == formula ? null : formula.getBytes(UTF8);
+        final int length = null == bytes ? -1 : bytes.length;
+        if (cLabLengths[number] < length) {
+            cLabStarts[number] = append(length);
+        }
+        if (0 < length) {
+            System.arraycopy(bytes, 0, text, cLabStarts[number], length);
+        }
+        cLabLengths[number] = length;
+    }
+
+    boolean hasFormulas(int number) {
+        return 0 < cLabLengths[number] && 0 < cNodeLengths[number];
+    }
+
+    String getcNodeFormula(int number) {
+        final int length = cNodeLengths[number];
+        return -1 == length ? null : new String(text, cNodeStarts[number], length, UTF8);
+    }
+
+    void setcNodeFormula(int number, String formula) {
+        final byte[] bytes = null == formula ? null : formula.getBytes(UTF8);
+        final int length = null == bytes ? -1 : bytes.length;
+        if (cNodeLengths[number] < length) {
+            cNodeStarts[number] = append(length);
+        }
+        if (0 < length) {
+            System.arraycopy(bytes, 0, text, cNodeStarts[number], length);
+        }
+        cNodeLengths[number] = length;
+        if (null != cNodeClauses) {
+            cNodeClauses[number] = null;
+        }
+    }
+
+    CNFFormula getcNodeClauses(int number) {
+        CNFFormula[] clauses = cNodeClauses;
+        if (null == clauses) {
+            clauses = new CNFFormula[parents.length];
+            cNodeClauses = clauses;
+        }
+        CNFFormula result = clauses[number];
+        if (null == result) {
+            result = CNFFormula.compile(views[number]);
+            clauses[number] = result;
+        }
+        return result;
+    }
+
+    void setcNodeClauses(int number, CNFFormula clauses) {
+        if (null == cNodeClauses) {
+            if (null == clauses) {
+                return;
+            }
+            cNodeClauses = new CNFFormula[parents.length];
+        }
+        cNodeClauses[number] = clauses;
+    }
+
+    boolean getSource(int number) {
+        return sources.get(number);
+    }
+
+    void setSource(int number, boolean source) {
+        sources.set(number, source);
+    }
+
+    boolean getIsPreprocessed(int number) {
+        return preprocessed.get(number);
+    }
+
+    void setIsPreprocessed(int number, boolean isPreprocessed) {
+        preprocessed.set(number, isPreprocessed);
+    }
+
+    IAtomicConceptOfLabel[] getACoLs(int number) {
+        return acols[number];
+    }
+
+    void setACoLs(int number, IAtomicConceptOfLabel[] nodeACoLs) {
+        acols[number] = 0 == nodeACoLs.length ? NO_ACOLS : nodeACoLs;
+        // compiled formulas of the subtree refer to the acols of the node by position
+        if (null != cNodeClauses) {
+            for (int i = number; -1 != i; i = getNextInSubtree(number, i)) {
+                cNodeClauses[i] = null;
+            }
+        }
+    }
+
+    Object getUserObject(int number) {
+        return null == userObjects ? null : userObjects[number];
+    }
+
+    void setUserObject(int number, Object object) {
+        if (null == userObjects) {
+            if (null == object) {
+                return;
+            }
+            userObjects = new Object[parents.length];
+        }
+        userObjects[number] = object;
+    }
+
+    private String getString(int number) {
+        return -1 == number ? null : strings.get(number);
+    }
+
+    private int getStringNumber(String s) {
+        if (null == s) {
+            return -1;
+        }
+        if (null == stringNumbers) {
+            stringNumbers = new HashMap<String, Integer>(2 * strings.size());
+            for (int i = 0; i < strings.size(); i++) {
+                stringNumbers.put(strings.get(i), i);
+            }
+        }
+        Integer result = stringNumbers.get(s);
+        if (null == result) {
+            result = strings.size();
+            strings.add(s);
+            stringNumbers.put(s, result);
+        }
+        return result;
+    }
+
+    /**
+     * Reserves a range at the end of the formula buffer.
+     *
+     * @param length length of the range
+     * @return the start of the range
+     */
+    private int append(int length) {
+        if (text.length - textLength < length) {
+            final long capacity = Math.max((long) textLength + length, (long) text.length + (text.length >> 1));
+            if (Integer.MAX_VALUE - 8 < capacity) {
+                throw new IllegalStateException("Formulas of the context are too large: " + capacity);
+            }
+            text = Arrays.copyOf(text, (int) capacity);
+        }
+        final int result = textLength;
+        textLength += length;
+        return result;
+    }
+
+    private void allocate(int capacity) {
+        views = new CompactNode[capacity];
+        parents = new int[capacity];
+        firstChildren = new int[capacity];
+        lastChildren = new int[capacity];
+        nextSiblings = new int[capacity];
+        childCounts = new int[capacity];
+        names = new int[capacity];
+        provenances = new int[capacity];
+        ids = new String[capacity];
+        cLabStarts = new int[capacity];
+        cLabLengths = new int[capacity];
+        cNodeStarts = new int[capacity];
+        cNodeLengths = new int[capacity];
+        acols = new IAtomicConceptOfLabel[capacity][];
+    }
+
+    private void resize(int capacity) {
+        views = Arrays.copyOf(views, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        firstChildren = Arrays.copyOf(firstChildren, capacity);
+        lastChildren = Arrays.copyOf(lastChildren, capacity);
+        nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+        childCounts = Arrays.copyOf(childCounts, capacity);
+        names = Arrays.copyOf(names, capacity);
+        provenances = Arrays.copyOf(provenances, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        cLabStarts = Arrays.copyOf(cLabStarts, capacity);
+        cLabLengths = Arrays.copyOf(cLabLengths, capacity);
+        cNodeStarts = Arrays.copyOf(cNodeStarts, capacity);
+        cNodeLengths = Arrays.copyOf(cNodeLengths, capacity);
+        acols = Arrays.copyOf(acols, capacity);
+        if (null != cNodeClauses) {
+            cNodeClauses = Arrays.copyOf(cNodeClauses, capacity);
+        }
+        if (null != userObjects) {
+            userObjects = Arrays.copyOf(userObjects, capacity);
+        }
+    }
+}
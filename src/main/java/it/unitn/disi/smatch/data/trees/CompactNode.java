@@ -0,0 +1,550 @@
+package it.unitn.disi.smatch.data.trees;
+
+import it.unitn.disi.smatch.data.formulas.CNFFormula;
+import it.unitn.disi.smatch.data.ling.AtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.matrices.IndexedObject;
+
+import javax.swing.event.EventListenerList;
+import javax.swing.tree.MutableTreeNode;
+import javax.swing.tree.TreeNode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A node of a {@link CompactContext}. The node is a view of the context columns, it keeps only its number, the index
+ * and listeners. The context creates one view per node, so nodes can be compared and hashed by identity, as other
+ * nodes.
+ * <p/>
+ * Lists of children, ancestors and descendants are created on each call and are not cached.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class CompactNode extends IndexedObject implements INode, INodeData {
+
+    private final CompactContext context;
+    private final int number;
+
+    private EventListenerList listenerList;
+
+    // iterates over the nodes following each other by a link, such as next sibling or parent
+    private abstract class Chain implements Iterator<INode> {
+        private int next;
+
+        protected Chain(int first) {
+            next = first;
+        }
+
+        public boolean hasNext() {
+            return -1 != next;
+        }
+
+        public INode next() {
+            if (-1 == next) {
+                throw new NoSuchElementException();
+            }
+            final INode result = context.getView(next);
+            next = follow(next);
+            return result;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        protected abstract int follow(int current);
+    }
+
+    private final class Children extends Chain {
+        private Children() {
+            super(context.getFirstChild(number));
+        }
+
+        protected int follow(int current) {
+            return context.getNextSibling(current);
+        }
+    }
+
+    private final class Ancestors extends Chain {
+        private Ancestors() {
+            super(context.getParent(number));
+        }
+
+        protected int follow(int current) {
+            return context.getParent(current);
+        }
+    }
+
+    private final class BreadthFirstSearch implements Iterator<INode> {
+        private int[] queue = new int[16];
+        private int head = 0;
+        private int tail = 0;
+
+        private BreadthFirstSearch() {
+            addChildren(number);
+        }
+
+        public boolean hasNext() {
+            return head < tail;
+        }
+
+        public INode next() {
+            if (tail <= head) {
+                throw new NoSuchElementException();
+            }
+            final int current = queue[head];
+            head++;
+            addChildren(current);
+            return context.getView(current);
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private void addChildren(int parent) {
+            for (int i = context.getFirstChild(parent); -1 != i; i = context.getNextSibling(i)) {
+                if (queue.length == tail) {
+                    if (0 < head) {
+                        System.arraycopy(queue, head, queue, 0, tail - head);
+                        tail = tail - head;
+                        head = 0;
+                    } else {
+                        queue = Arrays.copyOf(queue, 2 * queue.length);
+                    }
+                }
+                queue[tail] = i;
+                tail++;
+            }
+        }
+    }
+
+    CompactNode(CompactContext context, int number) {
+        this.context = context;
+        this.number = number;
+        listenerList = null;
+    }
+
+    /**
+     * Returns the context which stores the node.
+     *
+     * @return the context which stores the node
+     */
+    public CompactContext getContext() {
+        return context;
+    }
+
+    /**
+     * Returns the number of the node in the context storage.
+     *
+     * @return the number of the node in the context storage
+     */
+    public int getNumber() {
+        return number;
+    }
+
+    public INode getChildAt(int index) {
+        return context.getView(context.getChildAt(number, index));
+    }
+
+    public int getChildCount() {
+        return context.getChildCount(number);
+    }
+
+    public int getChildIndex(INode child) {
+        if (null == child) {
+            throw new IllegalArgumentException("argument is null");
+        }
+        if (!isNodeOfContext(child)) {
+            return -1;
+        }
+        return context.getChildIndex(number, ((CompactNode) child).number);
+    }
+
+    public Iterator<INode> getChildren() {
+        return new Children();
+    }
+
+    public List<INode> getChildrenList() {
+        final int count = getChildCount();
+        if (0 == count) {
+            return Collections.emptyList();
+        }
+        final List<INode> result = new ArrayList<INode>(count);
+        for (int i = context.getFirstChild(number); -1 != i; i = context.getNextSibling(i)) {
+            result.add(context.getView(i));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    public INode createChild() {
+        final INode child = context.getView(context.newNode());
+        addChild(child);
+        return child;
+    }
+
+    public INode createChild(String name) {
+        final INode child = createChild();
+        child.getNodeData().setName(name);
+        return child;
+    }
+
+    public void addChild(INode child) {
+        addChild(getChildCount(), child);
+    }
+
+    public void addChild(int index, INode child) {
+        if (null == child) {
+            throw new IllegalArgumentException("new child is null");
+        } else if (!isNodeOfContext(child)) {
+            throw new IllegalArgumentException("new child belongs to another context");
+        } else if (isNodeAncestor((CompactNode) child)) {
+            throw new IllegalArgumentException("new child is an ancestor");
+        }
+
+        child.removeFromParent();
+        context.link(number, index, ((CompactNode) child).number);
+        fireTreeStructureChanged(this);
+    }
+
+    public void removeChild(int index) {
+        final int child = context.getChildAt(number, index);
+        context.unlink(child);
+        fireTreeStructureChanged(this);
+    }
+
+    public void removeChild(INode child) {
+        if (null == child) {
+            throw new IllegalArgumentException("argument is null");
+        }
+
+        if (isNodeOfContext(child) && number == context.getParent(((CompactNode) child).number)) {
+            context.unlink(((CompactNode) child).number);
+            fireTreeStructureChanged(this);
+        }
+    }
+
+    public INode getParent() {
+        return context.getView(context.getParent(number));
+    }
+
+    public void setParent(INode newParent) {
+        if (null == newParent) {
+            removeFromParent();
+        } else {
+            newParent.addChild(this);
+        }
+    }
+
+    public boolean hasParent() {
+        return -1 != context.getParent(number);
+    }
+
+    public void removeFromParent() {
+        final INode parent = getParent();
+        if (null != parent) {
+            parent.removeChild(this);
+        }
+    }
+
+    public boolean isLeaf() {
+        return 0 == getChildCount();
+    }
+
+    public int getAncestorCount() {
+        int result = 0;
+        for (int i = context.getParent(number); -1 != i; i = context.getParent(i)) {
+            result++;
+        }
+        return result;
+    }
+
+    public Iterator<INode> getAncestors() {
+        return new Ancestors();
+    }
+
+    public List<INode> getAncestorsList() {
+        final List<INode> result = new ArrayList<INode>(getAncestorCount());
+        for (int i = context.getParent(number); -1 != i; i = context.getParent(i)) {
+            result.add(context.getView(i));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    public int getLevel() {
+        return getAncestorCount();
+    }
+
+    public int getDescendantCount() {
+        int result = 0;
+        for (int i = context.getNextInSubtree(number, number); -1 != i; i = context.getNextInSubtree(number, i)) {
+            result++;
+        }
+        return result;
+    }
+
+    public Iterator<INode> getDescendants() {
+        return new BreadthFirstSearch();
+    }
+
+    public List<INode> getDescendantsList() {
+        final List<INode> result = new ArrayList<INode>();
+        context.addDescendants(number, result);
+        return Collections.unmodifiableList(result);
+    }
+
+    public INodeData getNodeData() {
+        return this;
+    }
+
+    public void addTreeStructureChangedListener(IBaseTreeStructureChangedListener<INode> l) {
+        if (null == listenerList) {
+            listenerList = new EventListenerList();
+        }
+        listenerList.add(IBaseTreeStructureChangedListener.class, l);
+    }
+
+    public void removeTreeStructureChangedListener(IBaseTreeStructureChangedListener<INode> l) {
+        if (null != listenerList) {
+            listenerList.remove(IBaseTreeStructureChangedListener.class, l);
+        }
+    }
+
+    @SuppressWarnings({"unchecked"})
+    public void fireTreeStructureChanged(INode node) {
+        if (null != listenerList) {
+            final Object[] listeners = listenerList.getListenerList();
+            for (int i = listeners.length - 2; i >= 0; i -= 2) {
+                if (listeners[i + 1] instanceof IBaseTreeStructureChangedListener) {
+                    ((IBaseTreeStructureChangedListener<INode>) listeners[i + 1]).treeStructureChanged(node);
+                }
+            }
+        }
+        final INode parent = getParent();
+        if (null != parent) {
+            parent.fireTreeStructureChanged(node);
+        }
+    }
+
+    // node data
+
+    public String getId() {
+        return context.getId(number);
+    }
+
+    public void setId(String newId) {
+        context.setId(number, newId);
+    }
+
+    public String getName() {
+        return context.getName(number);
+    }
+
+    public void setName(String newName) {
+        context.setName(number, newName);
+    }
+
+    public Object getUserObject() {
+        return context.getUserObject(number);
+    }
+
+    public void setUserObject(Object newObject) {
+        context.setUserObject(number, newObject);
+    }
+
+    public String getcLabFormula() {
+        return context.getcLabFormula(number);
+    }
+
+    public void setcLabFormula(String cLabFormula) {
+        context.setcLabFormula(number, cLabFormula);
+    }
+
+    public String getcNodeFormula() {
+        return context.getcNodeFormula(number);
+    }
+
+    public void setcNodeFormula(String cNodeFormula) {
+        context.setcNodeFormula(number, cNodeFormula);
+    }
+
+    public boolean hasFormulas() {
+        return context.hasFormulas(number);
+    }
+
+    public CNFFormula getcNodeClauses() {
+        return context.getcNodeClauses(number);
+    }
+
+    public void setcNodeClauses(CNFFormula cNodeClauses) {
+        context.setcNodeClauses(number, cNodeClauses);
+    }
+
+    public boolean getSource() {
+        return context.getSource(number);
+    }
+
+    public void setSource(boolean source) {
+        context.setSource(number, source);
+    }
+
+    public IAtomicConceptOfLabel getACoLAt(int index) {
+        final IAtomicConceptOfLabel[] acols = context.getACoLs(number);
+        if (0 == acols.length) {
+            throw new ArrayIndexOutOfBoundsException("node has no ACoLs");
+        }
+        return acols[index];
+    }
+
+    public int getACoLCount() {
+        return context.getACoLs(number).length;
+    }
+
+    public int getACoLIndex(IAtomicConceptOfLabel acol) {
+        if (null == acol) {
+            throw new IllegalArgumentException("argument is null");
+        }
+        return getACoLsList().indexOf(acol);
+    }
+
+    public Iterator<IAtomicConceptOfLabel> getACoLs() {
+        return getACoLsList().iterator();
+    }
+
+    public List<IAtomicConceptOfLabel> getACoLsList() {
+        final IAtomicConceptOfLabel[] acols = context.getACoLs(number);
+        if (0 == acols.length) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(Arrays.asList(acols));
+    }
+
+    public IAtomicConceptOfLabel createACoL() {
+        return new AtomicConceptOfLabel();
+    }
+
+    public void addACoL(IAtomicConceptOfLabel acol) {
+        addACoL(getACoLCount(), acol);
+    }
+
+    public void addACoL(int index, IAtomicConceptOfLabel acol) {
+        if (null == acol) {
+            throw new IllegalArgumentException("new acol is null");
+        }
+
+        final IAtomicConceptOfLabel[] acols = context.getACoLs(number);
+        if (index < 0 || acols.length < index) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + acols.length);
+        }
+        final IAtomicConceptOfLabel[] result = new IAtomicConceptOfLabel[acols.length + 1];
+        System.arraycopy(acols, 0, result, 0, index);
+        result[index] = acol;
+        System.arraycopy(acols, index, result, index + 1, acols.length - index);
+        context.setACoLs(number, result);
+    }
+
+    public void removeACoL(int index) {
+        final IAtomicConceptOfLabel[] acols = context.getACoLs(number);
+        if (index < 0 || acols.length <= index) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + acols.length);
+        }
+        final IAtomicConceptOfLabel[] result = new IAtomicConceptOfLabel[acols.length - 1];
+        System.arraycopy(acols, 0, result, 0, index);
+        System.arraycopy(acols, index + 1, result, index, acols.length - index - 1);
+        context.setACoLs(number, result);
+    }
+
+    public void removeACoL(IAtomicConceptOfLabel acol) {
+        final int index = getACoLsList().indexOf(acol);
+        if (-1 < index) {
+            removeACoL(index);
+        }
+    }
+
+    public boolean getIsPreprocessed() {
+        return context.getIsPreprocessed(number);
+    }
+
+    public void setIsPreprocessed(boolean isPreprocessed) {
+        context.setIsPreprocessed(number, isPreprocessed);
+    }
+
+    public boolean isSubtreePreprocessed() {
+        for (int i = number; -1 != i; i = context.getNextInSubtree(number, i)) {
+            if (!context.getIsPreprocessed(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getProvenance() {
+        return context.getProvenance(number);
+    }
+
+    public void setProvenance(String provenance) {
+        context.setProvenance(number, provenance);
+    }
+
+    // MutableTreeNode
+
+    public int getIndex(TreeNode node) {
+        if (node instanceof INode) {
+            return getChildIndex((INode) node);
+        } else {
+            return -1;
+        }
+    }
+
+    public boolean getAllowsChildren() {
+        return true;
+    }
+
+    public Enumeration children() {
+        return Collections.enumeration(getChildrenList());
+    }
+
+    public void insert(MutableTreeNode child, int index) {
+        if (child instanceof INode) {
+            addChild(index, (INode) child);
+        }
+    }
+
+    public void remove(int index) {
+        removeChild(index);
+    }
+
+    public void remove(MutableTreeNode node) {
+        if (node instanceof INode) {
+            removeChild((INode) node);
+        }
+    }
+
+    public void setParent(MutableTreeNode newParent) {
+        if (newParent instanceof INode) {
+            setParent((INode) newParent);
+        }
+    }
+
+    public String toString() {
+        return getName();
+    }
+
+    private boolean isNodeOfContext(INode node) {
+        return node instanceof CompactNode && context == ((CompactNode) node).context;
+    }
+
+    private boolean isNodeAncestor(CompactNode node) {
+        for (int i = number; -1 != i; i = context.getParent(i)) {
+            if (i == node.number) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
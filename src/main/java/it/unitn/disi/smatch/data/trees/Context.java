@@ -32,6 +32,7 @@ public class Context extends BaseContext<INode> implements IContext, ITreeStruct
     public INode createRoot() {
         root = new Node();
         root.addTreeStructureChangedListener(this);
+        treeStructureChanged(root);
         return root;
     }
 }
\ No newline at end of file
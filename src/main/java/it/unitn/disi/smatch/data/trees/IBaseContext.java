@@ -8,7 +8,7 @@ import java.util.List;
  *
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
-public interface IBaseContext<E extends IBaseNode> {
+public interface IBaseContext<E extends IBaseNode<E, ?>> {
     /**
      * Sets a new root for the context.
      *
@@ -73,4 +73,12 @@ public interface IBaseContext<E extends IBaseNode> {
      * @return unmodifiable list of all context nodes
      */
     List<E> getNodesList();
+
+    /**
+     * Returns the index of the tree of the context, which is built on the first call and rebuilt after the tree
+     * changes.
+     *
+     * @return the index of the tree of the context
+     */
+    TreeIndex<E> getTreeIndex();
 }
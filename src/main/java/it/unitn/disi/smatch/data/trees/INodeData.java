@@ -1,5 +1,6 @@
 package it.unitn.disi.smatch.data.trees;
 
+import it.unitn.disi.smatch.data.formulas.CNFFormula;
 import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
 
 import java.util.Iterator;
@@ -43,6 +44,31 @@ public interface INodeData extends IBaseNodeData {
      */
     void setcNodeFormula(String cNodeFormula);
 
+    /**
+     * Returns whether both the concept of a label and the concept at node formulas are set and not empty, without
+     * building the formula strings.
+     *
+     * @return true if the node has both formulas
+     */
+    boolean hasFormulas();
+
+    /**
+     * Returns the concept at node formula compiled into integer clauses over the acols of the node and its
+     * ancestors. The formula is compiled on the first call after it has been set.
+     *
+     * @return the compiled concept at node formula
+     * @throws IllegalArgumentException if the formula refers to unknown acols
+     */
+    CNFFormula getcNodeClauses();
+
+    /**
+     * Sets the compiled concept at node formula, for example, one loaded together with the context. The compiled
+     * formula should correspond to the concept at node formula, setting which drops the compiled one.
+     *
+     * @param cNodeClauses the compiled concept at node formula
+     */
+    void setcNodeClauses(CNFFormula cNodeClauses);
+
     /**
      * Indicates whether this node belongs to the source context.
      * This is needed for new algorithms which sometimes swap order of the nodes during tree traversal.
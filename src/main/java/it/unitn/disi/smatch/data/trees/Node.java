@@ -1,8 +1,10 @@
 package it.unitn.disi.smatch.data.trees;
 
+import it.unitn.disi.smatch.data.formulas.CNFFormula;
 import it.unitn.disi.smatch.data.ling.AtomicConceptOfLabel;
 import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -22,6 +24,8 @@ public class Node extends BaseNode<INode, INodeData> implements INode, INodeData
 
     protected String cLabFormula;
     protected String cNodeFormula;
+    // compiled cNodeFormula, built lazily
+    protected CNFFormula cNodeClauses;
     // might be better implemented for a whole context via BitSet
     protected boolean source;
     protected String provenance;
@@ -64,6 +68,24 @@ public class Node extends BaseNode<INode, INodeData> implements INode, INodeData
 
     public void setcNodeFormula(String cNodeFormula) {
         this.cNodeFormula = cNodeFormula;
+        this.cNodeClauses = null;
+    }
+
+    public boolean hasFormulas() {
+        return null != cLabFormula && !cLabFormula.isEmpty() && null != cNodeFormula && !cNodeFormula.isEmpty();
+    }
+
+    public CNFFormula getcNodeClauses() {
+        CNFFormula result = cNodeClauses;
+        if (null == result) {
+            result = CNFFormula.compile(this);
+            cNodeClauses = result;
+        }
+        return result;
+    }
+
+    public void setcNodeClauses(CNFFormula cNodeClauses) {
+        this.cNodeClauses = cNodeClauses;
     }
 
     public boolean getSource() {
@@ -130,14 +152,37 @@ public class Node extends BaseNode<INode, INodeData> implements INode, INodeData
             acols = new ArrayList<IAtomicConceptOfLabel>();
         }
         acols.add(index, acol);
+        clearSubtreeClauses();
     }
 
     public void removeACoL(int index) {
         acols.remove(index);
+        clearSubtreeClauses();
     }
 
     public void removeACoL(IAtomicConceptOfLabel acol) {
-        acols.remove(acol);
+        if (null != acols && acols.remove(acol)) {
+            clearSubtreeClauses();
+        }
+    }
+
+    /**
+     * Drops the compiled formulas of the node and its descendants, which refer to the acols of the node by position.
+     */
+    private void clearSubtreeClauses() {
+        cNodeClauses = null;
+        if (null != children) {
+            final ArrayDeque<INode> stack = new ArrayDeque<INode>(children);
+            while (!stack.isEmpty()) {
+                final INode node = stack.pop();
+                if (node instanceof Node) {
+                    ((Node) node).cNodeClauses = null;
+                } else {
+                    node.getNodeData().setcNodeClauses(null);
+                }
+                stack.addAll(node.getChildrenList());
+            }
+        }
     }
 
     public boolean getIsPreprocessed() {
@@ -0,0 +1,308 @@
+package it.unitn.disi.smatch.data.trees;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Index of the paths from the root to the nodes of a tree, as text formats write them: node names joined with a
+ * separator. Names are stored once, in a single array, and the path of a node is assembled from the names of its
+ * ancestors into a buffer, without creating strings. Path lengths are computed once, from the lengths of the parent
+ * paths.
+ * <p/>
+ * Paths are resolved back to nodes by walking the children of the nodes from the root, segment by segment, where the
+ * children of each node are sorted by name and searched in the path text directly. Of several nodes with the same path
+ * the one with the last siblings on the path is found.
+ * <p/>
+ * The index is immutable and reflects the tree at the moment of its creation.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class NodePathIndex<E extends IBaseNode<E, ?>> {
+
+    private final TreeIndex<E> index;
+    private final char separator;
+    private final boolean leadingSeparator;
+    private final char replacement;
+
+    // names of the nodes, each ending at nameEnds[number] and starting at the end of the previous one
+    private final char[] names;
+    private final int[] nameEnds;
+    private final int[] pathLengths;
+    private final int maxPathLength;
+
+    // children of the node, sorted by name, are children[childEnds[number - 1]] to children[childEnds[number] - 1]
+    private final int[] children;
+    private final int[] childEnds;
+
+    /**
+     * Indexes the paths of the tree.
+     *
+     * @param index            tree index
+     * @param separator        separator of the path levels
+     * @param leadingSeparator whether paths start with the separator
+     * @param replacement      character replacing the separator in the node names
+     */
+    public NodePathIndex(TreeIndex<E> index, char separator, boolean leadingSeparator, char replacement) {
+        this.index = index;
+        this.separator = separator;
+        this.leadingSeparator = leadingSeparator;
+        this.replacement = replacement;
+
+        final int count = index.size();
+        nameEnds = new int[count];
+        pathLengths = new int[count];
+        int nameLength = 0;
+        final String[] nodeNames = new String[count];
+        for (int i = 0; i < count; i++) {
+            nodeNames[i] = String.valueOf(index.getNode(i).getNodeData().getName()).replace(separator, replacement);
+            nameLength += nodeNames[i].length();
+        }
+        names = new char[nameLength];
+        int max = 0;
+        for (int i = 0; i < count; i++) {
+            final int start = getNameStart(i);
+            nodeNames[i].getChars(0, nodeNames[i].length(), names, start);
+            nameEnds[i] = start + nodeNames[i].length();
+
+            final int parent = index.getParent(i);
+            if (-1 == parent) {
+                pathLengths[i] = (leadingSeparator ? 1 : 0) + nodeNames[i].length();
+            } else {
+                pathLengths[i] = pathLengths[parent] + 1 + nodeNames[i].length();
+            }
+            max = Math.max(max, pathLengths[i]);
+        }
+        maxPathLength = max;
+
+        children = new int[Math.max(0, count - 1)];
+        childEnds = new int[count];
+        int childCount = 0;
+        final Comparator<Integer> byName = new Comparator<Integer>() {
+            public int compare(Integer o1, Integer o2) {
+                return compareNames(o1, o2);
+            }
+        };
+        for (int i = 0; i < count; i++) {
+            final int start = childCount;
+            final int end = index.getSubtreeEnd(i);
+            for (int child = i + 1; child < end; child = index.getSubtreeEnd(child)) {
+                children[childCount] = child;
+                childCount++;
+            }
+            if (1 < childCount - start) {
+                final Integer[] sorted = new Integer[childCount - start];
+                for (int c = 0; c < sorted.length; c++) {
+                    sorted[c] = children[start + c];
+                }
+                // stable, siblings with the same name stay in the tree order
+                Arrays.sort(sorted, byName);
+                for (int c = 0; c < sorted.length; c++) {
+                    children[start + c] = sorted[c];
+                }
+            }
+            childEnds[i] = childCount;
+        }
+    }
+
+    /**
+     * Returns the tree index.
+     *
+     * @return the tree index
+     */
+    public TreeIndex<E> getTreeIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the length of the path of the node.
+     *
+     * @param number node number
+     * @return the length of the path of the node
+     */
+    public int getPathLength(int number) {
+        return pathLengths[number];
+    }
+
+    /**
+     * Returns the length of the longest path, which fits any path into a buffer of this size.
+     *
+     * @return the length of the longest path
+     */
+    public int getMaxPathLength() {
+        return maxPathLength;
+    }
+
+    /**
+     * Writes the path of the node into the buffer.
+     *
+     * @param number node number
+     * @param buffer buffer with room for the path
+     * @return the length of the path
+     */
+    public int getPath(int number, char[] buffer) {
+        int end = pathLengths[number];
+        int i = number;
+        while (-1 != i) {
+            final int start = getNameStart(i);
+            end = end - (nameEnds[i] - start);
+            System.arraycopy(names, start, buffer, end, nameEnds[i] - start);
+            i = index.getParent(i);
+            if (-1 != i || leadingSeparator) {
+                end--;
+                buffer[end] = separator;
+            }
+        }
+        return pathLengths[number];
+    }
+
+    /**
+     * Returns the path of the node.
+     *
+     * @param number node number
+     * @return the path of the node
+     */
+    public String getPath(int number) {
+        final char[] buffer = new char[pathLengths[number]];
+        getPath(number, buffer);
+        return new String(buffer);
+    }
+
+    /**
+     * Returns the path of the node. The path of a node missing from the index, for example, removed from the tree
+     * after the index was created, is assembled from the names of its ancestors.
+     *
+     * @param node node
+     * @return the path of the node
+     */
+    public String getPath(E node) {
+        final int number = index.getNumber(node);
+        if (-1 != number) {
+            return getPath(number);
+        }
+        return assemblePath(node, separator, leadingSeparator, replacement);
+    }
+
+    /**
+     * Assembles the path of the node from the names of its ancestors, without an index.
+     *
+     * @param node             node
+     * @param separator        separator of the path levels
+     * @param leadingSeparator whether the path starts with the separator
+     * @param replacement      character replacing the separator in the node names
+     * @param <E>              node type
+     * @return the path of the node
+     */
+    public static <E extends IBaseNode<E, ?>> String assemblePath(E node, char separator, boolean leadingSeparator, char replacement) {
+        final StringBuilder result = new StringBuilder();
+        E current = node;
+        while (null != current) {
+            result.insert(0, String.valueOf(current.getNodeData().getName()).replace(separator, replacement));
+            current = current.getParent();
+            if (null != current || leadingSeparator) {
+                result.insert(0, separator);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Finds the node by the path, which is the part of the text from start to end.
+     *
+     * @param text  text containing the path
+     * @param start start of the path
+     * @param end   end of the path, exclusive
+     * @return the number of the node or -1 if there is no node with this path
+     */
+    public int find(CharSequence text, int start, int end) {
+        if (0 == index.size()) {
+            return -1;
+        }
+        int segmentStart = start;
+        if (leadingSeparator) {
+            if (end <= segmentStart || separator != text.charAt(segmentStart)) {
+                return -1;
+            }
+            segmentStart++;
+        }
+        int segmentEnd = indexOfSeparator(text, segmentStart, end);
+        if (0 != compareName(0, text, segmentStart, segmentEnd)) {
+            return -1;
+        }
+        return segmentEnd == end ? 0 : findBelow(0, text, segmentEnd + 1, end);
+    }
+
+    /**
+     * Finds the node by the path.
+     *
+     * @param path path of the node
+     * @return the node or null if there is no node with this path
+     */
+    public E findNode(CharSequence path) {
+        final int number = find(path, 0, path.length());
+        return -1 == number ? null : index.getNode(number);
+    }
+
+    private int findBelow(int number, CharSequence text, int start, int end) {
+        final int segmentEnd = indexOfSeparator(text, start, end);
+        final int first = 0 == number ? 0 : childEnds[number - 1];
+        // the last child with the name
+        int low = first;
+        int high = childEnds[number] - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (compareName(children[mid], text, start, segmentEnd) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        // siblings with the same name are tried from the last one
+        for (int i = high; first <= i && 0 == compareName(children[i], text, start, segmentEnd); i--) {
+            final int result = segmentEnd == end ? children[i] : findBelow(children[i], text, segmentEnd + 1, end);
+            if (-1 != result) {
+                return result;
+            }
+        }
+        return -1;
+    }
+
+    private int indexOfSeparator(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (separator == text.charAt(i)) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private int getNameStart(int number) {
+        return 0 == number ? 0 : nameEnds[number - 1];
+    }
+
+    private int compareName(int number, CharSequence text, int start, int end) {
+        final int nameStart = getNameStart(number);
+        final int length = Math.min(nameEnds[number] - nameStart, end - start);
+        for (int i = 0; i < length; i++) {
+            final char a = names[nameStart + i];
+            final char b = text.charAt(start + i);
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return (nameEnds[number] - nameStart) - (end - start);
+    }
+
+    private int compareNames(int a, int b) {
+        final int aStart = getNameStart(a);
+        final int bStart = getNameStart(b);
+        final int length = Math.min(nameEnds[a] - aStart, nameEnds[b] - bStart);
+        for (int i = 0; i < length; i++) {
+            final char x = names[aStart + i];
+            final char y = names[bStart + i];
+            if (x != y) {
+                return x - y;
+            }
+        }
+        return (nameEnds[a] - aStart) - (nameEnds[b] - bStart);
+    }
+}
@@ -0,0 +1,200 @@
+package it.unitn.disi.smatch.data.trees;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of a tree, which numbers the nodes in pre-order, that is in the order of entering them in the Euler tour of
+ * the tree. Descendants of the node number i are numbered from i + 1 to i + getDescendantCount(i), therefore ancestor
+ * tests take constant time and a subtree is iterated as a range of numbers, without iterators and cached lists.
+ * <p/>
+ * The index is immutable and reflects the tree at the moment of its creation. Contexts create it on demand, see
+ * {@link IBaseContext#getTreeIndex()}, and drop it when the tree changes.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class TreeIndex<E extends IBaseNode<E, ?>> {
+
+    private final E[] nodes;
+    private final int[] parents;
+    private final int[] depths;
+    private final int[] descendantCounts;
+    private final Map<E, Integer> numbers;
+
+    /**
+     * Indexes the subtree of the node.
+     *
+     * @param root the root of the subtree to index
+     */
+    @SuppressWarnings("unchecked")
+    public TreeIndex(E root) {
+        final List<E> order = new ArrayList<E>();
+        numbers = new IdentityHashMap<E, Integer>();
+        if (null != root) {
+            final Deque<E> stack = new ArrayDeque<E>();
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                final E node = stack.pop();
+                numbers.put(node, order.size());
+                order.add(node);
+                final List<E> children = node.getChildrenList();
+                for (int i = children.size() - 1; 0 <= i; i--) {
+                    stack.push(children.get(i));
+                }
+            }
+        }
+
+        final int count = order.size();
+        nodes = (E[]) order.toArray(new IBaseNode<?, ?>[count]);
+        parents = new int[count];
+        depths = new int[count];
+        descendantCounts = new int[count];
+        // parents precede children
+        for (int i = 0; i < count; i++) {
+            if (0 == i) {
+                parents[i] = -1;
+            } else {
+                parents[i] = numbers.get(nodes[i].getParent());
+                depths[i] = depths[parents[i]] + 1;
+            }
+        }
+        for (int i = count - 1; 0 < i; i--) {
+            descendantCounts[parents[i]] += descendantCounts[i] + 1;
+        }
+    }
+
+    /**
+     * Returns the number of indexed nodes.
+     *
+     * @return the number of indexed nodes
+     */
+    public int size() {
+        return nodes.length;
+    }
+
+    /**
+     * Returns the node with the number.
+     *
+     * @param number node number
+     * @return the node with the number
+     */
+    public E getNode(int number) {
+        return nodes[number];
+    }
+
+    /**
+     * Returns the number of the node.
+     *
+     * @param node a node
+     * @return the number of the node or -1 if the node is not indexed
+     */
+    public int getNumber(E node) {
+        final Integer result = numbers.get(node);
+        return null == result ? -1 : result;
+    }
+
+    /**
+     * Returns the number of the parent of the node.
+     *
+     * @param number node number
+     * @return the number of the parent or -1 for the root
+     */
+    public int getParent(int number) {
+        return parents[number];
+    }
+
+    /**
+     * Returns the depth of the node, 0 for the root.
+     *
+     * @param number node number
+     * @return the depth of the node
+     */
+    public int getDepth(int number) {
+        return depths[number];
+    }
+
+    /**
+     * Returns the number of the descendants of the node.
+     *
+     * @param number node number
+     * @return the number of the descendants of the node
+     */
+    public int getDescendantCount(int number) {
+        return descendantCounts[number];
+    }
+
+    /**
+     * Returns the number following the subtree of the node. Descendants of the node are numbered from number + 1 up to,
+     * but not including, this one.
+     *
+     * @param number node number
+     * @return the number following the subtree of the node
+     */
+    public int getSubtreeEnd(int number) {
+        return number + descendantCounts[number] + 1;
+    }
+
+    /**
+     * Returns the number of the first child of the node.
+     *
+     * @param number node number
+     * @return the number of the first child or -1 for a leaf
+     */
+    public int getFirstChild(int number) {
+        return 0 < descendantCounts[number] ? number + 1 : -1;
+    }
+
+    /**
+     * Checks whether one node is a proper ancestor of another.
+     *
+     * @param ancestor number of the ancestor
+     * @param number   number of the node
+     * @return true if the ancestor is an ancestor of the node
+     */
+    public boolean isAncestor(int ancestor, int number) {
+        return ancestor < number && number <= ancestor + descendantCounts[ancestor];
+    }
+
+    /**
+     * Checks whether one node is a proper ancestor of another.
+     *
+     * @param ancestor the ancestor
+     * @param node     the node
+     * @return true if both nodes are indexed and the ancestor is an ancestor of the node
+     */
+    public boolean isAncestor(E ancestor, E node) {
+        final int a = getNumber(ancestor);
+        final int n = getNumber(node);
+        return 0 <= a && 0 <= n && isAncestor(a, n);
+    }
+
+    /**
+     * Writes numbers of the descendants of the node in the breadth first order of {@link IBaseNode#getDescendants()}.
+     * The array should have room for all the descendants. Lets walking the descendants in that order without creating
+     * a queue for each node, when the order matters.
+     *
+     * @param number node number
+     * @param result array for the numbers of the descendants
+     * @return the number of the descendants written
+     */
+    public int getDescendantsBreadthFirst(int number, int[] result) {
+        int tail = appendChildren(number, result, 0);
+        for (int head = 0; head < tail; head++) {
+            tail = appendChildren(result[head], result, tail);
+        }
+        return tail;
+    }
+
+    private int appendChildren(int number, int[] result, int tail) {
+        final int end = getSubtreeEnd(number);
+        for (int child = number + 1; child < end; child = getSubtreeEnd(child)) {
+            result[tail] = child;
+            tail++;
+        }
+        return tail;
+    }
+}
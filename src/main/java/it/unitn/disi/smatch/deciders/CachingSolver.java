@@ -4,13 +4,29 @@ import it.unitn.disi.common.components.Configurable;
 import it.unitn.disi.common.components.ConfigurableException;
 import org.apache.log4j.Logger;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * SAT solver which caches answers. Observed cache hit rates vary from 70% on small (dozens of nodes) matching tasks
  * to 99% on large (hundreds of nodes) tasks. Needs SATSolver configuration parameter pointing to a class implementing
  * {@link it.unitn.disi.smatch.deciders.ISATSolver} to solve SAT problems.
+ * <p/>
+ * Problems are brought to a canonical form before the lookup: variables are renumbered in the order of their first
+ * occurrence and literals are sorted within clauses. Therefore problems generated in the same way for different node
+ * matching tasks share the entry even if their variables are numbered differently. The cache keeps only a 128-bit
+ * fingerprint of the canonical form. It is bounded by the cacheSize parameter (100000 answers by default), evicts
+ * least recently used answers and can be used from several threads, provided the underlying solver can.
+ * <p/>
+ * Satisfiability depends only on the problem, therefore instances configured with the sharedCache parameter set to
+ * true and the same cacheSize share one cache. This way copies of a node matcher, such as those made by
+ * {@link it.unitn.disi.smatch.matchers.structure.tree.def.ParallelTreeMatcher} for each thread, and components
+ * configured again keep the answers found by the others. Shared caches outlive the instances, up to cacheSize answers
+ * each, until {@link #releaseSharedCaches()} is called. By default an instance has a cache of its own.
  *
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
@@ -21,7 +37,93 @@ public class CachingSolver extends Configurable implements ISATSolver {
     private static final String SAT_SOLVER_KEY = "SATSolver";
     protected ISATSolver satSolver = null;
 
-    private static HashMap<String, Boolean> solutionsCache = new HashMap<String, Boolean>();
+    private static final String CACHE_SIZE_KEY = "cacheSize";
+    private int cacheSize = 100000;
+
+    private static final String SHARED_CACHE_KEY = "sharedCache";
+    private boolean sharedCache = false;
+
+    // the cache is split into segments to reduce contention
+    private static final int SEGMENT_COUNT = 16;
+
+    // caches shared between the instances, by size
+    private static final Map<Integer, Cache> sharedCaches = new HashMap<Integer, Cache>();
+
+    private Cache cache = new Cache(cacheSize);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * 128-bit fingerprint of a canonical SAT problem.
+     */
+    private static final class Fingerprint {
+        private final long high;
+        private final long low;
+
+        private Fingerprint(long high, long low) {
+            this.high = high;
+            this.low = low;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Fingerprint)) {
+                return false;
+            }
+            Fingerprint that = (Fingerprint) o;
+            return high == that.high && low == that.low;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (low ^ (low >>> 32));
+        }
+    }
+
+    private static final class Segment extends LinkedHashMap<Fingerprint, Boolean> {
+        private final int capacity;
+        private final AtomicLong evictions;
+
+        private Segment(int capacity, AtomicLong evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Fingerprint, Boolean> eldest) {
+            boolean result = size() > capacity;
+            if (result) {
+                evictions.incrementAndGet();
+            }
+            return result;
+        }
+    }
+
+    private static final class Cache {
+        private final int size;
+        private volatile Segment[] segments;
+        private final AtomicLong evictions = new AtomicLong();
+
+        private Cache(int size) {
+            this.size = size;
+            clear();
+        }
+
+        private void clear() {
+            Segment[] result = new Segment[SEGMENT_COUNT];
+            final int capacity = Math.max(1, size / SEGMENT_COUNT);
+            for (int i = 0; i < SEGMENT_COUNT; i++) {
+                result[i] = new Segment(capacity, evictions);
+            }
+            segments = result;
+            evictions.set(0);
+        }
+    }
 
     @Override
     public boolean setProperties(Properties newProperties) throws ConfigurableException {
@@ -37,6 +139,20 @@ public class CachingSolver extends Configurable implements ISATSolver {
                 log.error(errMessage);
                 throw new ConfigurableException(errMessage);
             }
+
+            if (newProperties.containsKey(CACHE_SIZE_KEY)) {
+                cacheSize = Integer.parseInt(newProperties.getProperty(CACHE_SIZE_KEY));
+            }
+            if (newProperties.containsKey(SHARED_CACHE_KEY)) {
+                sharedCache = Boolean.parseBoolean(newProperties.getProperty(SHARED_CACHE_KEY));
+            }
+            if (sharedCache) {
+                cache = getSharedCache(cacheSize);
+            } else {
+                cache = new Cache(cacheSize);
+            }
+            hits.set(0);
+            misses.set(0);
         }
         return result;
     }
@@ -49,11 +165,148 @@ public class CachingSolver extends Configurable implements ISATSolver {
      * @throws SATSolverException SATSolverException
      */
     public boolean isSatisfiable(String input) throws SATSolverException {
-        Boolean result = solutionsCache.get(input);
+        final Fingerprint key = fingerprint(input);
+        final Segment segment = cache.segments[(key.hashCode() & 0x7FFFFFFF) % SEGMENT_COUNT];
+        Boolean result;
+        synchronized (segment) {
+            result = segment.get(key);
+        }
         if (null == result) {
+            misses.incrementAndGet();
             result = satSolver.isSatisfiable(input);
-            solutionsCache.put(input, result);
+            synchronized (segment) {
+                segment.put(key, result);
+            }
+        } else {
+            hits.incrementAndGet();
         }
         return result;
     }
-}
\ No newline at end of file
+
+    /**
+     * Drops all cached answers, also for the instances sharing the cache, and resets the counters.
+     */
+    public void clear() {
+        cache.clear();
+        hits.set(0);
+        misses.set(0);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return cache.evictions.get();
+    }
+
+    /**
+     * Returns the number of cached answers.
+     *
+     * @return the number of cached answers
+     */
+    public int size() {
+        int result = 0;
+        for (Segment segment : cache.segments) {
+            synchronized (segment) {
+                result += segment.size();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Releases the caches shared between the instances. Instances using a shared cache keep it until they are
+     * configured again, the instances configured later get new shared caches.
+     */
+    public static void releaseSharedCaches() {
+        synchronized (sharedCaches) {
+            sharedCaches.clear();
+        }
+    }
+
+    private static Cache getSharedCache(int cacheSize) {
+        synchronized (sharedCaches) {
+            Cache result = sharedCaches.get(cacheSize);
+            if (null == result) {
+                result = new Cache(cacheSize);
+                sharedCaches.put(cacheSize, result);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Computes the fingerprint of the canonical form of the problem. Variables are renumbered in the order of their
+     * first occurrence, literals are sorted within clauses. The header and comments are skipped.
+     *
+     * @param input problem in DIMACS format
+     * @return fingerprint
+     */
+    private static Fingerprint fingerprint(String input) {
+        int[] variables = new int[64];
+        int variableCount = 0;
+        int[] clause = new int[16];
+        int clauseSize = 0;
+
+        long high = 0x6A09E667F3BCC908L;
+        long low = 0xBB67AE8584CAA73BL;
+
+        final int length = input.length();
+        int i = 0;
+        while (i < length) {
+            char c = input.charAt(i);
+            if ('c' == c || 'p' == c) {
+                // skip the comment or the header line
+                while (i < length && '\n' != input.charAt(i)) {
+                    i++;
+                }
+            } else if ('-' == c || ('0' <= c && c <= '9')) {
+                boolean negative = '-' == c;
+                if (negative) {
+                    i++;
+                }
+                int var = 0;
+                while (i < length && '0' <= (c = input.charAt(i)) && c <= '9') {
+                    var = 10 * var + (c - '0');
+                    i++;
+                }
+                if (0 == var) {
+                    // end of the clause
+                    Arrays.sort(clause, 0, clauseSize);
+                    for (int j = 0; j < clauseSize; j++) {
+                        high = mix(high, clause[j], 0x9E3779B97F4A7C15L);
+                        low = mix(low, clause[j], 0xC2B2AE3D27D4EB4FL);
+                    }
+                    high = mix(high, 0, 0x9E3779B97F4A7C15L);
+                    low = mix(low, 0, 0xC2B2AE3D27D4EB4FL);
+                    clauseSize = 0;
+                } else {
+                    if (variables.length <= var) {
+                        variables = Arrays.copyOf(variables, Math.max(var + 1, 2 * variables.length));
+                    }
+                    if (0 == variables[var]) {
+                        variableCount++;
+                        variables[var] = variableCount;
+                    }
+                    if (clause.length == clauseSize) {
+                        clause = Arrays.copyOf(clause, 2 * clauseSize);
+                    }
+                    clause[clauseSize] = negative ? -variables[var] : variables[var];
+                    clauseSize++;
+                }
+            }
+            i++;
+        }
+        return new Fingerprint(high, low ^ variableCount);
+    }
+
+    private static long mix(long hash, int value, long multiplier) {
+        hash = (hash ^ value) * multiplier;
+        return hash ^ (hash >>> 29);
+    }
+}
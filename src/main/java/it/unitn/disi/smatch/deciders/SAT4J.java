@@ -15,7 +15,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 
 /**
- * SAT4J-based Solver.
+ * SAT4J-based Solver. Keeps a solver instance per thread, therefore can be used from several threads.
  *
  * @author Mikalai Yatskevich mikalai.yatskevich@comlab.ox.ac.uk
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
@@ -24,18 +24,19 @@ public class SAT4J extends Configurable implements ISATSolver {
 
     private static final Logger log = Logger.getLogger(SAT4J.class);
 
-    private Reader reader;
-
-    public SAT4J() {
-        ISolver solver = SolverFactory.newLight();
-        solver.setTimeout(3600); // 1 hour timeout
-        reader = new DimacsReader(solver);
-    }
+    private final ThreadLocal<Reader> reader = new ThreadLocal<Reader>() {
+        @Override
+        protected Reader initialValue() {
+            ISolver solver = SolverFactory.newLight();
+            solver.setTimeout(3600); // 1 hour timeout
+            return new DimacsReader(solver);
+        }
+    };
 
     public boolean isSatisfiable(String input) throws SATSolverException {
         boolean result;
         try {
-            IProblem problem = reader.parseInstance(new ByteArrayInputStream(input.getBytes()));
+            IProblem problem = reader.get().parseInstance(new ByteArrayInputStream(input.getBytes()));
             result = problem.isSatisfiable();
         } catch (ParseFormatException e) {
             final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
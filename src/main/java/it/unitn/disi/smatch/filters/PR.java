@@ -2,6 +2,7 @@ package it.unitn.disi.smatch.filters;
 
 import it.unitn.disi.common.components.ConfigurableException;
 import it.unitn.disi.smatch.data.mappings.IContextMapping;
+import it.unitn.disi.smatch.data.mappings.IMappingCursor;
 import it.unitn.disi.smatch.data.trees.INode;
 import it.unitn.disi.smatch.loaders.mapping.IMappingLoader;
 import it.unitn.disi.smatch.loaders.mapping.MappingLoaderException;
@@ -86,17 +87,12 @@ public class PR extends BaseFilter {
 
         long posSize = filterMappings[0].size();
 
-        filterMappings[0].retainAll(mapping);
-        if (1 < mappingLocations.length) {
-            filterMappings[1].retainAll(mapping);
-        }
-
-        long posTruePositiveSize = filterMappings[0].size();
+        long posTruePositiveSize = countCommon(filterMappings[0], mapping);
         double p = 0;
         double r = 0;
 
         if (1 < mappingLocations.length) {
-            long negTruePositiveSize = filterMappings[1].size();
+            long negTruePositiveSize = countCommon(filterMappings[1], mapping);
             if (0 < (posTruePositiveSize + negTruePositiveSize) && 0 < posSize) {
                 if (log.isEnabledFor(Level.INFO)) {
                     log.info("positive true positive:\t" + posTruePositiveSize);
@@ -128,4 +124,22 @@ public class PR extends BaseFilter {
 
         return mapping;
     }
+
+    /**
+     * Counts the links of the golden mapping present in the mapping with the same relation.
+     *
+     * @param golden  golden mapping
+     * @param mapping mapping
+     * @return the number of common links
+     */
+    private static long countCommon(IContextMapping<INode> golden, IContextMapping<INode> mapping) {
+        long result = 0;
+        final IMappingCursor<INode> cursor = golden.cursor();
+        while (cursor.next()) {
+            if (cursor.getRelation() == mapping.getRelation(cursor.getSource(), cursor.getTarget())) {
+                result++;
+            }
+        }
+        return result;
+    }
 }
@@ -0,0 +1,242 @@
+package it.unitn.disi.smatch.filters;
+
+import it.unitn.disi.common.components.ConfigurableException;
+import it.unitn.disi.common.utils.RangeExecutor;
+import it.unitn.disi.smatch.SMatchConstants;
+import it.unitn.disi.smatch.data.mappings.IContextMapping;
+import it.unitn.disi.smatch.data.mappings.IMappingCursor;
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.data.mappings.MatrixMapping;
+import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.data.trees.TreeIndex;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates entailed links, as {@link RedundantGeneratorMappingFilter} does, without walking ancestor and descendant
+ * lists for each pair of nodes.
+ * <p/>
+ * Nodes of both trees are numbered in pre-order by {@link TreeIndex}, so the descendants of a node form a range of
+ * numbers. Links of each source node are kept as bitsets over the target nodes: less general or equivalent, more
+ * general or equivalent and disjoint. The bitsets are combined along the source tree, then a row of entailed relations
+ * takes two passes over the target tree. Rows are computed in parallel on a fork/join pool from the links of the
+ * original mapping.
+ * <p/>
+ * Accepts the threads configuration parameter with the pool size, by default the number of available processors.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class ParallelRedundantGeneratorMappingFilter extends RedundantGeneratorMappingFilter {
+
+    private static final Logger log = Logger.getLogger(ParallelRedundantGeneratorMappingFilter.class);
+
+    private static final String THREADS_KEY = "threads";
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private RangeExecutor executor = new RangeExecutor(threads);
+
+    /**
+     * Filtering of a mapping.
+     */
+    private static class FilteringTask implements RangeExecutor.IRangeTask<RuntimeException> {
+        private final IContextMapping<INode> mapping;
+        private final boolean concurrentMapping;
+        private final TreeIndex<INode> sources;
+        private final TreeIndex<INode> targets;
+
+        // links of source nodes as bitsets over target nodes
+        private final long[][] lessGeneral;
+        private final long[][] moreGeneral;
+        private final long[][] disjoint;
+        // links of strict ancestors and strict descendants of source nodes
+        private final long[][] ancestorsLessGeneral;
+        private final long[][] ancestorsDisjoint;
+        private final long[][] descendantsMoreGeneral;
+
+        private final AtomicLong counter = new AtomicLong();
+        private final long total;
+        private final long reportInt;
+
+        private FilteringTask(IContextMapping<INode> mapping) {
+            this.mapping = mapping;
+            concurrentMapping = mapping instanceof MatrixMapping;
+            sources = mapping.getSourceContext().getTreeIndex();
+            targets = mapping.getTargetContext().getTreeIndex();
+            final int rows = sources.size();
+            final int words = (targets.size() + 63) >>> 6;
+            total = (long) rows * (long) targets.size();
+            reportInt = (total / 20) + 1;//i.e. report every 5%
+
+            lessGeneral = new long[rows][words];
+            moreGeneral = new long[rows][words];
+            disjoint = new long[rows][words];
+            final IMappingCursor<INode> cursor = mapping.cursor();
+            while (cursor.next()) {
+                final int s = sources.getNumber(cursor.getSource());
+                final int t = targets.getNumber(cursor.getTarget());
+                if (0 <= s && 0 <= t) {
+                    final long bit = 1L << t;
+                    switch (cursor.getRelation()) {
+                        case IMappingElement.LESS_GENERAL: {
+                            lessGeneral[s][t >>> 6] |= bit;
+                            break;
+                        }
+                        case IMappingElement.MORE_GENERAL: {
+                            moreGeneral[s][t >>> 6] |= bit;
+                            break;
+                        }
+                        case IMappingElement.EQUIVALENCE: {
+                            lessGeneral[s][t >>> 6] |= bit;
+                            moreGeneral[s][t >>> 6] |= bit;
+                            break;
+                        }
+                        case IMappingElement.DISJOINT: {
+                            disjoint[s][t >>> 6] |= bit;
+                            break;
+                        }
+                        default: {
+                        }
+                    }
+                }
+            }
+
+            // parents precede children in pre-order
+            ancestorsLessGeneral = new long[rows][words];
+            ancestorsDisjoint = new long[rows][words];
+            for (int s = 1; s < rows; s++) {
+                final int p = sources.getParent(s);
+                for (int w = 0; w < words; w++) {
+                    ancestorsLessGeneral[s][w] = ancestorsLessGeneral[p][w] | lessGeneral[p][w];
+                    ancestorsDisjoint[s][w] = ancestorsDisjoint[p][w] | disjoint[p][w];
+                }
+            }
+            descendantsMoreGeneral = new long[rows][words];
+            for (int s = rows - 1; 0 < s; s--) {
+                final int p = sources.getParent(s);
+                for (int w = 0; w < words; w++) {
+                    descendantsMoreGeneral[p][w] |= descendantsMoreGeneral[s][w] | moreGeneral[s][w];
+                }
+            }
+        }
+
+        public void run(int from, int to) {
+            final int count = targets.size();
+            // whether a less general link of an ancestor-or-self of the source reaches into the subtree of the target
+            final boolean[] lg = new boolean[count];
+            // whether a more general or a disjoint link reaches an ancestor-or-self of the target
+            final boolean[] mg = new boolean[count];
+            final boolean[] dj = new boolean[count];
+            final char[] relations = new char[count];
+            for (int s = from; s < to; s++) {
+                final long[] ancLG = ancestorsLessGeneral[s];
+                final long[] selfLG = lessGeneral[s];
+                final long[] descMG = descendantsMoreGeneral[s];
+                final long[] selfMG = moreGeneral[s];
+                final long[] ancDJ = ancestorsDisjoint[s];
+                final long[] selfDJ = disjoint[s];
+
+                // condition 1: (ancestor-or-self, descendant-or-self) except (source, target), bottom-up
+                for (int t = 0; t < count; t++) {
+                    lg[t] = isSet(ancLG, t);
+                }
+                for (int t = count - 1; 0 < t; t--) {
+                    if (lg[t] || isSet(selfLG, t)) {
+                        lg[targets.getParent(t)] = true;
+                    }
+                }
+
+                // conditions 2 and 3: pairs up to the target ancestors, top-down
+                if (0 < count) {
+                    mg[0] = isSet(descMG, 0);
+                    dj[0] = isSet(ancDJ, 0);
+                }
+                for (int t = 1; t < count; t++) {
+                    final int p = targets.getParent(t);
+                    mg[t] = mg[p] || isSet(descMG, t) || isSet(selfMG, p);
+                    dj[t] = dj[p] || isSet(ancDJ, t) || isSet(selfDJ, p);
+                }
+
+                for (int t = 0; t < count; t++) {
+                    final boolean isLG = isSet(selfLG, t);
+                    final boolean isMG = isSet(selfMG, t);
+                    if (isSet(selfDJ, t) || dj[t]) {
+                        relations[t] = IMappingElement.DISJOINT;
+                    } else if ((isLG && isMG) || ((isLG || lg[t]) && (isMG || mg[t]))) {
+                        relations[t] = IMappingElement.EQUIVALENCE;
+                    } else if (isLG || lg[t]) {
+                        relations[t] = IMappingElement.LESS_GENERAL;
+                    } else if (isMG || mg[t]) {
+                        relations[t] = IMappingElement.MORE_GENERAL;
+                    } else {
+                        relations[t] = IMappingElement.IDK;
+                    }
+                }
+                setRow(sources.getNode(s), relations);
+
+                final long done = counter.addAndGet(count);
+                if ((SMatchConstants.LARGE_TASK < total) && (done / reportInt != (done - count) / reportInt) && log.isEnabledFor(Level.INFO)) {
+                    log.info(100 * done / total + "%");
+                }
+            }
+        }
+
+        private void setRow(INode sourceNode, char[] relations) {
+            if (concurrentMapping) {
+                for (int t = 0; t < relations.length; t++) {
+                    mapping.setRelation(sourceNode, targets.getNode(t), relations[t]);
+                }
+            } else {
+                synchronized (mapping) {
+                    for (int t = 0; t < relations.length; t++) {
+                        mapping.setRelation(sourceNode, targets.getNode(t), relations[t]);
+                    }
+                }
+            }
+        }
+
+        private static boolean isSet(long[] bits, int index) {
+            return 0 != (bits[index >>> 6] & (1L << index));
+        }
+    }
+
+    @Override
+    public boolean setProperties(Properties newProperties) throws ConfigurableException {
+        boolean result = super.setProperties(newProperties);
+        if (result) {
+            if (newProperties.containsKey(THREADS_KEY)) {
+                threads = Integer.parseInt(newProperties.getProperty(THREADS_KEY));
+                if (threads < 1) {
+                    final String errMessage = "Number of threads should be positive: " + threads;
+                    log.error(errMessage);
+                    throw new ConfigurableException(errMessage);
+                }
+            }
+
+            executor = new RangeExecutor(threads);
+        }
+        return result;
+    }
+
+    @Override
+    public IContextMapping<INode> filter(IContextMapping<INode> mapping) {
+        if (log.isEnabledFor(Level.INFO)) {
+            log.info("Filtering started...");
+        }
+        long start = System.currentTimeMillis();
+
+        final FilteringTask task = new FilteringTask(mapping);
+        final int rows = task.sources.size();
+        if (log.isEnabledFor(Level.DEBUG)) {
+            log.debug("Filtering " + rows + " rows using " + threads + " threads");
+        }
+        executor.run(rows, task, RuntimeException.class);
+
+        if (log.isEnabledFor(Level.INFO)) {
+            log.info("Filtering finished: " + (System.currentTimeMillis() - start) + " ms");
+        }
+
+        return mapping;
+    }
+}
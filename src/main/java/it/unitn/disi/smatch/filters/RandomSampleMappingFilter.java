@@ -3,7 +3,7 @@ package it.unitn.disi.smatch.filters;
 import it.unitn.disi.smatch.SMatchConstants;
 import it.unitn.disi.common.components.ConfigurableException;
 import it.unitn.disi.smatch.data.mappings.IContextMapping;
-import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.data.mappings.IMappingCursor;
 import it.unitn.disi.smatch.data.trees.INode;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
@@ -53,9 +53,10 @@ public class RandomSampleMappingFilter extends BaseFilter implements IMappingFil
         if (log.isEnabledFor(Level.INFO)) {
             log.info("Sampling...");
         }
-        for (IMappingElement<INode> e : mapping) {
+        final IMappingCursor<INode> cursor = mapping.cursor();
+        while (cursor.next()) {
             if (0 == r.nextInt(oneIn) && result.size() < sampleSize) {
-                result.add(e);
+                result.setRelation(cursor.getSource(), cursor.getTarget(), cursor.getRelation());
             }
 
             counter++;
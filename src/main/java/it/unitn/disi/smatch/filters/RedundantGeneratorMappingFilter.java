@@ -6,6 +6,7 @@ import it.unitn.disi.smatch.data.mappings.IContextMapping;
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
 import it.unitn.disi.smatch.data.trees.IContext;
 import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.data.trees.TreeIndex;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 
@@ -160,31 +161,124 @@ public class RedundantGeneratorMappingFilter extends Configurable implements IMa
     // and then all the rest is not removed because of the "gap"
 
     protected boolean verifyCondition1(IContextMapping<INode> mapping, INode source, INode target) {
-        return findRelation(mapping, IMappingElement.LESS_GENERAL, source.getAncestorsList(), target) ||
-                findRelation(mapping, IMappingElement.LESS_GENERAL, source, target.getDescendantsList()) ||
-                findRelation(mapping, IMappingElement.LESS_GENERAL, source.getAncestorsList(), target.getDescendantsList()) ||
+        final TreeIndex<INode> sources = mapping.getSourceContext().getTreeIndex();
+        final TreeIndex<INode> targets = mapping.getTargetContext().getTreeIndex();
+        final int s = sources.getNumber(source);
+        final int t = targets.getNumber(target);
+        final int descendantsEnd = targets.getSubtreeEnd(t);
+        return findRelationAmongSourceAncestors(mapping, IMappingElement.LESS_GENERAL, sources, s, target) ||
+                findRelationAmongTargets(mapping, IMappingElement.LESS_GENERAL, source, targets, t + 1, descendantsEnd) ||
+                findRelationAmongSourceAncestors(mapping, IMappingElement.LESS_GENERAL, sources, s, targets, t + 1, descendantsEnd) ||
 
-                findRelation(mapping, IMappingElement.EQUIVALENCE, source.getAncestorsList(), target) ||
-                findRelation(mapping, IMappingElement.EQUIVALENCE, source, target.getDescendantsList()) ||
-                findRelation(mapping, IMappingElement.EQUIVALENCE, source.getAncestorsList(), target.getDescendantsList());
+                findRelationAmongSourceAncestors(mapping, IMappingElement.EQUIVALENCE, sources, s, target) ||
+                findRelationAmongTargets(mapping, IMappingElement.EQUIVALENCE, source, targets, t + 1, descendantsEnd) ||
+                findRelationAmongSourceAncestors(mapping, IMappingElement.EQUIVALENCE, sources, s, targets, t + 1, descendantsEnd);
     }
 
     protected boolean verifyCondition2(IContextMapping<INode> mapping, INode source, INode target) {
-        return findRelation(mapping, IMappingElement.MORE_GENERAL, source, target.getAncestorsList()) ||
-                findRelation(mapping, IMappingElement.MORE_GENERAL, source.getDescendantsList(), target) ||
-                findRelation(mapping, IMappingElement.MORE_GENERAL, source.getDescendantsList(), target.getAncestorsList()) ||
+        final TreeIndex<INode> sources = mapping.getSourceContext().getTreeIndex();
+        final TreeIndex<INode> targets = mapping.getTargetContext().getTreeIndex();
+        final int s = sources.getNumber(source);
+        final int t = targets.getNumber(target);
+        final int descendantsEnd = sources.getSubtreeEnd(s);
+        return findRelationAmongTargetAncestors(mapping, IMappingElement.MORE_GENERAL, source, targets, t) ||
+                findRelationAmongSources(mapping, IMappingElement.MORE_GENERAL, sources, s + 1, descendantsEnd, target) ||
+                findRelationAmongSources(mapping, IMappingElement.MORE_GENERAL, sources, s + 1, descendantsEnd, targets, t) ||
 
-                findRelation(mapping, IMappingElement.EQUIVALENCE, source, target.getAncestorsList()) ||
-                findRelation(mapping, IMappingElement.EQUIVALENCE, source.getDescendantsList(), target) ||
-                findRelation(mapping, IMappingElement.EQUIVALENCE, source.getDescendantsList(), target.getAncestorsList());
+                findRelationAmongTargetAncestors(mapping, IMappingElement.EQUIVALENCE, source, targets, t) ||
+                findRelationAmongSources(mapping, IMappingElement.EQUIVALENCE, sources, s + 1, descendantsEnd, target) ||
+                findRelationAmongSources(mapping, IMappingElement.EQUIVALENCE, sources, s + 1, descendantsEnd, targets, t);
     }
 
     protected boolean verifyCondition3(IContextMapping<INode> mapping, INode source, INode target) {
-        return findRelation(mapping, IMappingElement.DISJOINT, source, target.getAncestorsList()) ||
-                findRelation(mapping, IMappingElement.DISJOINT, source.getAncestorsList(), target) ||
-                findRelation(mapping, IMappingElement.DISJOINT, source.getAncestorsList(), target.getAncestorsList());
+        final TreeIndex<INode> sources = mapping.getSourceContext().getTreeIndex();
+        final TreeIndex<INode> targets = mapping.getTargetContext().getTreeIndex();
+        final int s = sources.getNumber(source);
+        final int t = targets.getNumber(target);
+        return findRelationAmongTargetAncestors(mapping, IMappingElement.DISJOINT, source, targets, t) ||
+                findRelationAmongSourceAncestors(mapping, IMappingElement.DISJOINT, sources, s, target) ||
+                findRelationAmongSourceAncestors(mapping, IMappingElement.DISJOINT, sources, s, targets, t);
     }
 
+    // ancestors are walked up the parents in the tree index of the context,
+    // descendants of a node are the range of numbers following the node
+
+    protected boolean findRelationAmongSourceAncestors(IContextMapping<INode> mapping, char relation, TreeIndex<INode> sources, int source, INode targetNode) {
+        for (int i = sources.getParent(source); 0 <= i; i = sources.getParent(i)) {
+            if (relation == getRelation(mapping, sources.getNode(i), targetNode)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected boolean findRelationAmongTargetAncestors(IContextMapping<INode> mapping, char relation, INode sourceNode, TreeIndex<INode> targets, int target) {
+        for (int i = targets.getParent(target); 0 <= i; i = targets.getParent(i)) {
+            if (relation == getRelation(mapping, sourceNode, targets.getNode(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected boolean findRelationAmongSources(IContextMapping<INode> mapping, char relation, TreeIndex<INode> sources, int from, int to, INode targetNode) {
+        for (int i = from; i < to; i++) {
+            if (relation == getRelation(mapping, sources.getNode(i), targetNode)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected boolean findRelationAmongTargets(IContextMapping<INode> mapping, char relation, INode sourceNode, TreeIndex<INode> targets, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (relation == getRelation(mapping, sourceNode, targets.getNode(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected boolean findRelationAmongSourceAncestors(IContextMapping<INode> mapping, char relation, TreeIndex<INode> sources, int source, TreeIndex<INode> targets, int from, int to) {
+        for (int i = sources.getParent(source); 0 <= i; i = sources.getParent(i)) {
+            if (findRelationAmongTargets(mapping, relation, sources.getNode(i), targets, from, to)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected boolean findRelationAmongSourceAncestors(IContextMapping<INode> mapping, char relation, TreeIndex<INode> sources, int source, TreeIndex<INode> targets, int target) {
+        for (int i = sources.getParent(source); 0 <= i; i = sources.getParent(i)) {
+            if (findRelationAmongTargetAncestors(mapping, relation, sources.getNode(i), targets, target)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected boolean findRelationAmongSources(IContextMapping<INode> mapping, char relation, TreeIndex<INode> sources, int from, int to, TreeIndex<INode> targets, int target) {
+        for (int i = from; i < to; i++) {
+            if (findRelationAmongTargetAncestors(mapping, relation, sources.getNode(i), targets, target)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a node from the list of source nodes is in the relation with the target node.
+     *
+     * @param mapping     a mapping
+     * @param relation    relation
+     * @param sourceNodes source nodes
+     * @param targetNode  target node
+     * @return true if a source node is in the relation with the target node
+     * @deprecated ancestors and descendants are looked up in the tree index, use
+     *             {@link #findRelationAmongSourceAncestors(IContextMapping, char, TreeIndex, int, INode)} or
+     *             {@link #findRelationAmongSources(IContextMapping, char, TreeIndex, int, int, INode)}
+     */
+    @Deprecated
     protected boolean findRelation(IContextMapping<INode> mapping, char relation, List<INode> sourceNodes, INode targetNode) {
         for (INode sourceNode : sourceNodes) {
             if (relation == getRelation(mapping, sourceNode, targetNode)) {
@@ -194,6 +288,19 @@ public class RedundantGeneratorMappingFilter extends Configurable implements IMa
         return false;
     }
 
+    /**
+     * Checks whether the source node is in the relation with a node from the list of target nodes.
+     *
+     * @param mapping     a mapping
+     * @param relation    relation
+     * @param sourceNode  source node
+     * @param targetNodes target nodes
+     * @return true if the source node is in the relation with a target node
+     * @deprecated ancestors and descendants are looked up in the tree index, use
+     *             {@link #findRelationAmongTargetAncestors(IContextMapping, char, INode, TreeIndex, int)} or
+     *             {@link #findRelationAmongTargets(IContextMapping, char, INode, TreeIndex, int, int)}
+     */
+    @Deprecated
     protected boolean findRelation(IContextMapping<INode> mapping, char relation, INode sourceNode, List<INode> targetNodes) {
         for (INode targetNode : targetNodes) {
             if (relation == getRelation(mapping, sourceNode, targetNode)) {
@@ -203,12 +310,24 @@ public class RedundantGeneratorMappingFilter extends Configurable implements IMa
         return false;
     }
 
+    /**
+     * Checks whether a node from the list of source nodes is in the relation with a node from the list of target nodes.
+     *
+     * @param mapping     a mapping
+     * @param relation    relation
+     * @param sourceNodes source nodes
+     * @param targetNodes target nodes
+     * @return true if a source node is in the relation with a target node
+     * @deprecated ancestors and descendants are looked up in the tree index, use
+     *             {@link #findRelationAmongSourceAncestors(IContextMapping, char, TreeIndex, int, TreeIndex, int, int)},
+     *             {@link #findRelationAmongSourceAncestors(IContextMapping, char, TreeIndex, int, TreeIndex, int)} or
+     *             {@link #findRelationAmongSources(IContextMapping, char, TreeIndex, int, int, TreeIndex, int)}
+     */
+    @Deprecated
     protected boolean findRelation(IContextMapping<INode> mapping, char relation, List<INode> sourceNodes, List<INode> targetNodes) {
         for (INode sourceNode : sourceNodes) {
-            for (INode targetNode : targetNodes) {
-                if (relation == getRelation(mapping, sourceNode, targetNode)) {
-                    return true;
-                }
+            if (findRelation(mapping, relation, sourceNode, targetNodes)) {
+                return true;
             }
         }
         return false;
@@ -2,8 +2,10 @@ package it.unitn.disi.smatch.filters;
 
 import it.unitn.disi.smatch.SMatchConstants;
 import it.unitn.disi.smatch.data.mappings.IContextMapping;
+import it.unitn.disi.smatch.data.mappings.IMappingCursor;
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
 import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.data.trees.TreeIndex;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 
@@ -38,9 +40,10 @@ public class RedundantMappingFilter extends BaseFilter implements IMappingFilter
 
         IContextMapping<INode> result = mappingFactory.getContextMappingInstance(mapping.getSourceContext(), mapping.getTargetContext());
 
-        for (IMappingElement<INode> e : mapping) {
-            if (!isRedundant(mapping, e)) {
-                result.setRelation(e.getSource(), e.getTarget(), e.getRelation());
+        final IMappingCursor<INode> cursor = mapping.cursor();
+        while (cursor.next()) {
+            if (!isRedundant(mapping, cursor.getSource(), cursor.getTarget(), cursor.getRelation())) {
+                result.setRelation(cursor.getSource(), cursor.getTarget(), cursor.getRelation());
             }
 
             counter++;
@@ -58,32 +61,34 @@ public class RedundantMappingFilter extends BaseFilter implements IMappingFilter
     /**
      * Checks the relation between source and target is redundant or not for minimal mapping.
      *
-     * @param mapping a mapping
-     * @param e       a mapping element
+     * @param mapping  a mapping
+     * @param source   source node
+     * @param target   target node
+     * @param relation relation between the source and the target
      * @return true for redundant relation
      */
-    private boolean isRedundant(IContextMapping<INode> mapping, IMappingElement<INode> e) {
-        switch (e.getRelation()) {
+    private boolean isRedundant(IContextMapping<INode> mapping, INode source, INode target, char relation) {
+        switch (relation) {
             case IMappingElement.LESS_GENERAL: {
-                if (verifyCondition1(mapping, e)) {
+                if (verifyCondition1(mapping, source, target)) {
                     return true;
                 }
                 break;
             }
             case IMappingElement.MORE_GENERAL: {
-                if (verifyCondition2(mapping, e)) {
+                if (verifyCondition2(mapping, source, target)) {
                     return true;
                 }
                 break;
             }
             case IMappingElement.DISJOINT: {
-                if (verifyCondition3(mapping, e)) {
+                if (verifyCondition3(mapping, source, target)) {
                     return true;
                 }
                 break;
             }
             case IMappingElement.EQUIVALENCE: {
-                if (verifyCondition4(mapping, e)) {
+                if (verifyCondition4(mapping, source, target)) {
                     return true;
                 }
                 break;
@@ -102,33 +107,192 @@ public class RedundantMappingFilter extends BaseFilter implements IMappingFilter
     //otherwise, in case of series of redundant links we remove first by checking parent
     //and then all the rest is not removed because of the "gap"
 
+    protected boolean verifyCondition1(IContextMapping<INode> mapping, INode source, INode target) {
+        final TreeIndex<INode> sources = mapping.getSourceContext().getTreeIndex();
+        final TreeIndex<INode> targets = mapping.getTargetContext().getTreeIndex();
+        final int s = sources.getNumber(source);
+        final int t = targets.getNumber(target);
+        return findRelationAmongSourceAncestors(IMappingElement.LESS_GENERAL, sources, s, target, mapping) ||
+                findRelationAmongTargets(IMappingElement.LESS_GENERAL, source, targets, t + 1, targets.getSubtreeEnd(t), mapping) ||
+                findRelationAmongTargets(IMappingElement.LESS_GENERAL, getNode(sources, sources.getParent(s)), targets, t + 1, targets.getSubtreeEnd(t), mapping);
+    }
+
+    protected boolean verifyCondition2(IContextMapping<INode> mapping, INode source, INode target) {
+        final TreeIndex<INode> sources = mapping.getSourceContext().getTreeIndex();
+        final TreeIndex<INode> targets = mapping.getTargetContext().getTreeIndex();
+        final int s = sources.getNumber(source);
+        final int t = targets.getNumber(target);
+        return findRelationAmongTargetAncestors(IMappingElement.MORE_GENERAL, source, targets, t, mapping) ||
+                findRelationAmongSources(IMappingElement.MORE_GENERAL, sources, s + 1, sources.getSubtreeEnd(s), target, mapping) ||
+                findRelationAmongTargetAncestors(IMappingElement.MORE_GENERAL, getNode(sources, sources.getFirstChild(s)), targets, t, mapping);
+    }
+
+    protected boolean verifyCondition3(IContextMapping<INode> mapping, INode source, INode target) {
+        final TreeIndex<INode> sources = mapping.getSourceContext().getTreeIndex();
+        final TreeIndex<INode> targets = mapping.getTargetContext().getTreeIndex();
+        final int s = sources.getNumber(source);
+        final int t = targets.getNumber(target);
+        return findRelationAmongTargetAncestors(IMappingElement.DISJOINT, source, targets, t, mapping) ||
+                findRelationAmongSourceAncestors(IMappingElement.DISJOINT, sources, s, target, mapping) ||
+                findRelationAmongTargetAncestors(IMappingElement.DISJOINT, getNode(sources, sources.getParent(s)), targets, t, mapping);
+    }
+
+    protected boolean verifyCondition4(IContextMapping<INode> mapping, INode source, INode target) {
+        final TreeIndex<INode> sources = mapping.getSourceContext().getTreeIndex();
+        final TreeIndex<INode> targets = mapping.getTargetContext().getTreeIndex();
+        final int s = sources.getNumber(source);
+        final int t = targets.getNumber(target);
+        return (findRelationAmongTargetAncestors(IMappingElement.EQUIVALENCE, source, targets, t, mapping) &&
+                findRelationAmongSourceAncestors(IMappingElement.EQUIVALENCE, sources, s, target, mapping))
+                ||
+                (findRelationAmongTargets(IMappingElement.EQUIVALENCE, source, targets, t + 1, targets.getSubtreeEnd(t), mapping) &&
+                        findRelationAmongSources(IMappingElement.EQUIVALENCE, sources, s + 1, sources.getSubtreeEnd(s), target, mapping))
+                ||
+                (findRelationAmongTargets(IMappingElement.EQUIVALENCE, getNode(sources, sources.getParent(s)), targets, t + 1, targets.getSubtreeEnd(t), mapping) &&
+                        findRelationAmongTargetAncestors(IMappingElement.EQUIVALENCE, getNode(sources, sources.getFirstChild(s)), targets, t, mapping));
+    }
+
+    /**
+     * Checks the condition 1 for the link.
+     *
+     * @param mapping a mapping
+     * @param e       a link
+     * @return true if the condition holds
+     * @deprecated the filter walks the links with a cursor, use {@link #verifyCondition1(IContextMapping, INode, INode)}
+     */
+    @Deprecated
     protected boolean verifyCondition1(IContextMapping<INode> mapping, IMappingElement<INode> e) {
-        return findRelation(IMappingElement.LESS_GENERAL, e.getSource().getAncestors(), e.getTarget(), mapping) ||
-                findRelation(IMappingElement.LESS_GENERAL, e.getSource(), e.getTarget().getDescendants(), mapping) ||
-                findRelation(IMappingElement.LESS_GENERAL, e.getSource().getAncestors(), e.getTarget().getDescendants(), mapping);
+        return verifyCondition1(mapping, e.getSource(), e.getTarget());
     }
 
+    /**
+     * Checks the condition 2 for the link.
+     *
+     * @param mapping a mapping
+     * @param e       a link
+     * @return true if the condition holds
+     * @deprecated the filter walks the links with a cursor, use {@link #verifyCondition2(IContextMapping, INode, INode)}
+     */
+    @Deprecated
     protected boolean verifyCondition2(IContextMapping<INode> mapping, IMappingElement<INode> e) {
-        return findRelation(IMappingElement.MORE_GENERAL, e.getSource(), e.getTarget().getAncestors(), mapping) ||
-                findRelation(IMappingElement.MORE_GENERAL, e.getSource().getDescendants(), e.getTarget(), mapping) ||
-                findRelation(IMappingElement.MORE_GENERAL, e.getSource().getDescendants(), e.getTarget().getAncestors(), mapping);
+        return verifyCondition2(mapping, e.getSource(), e.getTarget());
     }
 
+    /**
+     * Checks the condition 3 for the link.
+     *
+     * @param mapping a mapping
+     * @param e       a link
+     * @return true if the condition holds
+     * @deprecated the filter walks the links with a cursor, use {@link #verifyCondition3(IContextMapping, INode, INode)}
+     */
+    @Deprecated
     protected boolean verifyCondition3(IContextMapping<INode> mapping, IMappingElement<INode> e) {
-        return findRelation(IMappingElement.DISJOINT, e.getSource(), e.getTarget().getAncestors(), mapping) ||
-                findRelation(IMappingElement.DISJOINT, e.getSource().getAncestors(), e.getTarget(), mapping) ||
-                findRelation(IMappingElement.DISJOINT, e.getSource().getAncestors(), e.getTarget().getAncestors(), mapping);
+        return verifyCondition3(mapping, e.getSource(), e.getTarget());
     }
 
+    /**
+     * Checks the condition 4 for the link.
+     *
+     * @param mapping a mapping
+     * @param e       a link
+     * @return true if the condition holds
+     * @deprecated the filter walks the links with a cursor, use {@link #verifyCondition4(IContextMapping, INode, INode)}
+     */
+    @Deprecated
     protected boolean verifyCondition4(IContextMapping<INode> mapping, IMappingElement<INode> e) {
-        return (findRelation(IMappingElement.EQUIVALENCE, e.getSource(), e.getTarget().getAncestors(), mapping) &&
-                findRelation(IMappingElement.EQUIVALENCE, e.getSource().getAncestors(), e.getTarget(), mapping))
-                ||
-                (findRelation(IMappingElement.EQUIVALENCE, e.getSource(), e.getTarget().getDescendants(), mapping) &&
-                        findRelation(IMappingElement.EQUIVALENCE, e.getSource().getDescendants(), e.getTarget(), mapping))
-                ||
-                (findRelation(IMappingElement.EQUIVALENCE, e.getSource().getAncestors(), e.getTarget().getDescendants(), mapping) &&
-                        findRelation(IMappingElement.EQUIVALENCE, e.getSource().getDescendants(), e.getTarget().getAncestors(), mapping));
+        return verifyCondition4(mapping, e.getSource(), e.getTarget());
+    }
+
+    // descendants of a node are a range of numbers in the tree index of the context.
+    // where ancestors of one node are paired with descendants of another, only the first
+    // of the source nodes, the parent or the first child, is checked, as the iterator
+    // versions of findRelation below do
+
+    /**
+     * Checks whether an ancestor of the source node is in the relation with the target node.
+     *
+     * @param relation   relation
+     * @param sources    index of the source tree
+     * @param source     number of the source node
+     * @param targetNode target node
+     * @param mapping    a mapping
+     * @return true if an ancestor of the source node is in the relation with the target node
+     */
+    protected boolean findRelationAmongSourceAncestors(char relation, TreeIndex<INode> sources, int source, INode targetNode, IContextMapping<INode> mapping) {
+        for (int i = sources.getParent(source); 0 <= i; i = sources.getParent(i)) {
+            if (relation == getRelation(mapping, sources.getNode(i), targetNode)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the source node is in the relation with an ancestor of the target node.
+     *
+     * @param relation   relation
+     * @param sourceNode source node, null for none
+     * @param targets    index of the target tree
+     * @param target     number of the target node
+     * @param mapping    a mapping
+     * @return true if the source node is in the relation with an ancestor of the target node
+     */
+    protected boolean findRelationAmongTargetAncestors(char relation, INode sourceNode, TreeIndex<INode> targets, int target, IContextMapping<INode> mapping) {
+        if (null != sourceNode) {
+            for (int i = targets.getParent(target); 0 <= i; i = targets.getParent(i)) {
+                if (relation == getRelation(mapping, sourceNode, targets.getNode(i))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a source node from the range of numbers is in the relation with the target node.
+     *
+     * @param relation   relation
+     * @param sources    index of the source tree
+     * @param from       the first number of the range
+     * @param to         the number following the range
+     * @param targetNode target node
+     * @param mapping    a mapping
+     * @return true if a source node from the range is in the relation with the target node
+     */
+    protected boolean findRelationAmongSources(char relation, TreeIndex<INode> sources, int from, int to, INode targetNode, IContextMapping<INode> mapping) {
+        for (int i = from; i < to; i++) {
+            if (relation == getRelation(mapping, sources.getNode(i), targetNode)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the source node is in the relation with a target node from the range of numbers.
+     *
+     * @param relation   relation
+     * @param sourceNode source node, null for none
+     * @param targets    index of the target tree
+     * @param from       the first number of the range
+     * @param to         the number following the range
+     * @param mapping    a mapping
+     * @return true if the source node is in the relation with a target node from the range
+     */
+    protected boolean findRelationAmongTargets(char relation, INode sourceNode, TreeIndex<INode> targets, int from, int to, IContextMapping<INode> mapping) {
+        if (null != sourceNode) {
+            for (int i = from; i < to; i++) {
+                if (relation == getRelation(mapping, sourceNode, targets.getNode(i))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    protected static INode getNode(TreeIndex<INode> index, int number) {
+        return 0 <= number ? index.getNode(number) : null;
     }
 
     public boolean findRelation(char relation, Iterator<INode> sourceNodes, INode targetNode, IContextMapping<INode> mapping) {
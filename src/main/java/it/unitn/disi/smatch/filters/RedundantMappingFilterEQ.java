@@ -3,6 +3,7 @@ package it.unitn.disi.smatch.filters;
 import it.unitn.disi.smatch.data.mappings.IContextMapping;
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
 import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.data.trees.TreeIndex;
 
 /**
  * Filters the mapping, expanding equivalence links into pairs of more general and less general links.
@@ -24,25 +25,37 @@ public class RedundantMappingFilterEQ extends RedundantMappingFilter {
     // otherwise, in case of series of redundant links we remove first by checking parent
     // and then all the rest is not removed because of the "gap"
 
-    protected boolean verifyCondition1(IContextMapping<INode> mapping, IMappingElement<INode> e) {
-        return findRelation(IMappingElement.LESS_GENERAL, e.getSource().getAncestors(), e.getTarget(), mapping) ||
-                findRelation(IMappingElement.EQUIVALENCE, e.getSource().getAncestors(), e.getTarget(), mapping) ||
-
-                findRelation(IMappingElement.LESS_GENERAL, e.getSource(), e.getTarget().getDescendants(), mapping) ||
-                findRelation(IMappingElement.EQUIVALENCE, e.getSource(), e.getTarget().getDescendants(), mapping) ||
-
-                findRelation(IMappingElement.LESS_GENERAL, e.getSource().getAncestors(), e.getTarget().getDescendants(), mapping) ||
-                findRelation(IMappingElement.EQUIVALENCE, e.getSource().getAncestors(), e.getTarget().getDescendants(), mapping);
+    protected boolean verifyCondition1(IContextMapping<INode> mapping, INode source, INode target) {
+        final TreeIndex<INode> sources = mapping.getSourceContext().getTreeIndex();
+        final TreeIndex<INode> targets = mapping.getTargetContext().getTreeIndex();
+        final int s = sources.getNumber(source);
+        final int t = targets.getNumber(target);
+        final INode parent = getNode(sources, sources.getParent(s));
+        final int descendantsEnd = targets.getSubtreeEnd(t);
+        return findRelationAmongSourceAncestors(IMappingElement.LESS_GENERAL, sources, s, target, mapping) ||
+                findRelationAmongSourceAncestors(IMappingElement.EQUIVALENCE, sources, s, target, mapping) ||
+
+                findRelationAmongTargets(IMappingElement.LESS_GENERAL, source, targets, t + 1, descendantsEnd, mapping) ||
+                findRelationAmongTargets(IMappingElement.EQUIVALENCE, source, targets, t + 1, descendantsEnd, mapping) ||
+
+                findRelationAmongTargets(IMappingElement.LESS_GENERAL, parent, targets, t + 1, descendantsEnd, mapping) ||
+                findRelationAmongTargets(IMappingElement.EQUIVALENCE, parent, targets, t + 1, descendantsEnd, mapping);
     }
 
-    protected boolean verifyCondition2(IContextMapping<INode> mapping, IMappingElement<INode> e) {
-        return findRelation(IMappingElement.MORE_GENERAL, e.getSource(), e.getTarget().getAncestors(), mapping) ||
-                findRelation(IMappingElement.EQUIVALENCE, e.getSource(), e.getTarget().getAncestors(), mapping) ||
-
-                findRelation(IMappingElement.MORE_GENERAL, e.getSource().getDescendants(), e.getTarget(), mapping) ||
-                findRelation(IMappingElement.EQUIVALENCE, e.getSource().getDescendants(), e.getTarget(), mapping) ||
-
-                findRelation(IMappingElement.MORE_GENERAL, e.getSource().getDescendants(), e.getTarget().getAncestors(), mapping) ||
-                findRelation(IMappingElement.EQUIVALENCE, e.getSource().getDescendants(), e.getTarget().getAncestors(), mapping);
+    protected boolean verifyCondition2(IContextMapping<INode> mapping, INode source, INode target) {
+        final TreeIndex<INode> sources = mapping.getSourceContext().getTreeIndex();
+        final TreeIndex<INode> targets = mapping.getTargetContext().getTreeIndex();
+        final int s = sources.getNumber(source);
+        final int t = targets.getNumber(target);
+        final INode firstChild = getNode(sources, sources.getFirstChild(s));
+        final int descendantsEnd = sources.getSubtreeEnd(s);
+        return findRelationAmongTargetAncestors(IMappingElement.MORE_GENERAL, source, targets, t, mapping) ||
+                findRelationAmongTargetAncestors(IMappingElement.EQUIVALENCE, source, targets, t, mapping) ||
+
+                findRelationAmongSources(IMappingElement.MORE_GENERAL, sources, s + 1, descendantsEnd, target, mapping) ||
+                findRelationAmongSources(IMappingElement.EQUIVALENCE, sources, s + 1, descendantsEnd, target, mapping) ||
+
+                findRelationAmongTargetAncestors(IMappingElement.MORE_GENERAL, firstChild, targets, t, mapping) ||
+                findRelationAmongTargetAncestors(IMappingElement.EQUIVALENCE, firstChild, targets, t, mapping);
     }
 }
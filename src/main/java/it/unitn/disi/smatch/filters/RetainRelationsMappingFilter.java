@@ -3,7 +3,7 @@ package it.unitn.disi.smatch.filters;
 import it.unitn.disi.smatch.SMatchConstants;
 import it.unitn.disi.common.components.ConfigurableException;
 import it.unitn.disi.smatch.data.mappings.IContextMapping;
-import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.data.mappings.IMappingCursor;
 import it.unitn.disi.smatch.data.trees.INode;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
@@ -49,9 +49,10 @@ public class RetainRelationsMappingFilter extends BaseFilter implements IMapping
         long reportInt = (total / 20) + 1;//i.e. report every 5%
 
         //check each mapping
-        for (IMappingElement<INode> e : mapping) {
-            if (-1 < retainRelations.indexOf(e.getRelation())) {
-                result.add(e);
+        final IMappingCursor<INode> cursor = mapping.cursor();
+        while (cursor.next()) {
+            if (-1 < retainRelations.indexOf(cursor.getRelation())) {
+                result.setRelation(cursor.getSource(), cursor.getTarget(), cursor.getRelation());
             }
 
             counter++;
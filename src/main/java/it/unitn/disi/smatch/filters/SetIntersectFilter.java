@@ -1,6 +1,7 @@
 package it.unitn.disi.smatch.filters;
 
 import it.unitn.disi.smatch.data.mappings.IContextMapping;
+import it.unitn.disi.smatch.data.mappings.IMappingCursor;
 import it.unitn.disi.smatch.data.trees.INode;
 
 /**
@@ -19,9 +20,15 @@ public class SetIntersectFilter extends BaseMappingBasedFilter {
     public IContextMapping<INode> filter(IContextMapping<INode> mapping) throws MappingFilterException {
         super.filter(mapping);
 
-        mapping.retainAll(filterMapping);
+        IContextMapping<INode> result = mappingFactory.getContextMappingInstance(mapping.getSourceContext(), mapping.getTargetContext());
+        final IMappingCursor<INode> cursor = mapping.cursor();
+        while (cursor.next()) {
+            if (cursor.getRelation() == filterMapping.getRelation(cursor.getSource(), cursor.getTarget())) {
+                result.setRelation(cursor.getSource(), cursor.getTarget(), cursor.getRelation());
+            }
+        }
 
-        return mapping;
+        return result;
     }
 
 }
@@ -1,6 +1,7 @@
 package it.unitn.disi.smatch.filters;
 
 import it.unitn.disi.smatch.data.mappings.IContextMapping;
+import it.unitn.disi.smatch.data.mappings.IMappingCursor;
 import it.unitn.disi.smatch.data.trees.INode;
 
 /**
@@ -19,7 +20,10 @@ public class SetJoinFilter extends BaseMappingBasedFilter {
     public IContextMapping<INode> filter(IContextMapping<INode> mapping) throws MappingFilterException {
         super.filter(mapping);
 
-        mapping.addAll(filterMapping);
+        final IMappingCursor<INode> cursor = filterMapping.cursor();
+        while (cursor.next()) {
+            mapping.setRelation(cursor.getSource(), cursor.getTarget(), cursor.getRelation());
+        }
 
         return mapping;
     }
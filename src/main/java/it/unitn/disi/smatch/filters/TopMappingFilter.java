@@ -2,7 +2,7 @@ package it.unitn.disi.smatch.filters;
 
 import it.unitn.disi.smatch.SMatchConstants;
 import it.unitn.disi.smatch.data.mappings.IContextMapping;
-import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.data.mappings.IMappingCursor;
 import it.unitn.disi.smatch.data.trees.INode;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
@@ -29,9 +29,10 @@ public class TopMappingFilter extends BaseFilter implements IMappingFilter {
         long reportInt = (total / 20) + 1;//i.e. report every 5%
 
         //sampling
-        for (IMappingElement<INode> e : mapping) {
-            if (e.getSource().hasParent() && e.getTarget().hasParent()) {
-                result.add(e);
+        final IMappingCursor<INode> cursor = mapping.cursor();
+        while (cursor.next()) {
+            if (cursor.getSource().hasParent() && cursor.getTarget().hasParent()) {
+                result.setRelation(cursor.getSource(), cursor.getTarget(), cursor.getRelation());
             }
 
             counter++;
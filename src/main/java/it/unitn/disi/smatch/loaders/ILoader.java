@@ -14,4 +14,5 @@ public interface ILoader {
     static String RDF_FILES = "RDF Files (*.rdf)";
     static String OWL_FILES = "OWL Ontology Files (*.owl)";
     static String SKOS_FILES = "SKOS Files (*.xml)";
+    static String BIN_FILES = "Binary Files (*.bin)";
 }
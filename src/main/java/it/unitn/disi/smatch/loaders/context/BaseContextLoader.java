@@ -1,10 +1,17 @@
 package it.unitn.disi.smatch.loaders.context;
 
 import it.unitn.disi.common.components.Configurable;
+import it.unitn.disi.common.components.ConfigurableException;
+import it.unitn.disi.smatch.data.trees.CompactContext;
+import it.unitn.disi.smatch.data.trees.Context;
 import it.unitn.disi.smatch.data.trees.IBaseContext;
 import it.unitn.disi.smatch.data.trees.IBaseNode;
+import it.unitn.disi.smatch.data.trees.IContext;
 import org.apache.log4j.Logger;
 
+import java.util.HashMap;
+import java.util.Properties;
+
 /**
  * Base class for loaders.
  *
@@ -15,6 +22,100 @@ public abstract class BaseContextLoader<E extends IBaseContext<? extends IBaseNo
     private static final Logger log = Logger.getLogger(BaseContextLoader.class);
 
     protected int nodesParsed = 0;
+    // when the loading started, to report the speed
+    protected long loadingStart;
+
+    // loads into a context with columnar storage, for large contexts
+    private static final String COMPACT_KEY = "compact";
+    protected boolean compact = false;
+
+    // reuse one instance of a repeated string, labels and tokens in large contexts repeat a lot
+    private static final String UNIQUE_STRINGS_KEY = "uniqueStrings";
+    protected boolean uniqueStrings = true;
+    protected final HashMap<String, String> unique = new HashMap<String, String>();
+
+    @Override
+    public boolean setProperties(Properties newProperties) throws ConfigurableException {
+        boolean result = super.setProperties(newProperties);
+        if (result) {
+            if (newProperties.containsKey(COMPACT_KEY)) {
+                compact = Boolean.parseBoolean(newProperties.getProperty(COMPACT_KEY));
+            }
+
+            if (newProperties.containsKey(UNIQUE_STRINGS_KEY)) {
+                uniqueStrings = Boolean.parseBoolean(newProperties.getProperty(UNIQUE_STRINGS_KEY));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates a context to load nodes into: a {@link CompactContext} if the compact parameter is set, a
+     * {@link Context} otherwise.
+     *
+     * @return an empty context
+     */
+    protected IContext createContext() {
+        if (compact) {
+            return new CompactContext();
+        } else {
+            return new Context();
+        }
+    }
+
+    /**
+     * Creates a context to load nodes into, as {@link #createContext()} does, with a room for the expected number
+     * of nodes.
+     *
+     * @param nodeCount the expected number of nodes, a hint
+     * @return an empty context
+     */
+    protected IContext createContext(int nodeCount) {
+        if (compact && 0 < nodeCount) {
+            return new CompactContext(nodeCount);
+        } else {
+            return createContext();
+        }
+    }
+
+    /**
+     * Returns the instance of the string kept in the pool of the loader, if uniqueStrings parameter is set.
+     *
+     * @param s a string
+     * @return the same string or an equal one loaded before
+     */
+    protected String makeUnique(String s) {
+        if (uniqueStrings && null != s) {
+            String result = unique.get(s);
+            if (null == result) {
+                unique.put(s, s);
+                result = s;
+            }
+            return result;
+        } else {
+            return s;
+        }
+    }
+
+    /**
+     * Counts a parsed node and periodically logs the progress.
+     */
+    protected void countNode() {
+        nodesParsed++;
+        if (0 == (nodesParsed % 1000) && log.isInfoEnabled()) {
+            log.info("nodes parsed: " + nodesParsed + " (" + getSpeed(nodesParsed) + " nodes/s)");
+        }
+    }
+
+    /**
+     * Returns the loading speed.
+     *
+     * @param nodeCount the number of nodes loaded since the start
+     * @return nodes per second
+     */
+    protected long getSpeed(long nodeCount) {
+        return 1000 * nodeCount / Math.max(1, System.currentTimeMillis() - loadingStart);
+    }
 
     protected void createIds(E result) {
         log.debug("Creating ids for context...");
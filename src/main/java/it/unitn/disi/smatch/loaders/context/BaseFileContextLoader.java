@@ -1,5 +1,6 @@
 package it.unitn.disi.smatch.loaders.context;
 
+import it.unitn.disi.common.components.ConfigurableException;
 import it.unitn.disi.smatch.data.trees.IBaseContext;
 import it.unitn.disi.smatch.data.trees.IBaseNode;
 import it.unitn.disi.smatch.loaders.ILoader;
@@ -8,10 +9,15 @@ import org.apache.log4j.Logger;
 import java.io.BufferedReader;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Properties;
 
 /**
- * Base class for file loaders.
+ * Base class for file loaders. Reads files through a file channel with a buffer of bufferSize chars, 64K by default.
  *
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
@@ -19,19 +25,45 @@ public abstract class BaseFileContextLoader<E extends IBaseContext<? extends IBa
 
     private static final Logger log = Logger.getLogger(BaseFileContextLoader.class);
 
+    private static final String BUFFER_SIZE_KEY = "bufferSize";
+    protected int bufferSize = 64 * 1024;
+
+    @Override
+    public boolean setProperties(Properties newProperties) throws ConfigurableException {
+        boolean result = super.setProperties(newProperties);
+        if (result) {
+            if (newProperties.containsKey(BUFFER_SIZE_KEY)) {
+                bufferSize = Integer.parseInt(newProperties.getProperty(BUFFER_SIZE_KEY));
+                if (bufferSize < 1) {
+                    final String errMessage = "Buffer size should be positive: " + bufferSize;
+                    log.error(errMessage);
+                    throw new ConfigurableException(errMessage);
+                }
+            }
+        }
+        return result;
+    }
+
     public E loadContext(String fileName) throws ContextLoaderException {
         E result = null;
         try {
-            BufferedReader input = new BufferedReader(new InputStreamReader(new FileInputStream(fileName), "UTF-8"));
+            FileChannel channel = new FileInputStream(fileName).getChannel();
+            // replaces malformed input, as InputStreamReader does
+            CharsetDecoder decoder = Charset.forName("UTF-8").newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            BufferedReader input = new BufferedReader(Channels.newReader(channel, decoder, bufferSize), bufferSize);
             try {
+                loadingStart = System.currentTimeMillis();
                 result = process(input);
                 createIds(result);
-                log.info("Parsed nodes: " + nodesParsed);
+                log.info("Parsed nodes: " + nodesParsed + " in " + (System.currentTimeMillis() - loadingStart) + " ms (" + getSpeed(nodesParsed) + " nodes/s)");
             } catch (IOException e) {
                 final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
                 log.error(errMessage, e);
                 throw new ContextLoaderException(errMessage, e);
             } finally {
+                unique.clear();
                 input.close();
             }
         } catch (IOException e) {
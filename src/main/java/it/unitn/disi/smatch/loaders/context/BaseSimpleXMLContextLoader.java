@@ -2,6 +2,7 @@ package it.unitn.disi.smatch.loaders.context;
 
 import it.unitn.disi.common.components.ConfigurableException;
 import it.unitn.disi.smatch.data.trees.BaseContext;
+import it.unitn.disi.smatch.data.trees.BaseNode;
 import it.unitn.disi.smatch.data.trees.IBaseContext;
 import it.unitn.disi.smatch.data.trees.IBaseNode;
 import it.unitn.disi.smatch.loaders.ILoader;
@@ -15,11 +16,12 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayDeque;
 import java.util.Deque;
-import java.util.HashMap;
 import java.util.Properties;
 
 /**
- * Base class for SimpleXML loaders.
+ * Base class for SimpleXML loaders. Uses the count attributes of the children elements, if any, to size the lists
+ * of children. The counts come from the input, therefore they are only hints for the initial capacity and are limited,
+ * so that a wrong count does not allocate much memory. Lists grow as usual above the limits.
  *
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
@@ -39,10 +41,9 @@ public class BaseSimpleXMLContextLoader<E extends IBaseContext<? extends IBaseNo
     // path to the root node
     protected Deque<IBaseNode> pathToRoot;
 
-    // flag to output the label being translated in logs
-    private final static String UNIQUE_STRINGS_KEY = "uniqueStrings";
-    protected boolean uniqueStrings = false;
-    protected final HashMap<String, String> unique = new HashMap<String, String>();
+    // limits of the size hints from the input
+    protected static final int MAX_CHILDREN_HINT = 1 << 10;
+    protected static final int MAX_NODES_HINT = 1 << 16;
 
     private final static String TRIM_KEY = "trim";
     protected boolean trim = false;
@@ -51,10 +52,6 @@ public class BaseSimpleXMLContextLoader<E extends IBaseContext<? extends IBaseNo
     public boolean setProperties(Properties newProperties) throws ConfigurableException {
         boolean result = super.setProperties(newProperties);
         if (result) {
-            if (newProperties.containsKey(UNIQUE_STRINGS_KEY)) {
-                uniqueStrings = Boolean.parseBoolean(newProperties.getProperty(UNIQUE_STRINGS_KEY));
-            }
-
             if (newProperties.containsKey(TRIM_KEY)) {
                 trim = Boolean.parseBoolean(newProperties.getProperty(TRIM_KEY));
             }
@@ -66,7 +63,6 @@ public class BaseSimpleXMLContextLoader<E extends IBaseContext<? extends IBaseNo
         try {
             parser = XMLReaderFactory.createXMLReader(DEFAULT_PARSER_NAME);
             parser.setContentHandler(this);
-            parser.setProperty("http://apache.org/xml/properties/input-buffer-size", 8196);
             pathToRoot = new ArrayDeque<IBaseNode>();
         } catch (SAXException e) {
             final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
@@ -83,9 +79,9 @@ public class BaseSimpleXMLContextLoader<E extends IBaseContext<? extends IBaseNo
     @Override
     protected E process(BufferedReader input) throws IOException, ContextLoaderException {
         try {
+            parser.setProperty("http://apache.org/xml/properties/input-buffer-size", bufferSize);
             InputSource is = new InputSource(input);
             parser.parse(is);
-            unique.clear();
         } catch (SAXException e) {
             final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
             log.error(errMessage, e);
@@ -129,6 +125,9 @@ public class BaseSimpleXMLContextLoader<E extends IBaseContext<? extends IBaseNo
             }
             node.getNodeData().setId(atts.getValue("id"));
             pathToRoot.addLast(node);
+        } else if ("children".equals(localName)) {
+            ensureChildrenCapacity(atts);
+            content = new StringBuilder();
         } else {
             content = new StringBuilder();
         }
@@ -139,25 +138,39 @@ public class BaseSimpleXMLContextLoader<E extends IBaseContext<? extends IBaseNo
             pathToRoot.getLast().getNodeData().setName(makeUnique(content.toString()));
         } else if ("node".equals(localName)) {
             pathToRoot.removeLast();
+            countNode();
+        }
+    }
 
-            nodesParsed++;
-            if (0 == (nodesParsed % 1000)) {
-                log.info("nodes parsed: " + nodesParsed);
-            }
+    /**
+     * Sizes the list of children of the current node from the count attribute of the children element.
+     *
+     * @param atts attributes of the children element
+     */
+    protected void ensureChildrenCapacity(Attributes atts) {
+        final int count = getSizeHint(atts.getValue("count"), MAX_CHILDREN_HINT);
+        if (0 < count && !pathToRoot.isEmpty() && pathToRoot.getLast() instanceof BaseNode) {
+            ((BaseNode) pathToRoot.getLast()).ensureChildrenCapacity(count);
         }
     }
 
-    protected String makeUnique(String s) {
-        if (uniqueStrings) {
-            String result = unique.get(s);
-            if (null == result) {
-                unique.put(s, s);
-                result = s;
+    /**
+     * Parses a size hint from the input and limits it.
+     *
+     * @param value attribute value, might be null
+     * @param max   the largest hint returned
+     * @return the hint between 0 and max, 0 if there is no valid hint
+     */
+    protected static int getSizeHint(String value, int max) {
+        int result = 0;
+        if (null != value) {
+            try {
+                result = Math.max(0, Math.min(max, Integer.parseInt(value)));
+            } catch (NumberFormatException e) {
+                // just a hint
             }
-            return result;
-        } else {
-            return s;
         }
+        return result;
     }
 
     public void characters(char[] ch, int start, int length) {
@@ -181,7 +194,6 @@ public class BaseSimpleXMLContextLoader<E extends IBaseContext<? extends IBaseNo
     }
 
     public void endDocument() {
-        unique.clear();
         if (trim && ctx instanceof BaseContext) {
             log.debug("Trimming context...");
             ((BaseContext) ctx).trim();
@@ -0,0 +1,270 @@
+package it.unitn.disi.smatch.loaders.context;
+
+import it.unitn.disi.common.components.ConfigurableException;
+import it.unitn.disi.smatch.data.formulas.CNFFormula;
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.ling.ISense;
+import it.unitn.disi.smatch.data.trees.IContext;
+import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.data.trees.INodeData;
+import it.unitn.disi.smatch.loaders.ILoader;
+import it.unitn.disi.smatch.oracles.ILinguisticOracle;
+import it.unitn.disi.smatch.oracles.LinguisticOracleException;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Properties;
+
+/**
+ * Loads a context snapshot written by {@link it.unitn.disi.smatch.renderers.context.BinaryContextRenderer}. The file
+ * is memory-mapped and read without parsing. Senses are created from their ids by the oracle, each distinct sense
+ * once, and compiled concept at node formulas are set to the nodes, so that matching does not compile them again.
+ * <p/>
+ * The format consists of:
+ * <ul>
+ * <li>header: magic number, format version and counts of nodes, acols, senses, clauses, literals, strings and
+ * string bytes;</li>
+ * <li>nodes in the order of {@link IContext#getNodesList()}, each as parent number (-1 for the root), name, id,
+ * provenance, label formula and node formula string numbers (-1 for null), flags, the end of the node acols, the end
+ * of the node clauses (-1 if the formula is not compiled) and the number of variables of the compiled formula;</li>
+ * <li>acols, each as id, token and lemma string numbers and the end of the acol senses;</li>
+ * <li>clauses, each as the end of the clause literals;</li>
+ * <li>literals;</li>
+ * <li>senses as longs: a part of speech key in the high and the synset offset in the low 32 bits, or minus
+ * (string number + 1) for other sense ids;</li>
+ * <li>string table: ends of the strings, followed by UTF-8 bytes of the strings.</li>
+ * </ul>
+ * Ends are exclusive and start from the end of the previous item. All numbers are big-endian. Files are limited to
+ * 2G bytes.
+ * <p/>
+ * Needs oracle parameter to create senses, without it the senses are skipped.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class BinaryContextLoader extends BaseContextLoader<IContext> implements IContextLoader {
+
+    private static final Logger log = Logger.getLogger(BinaryContextLoader.class);
+
+    // "SMCTXBIN"
+    public static final long MAGIC = 0x534D43545842494EL;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 40;
+    public static final int NODE_SIZE = 10;
+    public static final int ACOL_SIZE = 4;
+
+    public static final int PREPROCESSED_FLAG = 1;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final static String LINGUISTIC_ORACLE = "oracle";
+    private ILinguisticOracle oracle;
+
+    @Override
+    public boolean setProperties(Properties newProperties) throws ConfigurableException {
+        Properties oldProperties = new Properties();
+        oldProperties.putAll(properties);
+
+        boolean result = super.setProperties(newProperties);
+        if (result) {
+            if (newProperties.containsKey(LINGUISTIC_ORACLE)) {
+                oracle = (ILinguisticOracle) configureComponent(oracle, oldProperties, newProperties, "linguistic oracle", LINGUISTIC_ORACLE, ILinguisticOracle.class);
+            } else {
+                final String errMessage = "Cannot find configuration key " + LINGUISTIC_ORACLE;
+                log.warn(errMessage);
+                oracle = null;
+            }
+        }
+        return result;
+    }
+
+    public IContext loadContext(String fileName) throws ContextLoaderException {
+        IContext result;
+        loadingStart = System.currentTimeMillis();
+        try {
+            RandomAccessFile file = new RandomAccessFile(fileName, "r");
+            try {
+                final FileChannel channel = file.getChannel();
+                if (Integer.MAX_VALUE < channel.size()) {
+                    final String errMessage = "File is too large: " + fileName;
+                    log.error(errMessage);
+                    throw new ContextLoaderException(errMessage);
+                }
+                result = process(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } finally {
+                file.close();
+            }
+        } catch (IOException e) {
+            final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error(errMessage, e);
+            throw new ContextLoaderException(errMessage, e);
+        }
+        log.info("Parsed nodes: " + nodesParsed + " in " + (System.currentTimeMillis() - loadingStart) + " ms (" + getSpeed(nodesParsed) + " nodes/s)");
+        return result;
+    }
+
+    protected IContext process(ByteBuffer buffer) throws ContextLoaderException {
+        if (buffer.limit() < HEADER_SIZE || MAGIC != buffer.getLong(0)) {
+            final String errMessage = "Not a binary context file";
+            log.error(errMessage);
+            throw new ContextLoaderException(errMessage);
+        }
+        if (VERSION != buffer.getInt(8)) {
+            final String errMessage = "Unsupported binary context version: " + buffer.getInt(8);
+            log.error(errMessage);
+            throw new ContextLoaderException(errMessage);
+        }
+        final int nodeCount = buffer.getInt(12);
+        final int acolCount = buffer.getInt(16);
+        final int senseCount = buffer.getInt(20);
+        final int clauseCount = buffer.getInt(24);
+        final int literalCount = buffer.getInt(28);
+        final int stringCount = buffer.getInt(32);
+        final int stringBytes = buffer.getInt(36);
+
+        final int nodesStart = HEADER_SIZE;
+        final int acolsStart = nodesStart + 4 * NODE_SIZE * nodeCount;
+        final int clausesStart = acolsStart + 4 * ACOL_SIZE * acolCount;
+        final int literalsStart = clausesStart + 4 * clauseCount;
+        final int sensesStart = literalsStart + 4 * literalCount;
+        final int stringsStart = sensesStart + 8 * senseCount;
+        final int bytesStart = stringsStart + 4 * stringCount;
+        if (buffer.limit() < (long) bytesStart + stringBytes) {
+            final String errMessage = "Binary context file is truncated";
+            log.error(errMessage);
+            throw new ContextLoaderException(errMessage);
+        }
+
+        final String[] strings = new String[stringCount];
+        final byte[] bytes = new byte[stringBytes];
+        buffer.position(bytesStart);
+        buffer.get(bytes);
+        int stringStart = 0;
+        for (int i = 0; i < stringCount; i++) {
+            final int stringEnd = buffer.getInt(stringsStart + 4 * i);
+            strings[i] = new String(bytes, stringStart, stringEnd - stringStart, UTF8);
+            stringStart = stringEnd;
+        }
+
+        final int[] literals = new int[literalCount];
+        buffer.position(literalsStart);
+        buffer.asIntBuffer().get(literals);
+
+        final ISense[] senses = createSenses(buffer, sensesStart, senseCount, strings);
+
+        final IContext result = createContext(nodeCount);
+        final INode[] nodes = new INode[nodeCount];
+        nodesParsed = 0;
+        int acol = 0;
+        int sense = 0;
+        int clause = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            final int record = nodesStart + 4 * NODE_SIZE * i;
+            final int parent = buffer.getInt(record);
+            if (-1 == parent) {
+                if (0 != i) {
+                    final String errMessage = "Binary context has several roots";
+                    log.error(errMessage);
+                    throw new ContextLoaderException(errMessage);
+                }
+                nodes[i] = result.createRoot();
+            } else {
+                nodes[i] = nodes[parent].createChild();
+            }
+
+            final INodeData nd = nodes[i].getNodeData();
+            nd.setName(getString(strings, buffer.getInt(record + 4)));
+            nd.setId(getString(strings, buffer.getInt(record + 8)));
+            nd.setProvenance(getString(strings, buffer.getInt(record + 12)));
+            nd.setcLabFormula(getString(strings, buffer.getInt(record + 16)));
+            nd.setcNodeFormula(getString(strings, buffer.getInt(record + 20)));
+            nd.setIsPreprocessed(0 != (PREPROCESSED_FLAG & buffer.getInt(record + 24)));
+
+            final int acolEnd = buffer.getInt(record + 28);
+            for (; acol < acolEnd; acol++) {
+                final int acolRecord = acolsStart + 4 * ACOL_SIZE * acol;
+                final IAtomicConceptOfLabel a = nd.createACoL();
+                a.setId(buffer.getInt(acolRecord));
+                a.setToken(getString(strings, buffer.getInt(acolRecord + 4)));
+                a.setLemma(getString(strings, buffer.getInt(acolRecord + 8)));
+                final int senseEnd = buffer.getInt(acolRecord + 12);
+                for (; sense < senseEnd; sense++) {
+                    if (null != senses[sense]) {
+                        a.addSense(senses[sense]);
+                    }
+                }
+                nd.addACoL(a);
+            }
+
+            final int clauseEnd = buffer.getInt(record + 32);
+            if (-1 != clauseEnd) {
+                final int literalStart = 0 == clause ? 0 : buffer.getInt(clausesStart + 4 * (clause - 1));
+                final int[] clauseEnds = new int[clauseEnd - clause];
+                for (int c = 0; c < clauseEnds.length; c++) {
+                    clauseEnds[c] = buffer.getInt(clausesStart + 4 * (clause + c)) - literalStart;
+                }
+                final int literalEnd = 0 == clauseEnds.length ? literalStart : literalStart + clauseEnds[clauseEnds.length - 1];
+                nd.setcNodeClauses(new CNFFormula(Arrays.copyOfRange(literals, literalStart, literalEnd), clauseEnds, buffer.getInt(record + 36)));
+                clause = clauseEnd;
+            }
+            countNode();
+        }
+        return result;
+    }
+
+    /**
+     * Creates the senses of the acols, each distinct sense once.
+     *
+     * @param buffer      file contents
+     * @param sensesStart start of the senses
+     * @param senseCount  number of the senses
+     * @param strings     string table
+     * @return senses, all null without an oracle
+     * @throws ContextLoaderException ContextLoaderException
+     */
+    private ISense[] createSenses(ByteBuffer buffer, int sensesStart, int senseCount, String[] strings) throws ContextLoaderException {
+        final ISense[] result = new ISense[senseCount];
+        if (null != oracle) {
+            final HashMap<Long, ISense> senses = new HashMap<Long, ISense>();
+            for (int i = 0; i < senseCount; i++) {
+                final long code = buffer.getLong(sensesStart + 8 * i);
+                ISense sense = senses.get(code);
+                if (null == sense) {
+                    final String id;
+                    if (code < 0) {
+                        id = strings[(int) (-code - 1)];
+                    } else {
+                        id = Character.toString((char) (code >>> 32)) + "#" + Long.toString(code & 0xFFFFFFFFL);
+                    }
+                    try {
+                        sense = oracle.createSense(id);
+                    } catch (LinguisticOracleException e) {
+                        final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+                        log.error(errMessage, e);
+                        throw new ContextLoaderException(errMessage, e);
+                    }
+                    senses.put(code, sense);
+                }
+                result[i] = sense;
+            }
+        }
+        return result;
+    }
+
+    private static String getString(String[] strings, int number) {
+        return -1 == number ? null : strings[number];
+    }
+
+    public String getDescription() {
+        return ILoader.BIN_FILES;
+    }
+
+    public ILoader.LoaderType getType() {
+        return ILoader.LoaderType.FILE;
+    }
+}
@@ -2,7 +2,6 @@ package it.unitn.disi.smatch.loaders.context;
 
 import it.unitn.disi.common.components.ConfigurableException;
 import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
-import it.unitn.disi.smatch.data.trees.Context;
 import it.unitn.disi.smatch.data.trees.IContext;
 import it.unitn.disi.smatch.data.trees.INode;
 import it.unitn.disi.smatch.deciders.ISATSolver;
@@ -112,7 +111,7 @@ public class CTXMLContextLoader extends BaseFileContextLoader<IContext> implemen
     //org.xml.sax.helpers.DefaultHandler methods re-implementation start
 
     public void startDocument() {
-        ctx = new Context();
+        ctx = createContext();
         nodes = new HashMap<String, INode>();
         nodesParsed = 0;
     }
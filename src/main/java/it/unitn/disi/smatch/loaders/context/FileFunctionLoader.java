@@ -1,6 +1,5 @@
 package it.unitn.disi.smatch.loaders.context;
 
-import it.unitn.disi.smatch.data.trees.Context;
 import it.unitn.disi.smatch.data.trees.IContext;
 import it.unitn.disi.smatch.loaders.ILoader;
 
@@ -17,7 +16,7 @@ public class FileFunctionLoader extends BaseFileContextLoader<IContext> implemen
 
     protected IContext process(BufferedReader input) throws IOException {
         final String function = input.readLine();
-        IContext result = new Context();
+        IContext result = createContext();
         if (null != function) {
             StringFunctionLoader.parse(function, result, null);
         }
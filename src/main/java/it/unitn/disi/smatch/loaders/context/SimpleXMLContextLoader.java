@@ -2,7 +2,6 @@ package it.unitn.disi.smatch.loaders.context;
 
 import it.unitn.disi.common.components.ConfigurableException;
 import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
-import it.unitn.disi.smatch.data.trees.Context;
 import it.unitn.disi.smatch.data.trees.IContext;
 import it.unitn.disi.smatch.data.trees.INode;
 import it.unitn.disi.smatch.oracles.ILinguisticOracle;
@@ -15,8 +14,10 @@ import java.util.Properties;
 
 /**
  * Loader for XML format. Reads uniqueStrings boolean parameter which configures whether create all strings as
- * separate instances or save memory by reusing string instances. False by default, it is useful for
+ * separate instances or save memory by reusing string instances. True by default, it is useful for
  * contexts with a lot of repetition on the level of labels or label tokens.
+ * <p/>
+ * Uses the nodes attribute of the context element, if any, to size the compact context.
  *
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
@@ -56,11 +57,17 @@ public class SimpleXMLContextLoader extends BaseSimpleXMLContextLoader<IContext>
 
     public void startDocument() {
         super.startDocument();
-        ctx = new Context();
+        ctx = createContext();
     }
 
     public void startElement(String namespace, String localName, String qName, Attributes atts) {
-        if ("node".equals(localName)) {
+        if ("context".equals(localName)) {
+            final int nodeCount = getSizeHint(atts.getValue("nodes"), MAX_NODES_HINT);
+            if (0 < nodeCount && null == ctx.getRoot()) {
+                ctx = createContext(nodeCount);
+            }
+            content = new StringBuilder();
+        } else if ("node".equals(localName)) {
             INode node;
             if (null == ctx.getRoot()) {
                 node = ctx.createRoot();
@@ -78,6 +85,9 @@ public class SimpleXMLContextLoader extends BaseSimpleXMLContextLoader<IContext>
             node.getNodeData().setId(atts.getValue("id"));
             node.getNodeData().setIsPreprocessed(-1 < atts.getIndex("", "preprocessed"));
             pathToRoot.addLast(node);
+        } else if ("children".equals(localName)) {
+            ensureChildrenCapacity(atts);
+            content = new StringBuilder();
         } else if ("token".equals(localName)) {
             acol = ((INode) pathToRoot.getLast()).getNodeData().createACoL();
             acol.setId(Integer.parseInt(atts.getValue("id")));
@@ -119,11 +129,7 @@ public class SimpleXMLContextLoader extends BaseSimpleXMLContextLoader<IContext>
             ((INode) pathToRoot.getLast()).getNodeData().addACoL(acol);
         } else if ("node".equals(localName)) {
             pathToRoot.removeLast();
-
-            nodesParsed++;
-            if (0 == (nodesParsed % 1000)) {
-                log.info("nodes parsed: " + nodesParsed);
-            }
+            countNode();
         }
     }
 }
\ No newline at end of file
@@ -1,6 +1,5 @@
 package it.unitn.disi.smatch.loaders.context;
 
-import it.unitn.disi.smatch.data.trees.Context;
 import it.unitn.disi.smatch.data.trees.IContext;
 import it.unitn.disi.smatch.data.trees.INode;
 import it.unitn.disi.smatch.loaders.ILoader;
@@ -34,7 +33,7 @@ public class StringFunctionLoader extends BaseContextLoader<IContext> implements
      * @return tree representation of the function
      */
     public IContext loadContext(String function) throws ContextLoaderException {
-        IContext result = new Context();
+        IContext result = createContext();
         parse(function, result, null);
         createIds(result);
         log.info("Parsed nodes: " + nodesParsed);
@@ -1,6 +1,5 @@
 package it.unitn.disi.smatch.loaders.context;
 
-import it.unitn.disi.smatch.data.trees.Context;
 import it.unitn.disi.smatch.data.trees.IContext;
 import it.unitn.disi.smatch.data.trees.INode;
 import it.unitn.disi.smatch.loaders.ILoader;
@@ -31,15 +30,15 @@ public class TabContextLoader extends BaseFileContextLoader<IContext> implements
 
     @Override
     protected IContext process(BufferedReader input) throws IOException {
-        IContext result = new Context();
+        IContext result = createContext();
         ArrayList<INode> rootPath = new ArrayList<INode>();
 
         nodesParsed = 0;
         //loads the root node
         final String rootName = input.readLine();
         if (null != rootName) {
-            INode rootNode = result.createRoot(rootName);
-            nodesParsed++;
+            INode rootNode = result.createRoot(makeUnique(rootName));
+            countNode();
             rootPath.add(rootNode);
 
             int artificialLevel = 0;//flags that we added Top and need an increment in level
@@ -51,7 +50,7 @@ public class TabContextLoader extends BaseFileContextLoader<IContext> implements
                     !line.isEmpty()) {
 
                 int int_depth = numOfTabs(line);
-                String name = line.substring(int_depth);
+                String name = makeUnique(line.substring(int_depth));
                 int_depth = int_depth + artificialLevel;
                 if (int_depth == old_depth) {
                     parent = rootPath.get(old_depth - 1);
@@ -77,7 +76,7 @@ public class TabContextLoader extends BaseFileContextLoader<IContext> implements
                     old_depth = int_depth;
                 }
 
-                nodesParsed++;
+                countNode();
             }
         }
         return result;
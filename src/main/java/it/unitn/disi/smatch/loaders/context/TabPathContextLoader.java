@@ -1,6 +1,5 @@
 package it.unitn.disi.smatch.loaders.context;
 
-import it.unitn.disi.smatch.data.trees.Context;
 import it.unitn.disi.smatch.data.trees.IContext;
 import it.unitn.disi.smatch.data.trees.INode;
 import it.unitn.disi.smatch.loaders.ILoader;
@@ -19,7 +18,7 @@ public class TabPathContextLoader extends BaseFileContextLoader<IContext> implem
 
     @Override
     protected IContext process(BufferedReader input) throws IOException {
-        IContext result = new Context();
+        IContext result = createContext();
         result.createRoot("Top");
 
         nodesParsed = 0;
@@ -30,7 +29,7 @@ public class TabPathContextLoader extends BaseFileContextLoader<IContext> implem
 
             createNode(result, line);
 
-            nodesParsed++;
+            countNode();
         }
 
         if (1 == result.getRoot().getChildCount()) {
@@ -47,7 +46,7 @@ public class TabPathContextLoader extends BaseFileContextLoader<IContext> implem
         for (String node : path) {
             INode child = findNode(curNode, node);
             if (null == child) {
-                child = result.createNode(node);
+                child = result.createNode(makeUnique(node));
                 curNode.addChild(child);
             }
             curNode = child;
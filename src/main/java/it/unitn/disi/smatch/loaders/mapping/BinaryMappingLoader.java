@@ -0,0 +1,247 @@
+package it.unitn.disi.smatch.loaders.mapping;
+
+import it.unitn.disi.smatch.data.mappings.IContextMapping;
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.data.trees.IContext;
+import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.data.trees.TreeIndex;
+import it.unitn.disi.smatch.loaders.ILoader;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * Loads a mapping written by {@link it.unitn.disi.smatch.renderers.mapping.BinaryMappingRenderer}. Nodes are referred
+ * to by their numbers in the {@link TreeIndex} of their contexts, so the loader neither builds node paths nor looks
+ * them up. The file is memory-mapped window by window and is not limited in size. The mapping may be loaded for a
+ * subset of source nodes, then only the blocks containing their links are read.
+ * <p/>
+ * The format consists of:
+ * <ul>
+ * <li>header: magic number, format version, counts of source nodes, target nodes and blocks, fingerprints of the
+ * source and target contexts, count of links and the offset of the block index;</li>
+ * <li>blocks of up to {@link #BLOCK_SIZE} links sorted by source and target number. Each link is two varints:
+ * the difference between its source and the source of the previous link in the block (the first source of the block
+ * for the first link) and the target shifted left by 3 bits with the relation code in the lower bits. The target is
+ * the difference to the previous target minus one if the source is the same, and the target itself
+ * otherwise;</li>
+ * <li>block index: for each block its first and last source, count of links and offset.</li>
+ * </ul>
+ * Varints are little-endian groups of 7 bits, other numbers are big-endian.
+ * <p/>
+ * The fingerprints are checked against the contexts the mapping is loaded for, so that a mapping is not loaded for
+ * contexts which have changed since it was rendered.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class BinaryMappingLoader extends BaseMappingLoader implements IMappingLoader {
+
+    private static final Logger log = Logger.getLogger(BinaryMappingLoader.class);
+
+    // "SMMAPBIN"
+    public static final long MAGIC = 0x534D4D415042494EL;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 56;
+    public static final int INDEX_ENTRY_SIZE = 20;
+    public static final int BLOCK_SIZE = 4096;
+
+    /**
+     * Relations in the order of their codes.
+     */
+    public static final String RELATIONS = new String(new char[]{
+            IMappingElement.IDK, IMappingElement.EQUIVALENCE, IMappingElement.LESS_GENERAL,
+            IMappingElement.MORE_GENERAL, IMappingElement.DISJOINT, IMappingElement.ENTAILED_LESS_GENERAL,
+            IMappingElement.ENTAILED_MORE_GENERAL, IMappingElement.ENTAILED_DISJOINT});
+
+    // size of the mapped windows
+    private static final long WINDOW_SIZE = 1L << 28;
+
+    // source nodes to load the links of, null for all
+    private Collection<INode> sourceNodes;
+
+    private FileChannel channel;
+    private ByteBuffer window;
+    private long windowStart;
+
+    /**
+     * Loads the links of the given source nodes.
+     *
+     * @param source      source context
+     * @param target      target context
+     * @param fileName    file with a mapping
+     * @param sourceNodes source nodes to load the links of
+     * @return mapping with the links of the source nodes
+     * @throws MappingLoaderException MappingLoaderException
+     */
+    public IContextMapping<INode> loadMapping(IContext source, IContext target, String fileName, Collection<INode> sourceNodes) throws MappingLoaderException {
+        this.sourceNodes = sourceNodes;
+        try {
+            return loadMapping(source, target, fileName);
+        } finally {
+            this.sourceNodes = null;
+        }
+    }
+
+    @Override
+    protected void process(IContextMapping<INode> mapping, IContext source, IContext target, String fileName) throws MappingLoaderException {
+        try {
+            RandomAccessFile file = new RandomAccessFile(fileName, "r");
+            try {
+                channel = file.getChannel();
+                process(mapping, source, target);
+            } finally {
+                channel = null;
+                window = null;
+                file.close();
+            }
+        } catch (IOException e) {
+            final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error(errMessage, e);
+            throw new MappingLoaderException(errMessage, e);
+        }
+    }
+
+    private void process(IContextMapping<INode> mapping, IContext source, IContext target) throws IOException, MappingLoaderException {
+        if (channel.size() < HEADER_SIZE) {
+            throw error("Not a binary mapping file");
+        }
+        final ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        if (MAGIC != header.getLong(0)) {
+            throw error("Not a binary mapping file");
+        }
+        if (VERSION != header.getInt(8)) {
+            throw error("Unsupported binary mapping version: " + header.getInt(8));
+        }
+        final TreeIndex<INode> sourceIndex = source.getTreeIndex();
+        final TreeIndex<INode> targetIndex = target.getTreeIndex();
+        if (sourceIndex.size() != header.getInt(12) || getFingerprint(sourceIndex) != header.getLong(24)) {
+            throw error("Mapping was rendered for another source context");
+        }
+        if (targetIndex.size() != header.getInt(16) || getFingerprint(targetIndex) != header.getLong(32)) {
+            throw error("Mapping was rendered for another target context");
+        }
+        final int blockCount = header.getInt(20);
+        final long indexStart = header.getLong(48);
+        if (channel.size() < indexStart + (long) INDEX_ENTRY_SIZE * blockCount) {
+            throw error("Binary mapping file is truncated");
+        }
+
+        BitSet selected = null;
+        if (null != sourceNodes) {
+            selected = new BitSet(sourceIndex.size());
+            for (INode node : sourceNodes) {
+                final int number = sourceIndex.getNumber(node);
+                if (-1 != number) {
+                    selected.set(number);
+                }
+            }
+        }
+
+        final ByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, indexStart, (long) INDEX_ENTRY_SIZE * blockCount);
+        for (int b = 0; b < blockCount; b++) {
+            final int entry = INDEX_ENTRY_SIZE * b;
+            final int firstSource = index.getInt(entry);
+            final int lastSource = index.getInt(entry + 4);
+            if (null == selected || (-1 != selected.nextSetBit(firstSource) && selected.nextSetBit(firstSource) <= lastSource)) {
+                final long blockStart = index.getLong(entry + 12);
+                final long blockEnd = b + 1 < blockCount ? index.getLong(entry + INDEX_ENTRY_SIZE + 12) : indexStart;
+                readBlock(mapping, sourceIndex, targetIndex, selected, firstSource, index.getInt(entry + 8), blockStart, blockEnd);
+            }
+        }
+    }
+
+    private void readBlock(IContextMapping<INode> mapping, TreeIndex<INode> sourceIndex, TreeIndex<INode> targetIndex,
+                           BitSet selected, int firstSource, int count, long blockStart, long blockEnd) throws IOException, MappingLoaderException {
+        final ByteBuffer buffer = map(blockStart, blockEnd);
+        int s = firstSource;
+        int t = -1;
+        for (int i = 0; i < count; i++) {
+            final int sourceDelta = readVarInt(buffer);
+            final int value = readVarInt(buffer);
+            if (0 != sourceDelta) {
+                s = s + sourceDelta;
+                t = -1;
+            }
+            t = t + 1 + (value >>> 3);
+            if (sourceIndex.size() <= s || targetIndex.size() <= t) {
+                throw error("Binary mapping file is corrupted");
+            }
+            if (null == selected || selected.get(s)) {
+                final char relation = RELATIONS.charAt(value & 7);
+                mapping.setRelation(sourceIndex.getNode(s), targetIndex.getNode(t), relation);
+                countRelation(relation);
+                cntLoaded++;
+                reportProgress();
+            }
+        }
+    }
+
+    /**
+     * Returns a buffer positioned at the start of the block, remapping the window if the block is outside of it.
+     *
+     * @param blockStart offset of the block
+     * @param blockEnd   offset after the block
+     * @return buffer positioned at the start of the block
+     * @throws IOException IOException
+     */
+    private ByteBuffer map(long blockStart, long blockEnd) throws IOException {
+        if (null == window || blockStart < windowStart || windowStart + window.limit() < blockEnd) {
+            windowStart = blockStart;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, blockStart, Math.max(blockEnd, Math.min(channel.size(), blockStart + WINDOW_SIZE)) - blockStart);
+        }
+        window.position((int) (blockStart - windowStart));
+        return window;
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+        int result = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            result |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return result;
+    }
+
+    private static MappingLoaderException error(String errMessage) {
+        log.error(errMessage);
+        return new MappingLoaderException(errMessage);
+    }
+
+    /**
+     * Returns a fingerprint of the context: a hash of the node names and the tree structure.
+     *
+     * @param index tree index of the context
+     * @return a fingerprint of the context
+     */
+    public static long getFingerprint(TreeIndex<INode> index) {
+        // 64-bit FNV-1a
+        long result = 0xCBF29CE484222325L;
+        for (int i = 0; i < index.size(); i++) {
+            result = (result ^ index.getParent(i)) * 0x100000001B3L;
+            final String name = index.getNode(i).getNodeData().getName();
+            if (null != name) {
+                for (int c = 0; c < name.length(); c++) {
+                    result = (result ^ name.charAt(c)) * 0x100000001B3L;
+                }
+            }
+            result = (result ^ 0xFFFF) * 0x100000001B3L;
+        }
+        return result;
+    }
+
+    public String getDescription() {
+        return ILoader.BIN_FILES;
+    }
+
+    public ILoader.LoaderType getType() {
+        return ILoader.LoaderType.FILE;
+    }
+}
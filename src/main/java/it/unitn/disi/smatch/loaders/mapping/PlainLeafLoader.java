@@ -20,6 +20,31 @@ public class PlainLeafLoader extends PlainMappingLoader {
 
     private static final Logger log = Logger.getLogger(PlainLeafLoader.class);
 
+    private HashMap<String, INode> sNodes;
+    private HashMap<String, INode> tNodes;
+
+    @Override
+    protected void createIndexes(IContext source, IContext target) {
+        sNodes = createHash(source);
+        tNodes = createHash(target);
+    }
+
+    @Override
+    protected void releaseIndexes() {
+        sNodes = null;
+        tNodes = null;
+    }
+
+    @Override
+    protected INode findSourceNode(String line, int start, int end) {
+        return sNodes.get(line.substring(start, end));
+    }
+
+    @Override
+    protected INode findTargetNode(String line, int start, int end) {
+        return tNodes.get(line.substring(start, end));
+    }
+
     /**
      * Creates hash map for nodes which contains path from root to node for each node.
      *
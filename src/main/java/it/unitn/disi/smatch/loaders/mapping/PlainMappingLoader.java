@@ -3,7 +3,9 @@ package it.unitn.disi.smatch.loaders.mapping;
 import it.unitn.disi.smatch.data.mappings.IContextMapping;
 import it.unitn.disi.smatch.data.trees.IContext;
 import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.data.trees.NodePathIndex;
 import it.unitn.disi.smatch.loaders.ILoader;
+import it.unitn.disi.smatch.renderers.mapping.PlainMappingRenderer;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 
@@ -12,7 +14,8 @@ import java.io.IOException;
 import java.util.HashMap;
 
 /**
- * Loads the mapping as written by {@link it.unitn.disi.smatch.renderers.mapping.PlainMappingRenderer}.
+ * Loads the mapping as written by {@link PlainMappingRenderer}. Node paths are resolved through a
+ * {@link NodePathIndex} of each context, segment by segment, without splitting the lines.
  * <p/>
  * Needs mappingFactory configuration parameter, which should point to an instance of a class implementing
  * {@link it.unitn.disi.smatch.data.mappings.IMappingFactory} interface.
@@ -23,77 +26,123 @@ public class PlainMappingLoader extends BaseFileMappingLoader {
 
     private static final Logger log = Logger.getLogger(PlainMappingLoader.class);
 
+    // paths of the contexts being loaded
+    private NodePathIndex<INode> sourcePaths;
+    private NodePathIndex<INode> targetPaths;
+
     @Override
     protected void process(IContextMapping<INode> mapping, IContext source, IContext target, BufferedReader reader) throws IOException {
-        HashMap<String, INode> sNodes = createHash(source);
-        HashMap<String, INode> tNodes = createHash(target);
-
-        String line;
-        while ((line = reader.readLine()) != null &&
-                !line.startsWith("#") &&
-                !line.isEmpty()) {
-
-            INode sourceNode;
-            INode targetNode;
-            char rel;
-
-            String[] tokens = line.split("\t");
-            if (3 != tokens.length) {
-                if (log.isEnabledFor(Level.WARN)) {
-                    log.warn("Unrecognized mapping format: " + line);
-                }
-            } else {
-                //tokens = left \t relation \t right
-                rel = tokens[1].toCharArray()[0];
-
-                sourceNode = sNodes.get(tokens[0]);
-                if (null == sourceNode) {
+        createIndexes(source, target);
+        try {
+            String line;
+            while ((line = reader.readLine()) != null &&
+                    !line.startsWith("#") &&
+                    !line.isEmpty()) {
+
+                //line = left \t relation \t right
+                final int relStart = line.indexOf('\t') + 1;
+                final int targetStart = 0 == relStart ? 0 : line.indexOf('\t', relStart) + 1;
+                if (0 == targetStart || relStart + 1 >= targetStart || -1 != line.indexOf('\t', targetStart)) {
                     if (log.isEnabledFor(Level.WARN)) {
-                        log.warn("Could not find source node: " + tokens[0]);
+                        log.warn("Unrecognized mapping format: " + line);
                     }
-                }
+                } else {
+                    final char rel = line.charAt(relStart);
 
-                targetNode = tNodes.get(tokens[2]);
-                if (!tNodes.containsKey(tokens[2])) {
-                    if (log.isEnabledFor(Level.WARN)) {
-                        log.warn("Could not find target node: " + tokens[2]);
+                    final INode sourceNode = findSourceNode(line, 0, relStart - 1);
+                    if (null == sourceNode) {
+                        if (log.isEnabledFor(Level.WARN)) {
+                            log.warn("Could not find source node: " + line.substring(0, relStart - 1));
+                        }
                     }
-                }
 
-                if ((null != sourceNode) && (null != targetNode)) {
-                    mapping.setRelation(sourceNode, targetNode, rel);
-                    countRelation(rel);
-                    cntLoaded++;
-                } else {
-                    if (log.isEnabledFor(Level.WARN)) {
-                        log.warn("Could not find mapping: " + line);
+                    final INode targetNode = findTargetNode(line, targetStart, line.length());
+                    if (null == targetNode) {
+                        if (log.isEnabledFor(Level.WARN)) {
+                            log.warn("Could not find target node: " + line.substring(targetStart));
+                        }
+                    }
+
+                    if ((null != sourceNode) && (null != targetNode)) {
+                        mapping.setRelation(sourceNode, targetNode, rel);
+                        countRelation(rel);
+                        cntLoaded++;
+                    } else {
+                        if (log.isEnabledFor(Level.WARN)) {
+                            log.warn("Could not find mapping: " + line);
+                        }
                     }
                 }
+
+                reportProgress();
             }
+        } finally {
+            releaseIndexes();
+        }
+    }
 
-            reportProgress();
+    /**
+     * Creates the indexes to find the nodes by.
+     *
+     * @param source source context
+     * @param target target context
+     */
+    protected void createIndexes(IContext source, IContext target) {
+        sourcePaths = PlainMappingRenderer.createPathIndex(source);
+        targetPaths = PlainMappingRenderer.createPathIndex(target);
+        if (log.isEnabledFor(Level.INFO)) {
+            log.info("Indexed paths of " + sourcePaths.getTreeIndex().size() + " source and " + targetPaths.getTreeIndex().size() + " target nodes");
         }
     }
 
+    /**
+     * Releases the indexes created by {@link #createIndexes(IContext, IContext)}.
+     */
+    protected void releaseIndexes() {
+        sourcePaths = null;
+        targetPaths = null;
+    }
+
+    /**
+     * Finds the source node by the path, which is the part of the line from start to end.
+     *
+     * @param line  line of the mapping
+     * @param start start of the path
+     * @param end   end of the path, exclusive
+     * @return the source node or null if it is not found
+     */
+    protected INode findSourceNode(String line, int start, int end) {
+        return findNode(sourcePaths, line, start, end);
+    }
+
+    /**
+     * Finds the target node by the path, which is the part of the line from start to end.
+     *
+     * @param line  line of the mapping
+     * @param start start of the path
+     * @param end   end of the path, exclusive
+     * @return the target node or null if it is not found
+     */
+    protected INode findTargetNode(String line, int start, int end) {
+        return findNode(targetPaths, line, start, end);
+    }
+
+    private static INode findNode(NodePathIndex<INode> paths, String line, int start, int end) {
+        final int number = paths.find(line, start, end);
+        return -1 == number ? null : paths.getTreeIndex().getNode(number);
+    }
+
     /**
      * Gets the path of a node from root for hash mapping.
      *
      * @param node the interface of data structure of input node
      * @return the string of the path from root to node
+     * @deprecated paths are resolved through a {@link NodePathIndex}, use
+     *             {@link #findSourceNode(String, int, int)} and {@link #findTargetNode(String, int, int)}
      */
+    @Deprecated
     protected String getNodePathToRoot(INode node) {
-        StringBuilder sb = new StringBuilder();
-        INode parent = node;
-        while (null != parent) {
-            if (parent.getNodeData().getName().contains("\\")) {
-                log.debug("source: replacing \\ in: " + parent.getNodeData().getName());
-                sb.insert(0, "\\" + parent.getNodeData().getName().replaceAll("\\\\", "/"));
-            } else {
-                sb.insert(0, "\\" + parent.getNodeData().getName());
-            }
-            parent = parent.getParent();
-        }
-        return sb.toString();
+        return NodePathIndex.assemblePath(node, '\\', true, '/');
     }
 
     /**
@@ -101,14 +150,16 @@ public class PlainMappingLoader extends BaseFileMappingLoader {
      *
      * @param context a context
      * @return a hash table which contains path from root to node for each node
+     * @deprecated paths are resolved through a {@link NodePathIndex}, use
+     *             {@link #findSourceNode(String, int, int)} and {@link #findTargetNode(String, int, int)}
      */
+    @Deprecated
     protected HashMap<String, INode> createHash(IContext context) {
-        HashMap<String, INode> result = new HashMap<String, INode>();
-
-        int nodeCount = 0;
-        for (INode node : context.getNodesList()) {
-            result.put(getNodePathToRoot(node), node);
-            nodeCount++;
+        final NodePathIndex<INode> paths = PlainMappingRenderer.createPathIndex(context);
+        final int nodeCount = paths.getTreeIndex().size();
+        HashMap<String, INode> result = new HashMap<String, INode>(nodeCount * 4 / 3 + 1);
+        for (int i = 0; i < nodeCount; i++) {
+            result.put(paths.getPath(i), paths.getTreeIndex().getNode(i));
         }
 
         if (log.isEnabledFor(Level.INFO)) {
@@ -1,38 +1,14 @@
 package it.unitn.disi.smatch.loaders.mapping;
 
-import it.unitn.disi.smatch.data.trees.IContext;
-import it.unitn.disi.smatch.data.trees.INode;
-import org.apache.log4j.Level;
-import org.apache.log4j.Logger;
-
-import java.util.HashMap;
-import java.util.Iterator;
-
 /**
- * Version with an iterator.
+ * Version with an iterator. {@link PlainMappingLoader} resolves node paths through
+ * {@link it.unitn.disi.smatch.data.trees.NodePathIndex}, which walks the children of the nodes without building the
+ * list of nodes, therefore this version is the same.
  *
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ * @deprecated use {@link PlainMappingLoader}
  */
+@Deprecated
 public class PlainMappingLoaderIt extends PlainMappingLoader {
 
-    private static final Logger log = Logger.getLogger(PlainMappingLoaderIt.class);
-
-    @Override
-    protected HashMap<String, INode> createHash(IContext context) {
-        HashMap<String, INode> result = new HashMap<String, INode>();
-
-        int nodeCount = 0;
-        for (Iterator<INode> i = context.getNodes(); i.hasNext();) {
-            INode node = i.next();
-            result.put(getNodePathToRoot(node), node);
-            nodeCount++;
-        }
-
-        if (log.isEnabledFor(Level.INFO)) {
-            log.info("Created hash for " + nodeCount + " nodes...");
-        }
-
-        return result;
-    }
-
 }
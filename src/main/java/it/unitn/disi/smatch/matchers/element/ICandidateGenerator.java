@@ -0,0 +1,23 @@
+package it.unitn.disi.smatch.matchers.element;
+
+import it.unitn.disi.common.components.IConfigurable;
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+
+/**
+ * Interface for candidate generators, which propose pairs of atomic concepts worth matching. Pairs which are not
+ * proposed are not matched and keep the IDK relation.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public interface ICandidateGenerator extends IConfigurable {
+
+    /**
+     * Returns the candidates for each source atomic concept.
+     *
+     * @param sourceACoLs source atomic concepts
+     * @param targetACoLs target atomic concepts
+     * @return for each source atomic concept sorted indexes of candidate target atomic concepts
+     * @throws MatcherLibraryException MatcherLibraryException
+     */
+    int[][] getCandidates(IAtomicConceptOfLabel[] sourceACoLs, IAtomicConceptOfLabel[] targetACoLs) throws MatcherLibraryException;
+}
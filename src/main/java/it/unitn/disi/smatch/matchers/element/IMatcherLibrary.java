@@ -4,6 +4,9 @@ import it.unitn.disi.common.components.IConfigurable;
 import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
 import it.unitn.disi.smatch.data.trees.IContext;
 import it.unitn.disi.smatch.data.mappings.IContextMapping;
+import it.unitn.disi.smatch.data.trees.INode;
+
+import java.util.List;
 
 /**
  * Interface for collections of matchers, which perform element-level matching.
@@ -22,4 +25,16 @@ public interface IMatcherLibrary extends IConfigurable {
      * @throws MatcherLibraryException MatcherLibraryException
      */
     public IContextMapping<IAtomicConceptOfLabel> elementLevelMatching(IContext sourceContext, IContext targetContext) throws MatcherLibraryException;
+
+    /**
+     * Matches the atomic concepts of some source nodes with the atomic concepts of some target nodes, for example of
+     * the nodes changed since the last matching, and sets the relations in the mapping. Other relations in the
+     * mapping stay as they are.
+     *
+     * @param mapping     mapping between atomic concepts of the contexts
+     * @param sourceNodes source nodes
+     * @param targetNodes target nodes
+     * @throws MatcherLibraryException MatcherLibraryException
+     */
+    public void elementLevelMatching(IContextMapping<IAtomicConceptOfLabel> mapping, List<INode> sourceNodes, List<INode> targetNodes) throws MatcherLibraryException;
 }
@@ -3,14 +3,17 @@ package it.unitn.disi.smatch.matchers.element;
 import it.unitn.disi.common.components.Configurable;
 import it.unitn.disi.common.components.ConfigurableException;
 import it.unitn.disi.common.utils.ClassFactory;
+import it.unitn.disi.common.utils.RangeExecutor;
 import it.unitn.disi.smatch.SMatchConstants;
 import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
 import it.unitn.disi.smatch.data.ling.ISense;
 import it.unitn.disi.smatch.data.mappings.IContextMapping;
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
 import it.unitn.disi.smatch.data.mappings.IMappingFactory;
+import it.unitn.disi.smatch.data.mappings.MatrixMapping;
 import it.unitn.disi.smatch.data.trees.IContext;
 import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.oracles.IBatchSenseMatcher;
 import it.unitn.disi.smatch.oracles.ILinguisticOracle;
 import it.unitn.disi.smatch.oracles.ISenseMatcher;
 import it.unitn.disi.smatch.oracles.SenseMatcherException;
@@ -20,12 +23,15 @@ import org.apache.log4j.Logger;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Performs all element level matching routines and provides the library of element level matchers. Needs the
  * following configuration parameters:
  * <p/>
- * senseMatcher - an instance of ISenseMatcher
+ * senseMatcher - an instance of ISenseMatcher. If it also implements
+ * {@link it.unitn.disi.smatch.oracles.IBatchSenseMatcher}, senses of all acols are encoded once and each row of acols
+ * is matched by the sense matcher in one call.
  * <p/>
  * linguisticOracle - an instance of ILinguisticOracle
  * <p/>
@@ -40,6 +46,20 @@ import java.util.Properties;
  * interface
  * <p/>
  * mappingFactory - an instance of IMappingFactory
+ * <p/>
+ * threads - number of threads matching the source acols, 1 by default. With more threads the source acols are split
+ * into ranges matched in parallel on a fork/join pool and each range is written as a slice of rows into the acol
+ * mapping. The sense matcher, the linguistic oracle and all the element level matchers are shared by the threads and
+ * should be thread-safe.
+ * <p/>
+ * relationCacheSize - maximum number of relations kept in a {@link RelationCache}, 0 by default, which disables the
+ * cache. Relations are cached between atomic concepts with the same lemma and senses and kept between the match runs
+ * until the library is reconfigured. The cache takes up to about 40 bytes per relation and about 100 bytes per
+ * signature, plus its lemma and sense ids, and keeps as many signatures as relations, so a cache of 1000000 relations
+ * may take well over 100 MB.
+ * <p/>
+ * candidateGenerator - an optional instance of ICandidateGenerator. If present, only the proposed pairs of acols are
+ * matched, the others keep the IDK relation.
  *
  * @author Mikalai Yatskevich mikalai.yatskevich@comlab.ox.ac.uk
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
@@ -71,6 +91,153 @@ public class MatcherLibrary extends Configurable implements IMatcherLibrary {
     private static final String MAPPING_FACTORY_KEY = "mappingFactory";
     protected IMappingFactory mappingFactory = null;
 
+    private static final String THREADS_KEY = "threads";
+    private int threads = 1;
+    private RangeExecutor executor = new RangeExecutor(threads);
+
+    private static final String RELATION_CACHE_SIZE_KEY = "relationCacheSize";
+    private int relationCacheSize = 0;
+    private RelationCache relationCache = null;
+
+    private static final String CANDIDATE_GENERATOR_KEY = "candidateGenerator";
+    private ICandidateGenerator candidateGenerator = null;
+
+    /**
+     * Matching of all acols of a pair of contexts.
+     */
+    private class MatchingTask implements RangeExecutor.IRangeTask<MatcherLibraryException> {
+        private final IAtomicConceptOfLabel[] sourceACoLs;
+        private final IAtomicConceptOfLabel[] targetACoLs;
+        private final IContextMapping<IAtomicConceptOfLabel> mapping;
+        private final boolean concurrentMapping;
+
+        // candidate target acols for each source acol, null for all
+        private final int[][] candidates;
+
+        // acol signatures, null without the cache
+        private final RelationCache cache;
+        private final int[] sourceSignatures;
+        private final int[] targetSignatures;
+
+        // encoded acol senses, null if the sense matcher does not support batches
+        private final IBatchSenseMatcher batchMatcher;
+        private final long[][] sourceCodes;
+        private final long[][] targetCodes;
+
+        private final AtomicLong counter = new AtomicLong();
+        private final long total;
+        private final long reportInt;
+
+        private MatchingTask(IAtomicConceptOfLabel[] sourceACoLs, IAtomicConceptOfLabel[] targetACoLs,
+                             IContextMapping<IAtomicConceptOfLabel> mapping, int[][] candidates) throws MatcherLibraryException {
+            this.sourceACoLs = sourceACoLs;
+            this.targetACoLs = targetACoLs;
+            this.mapping = mapping;
+            this.concurrentMapping = mapping instanceof MatrixMapping;
+            this.candidates = candidates;
+            cache = relationCache;
+            if (null == cache) {
+                sourceSignatures = null;
+                targetSignatures = null;
+            } else {
+                sourceSignatures = cache.getSignatures(sourceACoLs);
+                targetSignatures = cache.getSignatures(targetACoLs);
+            }
+            if (senseMatcher instanceof IBatchSenseMatcher) {
+                batchMatcher = (IBatchSenseMatcher) senseMatcher;
+                sourceCodes = getSenseCodes(batchMatcher, sourceACoLs);
+                targetCodes = getSenseCodes(batchMatcher, targetACoLs);
+            } else {
+                batchMatcher = null;
+                sourceCodes = null;
+                targetCodes = null;
+            }
+            if (null == candidates) {
+                total = (long) sourceACoLs.length * (long) targetACoLs.length;
+            } else {
+                long count = 0;
+                for (int[] row : candidates) {
+                    count = count + row.length;
+                }
+                total = count;
+            }
+            reportInt = (total / 20) + 1;//i.e. report every 5%
+        }
+
+        public void run(int from, int to) throws MatcherLibraryException {
+            final char[][] slice = new char[to - from][];
+            // positions in the row and target indexes of the pairs not found in the cache
+            final int[] missing = new int[targetACoLs.length];
+            final int[] missingColumns = new int[targetACoLs.length];
+            final char[] senseRelations = null == batchMatcher ? null : new char[targetACoLs.length];
+            for (int i = from; i < to; i++) {
+                final int[] columns = null == candidates ? null : candidates[i];
+                final int count = null == columns ? targetACoLs.length : columns.length;
+                final char[] relations = new char[count];
+                int missingCount = 0;
+                for (int k = 0; k < count; k++) {
+                    final int j = null == columns ? k : columns[k];
+                    final char relation = null == cache ? RelationCache.NO_RELATION : cache.get(sourceSignatures[i], targetSignatures[j]);
+                    if (RelationCache.NO_RELATION == relation) {
+                        missing[missingCount] = k;
+                        missingColumns[missingCount] = j;
+                        missingCount++;
+                    } else {
+                        relations[k] = relation;
+                    }
+                }
+
+                if (null != batchMatcher) {
+                    try {
+                        batchMatcher.getRelations(sourceCodes[i], targetCodes, missingColumns, missingCount, senseRelations);
+                    } catch (SenseMatcherException e) {
+                        final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+                        log.error(errMessage, e);
+                        throw new MatcherLibraryException(errMessage, e);
+                    }
+                }
+                for (int m = 0; m < missingCount; m++) {
+                    final int j = missingColumns[m];
+                    final char relation;
+                    if (null == batchMatcher) {
+                        relation = getRelation(sourceACoLs[i], targetACoLs[j]);
+                    } else {
+                        relation = getRelation(sourceACoLs[i], targetACoLs[j], senseRelations[m]);
+                    }
+                    if (null != cache) {
+                        cache.put(sourceSignatures[i], targetSignatures[j], relation);
+                    }
+                    relations[missing[m]] = relation;
+                }
+                slice[i - from] = relations;
+
+                final long done = counter.addAndGet(count);
+                if ((SMatchConstants.LARGE_TASK < total) && (done / reportInt != (done - count) / reportInt) && log.isEnabledFor(Level.INFO)) {
+                    log.info(100 * done / total + "%");
+                }
+            }
+
+            if (concurrentMapping) {
+                setRows(from, to, slice);
+            } else {
+                synchronized (mapping) {
+                    setRows(from, to, slice);
+                }
+            }
+        }
+
+        private void setRows(int from, int to, char[][] slice) {
+            for (int i = from; i < to; i++) {
+                final int[] columns = null == candidates ? null : candidates[i];
+                final char[] relations = slice[i - from];
+                for (int k = 0; k < relations.length; k++) {
+                    final int j = null == columns ? k : columns[k];
+                    mapping.setRelation(sourceACoLs[i], targetACoLs[j], relations[k]);
+                }
+            }
+        }
+    }
+
     @Override
     public boolean setProperties(Properties newProperties) throws ConfigurableException {
         Properties oldProperties = new Properties();
@@ -134,6 +301,32 @@ public class MatcherLibrary extends Configurable implements IMatcherLibrary {
                 log.error(errMessage);
                 throw new ConfigurableException(errMessage);
             }
+
+            if (newProperties.containsKey(THREADS_KEY)) {
+                threads = Integer.parseInt(newProperties.getProperty(THREADS_KEY));
+                if (threads < 1) {
+                    final String errMessage = "Number of threads should be positive: " + threads;
+                    log.error(errMessage);
+                    throw new ConfigurableException(errMessage);
+                }
+            }
+
+            final int oldRelationCacheSize = relationCacheSize;
+            if (newProperties.containsKey(RELATION_CACHE_SIZE_KEY)) {
+                relationCacheSize = Integer.parseInt(newProperties.getProperty(RELATION_CACHE_SIZE_KEY));
+            }
+            candidateGenerator = (ICandidateGenerator) configureComponent(candidateGenerator, oldProperties, newProperties, "candidate generator", CANDIDATE_GENERATOR_KEY, ICandidateGenerator.class);
+
+            // matchers might have changed, the cache of the same size is emptied instead of being created again
+            if (relationCacheSize <= 0) {
+                relationCache = null;
+            } else if (null == relationCache || oldRelationCacheSize != relationCacheSize) {
+                relationCache = new RelationCache(relationCacheSize);
+            } else {
+                relationCache.clear();
+            }
+
+            executor = new RangeExecutor(threads);
         }
         return result;
     }
@@ -143,28 +336,41 @@ public class MatcherLibrary extends Configurable implements IMatcherLibrary {
         // Corresponds to Step 3 of the semantic matching algorithm.
 
         IContextMapping<IAtomicConceptOfLabel> result = mappingFactory.getACoLMappingInstance(sourceContext, targetContext);
+        match(result, getACoLs(sourceContext.getNodesList()), getACoLs(targetContext.getNodesList()));
+        return result;
+    }
 
-        long counter = 0;
-        long total = getACoLCount(sourceContext) * getACoLCount(targetContext);
-        long reportInt = (total / 20) + 1;//i.e. report every 5%
-        for (INode sourceNode : sourceContext.getNodesList()) {
-            for (IAtomicConceptOfLabel sourceACoL : sourceNode.getNodeData().getACoLsList()) {
-                for (INode targetNode : targetContext.getNodesList()) {
-                    for (IAtomicConceptOfLabel targetACoL : targetNode.getNodeData().getACoLsList()) {
-                        //Use Element level semantic matchers library
-                        //to check the relation holding between two ACoLs represented by lists of WN senses and tokens
-                        final char relation = getRelation(sourceACoL, targetACoL);
-                        result.setRelation(sourceACoL, targetACoL, relation);
-
-                        counter++;
-                        if ((SMatchConstants.LARGE_TASK < total) && (0 == (counter % reportInt)) && log.isEnabledFor(Level.INFO)) {
-                            log.info(100 * counter / total + "%");
-                        }
-                    }
-                }
-            }
+    public void elementLevelMatching(IContextMapping<IAtomicConceptOfLabel> mapping, List<INode> sourceNodes, List<INode> targetNodes) throws MatcherLibraryException {
+        match(mapping, getACoLs(sourceNodes), getACoLs(targetNodes));
+    }
+
+    private void match(IContextMapping<IAtomicConceptOfLabel> result, IAtomicConceptOfLabel[] sourceACoLs, IAtomicConceptOfLabel[] targetACoLs) throws MatcherLibraryException {
+        int[][] candidates = null;
+        if (null != candidateGenerator) {
+            candidates = candidateGenerator.getCandidates(sourceACoLs, targetACoLs);
         }
-        return result;
+        final MatchingTask task = new MatchingTask(sourceACoLs, targetACoLs, result, candidates);
+        if (null != candidates && log.isEnabledFor(Level.INFO)) {
+            log.info("Candidate acol pairs: " + task.total + " of " + (long) sourceACoLs.length * (long) targetACoLs.length);
+        }
+        if (1 < threads && log.isEnabledFor(Level.DEBUG)) {
+            log.debug("Matching " + sourceACoLs.length + " acols using " + threads + " threads");
+        }
+        executor.run(sourceACoLs.length, task, MatcherLibraryException.class);
+
+        if (null != task.cache && (SMatchConstants.LARGE_TASK < task.total) && log.isEnabledFor(Level.INFO)) {
+            log.info("Relation cache hit ratio: " + task.cache.getHitRatio() + ", cached relations: " + task.cache.size()
+                    + ", signatures: " + task.cache.getSignatureCount());
+        }
+    }
+
+    /**
+     * Returns the cache of relations between atomic concepts with its hit and miss counts.
+     *
+     * @return the relation cache or null if it is disabled
+     */
+    public RelationCache getRelationCache() {
+        return relationCache;
     }
 
     /**
@@ -177,22 +383,7 @@ public class MatcherLibrary extends Configurable implements IMatcherLibrary {
      */
     protected char getRelation(IAtomicConceptOfLabel sourceACoL, IAtomicConceptOfLabel targetACoL) throws MatcherLibraryException {
         try {
-            char relation = senseMatcher.getRelation(sourceACoL.getSenseList(), targetACoL.getSenseList());
-
-            //if WN matcher did not find relation
-            if (IMappingElement.IDK == relation) {
-                if (useWeakSemanticsElementLevelMatchersLibrary) {
-                    //use string based matchers
-                    relation = getRelationFromStringMatchers(sourceACoL.getLemma(), targetACoL.getLemma());
-                    //if they did not find relation
-                    if (IMappingElement.IDK == relation) {
-                        //use sense and gloss based matchers
-                        relation = getRelationFromSenseGlossMatchers(sourceACoL.getSenseList(), targetACoL.getSenseList());
-                    }
-                }
-            }
-
-            return relation;
+            return getRelation(sourceACoL, targetACoL, senseMatcher.getRelation(sourceACoL.getSenseList(), targetACoL.getSenseList()));
         } catch (SenseMatcherException e) {
             final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
             log.error(errMessage, e);
@@ -200,6 +391,34 @@ public class MatcherLibrary extends Configurable implements IMatcherLibrary {
         }
     }
 
+    /**
+     * Returns a semantic relation between two atomic concepts, given the relation between their senses.
+     *
+     * @param sourceACoL    source concept
+     * @param targetACoL    target concept
+     * @param senseRelation relation found by the sense matcher
+     * @return relation between concepts
+     * @throws MatcherLibraryException MatcherLibraryException
+     */
+    private char getRelation(IAtomicConceptOfLabel sourceACoL, IAtomicConceptOfLabel targetACoL, char senseRelation) throws MatcherLibraryException {
+        char relation = senseRelation;
+
+        //if WN matcher did not find relation
+        if (IMappingElement.IDK == relation) {
+            if (useWeakSemanticsElementLevelMatchersLibrary) {
+                //use string based matchers
+                relation = getRelationFromStringMatchers(sourceACoL.getLemma(), targetACoL.getLemma());
+                //if they did not find relation
+                if (IMappingElement.IDK == relation) {
+                    //use sense and gloss based matchers
+                    relation = getRelationFromSenseGlossMatchers(sourceACoL.getSenseList(), targetACoL.getSenseList());
+                }
+            }
+        }
+
+        return relation;
+    }
+
     /**
      * Returns semantic relation holding between two labels as computed by string based matchers.
      *
@@ -243,6 +462,28 @@ public class MatcherLibrary extends Configurable implements IMatcherLibrary {
         return relation;
     }
 
+    private static long[][] getSenseCodes(IBatchSenseMatcher batchMatcher, IAtomicConceptOfLabel[] acols) throws MatcherLibraryException {
+        try {
+            long[][] result = new long[acols.length][];
+            for (int i = 0; i < acols.length; i++) {
+                result[i] = batchMatcher.getSenseCodes(acols[i].getSenseList());
+            }
+            return result;
+        } catch (SenseMatcherException e) {
+            final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error(errMessage, e);
+            throw new MatcherLibraryException(errMessage, e);
+        }
+    }
+
+    private static IAtomicConceptOfLabel[] getACoLs(List<INode> nodes) {
+        ArrayList<IAtomicConceptOfLabel> result = new ArrayList<IAtomicConceptOfLabel>();
+        for (INode node : nodes) {
+            result.addAll(node.getNodeData().getACoLsList());
+        }
+        return result.toArray(new IAtomicConceptOfLabel[result.size()]);
+    }
+
     protected long getACoLCount(IContext context) {
         long result = 0;
         for (INode node : context.getNodesList()) {
@@ -0,0 +1,278 @@
+package it.unitn.disi.smatch.matchers.element;
+
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.ling.ISense;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of relations between atomic concepts. Element level matchers look only at the lemma and the senses of an
+ * atomic concept, therefore atomic concepts with the same lemma and senses, which are frequent in large contexts,
+ * share the signature, and the relation between two signatures is computed once.
+ * <p/>
+ * Signatures are interned as int numbers. Relations are kept in segments of open-addressing tables, each bounded by
+ * its share of the capacity and emptied when full. Interned signatures are bounded by the capacity too and are
+ * forgotten all together when there are too many of them. Numbers are never reused, so relations cached for forgotten
+ * signatures are not found again and leave the segments as these are emptied. The cache can be used from several
+ * threads.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class RelationCache {
+
+    /**
+     * Returned by {@link #get(int, int)} for a pair without a cached relation.
+     */
+    public static final char NO_RELATION = 0;
+
+    // the cache is split into segments to reduce contention
+    private static final int SEGMENT_COUNT = 64;
+
+    private final ConcurrentHashMap<String, Integer> signatures = new ConcurrentHashMap<String, Integer>();
+    private final AtomicInteger signatureCount = new AtomicInteger();
+    private final int maxSignatures;
+
+    private final Segment[] segments;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Open-addressing table of signature pairs, packed into a long, and their relations.
+     */
+    private final class Segment {
+        private final int capacity;
+        // 0 marks an empty slot
+        private long[] keys = new long[64];
+        private char[] relations = new char[64];
+        private int count = 0;
+
+        private Segment(int capacity) {
+            this.capacity = capacity;
+        }
+
+        private synchronized char get(long key) {
+            final int mask = keys.length - 1;
+            int slot = (hash(key) >>> 6) & mask;
+            while (0L != keys[slot]) {
+                if (key == keys[slot]) {
+                    return relations[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return NO_RELATION;
+        }
+
+        private synchronized void put(long key, char relation) {
+            if (keys.length <= 2 * (count + 1)) {
+                if (count < capacity) {
+                    rehash(2 * keys.length);
+                } else {
+                    evictions.addAndGet(count);
+                    clear();
+                }
+            }
+            final int mask = keys.length - 1;
+            int slot = (hash(key) >>> 6) & mask;
+            while (0L != keys[slot]) {
+                if (key == keys[slot]) {
+                    relations[slot] = relation;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            relations[slot] = relation;
+            count++;
+        }
+
+        private synchronized void clear() {
+            Arrays.fill(keys, 0L);
+            count = 0;
+        }
+
+        private synchronized int size() {
+            return count;
+        }
+
+        private void rehash(int length) {
+            long[] oldKeys = keys;
+            char[] oldRelations = relations;
+            keys = new long[length];
+            relations = new char[length];
+            final int mask = length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (0L != oldKeys[i]) {
+                    int slot = (hash(oldKeys[i]) >>> 6) & mask;
+                    while (0L != keys[slot]) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    relations[slot] = oldRelations[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param capacity maximum number of cached relations
+     */
+    public RelationCache(int capacity) {
+        maxSignatures = Math.max(SEGMENT_COUNT, capacity);
+        segments = new Segment[SEGMENT_COUNT];
+        final int segmentCapacity = Math.max(1, capacity / SEGMENT_COUNT);
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    /**
+     * Returns the signature of the atomic concept, a number shared by all atomic concepts with the same lemma and
+     * senses.
+     *
+     * @param acol atomic concept
+     * @return signature, a positive number
+     */
+    public int getSignature(IAtomicConceptOfLabel acol) {
+        StringBuilder key = new StringBuilder();
+        key.append(acol.getLemma());
+        for (ISense sense : acol.getSenseList()) {
+            key.append('\n').append(sense.getId());
+        }
+        final String signature = key.toString();
+        Integer result = signatures.get(signature);
+        if (null == result) {
+            if (maxSignatures <= signatures.size()) {
+                evictions.addAndGet(signatures.size());
+                signatures.clear();
+            }
+            final Integer newResult = signatureCount.incrementAndGet();
+            result = signatures.putIfAbsent(signature, newResult);
+            if (null == result) {
+                result = newResult;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the signatures of the atomic concepts.
+     *
+     * @param acols atomic concepts
+     * @return signatures
+     */
+    public int[] getSignatures(IAtomicConceptOfLabel[] acols) {
+        int[] result = new int[acols.length];
+        for (int i = 0; i < acols.length; i++) {
+            result[i] = getSignature(acols[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the cached relation between the signatures.
+     *
+     * @param source source signature
+     * @param target target signature
+     * @return the cached relation or {@link #NO_RELATION}
+     */
+    public char get(int source, int target) {
+        final long key = getKey(source, target);
+        final char result = getSegment(key).get(key);
+        if (NO_RELATION == result) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * Caches the relation between the signatures.
+     *
+     * @param source   source signature
+     * @param target   target signature
+     * @param relation relation
+     */
+    public void put(int source, int target, char relation) {
+        final long key = getKey(source, target);
+        getSegment(key).put(key, relation);
+    }
+
+    /**
+     * Drops cached relations and signatures and resets the counters.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+        signatures.clear();
+        hits.set(0);
+        misses.set(0);
+        evictions.set(0);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the share of lookups answered from the cache.
+     *
+     * @return hit ratio, between 0 and 1
+     */
+    public double getHitRatio() {
+        final long h = hits.get();
+        final long total = h + misses.get();
+        return 0 == total ? 0 : (double) h / total;
+    }
+
+    /**
+     * Returns the number of cached relations.
+     *
+     * @return the number of cached relations
+     */
+    public int size() {
+        int result = 0;
+        for (Segment segment : segments) {
+            result += segment.size();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of distinct signatures seen.
+     *
+     * @return the number of distinct signatures
+     */
+    public int getSignatureCount() {
+        return signatures.size();
+    }
+
+    private Segment getSegment(long key) {
+        return segments[hash(key) & (SEGMENT_COUNT - 1)];
+    }
+
+    private static long getKey(int source, int target) {
+        return ((long) source << 32) | (target & 0xFFFFFFFFL);
+    }
+
+    private static int hash(long key) {
+        key = key * 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+}
@@ -0,0 +1,259 @@
+package it.unitn.disi.smatch.matchers.element.candidates;
+
+import it.unitn.disi.common.components.Configurable;
+import it.unitn.disi.common.components.ConfigurableException;
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.ling.ISense;
+import it.unitn.disi.smatch.matchers.element.ICandidateGenerator;
+import it.unitn.disi.smatch.matchers.element.MatcherLibraryException;
+import it.unitn.disi.smatch.oracles.IRelatedSenseProvider;
+import it.unitn.disi.smatch.oracles.ISenseMatcher;
+import it.unitn.disi.smatch.oracles.SenseMatcherException;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Proposes pairs of atomic concepts which share a key in an inverted index of the target atomic concepts. Keys are
+ * sense ids, ids of more general senses and character n-grams of lemmas.
+ * <p/>
+ * Accepts the following configuration parameters:
+ * <p/>
+ * senseMatcher - an instance of ISenseMatcher, which should also implement
+ * {@link it.unitn.disi.smatch.oracles.IRelatedSenseProvider} to use related senses. Otherwise only shared senses are
+ * used.
+ * <p/>
+ * senseRecall - which relations of the sense matcher are guaranteed to be proposed: full (default) for all of them,
+ * hierarchy for synonymy and generality, which skips antonyms, similar adjectives and nominalizations, or senses for
+ * shared senses only.
+ * <p/>
+ * lemmaGrams - which n-grams of lemmas are used: affix (default) for the first and the last n-gram, which proposes
+ * all pairs related by the prefix and suffix string matchers, all for all n-grams, which proposes more pairs similar
+ * by n-gram and edit distance matchers, or none.
+ * <p/>
+ * gramLength - n-gram length, 3 by default.
+ * <p/>
+ * Pairs related only by gloss matchers are not guaranteed to be proposed.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class InvertedIndexCandidateGenerator extends Configurable implements ICandidateGenerator {
+
+    private static final Logger log = Logger.getLogger(InvertedIndexCandidateGenerator.class);
+
+    private static final String SENSE_MATCHER_KEY = "senseMatcher";
+    private ISenseMatcher senseMatcher = null;
+
+    private static final String SENSE_RECALL_KEY = "senseRecall";
+    private static final String RECALL_FULL = "full";
+    private static final String RECALL_HIERARCHY = "hierarchy";
+    private static final String RECALL_SENSES = "senses";
+    private String senseRecall = RECALL_FULL;
+
+    private static final String LEMMA_GRAMS_KEY = "lemmaGrams";
+    private static final String GRAMS_AFFIX = "affix";
+    private static final String GRAMS_ALL = "all";
+    private static final String GRAMS_NONE = "none";
+    private String lemmaGrams = GRAMS_AFFIX;
+
+    private static final String GRAM_LENGTH_KEY = "gramLength";
+    private int gramLength = 3;
+
+    /**
+     * Growing list of atomic concept indexes.
+     */
+    private static class Postings {
+        private int[] items = new int[4];
+        private int size = 0;
+
+        private void add(int item) {
+            // an atomic concept adds all its keys at once
+            if (0 == size || item != items[size - 1]) {
+                if (items.length == size) {
+                    items = Arrays.copyOf(items, 2 * size);
+                }
+                items[size] = item;
+                size++;
+            }
+        }
+    }
+
+    /**
+     * Keys of an atomic concept.
+     */
+    private static class Keys {
+        private final List<String> senses = new ArrayList<String>();
+        private final List<String> moreGeneralSenses = new ArrayList<String>();
+        private final List<String> relatedSenses = new ArrayList<String>();
+        private final List<String> grams = new ArrayList<String>();
+
+        private void clear() {
+            senses.clear();
+            moreGeneralSenses.clear();
+            relatedSenses.clear();
+            grams.clear();
+        }
+    }
+
+    @Override
+    public boolean setProperties(Properties newProperties) throws ConfigurableException {
+        Properties oldProperties = new Properties();
+        oldProperties.putAll(properties);
+
+        boolean result = super.setProperties(newProperties);
+        if (result) {
+            senseMatcher = (ISenseMatcher) configureComponent(senseMatcher, oldProperties, newProperties, "sense matcher", SENSE_MATCHER_KEY, ISenseMatcher.class);
+            if (null != senseMatcher && !(senseMatcher instanceof IRelatedSenseProvider)) {
+                log.warn("Sense matcher " + senseMatcher.getClass().getSimpleName() + " does not provide related senses, only shared senses will be used");
+            }
+
+            if (newProperties.containsKey(SENSE_RECALL_KEY)) {
+                senseRecall = checkValue(newProperties, SENSE_RECALL_KEY, RECALL_FULL, RECALL_HIERARCHY, RECALL_SENSES);
+            }
+
+            if (newProperties.containsKey(LEMMA_GRAMS_KEY)) {
+                lemmaGrams = checkValue(newProperties, LEMMA_GRAMS_KEY, GRAMS_AFFIX, GRAMS_ALL, GRAMS_NONE);
+            }
+
+            if (newProperties.containsKey(GRAM_LENGTH_KEY)) {
+                gramLength = Integer.parseInt(newProperties.getProperty(GRAM_LENGTH_KEY));
+            }
+        }
+        return result;
+    }
+
+    public int[][] getCandidates(IAtomicConceptOfLabel[] sourceACoLs, IAtomicConceptOfLabel[] targetACoLs) throws MatcherLibraryException {
+        try {
+            // sense id -> ids of more general senses and related senses
+            final HashMap<String, List<String>> moreGeneralSenses = new HashMap<String, List<String>>();
+            final HashMap<String, List<String>> relatedSenses = new HashMap<String, List<String>>();
+            final Keys keys = new Keys();
+
+            // target acols by their senses and related senses
+            final HashMap<String, Postings> senseIndex = new HashMap<String, Postings>();
+            // target acols by more general senses
+            final HashMap<String, Postings> moreGeneralIndex = new HashMap<String, Postings>();
+            // target acols by lemma n-grams
+            final HashMap<String, Postings> gramIndex = new HashMap<String, Postings>();
+
+            for (int j = 0; j < targetACoLs.length; j++) {
+                getKeys(targetACoLs[j], moreGeneralSenses, relatedSenses, keys);
+                addPostings(senseIndex, keys.senses, j);
+                addPostings(senseIndex, keys.relatedSenses, j);
+                addPostings(moreGeneralIndex, keys.moreGeneralSenses, j);
+                addPostings(gramIndex, keys.grams, j);
+            }
+
+            final int[][] result = new int[sourceACoLs.length][];
+            final int[] stamps = new int[targetACoLs.length];
+            Arrays.fill(stamps, -1);
+            final int[] candidates = new int[targetACoLs.length];
+            for (int i = 0; i < sourceACoLs.length; i++) {
+                getKeys(sourceACoLs[i], moreGeneralSenses, relatedSenses, keys);
+                int count = 0;
+                // shared senses, source less general, related senses
+                count = collect(senseIndex, keys.senses, i, stamps, candidates, count);
+                count = collect(senseIndex, keys.moreGeneralSenses, i, stamps, candidates, count);
+                count = collect(senseIndex, keys.relatedSenses, i, stamps, candidates, count);
+                // source more general
+                count = collect(moreGeneralIndex, keys.senses, i, stamps, candidates, count);
+                count = collect(gramIndex, keys.grams, i, stamps, candidates, count);
+
+                result[i] = Arrays.copyOf(candidates, count);
+                Arrays.sort(result[i]);
+            }
+            return result;
+        } catch (SenseMatcherException e) {
+            final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error(errMessage, e);
+            throw new MatcherLibraryException(errMessage, e);
+        }
+    }
+
+    private void getKeys(IAtomicConceptOfLabel acol,
+                         HashMap<String, List<String>> moreGeneralSenses,
+                         HashMap<String, List<String>> relatedSenses,
+                         Keys keys) throws SenseMatcherException {
+        keys.clear();
+        final IRelatedSenseProvider provider = senseMatcher instanceof IRelatedSenseProvider ? (IRelatedSenseProvider) senseMatcher : null;
+        for (ISense sense : acol.getSenseList()) {
+            final String id = sense.getId();
+            keys.senses.add(id);
+            if (null != provider && !RECALL_SENSES.equals(senseRecall)) {
+                List<String> ids = moreGeneralSenses.get(id);
+                if (null == ids) {
+                    ids = provider.getMoreGeneralSenseIds(sense);
+                    moreGeneralSenses.put(id, ids);
+                }
+                keys.moreGeneralSenses.addAll(ids);
+
+                if (RECALL_FULL.equals(senseRecall)) {
+                    ids = relatedSenses.get(id);
+                    if (null == ids) {
+                        ids = provider.getRelatedSenseIds(sense);
+                        relatedSenses.put(id, ids);
+                    }
+                    keys.relatedSenses.addAll(ids);
+                }
+            }
+        }
+        addGrams(acol.getLemma(), keys.grams);
+    }
+
+    private void addGrams(String lemma, List<String> grams) {
+        if (null != lemma && !GRAMS_NONE.equals(lemmaGrams)) {
+            if (lemma.length() < gramLength) {
+                grams.add("=" + lemma);
+            } else if (GRAMS_ALL.equals(lemmaGrams)) {
+                for (int i = 0; i + gramLength <= lemma.length(); i++) {
+                    grams.add(lemma.substring(i, i + gramLength));
+                }
+            } else if (GRAMS_AFFIX.equals(lemmaGrams)) {
+                grams.add("^" + lemma.substring(0, gramLength));
+                grams.add("$" + lemma.substring(lemma.length() - gramLength));
+            }
+        }
+    }
+
+    private static void addPostings(HashMap<String, Postings> index, List<String> keys, int item) {
+        for (String key : keys) {
+            Postings postings = index.get(key);
+            if (null == postings) {
+                postings = new Postings();
+                index.put(key, postings);
+            }
+            postings.add(item);
+        }
+    }
+
+    private static int collect(HashMap<String, Postings> index, List<String> keys, int stamp, int[] stamps, int[] candidates, int count) {
+        for (String key : keys) {
+            final Postings postings = index.get(key);
+            if (null != postings) {
+                for (int k = 0; k < postings.size; k++) {
+                    final int item = postings.items[k];
+                    if (stamp != stamps[item]) {
+                        stamps[item] = stamp;
+                        candidates[count] = item;
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private static String checkValue(Properties properties, String key, String... values) throws ConfigurableException {
+        final String value = properties.getProperty(key);
+        if (!Arrays.asList(values).contains(value)) {
+            final String errMessage = "Unknown value of " + key + ": " + value + ", expected one of " + Arrays.toString(values);
+            log.error(errMessage);
+            throw new ConfigurableException(errMessage);
+        }
+        return value;
+    }
+}
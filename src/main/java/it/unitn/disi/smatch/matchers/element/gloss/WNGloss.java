@@ -6,6 +6,8 @@ import it.unitn.disi.smatch.data.ling.ISense;
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
 import it.unitn.disi.smatch.matchers.element.ISenseGlossBasedElementLevelSemanticMatcher;
 import it.unitn.disi.smatch.matchers.element.MatcherLibraryException;
+import it.unitn.disi.smatch.oracles.UncheckedLinguisticOracleException;
+import org.apache.log4j.Logger;
 
 import java.util.List;
 import java.util.Properties;
@@ -25,6 +27,8 @@ import java.util.StringTokenizer;
  */
 public class WNGloss extends Configurable implements ISenseGlossBasedElementLevelSemanticMatcher {
 
+    private static final Logger log = Logger.getLogger(WNGloss.class);
+
     private static final String THRESHOLD_KEY = "threshold";
     private int threshold = 1;
 
@@ -55,8 +59,20 @@ public class WNGloss extends Configurable implements ISenseGlossBasedElementLeve
      * @return more general, less general or IDK relation
      */
     public char match(ISense source, ISense target) throws MatcherLibraryException {
-        String sSynset = source.getGloss();
-        String tSynset = target.getGloss();
+        final String sSynset;
+        final String tSynset;
+        final List<String> sourceLemmas;
+        final List<String> targetLemmas;
+        try {
+            sSynset = source.getGloss();
+            tSynset = target.getGloss();
+            sourceLemmas = source.getLemmas();
+            targetLemmas = target.getLemmas();
+        } catch (UncheckedLinguisticOracleException e) {
+            final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error(errMessage, e);
+            throw new MatcherLibraryException(errMessage, e);
+        }
         StringTokenizer stSource = new StringTokenizer(sSynset, " ,.\"'();");
         StringTokenizer stTarget = new StringTokenizer(tSynset, " ,.\"'();");
         String lemma;
@@ -64,8 +80,7 @@ public class WNGloss extends Configurable implements ISenseGlossBasedElementLeve
         while (stSource.hasMoreTokens()) {
             lemma = stSource.nextToken();
             if (!meaninglessWords.contains(lemma)) {
-                List<String> lemmas = target.getLemmas();
-                for (String lemmaToCompare : lemmas) {
+                for (String lemmaToCompare : targetLemmas) {
                     if (lemma.equals(lemmaToCompare)) {
                         counter++;
                     }
@@ -79,8 +94,7 @@ public class WNGloss extends Configurable implements ISenseGlossBasedElementLeve
         while (stTarget.hasMoreTokens()) {
             lemma = stTarget.nextToken();
             if (!meaninglessWords.contains(lemma)) {
-                List<String> lemmas = source.getLemmas();
-                for (String lemmaToCompare : lemmas) {
+                for (String lemmaToCompare : sourceLemmas) {
                     if (lemma.equals(lemmaToCompare)) {
                         counter++;
                     }
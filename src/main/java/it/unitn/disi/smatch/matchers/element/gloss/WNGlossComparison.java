@@ -5,6 +5,9 @@ import it.unitn.disi.common.components.ConfigurableException;
 import it.unitn.disi.smatch.data.ling.ISense;
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
 import it.unitn.disi.smatch.matchers.element.ISenseGlossBasedElementLevelSemanticMatcher;
+import it.unitn.disi.smatch.matchers.element.MatcherLibraryException;
+import it.unitn.disi.smatch.oracles.UncheckedLinguisticOracleException;
+import org.apache.log4j.Logger;
 
 import java.util.Properties;
 import java.util.StringTokenizer;
@@ -23,6 +26,8 @@ import java.util.StringTokenizer;
  */
 public class WNGlossComparison extends Configurable implements ISenseGlossBasedElementLevelSemanticMatcher {
 
+    private static final Logger log = Logger.getLogger(WNGlossComparison.class);
+
     private static final String THRESHOLD_KEY = "threshold";
     private int threshold = 2;
 
@@ -52,9 +57,17 @@ public class WNGlossComparison extends Configurable implements ISenseGlossBasedE
      * @param target gloss of target
      * @return synonym or IDK relation
      */
-    public char match(ISense source, ISense target) {
-        String sSynset = source.getGloss();
-        String tSynset = target.getGloss();
+    public char match(ISense source, ISense target) throws MatcherLibraryException {
+        final String sSynset;
+        final String tSynset;
+        try {
+            sSynset = source.getGloss();
+            tSynset = target.getGloss();
+        } catch (UncheckedLinguisticOracleException e) {
+            final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error(errMessage, e);
+            throw new MatcherLibraryException(errMessage, e);
+        }
         StringTokenizer stSource = new StringTokenizer(sSynset, " ,.\"'();");
         String lemmaS, lemmaT;
         int counter = 0;
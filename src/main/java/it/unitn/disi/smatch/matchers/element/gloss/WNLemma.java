@@ -5,6 +5,8 @@ import it.unitn.disi.smatch.data.ling.ISense;
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
 import it.unitn.disi.smatch.matchers.element.ISenseGlossBasedElementLevelSemanticMatcher;
 import it.unitn.disi.smatch.matchers.element.MatcherLibraryException;
+import it.unitn.disi.smatch.oracles.UncheckedLinguisticOracleException;
+import org.apache.log4j.Logger;
 
 import java.util.List;
 
@@ -18,6 +20,8 @@ import java.util.List;
 
 public class WNLemma extends Configurable implements ISenseGlossBasedElementLevelSemanticMatcher {
 
+    private static final Logger log = Logger.getLogger(WNLemma.class);
+
     /**
      * Computes the relation with WordNet lemma matcher.
      *
@@ -26,8 +30,16 @@ public class WNLemma extends Configurable implements ISenseGlossBasedElementLeve
      * @return synonym or IDk relation
      */
     public char match(ISense source, ISense target) throws MatcherLibraryException {
-        List<String> sourceLemmas = source.getLemmas();
-        List<String> targetLemmas = target.getLemmas();
+        final List<String> sourceLemmas;
+        final List<String> targetLemmas;
+        try {
+            sourceLemmas = source.getLemmas();
+            targetLemmas = target.getLemmas();
+        } catch (UncheckedLinguisticOracleException e) {
+            final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error(errMessage, e);
+            throw new MatcherLibraryException(errMessage, e);
+        }
         for (String sourceLemma : sourceLemmas) {
             for (String targetLemma : targetLemmas) {
                 if (sourceLemma.equals(targetLemma)) {
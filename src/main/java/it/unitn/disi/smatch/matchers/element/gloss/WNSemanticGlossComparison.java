@@ -5,6 +5,8 @@ import it.unitn.disi.smatch.data.ling.ISense;
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
 import it.unitn.disi.smatch.matchers.element.ISenseGlossBasedElementLevelSemanticMatcher;
 import it.unitn.disi.smatch.matchers.element.MatcherLibraryException;
+import it.unitn.disi.smatch.oracles.UncheckedLinguisticOracleException;
+import org.apache.log4j.Logger;
 
 import java.util.Properties;
 import java.util.StringTokenizer;
@@ -21,6 +23,8 @@ import java.util.StringTokenizer;
  */
 public class WNSemanticGlossComparison extends BasicGlossMatcher implements ISenseGlossBasedElementLevelSemanticMatcher {
 
+    private static final Logger log = Logger.getLogger(WNSemanticGlossComparison.class);
+
     // the words which are cut off from the area of discourse
     private static final String MEANINGLESS_WORDS_KEY = "meaninglessWords";
     private String meaninglessWords = "of on to their than from for by in at is are have has the a as with your etc our into its his her which him among those against ";
@@ -48,8 +52,16 @@ public class WNSemanticGlossComparison extends BasicGlossMatcher implements ISen
         int moreGeneral = 0;
         int lessGeneral = 0;
         int Opposite = 0;
-        String sSynset = source.getGloss();
-        String tSynset = target.getGloss();
+        final String sSynset;
+        final String tSynset;
+        try {
+            sSynset = source.getGloss();
+            tSynset = target.getGloss();
+        } catch (UncheckedLinguisticOracleException e) {
+            final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error(errMessage, e);
+            throw new MatcherLibraryException(errMessage, e);
+        }
         StringTokenizer stSource = new StringTokenizer(sSynset, " ,.\"'()");
         String lemmaS, lemmaT;
         while (stSource.hasMoreTokens()) {
@@ -3,10 +3,14 @@ package it.unitn.disi.smatch.matchers.element.string;
 import it.unitn.disi.common.components.Configurable;
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
 import it.unitn.disi.smatch.matchers.element.IStringBasedElementLevelSemanticMatcher;
+import org.apache.log4j.Logger;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Implements GPrefix matcher.
@@ -17,9 +21,12 @@ import java.util.HashSet;
  */
 public class GPrefix extends Configurable implements IStringBasedElementLevelSemanticMatcher {
 
-    private static int invocationCount = 0;
-    private static int relCount = 0;
-    private static HashSet<String> hm = new HashSet<String>();
+    private static final Logger log = Logger.getLogger(GPrefix.class);
+
+    private static final AtomicInteger invocationCount = new AtomicInteger();
+    private static final AtomicInteger relCount = new AtomicInteger();
+    // distinct cases, recorded for debugging only
+    private static final Set<String> hm = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
     //suffix -> relation
     //based on http://en.wiktionary.org/wiki/Appendix:Suffixes:English
@@ -568,7 +575,7 @@ public class GPrefix extends Configurable implements IStringBasedElementLevelSem
     }
 
     public char match(String str1, String str2) {
-        invocationCount++;
+        invocationCount.incrementAndGet();
         char rel;
 
         if (str1 == null || str2 == null) {
@@ -591,8 +598,10 @@ public class GPrefix extends Configurable implements IStringBasedElementLevelSem
         }
 
         if (rel != IMappingElement.IDK) {
-            relCount++;
-            addCase(str1, str2, rel);
+            relCount.incrementAndGet();
+            if (log.isDebugEnabled()) {
+                addCase(str1, str2, rel);
+            }
         }
         return rel;
     }
@@ -661,25 +670,27 @@ public class GPrefix extends Configurable implements IStringBasedElementLevelSem
     }
 
 
+    /**
+     * Logs the number of invocations and relations found. The distinct cases are recorded and logged only when
+     * debug logging is enabled.
+     */
     public void reportUsage() {
-        System.out.println("GPrefix");
-        System.out.println("GPrefix rel count = " + relCount);
-        System.out.println("GPrefix invocation count = " + invocationCount);
-        String[] arr = new String[hm.size()];
-        hm.toArray(arr);
-        Arrays.sort(arr);
-        for (String entry : arr) {
-            System.out.println(entry);
+        log.info("GPrefix rel count = " + relCount);
+        log.info("GPrefix invocation count = " + invocationCount);
+        if (log.isDebugEnabled()) {
+            String[] arr = new String[hm.size()];
+            hm.toArray(arr);
+            Arrays.sort(arr);
+            for (String entry : arr) {
+                log.debug(entry);
+            }
+            log.debug("GPrefix distinct case count = " + hm.size());
         }
-        System.out.println("GPrefix rel count = " + hm.size());
-        System.out.println("GPrefix");
     }
 
     private void addCase(String lstr1, String lstr2, char rel) {
         if (lstr1.compareTo(lstr2) < 0) {
-            if (!hm.contains(lstr1 + rel + lstr2)) {
-                hm.add(lstr1 + rel + lstr2);
-            }
+            hm.add(lstr1 + rel + lstr2);
         } else {
             if (rel == IMappingElement.MORE_GENERAL) {
                 rel = IMappingElement.LESS_GENERAL;
@@ -688,9 +699,7 @@ public class GPrefix extends Configurable implements IStringBasedElementLevelSem
                     rel = IMappingElement.MORE_GENERAL;
                 }
             }
-            if (!hm.contains(lstr2 + rel + lstr1)) {
-                hm.add(lstr2 + rel + lstr1);
-            }
+            hm.add(lstr2 + rel + lstr1);
         }
     }
 }
@@ -3,9 +3,13 @@ package it.unitn.disi.smatch.matchers.element.string;
 import it.unitn.disi.common.components.Configurable;
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
 import it.unitn.disi.smatch.matchers.element.IStringBasedElementLevelSemanticMatcher;
+import org.apache.log4j.Logger;
 
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Implements Prefix matcher.
@@ -15,9 +19,13 @@ import java.util.HashSet;
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
 public class Prefix extends Configurable implements IStringBasedElementLevelSemanticMatcher {
-    private static int invocationCount = 0;
-    private static int relCount = 0;
-    private static HashSet<String> hm = new HashSet<String>();
+
+    private static final Logger log = Logger.getLogger(Prefix.class);
+
+    private static final AtomicInteger invocationCount = new AtomicInteger();
+    private static final AtomicInteger relCount = new AtomicInteger();
+    // distinct cases, recorded for debugging only
+    private static final Set<String> hm = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
     /**
      * Computes the relation with prefix matcher.
@@ -27,7 +35,7 @@ public class Prefix extends Configurable implements IStringBasedElementLevelSema
      * @return synonym, more general, less general or IDK relation
      */
     public char match(String str1, String str2) {
-        invocationCount++;
+        invocationCount.incrementAndGet();
         char rel = IMappingElement.IDK;
 
         if (str1 == null || str2 == null) {
@@ -53,32 +61,36 @@ public class Prefix extends Configurable implements IStringBasedElementLevelSema
         }
 
         if (rel != IMappingElement.IDK) {
-            relCount++;
-            addCase(str1, str2, rel);
+            relCount.incrementAndGet();
+            if (log.isDebugEnabled()) {
+                addCase(str1, str2, rel);
+            }
         }
         return rel;
     }
 
 
+    /**
+     * Logs the number of invocations and relations found. The distinct cases are recorded and logged only when
+     * debug logging is enabled.
+     */
     public void reportUsage() {
-        System.out.println("Prefix");
-        System.out.println("Prefix rel count = " + relCount);
-        System.out.println("Prefix invocation count = " + invocationCount);
-        String[] arr = new String[hm.size()];
-        hm.toArray(arr);
-        Arrays.sort(arr);
-        for (String entry : arr) {
-            System.out.println(entry);
+        log.info("Prefix rel count = " + relCount);
+        log.info("Prefix invocation count = " + invocationCount);
+        if (log.isDebugEnabled()) {
+            String[] arr = new String[hm.size()];
+            hm.toArray(arr);
+            Arrays.sort(arr);
+            for (String entry : arr) {
+                log.debug(entry);
+            }
+            log.debug("Prefix distinct case count = " + hm.size());
         }
-        System.out.println("Prefix rel count = " + hm.size());
-        System.out.println("Prefix");
     }
 
     private void addCase(String lstr1, String lstr2, char rel) {
         if (lstr1.compareTo(lstr2) < 0) {
-            if (!hm.contains(lstr1 + rel + lstr2)) {
-                hm.add(lstr1 + rel + lstr2);
-            }
+            hm.add(lstr1 + rel + lstr2);
         } else {
             if (rel == IMappingElement.MORE_GENERAL) {
                 rel = IMappingElement.LESS_GENERAL;
@@ -87,9 +99,7 @@ public class Prefix extends Configurable implements IStringBasedElementLevelSema
                     rel = IMappingElement.MORE_GENERAL;
                 }
             }
-            if (!hm.contains(lstr2 + rel + lstr1)) {
-                hm.add(lstr2 + rel + lstr1);
-            }
+            hm.add(lstr2 + rel + lstr1);
         }
     }
 }
@@ -2,6 +2,8 @@ package it.unitn.disi.smatch.matchers.structure.node;
 
 import it.unitn.disi.common.components.Configurable;
 import it.unitn.disi.common.components.ConfigurableException;
+import it.unitn.disi.smatch.data.formulas.CNFFormula;
+import it.unitn.disi.smatch.data.formulas.ClauseBuffer;
 import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
 import it.unitn.disi.smatch.data.mappings.IContextMapping;
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
@@ -15,6 +17,9 @@ import java.util.*;
 /**
  * Contains routines used by other matchers. Needs SATSolver configuration parameter pointing to a class implementing
  * {@link it.unitn.disi.smatch.deciders.ISATSolver} to solve SAT problems.
+ * <p/>
+ * SAT problems are built from compiled c@node formulas in a reusable clause buffer, therefore an instance should not
+ * be shared between threads.
  *
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
@@ -25,6 +30,13 @@ public class BaseNodeMatcher extends Configurable {
     private static final String SAT_SOLVER_KEY = "SATSolver";
     protected ISATSolver satSolver = null;
 
+    // SAT problem of the current node matching task, reused between the tasks
+    protected final ClauseBuffer clauses = new ClauseBuffer();
+    // sourceVariables[i] is a DIMACS variable for the i-th source node matching task acol, same for target
+    protected int[] sourceVariables = new int[16];
+    protected int[] targetVariables = new int[16];
+    private final StringBuilder dimacs = new StringBuilder();
+
     @Override
     public boolean setProperties(Properties newProperties) throws ConfigurableException {
         Properties oldProperties = new Properties();
@@ -34,7 +46,7 @@ public class BaseNodeMatcher extends Configurable {
         if (result) {
             if (newProperties.containsKey(SAT_SOLVER_KEY)) {
                 satSolver = (ISATSolver) configureComponent(satSolver, oldProperties, newProperties, "SAT solver", SAT_SOLVER_KEY, ISATSolver.class);
-            } else {
+            } else if (isSATSolverRequired()) {
                 final String errMessage = "Cannot find configuration key " + SAT_SOLVER_KEY;
                 log.error(errMessage);
                 throw new ConfigurableException(errMessage);
@@ -43,6 +55,192 @@ public class BaseNodeMatcher extends Configurable {
         return result;
     }
 
+    /**
+     * Whether the matcher needs an external {@link it.unitn.disi.smatch.deciders.ISATSolver}. Matchers which talk to
+     * the SAT solver directly may override it and skip the SATSolver configuration parameter.
+     *
+     * @return true if the SATSolver configuration parameter is mandatory
+     */
+    protected boolean isSATSolverRequired() {
+        return true;
+    }
+
+    /**
+     * Checks whether both nodes have concept of label and concept at node formulas to reason about.
+     *
+     * @param sourceNode source node
+     * @param targetNode target node
+     * @return true if both nodes have formulas
+     */
+    protected static boolean hasFormulas(INode sourceNode, INode targetNode) {
+        return sourceNode.getNodeData().hasFormulas() && targetNode.getNodeData().hasFormulas();
+    }
+
+    /**
+     * Makes axioms for a CNF formula out of relations between atomic concepts. Clears the clause buffer, creates
+     * variables for the node matching task acols in sourceVariables and targetVariables and adds the axioms to the
+     * clause buffer.
+     *
+     * @param acolMapping mapping between atomic concepts
+     * @param nmtAcols    node -> list of node matching task acols
+     * @param sourceNode  source node
+     * @param targetNode  target node
+     */
+    protected void mkAxioms(IContextMapping<IAtomicConceptOfLabel> acolMapping,
+                            Map<INode, ArrayList<IAtomicConceptOfLabel>> nmtAcols,
+                            INode sourceNode, INode targetNode) {
+        ArrayList<IAtomicConceptOfLabel> sourceACols = getNMTACoLs(nmtAcols, sourceNode);
+        ArrayList<IAtomicConceptOfLabel> targetACols = getNMTACoLs(nmtAcols, targetNode);
+        createVariables(sourceACols, targetACols);
+
+        for (int i = 0; i < sourceACols.size(); i++) {
+            final IAtomicConceptOfLabel sourceACoL = sourceACols.get(i);
+            final int sourceVar = sourceVariables[i];
+            for (int j = 0; j < targetACols.size(); j++) {
+                char relation = acolMapping.getRelation(sourceACoL, targetACols.get(j));
+                if (IMappingElement.IDK != relation) {
+                    final int targetVar = targetVariables[j];
+                    if (IMappingElement.LESS_GENERAL == relation) {
+                        clauses.addBinaryClause(-sourceVar, targetVar);
+                    } else if (IMappingElement.MORE_GENERAL == relation) {
+                        clauses.addBinaryClause(sourceVar, -targetVar);
+                    } else if (IMappingElement.EQUIVALENCE == relation) {
+                        if (sourceVar != targetVar) {
+                            //add clauses for less and more generality
+                            clauses.addBinaryClause(-sourceVar, targetVar);
+                            clauses.addBinaryClause(sourceVar, -targetVar);
+                        }
+                    } else if (IMappingElement.DISJOINT == relation) {
+                        clauses.addBinaryClause(-sourceVar, -targetVar);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates DIMACS variables for all acols in the node matching task. Source acols get the first variables, target
+     * acols follow. When both nodes come from the same tree, their common ancestors' acols form a common tail of both
+     * lists and share the variables.
+     *
+     * @param sourceACols source node matching task acols
+     * @param targetACols target node matching task acols
+     */
+    private void createVariables(ArrayList<IAtomicConceptOfLabel> sourceACols, ArrayList<IAtomicConceptOfLabel> targetACols) {
+        final int sourceCount = sourceACols.size();
+        final int targetCount = targetACols.size();
+        int shared = 0;
+        while (shared < sourceCount && shared < targetCount
+                && sourceACols.get(sourceCount - shared - 1) == targetACols.get(targetCount - shared - 1)) {
+            shared++;
+        }
+
+        if (sourceVariables.length < sourceCount) {
+            sourceVariables = new int[Math.max(sourceCount, 2 * sourceVariables.length)];
+        }
+        if (targetVariables.length < targetCount) {
+            targetVariables = new int[Math.max(targetCount, 2 * targetVariables.length)];
+        }
+
+        clauses.clear();
+        clauses.newVariables(sourceCount + targetCount - shared);
+        for (int i = 0; i < sourceCount; i++) {
+            sourceVariables[i] = i + 1;
+        }
+        for (int j = 0; j < targetCount - shared; j++) {
+            targetVariables[j] = sourceCount + j + 1;
+        }
+        for (int j = targetCount - shared; j < targetCount; j++) {
+            targetVariables[j] = sourceCount - targetCount + j + 1;
+        }
+    }
+
+    /**
+     * Returns the node matching task acols, that is the acols of the node and its ancestors, caching them.
+     *
+     * @param nmtAcols node -> list of node matching task acols
+     * @param node     node
+     * @return node matching task acols
+     */
+    protected static ArrayList<IAtomicConceptOfLabel> getNMTACoLs(Map<INode, ArrayList<IAtomicConceptOfLabel>> nmtAcols, INode node) {
+        ArrayList<IAtomicConceptOfLabel> acols = nmtAcols.get(node);
+        if (null == acols) {
+            // create acols list and cache it
+
+            // count acols to allocate properly sized list
+            int acolCount = 0;
+            INode curNode = node;
+            while (null != curNode) {
+                acolCount = acolCount + curNode.getNodeData().getACoLCount();
+                curNode = curNode.getParent();
+            }
+
+            // collect acols
+            acols = new ArrayList<IAtomicConceptOfLabel>(acolCount);
+            curNode = node;
+            while (null != curNode) {
+                acols.addAll(curNode.getNodeData().getACoLsList());
+                curNode = curNode.getParent();
+            }
+            nmtAcols.put(node, acols);
+        }
+        return acols;
+    }
+
+    /**
+     * Returns the compiled c@node formula of the node. Literals of the formula refer to the node matching task acols.
+     *
+     * @param node node
+     * @return compiled c@node formula
+     * @throws NodeMatcherException NodeMatcherException
+     */
+    protected static CNFFormula getCNodeClauses(INode node) throws NodeMatcherException {
+        try {
+            return node.getNodeData().getcNodeClauses();
+        } catch (IllegalArgumentException e) {
+            final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error(errMessage, e);
+            throw new NodeMatcherException(errMessage, e);
+        }
+    }
+
+    /**
+     * Checks whether the problem in the clause buffer is unsatisfiable.
+     *
+     * @return true if the problem is unsatisfiable
+     * @throws NodeMatcherException NodeMatcherException
+     */
+    protected boolean isUnsatisfiable() throws NodeMatcherException {
+        dimacs.setLength(0);
+        clauses.appendDIMACS(dimacs);
+        try {
+            return !satSolver.isSatisfiable(dimacs.toString());
+        } catch (SATSolverException e) {
+            final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error(errMessage, e);
+            throw new NodeMatcherException(errMessage, e);
+        }
+    }
+
+    /**
+     * Checks whether the SAT problem in DIMACS format is unsatisfiable.
+     *
+     * @param satProblem SAT problem in DIMACS format
+     * @return true if the problem is unsatisfiable
+     * @throws NodeMatcherException NodeMatcherException
+     * @deprecated node matchers build problems in the clause buffer, use {@link #isUnsatisfiable()}
+     */
+    @Deprecated
+    protected boolean isUnsatisfiable(String satProblem) throws NodeMatcherException {
+        try {
+            return !satSolver.isSatisfiable(satProblem);
+        } catch (SATSolverException e) {
+            final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error(errMessage, e);
+            throw new NodeMatcherException(errMessage, e);
+        }
+    }
+
     /**
      * Makes axioms for a CNF formula out of relations between atomic concepts.
      *
@@ -54,7 +252,10 @@ public class BaseNodeMatcher extends Configurable {
      * @param sourceNode        source node
      * @param targetNode        target node
      * @return axiom string and axiom count
+     * @deprecated use {@link #mkAxioms(IContextMapping, Map, INode, INode)}, which builds the axioms in the clause
+     *             buffer
      */
+    @Deprecated
     protected static Object[] mkAxioms(HashMap<IAtomicConceptOfLabel, String> hashConceptNumber,
                                        Map<INode, ArrayList<IAtomicConceptOfLabel>> nmtAcols,
                                        Map<String, IAtomicConceptOfLabel> sourceACoLs,
@@ -122,32 +323,12 @@ public class BaseNodeMatcher extends Configurable {
                                         Map<INode, ArrayList<IAtomicConceptOfLabel>> nmtAcols,
                                         Map<String, IAtomicConceptOfLabel> acolsMap, INode node) {
         // creates DIMACS variables for all concepts in the node matching task
-        ArrayList<IAtomicConceptOfLabel> acols = nmtAcols.get(node);
-        if (null == acols) {
-            // create acols list and cache it
-
-            // count acols to allocate properly sized list
-            int acolCount = 0;
-            INode curNode = node;
-            while (null != curNode) {
-                acolCount = acolCount + curNode.getNodeData().getACoLCount();
-                curNode = curNode.getParent();
-            }
-
-            // collect acols
-            acols = new ArrayList<IAtomicConceptOfLabel>(acolCount);
-            curNode = node;
-            while (null != curNode) {
-                acols.addAll(curNode.getNodeData().getACoLsList());
-                curNode = curNode.getParent();
-            }
-            nmtAcols.put(node, acols);
-
+        final boolean cached = nmtAcols.containsKey(node);
+        ArrayList<IAtomicConceptOfLabel> acols = getNMTACoLs(nmtAcols, node);
+        if (!cached) {
             // cache also acol ids for node - for the nodes above it they should be cached already
-            if (node != null) {
-                for (IAtomicConceptOfLabel acol : node.getNodeData().getACoLsList()) {
-                    acolsMap.put(node.getNodeData().getId() + "." + Integer.toString(acol.getId()), acol);
-                }
+            for (IAtomicConceptOfLabel acol : node.getNodeData().getACoLsList()) {
+                acolsMap.put(node.getNodeData().getId() + "." + Integer.toString(acol.getId()), acol);
             }
         }
         for (IAtomicConceptOfLabel sourceACoL : acols) {
@@ -168,7 +349,9 @@ public class BaseNodeMatcher extends Configurable {
      * @param acolsMap          map with acol id -> acol mapping
      * @param node              node
      * @return formula with DIMACS variables
+     * @deprecated use the compiled formula, see {@link #getCNodeClauses(INode)}
      */
+    @Deprecated
     protected ArrayList<ArrayList<String>> parseFormula(HashMap<IAtomicConceptOfLabel, String> hashConceptNumber,
                                                         Map<String, IAtomicConceptOfLabel> acolsMap, INode node) {
         ArrayList<ArrayList<String>> representation = new ArrayList<ArrayList<String>>();
@@ -204,7 +387,9 @@ public class BaseNodeMatcher extends Configurable {
      *
      * @param formula parsed formula
      * @return formula in DIMACS format
+     * @deprecated the clause buffer writes DIMACS, see {@link ClauseBuffer#appendDIMACS(StringBuilder)}
      */
+    @Deprecated
     protected static String DIMACSfromList(ArrayList<ArrayList<String>> formula) {
         StringBuilder dimacs = new StringBuilder("");
         for (List<String> conjClause : formula) {
@@ -216,6 +401,16 @@ public class BaseNodeMatcher extends Configurable {
         return dimacs.toString();
     }
 
+    /**
+     * Negates a parsed formula, introducing a variable for each clause longer than one literal.
+     *
+     * @param hashConceptNumber HashMap acol -> variable number
+     * @param pivot             parsed formula
+     * @param result            list for the negated formula
+     * @return the number of variables, including the introduced ones
+     * @deprecated use {@link ClauseBuffer#addNegatedFormula(CNFFormula, int[], int)}
+     */
+    @Deprecated
     protected static int negateFormulaInList(HashMap<IAtomicConceptOfLabel, String> hashConceptNumber, ArrayList<ArrayList<String>> pivot, ArrayList<ArrayList<String>> result) {
         result.clear();
         ArrayList<String> firstClause = new ArrayList<String>();
@@ -247,14 +442,21 @@ public class BaseNodeMatcher extends Configurable {
         return numberOfVariables;
     }
 
-    protected boolean isUnsatisfiable(String satProblem) throws NodeMatcherException {
-        try {
-            return !satSolver.isSatisfiable(satProblem);
-        } catch (SATSolverException e) {
-            final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
-            log.error(errMessage, e);
-            throw new NodeMatcherException(errMessage, e);
+    /**
+     * Negates a DIMACS literal.
+     *
+     * @param strClause DIMACS literal
+     * @return negated literal
+     * @deprecated used by the deprecated string formula helpers only
+     */
+    @Deprecated
+    protected static String changeSign(String strClause) {
+        if ('-' == strClause.charAt(0)) {
+            strClause = strClause.substring(1);
+        } else {
+            strClause = "-" + strClause;
         }
+        return strClause;
     }
 
     protected static char getRelationString(boolean isContains, boolean isContained, boolean isOpposite) {
@@ -277,13 +479,4 @@ public class BaseNodeMatcher extends Configurable {
         }
         return IMappingElement.IDK;
     }
-
-    protected static String changeSign(String strClause) {
-        if ('-' == strClause.charAt(0)) {
-            strClause = strClause.substring(1);
-        } else {
-            strClause = "-" + strClause;
-        }
-        return strClause;
-    }
 }
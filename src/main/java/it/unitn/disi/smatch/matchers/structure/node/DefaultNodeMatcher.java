@@ -1,12 +1,12 @@
 package it.unitn.disi.smatch.matchers.structure.node;
 
+import it.unitn.disi.smatch.data.formulas.CNFFormula;
 import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
 import it.unitn.disi.smatch.data.trees.INode;
 import it.unitn.disi.smatch.data.mappings.IContextMapping;
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -23,77 +23,37 @@ public class DefaultNodeMatcher extends BaseNodeMatcher implements INodeMatcher
                           Map<String, IAtomicConceptOfLabel> targetACoLs,
                           INode sourceNode, INode targetNode) throws NodeMatcherException {
         char result = IMappingElement.IDK;
-        String sourceCNodeFormula = sourceNode.getNodeData().getcNodeFormula();
-        String targetCNodeFormula = targetNode.getNodeData().getcNodeFormula();
-        String sourceCLabFormula = sourceNode.getNodeData().getcLabFormula();
-        String targetCLabFormula = targetNode.getNodeData().getcLabFormula();
-
-        if (null != sourceCNodeFormula && null != targetCNodeFormula && !sourceCNodeFormula.isEmpty() && !targetCNodeFormula.isEmpty() &&
-                null != sourceCLabFormula && null != targetCLabFormula && !sourceCLabFormula.isEmpty() && !targetCLabFormula.isEmpty()
-                ) {
+        if (hasFormulas(sourceNode, targetNode)) {
             //whether particular relation holds
             boolean isContains;
             boolean isContained;
             boolean isOpposite;
 
-            // ACoLs -> its DIMACS variable number
-            HashMap<IAtomicConceptOfLabel, String> hashConceptNumber = new HashMap<IAtomicConceptOfLabel, String>();
-            // number of variables in SAT problem
-            Integer numberOfVariables;
-            // number of clauses in SAT problem
-            Integer numberOfClauses;
-
-            Object[] obj = mkAxioms(hashConceptNumber, nmtAcols, sourceACoLs, targetACoLs, acolMapping, sourceNode, targetNode);
-            String axioms = (String) obj[0];
-            int num_of_axiom_clauses = (Integer) obj[1];
-            // parse formulas with acols into formulas with DIMACS variables
-            ArrayList<ArrayList<String>> contextA = parseFormula(hashConceptNumber, sourceACoLs, sourceNode);
-            ArrayList<ArrayList<String>> contextB = parseFormula(hashConceptNumber, targetACoLs, targetNode);
-            // create contexts in DIMACS format
-            String contextAInDIMACSFormat = DIMACSfromList(contextA);
-            String contextBInDIMACSFormat = DIMACSfromList(contextB);
+            // compiled formulas with references to the node matching task acols
+            CNFFormula contextA = getCNodeClauses(sourceNode);
+            CNFFormula contextB = getCNodeClauses(targetNode);
 
-            // negated formula
-            ArrayList<ArrayList<String>> negatedContext = new ArrayList<ArrayList<String>>();
-            // sat problem in DIMACS format
-            String satProblemInDIMACS;
-            // sat problem with DIMACS header
-            String DIMACSproblem;
+            // create DIMACS variables for acols and axioms, which are shared by all tests
+            mkAxioms(acolMapping, nmtAcols, sourceNode, targetNode);
+            final int numberOfAxiomClauses = clauses.getClauseCount();
+            final int numberOfVariables = clauses.getVariableCount();
 
             // LG test
-            // negate the context
-            numberOfVariables = negateFormulaInList(hashConceptNumber, contextB, negatedContext);
-            // get the sat problem in DIMACS format
-            satProblemInDIMACS = axioms + contextAInDIMACSFormat + DIMACSfromList(negatedContext);
-            // get number of clauses for SAT problem
-            numberOfClauses = num_of_axiom_clauses + contextA.size() + negatedContext.size();
-            // add DIMACS header
-            DIMACSproblem = "p cnf " + numberOfVariables + " " + numberOfClauses + "\n" + satProblemInDIMACS;
-            // do LG test
-            isContained = isUnsatisfiable(DIMACSproblem);
+            clauses.addFormula(contextA, sourceVariables, 0);
+            clauses.addNegatedFormula(contextB, targetVariables, 0);
+            isContained = isUnsatisfiable();
 
             // MG test
-            // negate the context
-            numberOfVariables = negateFormulaInList(hashConceptNumber, contextA, negatedContext);
-            // get the sat problem in DIMACS format
-            satProblemInDIMACS = axioms + contextBInDIMACSFormat + DIMACSfromList(negatedContext);
-            // get number of clauses for SAT problem
-            numberOfClauses = num_of_axiom_clauses + contextB.size() + negatedContext.size();
-            // add DIMACS header
-            DIMACSproblem = "p cnf " + numberOfVariables + " " + numberOfClauses + "\n" + satProblemInDIMACS;
-            // do MG test
-            isContains = isUnsatisfiable(DIMACSproblem);
+            clauses.truncate(numberOfAxiomClauses, numberOfVariables);
+            clauses.addFormula(contextB, targetVariables, 0);
+            clauses.addNegatedFormula(contextA, sourceVariables, 0);
+            isContains = isUnsatisfiable();
 
             // DJ test
-            // get the sat problem in DIMACS format
-            satProblemInDIMACS = axioms + contextBInDIMACSFormat + contextAInDIMACSFormat;
-            // get number of clauses for SAT problem
-            numberOfClauses = contextA.size() + contextB.size() + num_of_axiom_clauses;
-            numberOfVariables = hashConceptNumber.size();
-            // add DIMACS header
-            DIMACSproblem = "p cnf " + numberOfVariables + " " + numberOfClauses + "\n" + satProblemInDIMACS;
-            // do disjointness test
-            isOpposite = isUnsatisfiable(DIMACSproblem);
+            clauses.truncate(numberOfAxiomClauses, numberOfVariables);
+            clauses.addFormula(contextB, targetVariables, 0);
+            clauses.addFormula(contextA, sourceVariables, 0);
+            isOpposite = isUnsatisfiable();
 
             result = getRelationString(isContains, isContained, isOpposite);
         }
@@ -21,8 +21,9 @@ public interface INodeMatcher extends IConfigurable {
      *
      * @param acolMapping a mapping between atomic concepts of labels
      * @param nmtAcols    node -> list of node matching task acols
-     * @param sourceACoLs mapping acol id -> acol object
-     * @param targetACoLs mapping acol id -> acol object
+     * @param sourceACoLs unused, kept for compatibility: compiled formulas do not need acol id lookup, so the map is
+     *                    no longer filled and may be empty or null
+     * @param targetACoLs unused, kept for compatibility, see sourceACoLs
      * @param sourceNode  source node
      * @param targetNode  target node
      * @return relation between source and target nodes
@@ -0,0 +1,118 @@
+package it.unitn.disi.smatch.matchers.structure.node;
+
+import it.unitn.disi.smatch.data.formulas.CNFFormula;
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.mappings.IContextMapping;
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.data.trees.INode;
+import org.apache.log4j.Logger;
+import org.sat4j.core.VecInt;
+import org.sat4j.minisat.SolverFactory;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.IVecInt;
+import org.sat4j.specs.TimeoutException;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * Node matcher which answers all three tests of a {@link DefaultNodeMatcher} with a single SAT4J solver instance per
+ * node matching task. Axioms, both c@node formulas and their negations are loaded once from the clause buffer, guarded
+ * by selector variables, and LG, MG and DJ tests are run incrementally under assumptions, avoiding DIMACS text round
+ * trips.
+ * <p/>
+ * Does not need the SATSolver configuration parameter. An instance is not thread-safe.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class IncrementalNodeMatcher extends BaseNodeMatcher implements INodeMatcher {
+
+    private static final Logger log = Logger.getLogger(IncrementalNodeMatcher.class);
+
+    private final ISolver solver;
+
+    private final IVecInt clause = new VecInt();
+    private final IVecInt assumptions = new VecInt(2);
+
+    public IncrementalNodeMatcher() {
+        solver = SolverFactory.newLight();
+        solver.setTimeout(3600); // 1 hour timeout
+    }
+
+    @Override
+    protected boolean isSATSolverRequired() {
+        return false;
+    }
+
+    public char nodeMatch(IContextMapping<IAtomicConceptOfLabel> acolMapping,
+                          Map<INode, ArrayList<IAtomicConceptOfLabel>> nmtAcols,
+                          Map<String, IAtomicConceptOfLabel> sourceACoLs,
+                          Map<String, IAtomicConceptOfLabel> targetACoLs,
+                          INode sourceNode, INode targetNode) throws NodeMatcherException {
+        char result = IMappingElement.IDK;
+        if (hasFormulas(sourceNode, targetNode)) {
+            CNFFormula contextA = getCNodeClauses(sourceNode);
+            CNFFormula contextB = getCNodeClauses(targetNode);
+            mkAxioms(acolMapping, nmtAcols, sourceNode, targetNode);
+
+            // selectors for A, B, not A and not B
+            final int selectorA = clauses.newVariables(4);
+            final int selectorB = selectorA + 1;
+            final int selectorNotA = selectorA + 2;
+            final int selectorNotB = selectorA + 3;
+            clauses.addFormula(contextA, sourceVariables, selectorA);
+            clauses.addFormula(contextB, targetVariables, selectorB);
+            clauses.addNegatedFormula(contextA, sourceVariables, selectorNotA);
+            clauses.addNegatedFormula(contextB, targetVariables, selectorNotB);
+
+            boolean isContains;
+            boolean isContained;
+            boolean isOpposite;
+            try {
+                loadClauses();
+
+                // LG test: A & ~B
+                isContained = isUnsatisfiable(selectorA, selectorNotB);
+                // MG test: B & ~A
+                isContains = isUnsatisfiable(selectorB, selectorNotA);
+                // DJ test: A & B
+                isOpposite = isUnsatisfiable(selectorA, selectorB);
+            } catch (ContradictionException e) {
+                // axioms alone are contradictory, all tests are unsatisfiable
+                isContained = true;
+                isContains = true;
+                isOpposite = true;
+            }
+
+            result = getRelationString(isContains, isContained, isOpposite);
+        }
+        return result;
+    }
+
+    private void loadClauses() throws ContradictionException {
+        solver.reset();
+        solver.newVar(clauses.getVariableCount());
+        solver.setExpectedNumberOfClauses(clauses.getClauseCount());
+        for (int i = 0; i < clauses.getClauseCount(); i++) {
+            clause.clear();
+            for (int j = clauses.getClauseStart(i); j < clauses.getClauseEnd(i); j++) {
+                clause.push(clauses.getLiteral(j));
+            }
+            solver.addClause(clause);
+        }
+    }
+
+    private boolean isUnsatisfiable(int selector1, int selector2) throws NodeMatcherException {
+        assumptions.clear();
+        assumptions.push(selector1);
+        assumptions.push(selector2);
+        try {
+            return !solver.isSatisfiable(assumptions);
+        } catch (TimeoutException e) {
+            final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error(errMessage, e);
+            throw new NodeMatcherException(errMessage, e);
+        }
+    }
+}
@@ -1,11 +1,11 @@
 package it.unitn.disi.smatch.matchers.structure.node;
 
+import it.unitn.disi.smatch.data.formulas.CNFFormula;
 import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
 import it.unitn.disi.smatch.data.mappings.IContextMapping;
 import it.unitn.disi.smatch.data.trees.INode;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -21,8 +21,9 @@ public class OptimizedStageNodeMatcher extends BaseNodeMatcher implements INodeM
      *
      * @param acolMapping mapping between acols
      * @param nmtAcols    node -> list of node matching task acols
-     * @param sourceACoLs mapping acol id -> acol object
-     * @param targetACoLs mapping acol id -> acol object
+     * @param sourceACoLs unused, kept for compatibility: compiled formulas do not need acol id lookup, so the map is
+     *                    no longer filled and may be empty or null
+     * @param targetACoLs unused, kept for compatibility, see sourceACoLs
      * @param sourceNode  interface of source node
      * @param targetNode  interface of target node
      * @return true if the nodes are in disjoint relation
@@ -33,30 +34,15 @@ public class OptimizedStageNodeMatcher extends BaseNodeMatcher implements INodeM
                                 Map<String, IAtomicConceptOfLabel> sourceACoLs, Map<String, IAtomicConceptOfLabel> targetACoLs,
                                 INode sourceNode, INode targetNode) throws NodeMatcherException {
         boolean result = false;
-        String sourceCNodeFormula = sourceNode.getNodeData().getcNodeFormula();
-        String targetCNodeFormula = targetNode.getNodeData().getcNodeFormula();
-        String sourceCLabFormula = sourceNode.getNodeData().getcLabFormula();
-        String targetCLabFormula = targetNode.getNodeData().getcLabFormula();
+        if (hasFormulas(sourceNode, targetNode)) {
+            CNFFormula contextA = getCNodeClauses(sourceNode);
+            CNFFormula contextB = getCNodeClauses(targetNode);
+            mkAxioms(acolMapping, nmtAcols, sourceNode, targetNode);
 
-        if (null != sourceCNodeFormula && null != targetCNodeFormula && !sourceCNodeFormula.isEmpty() && !targetCNodeFormula.isEmpty() &&
-                null != sourceCLabFormula && null != targetCLabFormula && !sourceCLabFormula.isEmpty() && !targetCLabFormula.isEmpty()
-                ) {
-            HashMap<IAtomicConceptOfLabel, String> hashConceptNumber = new HashMap<IAtomicConceptOfLabel, String>();
-            Object[] obj = mkAxioms(hashConceptNumber, nmtAcols, sourceACoLs, targetACoLs, acolMapping, sourceNode, targetNode);
-            String axioms = (String) obj[0];
-            int num_of_axiom_clauses = (Integer) obj[1];
+            clauses.addFormula(contextB, targetVariables, 0);
+            clauses.addFormula(contextA, sourceVariables, 0);
 
-            ArrayList<ArrayList<String>> contextA = parseFormula(hashConceptNumber, sourceACoLs, sourceNode);
-            ArrayList<ArrayList<String>> contextB = parseFormula(hashConceptNumber, targetACoLs, targetNode);
-            String contextAInDIMACSFormat = DIMACSfromList(contextA);
-            String contextBInDIMACSFormat = DIMACSfromList(contextB);
-
-            String satProblemInDIMACS = axioms + contextBInDIMACSFormat + contextAInDIMACSFormat;
-            int numberOfClauses = contextA.size() + contextB.size() + num_of_axiom_clauses;
-            int numberOfVariables = hashConceptNumber.size();
-            String DIMACSproblem = "p cnf " + numberOfVariables + " " + numberOfClauses + "\n" + satProblemInDIMACS;
-
-            result = isUnsatisfiable(DIMACSproblem);
+            result = isUnsatisfiable();
         }
         return result;
     }
@@ -66,8 +52,9 @@ public class OptimizedStageNodeMatcher extends BaseNodeMatcher implements INodeM
      *
      * @param acolMapping mapping between acols
      * @param nmtAcols    node -> list of node matching task acols
-     * @param sourceACoLs mapping acol id -> acol object
-     * @param targetACoLs mapping acol id -> acol object
+     * @param sourceACoLs unused, kept for compatibility: compiled formulas do not need acol id lookup, so the map is
+     *                    no longer filled and may be empty or null
+     * @param targetACoLs unused, kept for compatibility, see sourceACoLs
      * @param sourceNode  interface of source node
      * @param targetNode  interface of target node
      * @return true if the nodes are in subsumption relation
@@ -78,51 +65,28 @@ public class OptimizedStageNodeMatcher extends BaseNodeMatcher implements INodeM
                                   Map<String, IAtomicConceptOfLabel> sourceACoLs, Map<String, IAtomicConceptOfLabel> targetACoLs,
                                   INode sourceNode, INode targetNode) throws NodeMatcherException {
         boolean result = false;
-        String sourceCNodeFormula = sourceNode.getNodeData().getcNodeFormula();
-        String targetCNodeFormula = targetNode.getNodeData().getcNodeFormula();
-        String sourceCLabFormula = sourceNode.getNodeData().getcLabFormula();
-        String targetCLabFormula = targetNode.getNodeData().getcLabFormula();
-
-        if (null != sourceCNodeFormula && null != targetCNodeFormula && !sourceCNodeFormula.isEmpty() && !targetCNodeFormula.isEmpty() &&
-                null != sourceCLabFormula && null != targetCLabFormula && !sourceCLabFormula.isEmpty() && !targetCLabFormula.isEmpty()
-                ) {
+        if (hasFormulas(sourceNode, targetNode)) {
             if (sourceNode.getNodeData().getSource()) {
-                HashMap<IAtomicConceptOfLabel, String> hashConceptNumber = new HashMap<IAtomicConceptOfLabel, String>();
-                Object[] obj = mkAxioms(hashConceptNumber, nmtAcols, sourceACoLs, targetACoLs, acolMapping, sourceNode, targetNode);
-                String axioms = (String) obj[0];
-                int num_of_axiom_clauses = (Integer) obj[1];
+                CNFFormula contextA = getCNodeClauses(sourceNode);
+                CNFFormula contextB = getCNodeClauses(targetNode);
+                mkAxioms(acolMapping, nmtAcols, sourceNode, targetNode);
 
-                ArrayList<ArrayList<String>> contextA = parseFormula(hashConceptNumber, sourceACoLs, sourceNode);
-                ArrayList<ArrayList<String>> contextB = parseFormula(hashConceptNumber, targetACoLs, targetNode);
-                String contextAInDIMACSFormat = DIMACSfromList(contextA);
-
-                ArrayList<ArrayList<String>> negatedContext = new ArrayList<ArrayList<String>>();
                 //LG test
-                Integer numberOfVariables = negateFormulaInList(hashConceptNumber, contextB, negatedContext);
-                String satProblemInDIMACS = axioms + contextAInDIMACSFormat + DIMACSfromList(negatedContext);
-                Integer numberOfClauses = num_of_axiom_clauses + contextA.size() + negatedContext.size();
-                String DIMACSproblem = "p cnf " + numberOfVariables + " " + numberOfClauses + "\n" + satProblemInDIMACS;
+                clauses.addFormula(contextA, sourceVariables, 0);
+                clauses.addNegatedFormula(contextB, targetVariables, 0);
 
-                result = isUnsatisfiable(DIMACSproblem);
+                result = isUnsatisfiable();
             } else {
                 //swap source, target and relation
-                HashMap<IAtomicConceptOfLabel, String> hashConceptNumber = new HashMap<IAtomicConceptOfLabel, String>();
-                Object[] obj = mkAxioms(hashConceptNumber, nmtAcols, targetACoLs, sourceACoLs, acolMapping, targetNode, sourceNode);
-                String axioms = (String) obj[0];
-                int num_of_axiom_clauses = (Integer) obj[1];
-
-                ArrayList<ArrayList<String>> contextA = parseFormula(hashConceptNumber, sourceACoLs, targetNode);
-                ArrayList<ArrayList<String>> contextB = parseFormula(hashConceptNumber, targetACoLs, sourceNode);
-                String contextBInDIMACSFormat = DIMACSfromList(contextB);
+                CNFFormula contextA = getCNodeClauses(targetNode);
+                CNFFormula contextB = getCNodeClauses(sourceNode);
+                mkAxioms(acolMapping, nmtAcols, targetNode, sourceNode);
 
-                ArrayList<ArrayList<String>> negatedContext = new ArrayList<ArrayList<String>>();
                 //MG test
-                Integer numberOfVariables = negateFormulaInList(hashConceptNumber, contextA, negatedContext);
-                String satProblemInDIMACS = axioms + contextBInDIMACSFormat + DIMACSfromList(negatedContext);
-                Integer numberOfClauses = num_of_axiom_clauses + contextB.size() + negatedContext.size();
-                String DIMACSproblem = "p cnf " + numberOfVariables + " " + numberOfClauses + "\n" + satProblemInDIMACS;
+                clauses.addFormula(contextB, targetVariables, 0);
+                clauses.addNegatedFormula(contextA, sourceVariables, 0);
 
-                result = isUnsatisfiable(DIMACSproblem);
+                result = isUnsatisfiable();
             }
         }
         return result;
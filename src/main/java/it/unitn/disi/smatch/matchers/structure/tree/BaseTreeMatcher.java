@@ -2,11 +2,25 @@ package it.unitn.disi.smatch.matchers.structure.tree;
 
 import it.unitn.disi.common.components.Configurable;
 import it.unitn.disi.common.components.ConfigurableException;
+import it.unitn.disi.smatch.SMatchConstants;
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.mappings.IContextMapping;
 import it.unitn.disi.smatch.data.mappings.IMappingFactory;
+import it.unitn.disi.smatch.data.trees.IContext;
+import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.data.trees.TreeIndex;
 import it.unitn.disi.smatch.matchers.structure.node.INodeMatcher;
+import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 /**
  * Base class for tree matchers. Needs the following configuration parameters"
@@ -29,6 +43,12 @@ public class BaseTreeMatcher extends Configurable {
     private static final String MAPPING_FACTORY_KEY = "mappingFactory";
     protected IMappingFactory mappingFactory = null;
 
+    // source context matched with several targets and node matching task acols of its nodes, valid while the tree
+    // index of the source is the same, that is while the tree structure does not change
+    private IContext sourceContext = null;
+    private Map<INode, ArrayList<IAtomicConceptOfLabel>> sourceNMTAcols = null;
+    private TreeIndex<INode> sourceIndex = null;
+
     @Override
     public boolean setProperties(Properties newProperties) throws ConfigurableException {
         Properties oldProperties = new Properties();
@@ -54,4 +74,141 @@ public class BaseTreeMatcher extends Configurable {
         }
         return result;
     }
+
+    /**
+     * Matches all nodes of the source context with all nodes of the target context.
+     *
+     * @param sourceContext source context
+     * @param targetContext target context
+     * @param acolMapping   mapping between context ACoLs
+     * @return a mapping between context nodes
+     * @throws TreeMatcherException TreeMatcherException
+     */
+    protected IContextMapping<INode> matchAll(IContext sourceContext, IContext targetContext, IContextMapping<IAtomicConceptOfLabel> acolMapping) throws TreeMatcherException {
+        IContextMapping<INode> mapping = mappingFactory.getContextMappingInstance(sourceContext, targetContext);
+
+        // semantic relation for particular node matching task
+        char relation;
+
+        long counter = 0;
+        long total = (long) sourceContext.getNodesList().size() * (long) targetContext.getNodesList().size();
+        long reportInt = (total / 20) + 1;//i.e. report every 5%
+
+        Map<String, IAtomicConceptOfLabel> sourceAcols = new HashMap<String, IAtomicConceptOfLabel>();
+        Map<String, IAtomicConceptOfLabel> targetAcols = new HashMap<String, IAtomicConceptOfLabel>();
+
+        Map<INode, ArrayList<IAtomicConceptOfLabel>> nmtAcols = initNMTAcols(sourceContext, new HashMap<INode, ArrayList<IAtomicConceptOfLabel>>());
+
+        for (INode sourceNode : sourceContext.getNodesList()) {
+            for (INode targetNode : targetContext.getNodesList()) {
+                relation = nodeMatcher.nodeMatch(acolMapping, nmtAcols, sourceAcols, targetAcols, sourceNode, targetNode);
+                mapping.setRelation(sourceNode, targetNode, relation);
+
+                counter++;
+                if ((SMatchConstants.LARGE_TASK < total) && (0 == (counter % reportInt)) && log.isEnabledFor(Level.INFO)) {
+                    log.info(100 * counter / total + "%");
+                }
+            }
+        }
+        keepNMTAcols(sourceContext, nmtAcols);
+
+        return mapping;
+    }
+
+    /**
+     * Matches each of the source nodes with all target nodes and all source nodes with each of the target nodes and
+     * sets the relations in the mapping, for tree matchers implementing {@link IIncrementalTreeMatcher}.
+     *
+     * @param mapping     mapping between the nodes of the contexts
+     * @param acolMapping mapping between context ACoLs, with the relations needed for the node pairs
+     * @param sourceNodes source nodes
+     * @param targetNodes target nodes
+     * @throws TreeMatcherException TreeMatcherException
+     */
+    protected void matchNodes(IContextMapping<INode> mapping, IContextMapping<IAtomicConceptOfLabel> acolMapping,
+                              List<INode> sourceNodes, List<INode> targetNodes) throws TreeMatcherException {
+        final Map<String, IAtomicConceptOfLabel> sourceAcols = new HashMap<String, IAtomicConceptOfLabel>();
+        final Map<String, IAtomicConceptOfLabel> targetAcols = new HashMap<String, IAtomicConceptOfLabel>();
+        final Map<INode, ArrayList<IAtomicConceptOfLabel>> nmtAcols = new HashMap<INode, ArrayList<IAtomicConceptOfLabel>>();
+
+        final Set<INode> rows = Collections.newSetFromMap(new IdentityHashMap<INode, Boolean>());
+        rows.addAll(sourceNodes);
+        for (INode sourceNode : sourceNodes) {
+            for (INode targetNode : mapping.getTargetContext().getNodesList()) {
+                mapping.setRelation(sourceNode, targetNode, nodeMatcher.nodeMatch(acolMapping, nmtAcols, sourceAcols, targetAcols, sourceNode, targetNode));
+            }
+        }
+        for (INode sourceNode : mapping.getSourceContext().getNodesList()) {
+            if (!rows.contains(sourceNode)) {
+                for (INode targetNode : targetNodes) {
+                    mapping.setRelation(sourceNode, targetNode, nodeMatcher.nodeMatch(acolMapping, nmtAcols, sourceAcols, targetAcols, sourceNode, targetNode));
+                }
+            }
+        }
+    }
+
+    public void setSourceContext(IContext sourceContext) {
+        this.sourceContext = sourceContext;
+        sourceNMTAcols = null;
+        sourceIndex = null;
+    }
+
+    /**
+     * Fills the map of node matching task acols with the acols of the source nodes kept from the previous run with
+     * the same source context, if any. The kept acols are dropped if the tree structure of the source changed.
+     *
+     * @param sourceContext source context
+     * @param nmtAcols      empty map of node matching task acols
+     * @return the map
+     */
+    protected Map<INode, ArrayList<IAtomicConceptOfLabel>> initNMTAcols(IContext sourceContext, Map<INode, ArrayList<IAtomicConceptOfLabel>> nmtAcols) {
+        if (null != sourceNMTAcols && this.sourceContext == sourceContext) {
+            if (sourceIndex == sourceContext.getTreeIndex()) {
+                nmtAcols.putAll(sourceNMTAcols);
+            } else {
+                sourceNMTAcols = null;
+                sourceIndex = null;
+            }
+        }
+        return nmtAcols;
+    }
+
+    /**
+     * Keeps the acols of the source nodes for the next run, if the source context is set.
+     *
+     * @param sourceContext source context
+     * @param nmtAcols      map of node matching task acols after the run
+     */
+    protected void keepNMTAcols(IContext sourceContext, Map<INode, ArrayList<IAtomicConceptOfLabel>> nmtAcols) {
+        if (this.sourceContext == sourceContext && null != sourceContext) {
+            final List<INode> nodes = sourceContext.getNodesList();
+            final Map<INode, ArrayList<IAtomicConceptOfLabel>> result = new HashMap<INode, ArrayList<IAtomicConceptOfLabel>>(nodes.size() * 4 / 3 + 1);
+            for (INode node : nodes) {
+                final ArrayList<IAtomicConceptOfLabel> acols = nmtAcols.get(node);
+                if (null != acols) {
+                    result.put(node, acols);
+                }
+            }
+            sourceNMTAcols = result;
+            sourceIndex = sourceContext.getTreeIndex();
+        }
+    }
+
+    /**
+     * Creates a new node matcher configured in the same way as the node matcher of this tree matcher. Node matchers
+     * are not thread-safe, therefore each thread matching nodes needs its own instance. A global node matcher can not
+     * be copied.
+     *
+     * @return a new node matcher instance
+     * @throws ConfigurableException ConfigurableException
+     */
+    protected INodeMatcher createNodeMatcher() throws ConfigurableException {
+        final String className = properties.getProperty(NODE_MATCHER_KEY);
+        if (null == className || className.startsWith(GLOBAL_PREFIX) || properties.containsKey(GLOBAL_PREFIX + NODE_MATCHER_KEY)) {
+            final String errMessage = "Cannot create a copy of the node matcher: " + className;
+            log.error(errMessage);
+            throw new ConfigurableException(errMessage);
+        }
+        return (INodeMatcher) configureComponent(null, new Properties(), properties, "node matcher", NODE_MATCHER_KEY, INodeMatcher.class);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package it.unitn.disi.smatch.matchers.structure.tree;
+
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.mappings.IContextMapping;
+import it.unitn.disi.smatch.data.trees.INode;
+
+import java.util.List;
+
+/**
+ * An interface to tree matchers which can match some nodes again and update a part of a mapping, for example after
+ * the nodes changed. Tree matchers which compute the mapping as a whole, like those filtering it, can not.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public interface IIncrementalTreeMatcher {
+
+    /**
+     * Matches each of the source nodes with all target nodes and all source nodes with each of the target nodes, for
+     * example after the nodes changed, and sets the relations in the mapping. Other relations in the mapping stay as
+     * they are.
+     *
+     * @param mapping     mapping between the nodes of the contexts
+     * @param acolMapping mapping between context ACoLs, with the relations needed for the node pairs
+     * @param sourceNodes source nodes
+     * @param targetNodes target nodes
+     * @throws TreeMatcherException TreeMatcherException
+     */
+    void treeMatch(IContextMapping<INode> mapping, IContextMapping<IAtomicConceptOfLabel> acolMapping,
+                   List<INode> sourceNodes, List<INode> targetNodes) throws TreeMatcherException;
+}
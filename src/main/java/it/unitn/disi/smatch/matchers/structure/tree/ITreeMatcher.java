@@ -24,4 +24,15 @@ public interface ITreeMatcher extends IConfigurable {
      * @throws TreeMatcherException TreeMatcherException
      */
     IContextMapping<INode> treeMatch(IContext sourceContext, IContext targetContext, IContextMapping<IAtomicConceptOfLabel> acolMapping) throws TreeMatcherException;
+
+    /**
+     * Sets the source context which is going to be matched with several targets. The matcher may keep the data it
+     * computes for the source nodes between the runs with this source context. The kept data is dropped when the tree
+     * structure of the source changes; after other changes of the source, such as new atomic concepts, the source
+     * context should be set again. By default the matcher keeps nothing.
+     *
+     * @param sourceContext source context or null to forget the kept data
+     */
+    default void setSourceContext(IContext sourceContext) {
+    }
 }
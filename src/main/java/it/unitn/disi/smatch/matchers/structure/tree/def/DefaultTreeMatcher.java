@@ -1,19 +1,15 @@
 package it.unitn.disi.smatch.matchers.structure.tree.def;
 
-import it.unitn.disi.smatch.SMatchConstants;
 import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
 import it.unitn.disi.smatch.data.mappings.IContextMapping;
 import it.unitn.disi.smatch.data.trees.IContext;
 import it.unitn.disi.smatch.data.trees.INode;
 import it.unitn.disi.smatch.matchers.structure.tree.BaseTreeMatcher;
+import it.unitn.disi.smatch.matchers.structure.tree.IIncrementalTreeMatcher;
 import it.unitn.disi.smatch.matchers.structure.tree.ITreeMatcher;
 import it.unitn.disi.smatch.matchers.structure.tree.TreeMatcherException;
-import org.apache.log4j.Level;
-import org.apache.log4j.Logger;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 
 /**
  * Matches all nodes of the source context with all nodes of the target context.
@@ -21,37 +17,14 @@ import java.util.Map;
  * @author Mikalai Yatskevich mikalai.yatskevich@comlab.ox.ac.uk
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
-public class DefaultTreeMatcher extends BaseTreeMatcher implements ITreeMatcher {
-
-    private static final Logger log = Logger.getLogger(DefaultTreeMatcher.class);
+public class DefaultTreeMatcher extends BaseTreeMatcher implements ITreeMatcher, IIncrementalTreeMatcher {
 
     public IContextMapping<INode> treeMatch(IContext sourceContext, IContext targetContext, IContextMapping<IAtomicConceptOfLabel> acolMapping) throws TreeMatcherException {
-        IContextMapping<INode> mapping = mappingFactory.getContextMappingInstance(sourceContext, targetContext);
-
-        // semantic relation for particular node matching task
-        char relation;
-
-        long counter = 0;
-        long total = (long) sourceContext.getNodesList().size() * (long) targetContext.getNodesList().size();
-        long reportInt = (total / 20) + 1;//i.e. report every 5%
-
-        Map<String, IAtomicConceptOfLabel> sourceAcols = new HashMap<String, IAtomicConceptOfLabel>();
-        Map<String, IAtomicConceptOfLabel> targetAcols = new HashMap<String, IAtomicConceptOfLabel>();
-
-        Map<INode, ArrayList<IAtomicConceptOfLabel>> nmtAcols = new HashMap<INode, ArrayList<IAtomicConceptOfLabel>>();
-
-        for (INode sourceNode : sourceContext.getNodesList()) {
-            for (INode targetNode : targetContext.getNodesList()) {
-                relation = nodeMatcher.nodeMatch(acolMapping, nmtAcols, sourceAcols, targetAcols, sourceNode, targetNode);
-                mapping.setRelation(sourceNode, targetNode, relation);
-
-                counter++;
-                if ((SMatchConstants.LARGE_TASK < total) && (0 == (counter % reportInt)) && log.isEnabledFor(Level.INFO)) {
-                    log.info(100 * counter / total + "%");
-                }
-            }
-        }
+        return matchAll(sourceContext, targetContext, acolMapping);
+    }
 
-        return mapping;
+    public void treeMatch(IContextMapping<INode> mapping, IContextMapping<IAtomicConceptOfLabel> acolMapping,
+                          List<INode> sourceNodes, List<INode> targetNodes) throws TreeMatcherException {
+        matchNodes(mapping, acolMapping, sourceNodes, targetNodes);
     }
 }
\ No newline at end of file
@@ -37,7 +37,7 @@ public class DefaultTreeMatcherIt extends DefaultTreeMatcher {
         Map<String, IAtomicConceptOfLabel> sourceAcols = new HashMap<String, IAtomicConceptOfLabel>();
         Map<String, IAtomicConceptOfLabel> targetAcols = new HashMap<String, IAtomicConceptOfLabel>();
 
-        Map<INode, ArrayList<IAtomicConceptOfLabel>> nmtAcols = new HashMap<INode, ArrayList<IAtomicConceptOfLabel>>();
+        Map<INode, ArrayList<IAtomicConceptOfLabel>> nmtAcols = initNMTAcols(sourceContext, new HashMap<INode, ArrayList<IAtomicConceptOfLabel>>());
 
         for (Iterator<INode> i = sourceContext.getNodes(); i.hasNext();) {
             INode sourceNode = i.next();
@@ -52,6 +52,7 @@ public class DefaultTreeMatcherIt extends DefaultTreeMatcher {
                 }
             }
         }
+        keepNMTAcols(sourceContext, nmtAcols);
 
         return mapping;
     }
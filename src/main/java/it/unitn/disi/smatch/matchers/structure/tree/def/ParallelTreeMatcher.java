@@ -0,0 +1,172 @@
+package it.unitn.disi.smatch.matchers.structure.tree.def;
+
+import it.unitn.disi.common.components.ConfigurableException;
+import it.unitn.disi.common.utils.RangeExecutor;
+import it.unitn.disi.smatch.SMatchConstants;
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.mappings.IContextMapping;
+import it.unitn.disi.smatch.data.mappings.MatrixMapping;
+import it.unitn.disi.smatch.data.trees.IContext;
+import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.matchers.structure.node.INodeMatcher;
+import it.unitn.disi.smatch.matchers.structure.tree.BaseTreeMatcher;
+import it.unitn.disi.smatch.matchers.structure.tree.IIncrementalTreeMatcher;
+import it.unitn.disi.smatch.matchers.structure.tree.ITreeMatcher;
+import it.unitn.disi.smatch.matchers.structure.tree.TreeMatcherException;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Matches all nodes of the source context with all nodes of the target context, as
+ * {@link DefaultTreeMatcher} does, but splits the source nodes into ranges of rows matched in parallel on a
+ * fork/join pool, which lives for the duration of the match.
+ * <p/>
+ * Accepts the threads configuration parameter with the pool size, by default the number of available processors.
+ * <p/>
+ * Each thread uses its own copy of the node matcher, and therefore of the SAT solver, created from the node matcher
+ * configuration. The node matcher can not be global. Copies of a {@link it.unitn.disi.smatch.deciders.CachingSolver}
+ * share the cache of answers if its sharedCache parameter is set to true. The acol caches are shared and concurrent. Rows are written
+ * directly into a {@link it.unitn.disi.smatch.data.mappings.MatrixMapping}, which accepts concurrent writes to
+ * different rows; other mappings are written under a lock, a row at a time.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class ParallelTreeMatcher extends BaseTreeMatcher implements ITreeMatcher, IIncrementalTreeMatcher {
+
+    private static final Logger log = Logger.getLogger(ParallelTreeMatcher.class);
+
+    private static final String THREADS_KEY = "threads";
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private RangeExecutor executor = new RangeExecutor(threads);
+
+    // node matchers not used by any thread at the moment
+    private final ConcurrentLinkedQueue<INodeMatcher> nodeMatchers = new ConcurrentLinkedQueue<INodeMatcher>();
+
+    /**
+     * Matching of a pair of contexts.
+     */
+    private class MatchingTask implements RangeExecutor.IRangeTask<TreeMatcherException> {
+        private final INode[] sourceNodes;
+        private final INode[] targetNodes;
+        private final IContextMapping<IAtomicConceptOfLabel> acolMapping;
+        private final IContextMapping<INode> mapping;
+        private final boolean concurrentMapping;
+
+        private final Map<String, IAtomicConceptOfLabel> sourceAcols = new ConcurrentHashMap<String, IAtomicConceptOfLabel>();
+        private final Map<String, IAtomicConceptOfLabel> targetAcols = new ConcurrentHashMap<String, IAtomicConceptOfLabel>();
+        private final Map<INode, ArrayList<IAtomicConceptOfLabel>> nmtAcols;
+
+        private final AtomicLong counter = new AtomicLong();
+        private final long total;
+        private final long reportInt;
+
+        private MatchingTask(INode[] sourceNodes, INode[] targetNodes,
+                             IContextMapping<IAtomicConceptOfLabel> acolMapping, IContextMapping<INode> mapping,
+                             Map<INode, ArrayList<IAtomicConceptOfLabel>> nmtAcols) {
+            this.sourceNodes = sourceNodes;
+            this.targetNodes = targetNodes;
+            this.acolMapping = acolMapping;
+            this.mapping = mapping;
+            this.nmtAcols = nmtAcols;
+            this.concurrentMapping = mapping instanceof MatrixMapping;
+            total = (long) sourceNodes.length * (long) targetNodes.length;
+            reportInt = (total / 20) + 1;//i.e. report every 5%
+        }
+
+        public void run(int from, int to) throws TreeMatcherException {
+            INodeMatcher nodeMatcher = nodeMatchers.poll();
+            try {
+                if (null == nodeMatcher) {
+                    nodeMatcher = createNodeMatcher();
+                }
+                final char[] relations = new char[targetNodes.length];
+                for (int i = from; i < to; i++) {
+                    final INode sourceNode = sourceNodes[i];
+                    for (int j = 0; j < targetNodes.length; j++) {
+                        relations[j] = nodeMatcher.nodeMatch(acolMapping, nmtAcols, sourceAcols, targetAcols, sourceNode, targetNodes[j]);
+                    }
+                    setRow(sourceNode, relations);
+
+                    final long done = counter.addAndGet(targetNodes.length);
+                    if ((SMatchConstants.LARGE_TASK < total) && (done / reportInt != (done - targetNodes.length) / reportInt) && log.isEnabledFor(Level.INFO)) {
+                        log.info(100 * done / total + "%");
+                    }
+                }
+            } catch (ConfigurableException e) {
+                final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+                log.error(errMessage, e);
+                throw new TreeMatcherException(errMessage, e);
+            } finally {
+                if (null != nodeMatcher) {
+                    nodeMatchers.offer(nodeMatcher);
+                }
+            }
+        }
+
+        private void setRow(INode sourceNode, char[] relations) {
+            if (concurrentMapping) {
+                for (int j = 0; j < targetNodes.length; j++) {
+                    mapping.setRelation(sourceNode, targetNodes[j], relations[j]);
+                }
+            } else {
+                synchronized (mapping) {
+                    for (int j = 0; j < targetNodes.length; j++) {
+                        mapping.setRelation(sourceNode, targetNodes[j], relations[j]);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean setProperties(Properties newProperties) throws ConfigurableException {
+        Properties oldProperties = new Properties();
+        oldProperties.putAll(properties);
+
+        boolean result = super.setProperties(newProperties);
+        if (result) {
+            if (newProperties.containsKey(THREADS_KEY)) {
+                threads = Integer.parseInt(newProperties.getProperty(THREADS_KEY));
+                if (threads < 1) {
+                    final String errMessage = "Number of threads should be positive: " + threads;
+                    log.error(errMessage);
+                    throw new ConfigurableException(errMessage);
+                }
+            }
+
+            executor = new RangeExecutor(threads);
+            nodeMatchers.clear();
+            nodeMatchers.offer(nodeMatcher);
+        }
+        return result;
+    }
+
+    public IContextMapping<INode> treeMatch(IContext sourceContext, IContext targetContext, IContextMapping<IAtomicConceptOfLabel> acolMapping) throws TreeMatcherException {
+        IContextMapping<INode> mapping = mappingFactory.getContextMappingInstance(sourceContext, targetContext);
+
+        final INode[] sourceNodes = sourceContext.getNodesList().toArray(new INode[sourceContext.getNodesList().size()]);
+        final INode[] targetNodes = targetContext.getNodesList().toArray(new INode[targetContext.getNodesList().size()]);
+        final MatchingTask task = new MatchingTask(sourceNodes, targetNodes, acolMapping, mapping,
+                initNMTAcols(sourceContext, new ConcurrentHashMap<INode, ArrayList<IAtomicConceptOfLabel>>()));
+        if (log.isEnabledFor(Level.DEBUG)) {
+            log.debug("Matching " + sourceNodes.length + " rows using " + threads + " threads");
+        }
+        executor.run(sourceNodes.length, task, TreeMatcherException.class);
+        keepNMTAcols(sourceContext, task.nmtAcols);
+
+        return mapping;
+    }
+
+    public void treeMatch(IContextMapping<INode> mapping, IContextMapping<IAtomicConceptOfLabel> acolMapping,
+                          List<INode> sourceNodes, List<INode> targetNodes) throws TreeMatcherException {
+        matchNodes(mapping, acolMapping, sourceNodes, targetNodes);
+    }
+}
@@ -8,6 +8,7 @@ import it.unitn.disi.smatch.data.mappings.IMappingElement;
 import it.unitn.disi.smatch.data.mappings.ReversingMappingElement;
 import it.unitn.disi.smatch.data.trees.IContext;
 import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.data.trees.TreeIndex;
 import it.unitn.disi.smatch.matchers.structure.node.OptimizedStageNodeMatcher;
 import it.unitn.disi.smatch.matchers.structure.tree.BaseTreeMatcher;
 import it.unitn.disi.smatch.matchers.structure.tree.ITreeMatcher;
@@ -47,6 +48,10 @@ public class OptimizedStageTreeMatcher extends BaseTreeMatcher implements ITreeM
 
     protected boolean direction;
 
+    // indexes of the source and target trees, for ancestors and subtree sizes
+    protected TreeIndex<INode> sourceIndex;
+    protected TreeIndex<INode> targetIndex;
+
     @Override
     public boolean setProperties(Properties newProperties) throws ConfigurableException {
         boolean result = super.setProperties(newProperties);
@@ -64,6 +69,8 @@ public class OptimizedStageTreeMatcher extends BaseTreeMatcher implements ITreeM
 
     public IContextMapping<INode> treeMatch(IContext sourceContext, IContext targetContext, IContextMapping<IAtomicConceptOfLabel> acolMapping) throws TreeMatcherException {
         this.acolMapping = acolMapping;
+        sourceIndex = sourceContext.getTreeIndex();
+        targetIndex = targetContext.getTreeIndex();
 
         total = (long) sourceContext.getNodesList().size() * (long) targetContext.getNodesList().size();
         reportInt = (total / 20) + 1;//i.e. report every 5%
@@ -114,9 +121,9 @@ public class OptimizedStageTreeMatcher extends BaseTreeMatcher implements ITreeM
     }
 
     protected void nodeTreeDisjoint(INode n1, INode n2) throws TreeMatcherException {
-        if (findRelation(n1.getAncestorsList(), n2, IMappingElement.DISJOINT)) {
+        if (findAncestorRelation(n1, n2, IMappingElement.DISJOINT)) {
             // we skip n2 subtree, so adjust the counter
-            final long skipTo = counter + n2.getDescendantsList().size();
+            final long skipTo = counter + getDescendantCount(targetIndex, n2);
             while (counter < skipTo) {
                 progress();
             }
@@ -127,7 +134,7 @@ public class OptimizedStageTreeMatcher extends BaseTreeMatcher implements ITreeM
         if (smatchMatcher.nodeDisjoint(acolMapping, nmtAcols, sourceAcols, targetAcols, n1, n2)) {
             addRelation(n1, n2, IMappingElement.DISJOINT);
             // we skip n2 subtree, so adjust the counter
-            final long skipTo = counter + n2.getDescendantsList().size();
+            final long skipTo = counter + getDescendantCount(targetIndex, n2);
             while (counter < skipTo) {
                 progress();
             }
@@ -144,7 +151,7 @@ public class OptimizedStageTreeMatcher extends BaseTreeMatcher implements ITreeM
     protected boolean treeSubsumedBy(INode n1, INode n2) throws TreeMatcherException {
         if (findRelation(n1, n2, IMappingElement.DISJOINT)) {
             // we skip n1 subtree, so adjust the counter
-            final long skipTo = counter + n1.getDescendantsList().size();
+            final long skipTo = counter + getDescendantCount(direction ? sourceIndex : targetIndex, n1);
             while (counter < skipTo) {
                 progress();
             }
@@ -169,7 +176,7 @@ public class OptimizedStageTreeMatcher extends BaseTreeMatcher implements ITreeM
             }
 
             // we skip n1 subtree, so adjust the counter
-            final long skipTo = counter + n1.getDescendantsList().size();
+            final long skipTo = counter + getDescendantCount(direction ? sourceIndex : targetIndex, n1);
             while (counter < skipTo) {
                 progress();
             }
@@ -236,6 +243,27 @@ public class OptimizedStageTreeMatcher extends BaseTreeMatcher implements ITreeM
         return false;
     }
 
+    /**
+     * Checks whether an ancestor of the source node is in the relation with the target node.
+     *
+     * @param sourceNode source node
+     * @param targetNode target node
+     * @param relation   relation
+     * @return true if an ancestor of the source node is in the relation with the target node
+     */
+    protected boolean findAncestorRelation(INode sourceNode, INode targetNode, char relation) {
+        for (int i = sourceIndex.getParent(sourceIndex.getNumber(sourceNode)); 0 <= i; i = sourceIndex.getParent(i)) {
+            if (findRelation(sourceIndex.getNode(i), targetNode, relation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected static int getDescendantCount(TreeIndex<INode> index, INode node) {
+        return index.getDescendantCount(index.getNumber(node));
+    }
+
     protected void progress() {
         counter++;
         if ((SMatchConstants.LARGE_TASK < total) && (0 == (counter % reportInt)) && log.isEnabledFor(Level.INFO)) {
@@ -246,4 +274,4 @@ public class OptimizedStageTreeMatcher extends BaseTreeMatcher implements ITreeM
     protected static IMappingElement<INode> createMappingElement(INode source, INode target, char relation) {
         return new ReversingMappingElement(source, target, relation);
     }
-}
\ No newline at end of file
+}
@@ -7,8 +7,9 @@ import it.unitn.disi.smatch.data.trees.IContext;
 import it.unitn.disi.smatch.data.trees.INode;
 import it.unitn.disi.smatch.filters.IMappingFilter;
 import it.unitn.disi.smatch.filters.MappingFilterException;
+import it.unitn.disi.smatch.matchers.structure.tree.BaseTreeMatcher;
+import it.unitn.disi.smatch.matchers.structure.tree.ITreeMatcher;
 import it.unitn.disi.smatch.matchers.structure.tree.TreeMatcherException;
-import it.unitn.disi.smatch.matchers.structure.tree.def.DefaultTreeMatcher;
 import org.apache.log4j.Logger;
 
 import java.util.List;
@@ -37,7 +38,7 @@ import java.util.Properties;
  * @author Mikalai Yatskevich mikalai.yatskevich@comlab.ox.ac.uk
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
-public class SPSMTreeMatcher extends DefaultTreeMatcher {
+public class SPSMTreeMatcher extends BaseTreeMatcher implements ITreeMatcher {
 
     private final static Logger log = Logger.getLogger(SPSMTreeMatcher.class.getName());
 
@@ -68,7 +69,7 @@ public class SPSMTreeMatcher extends DefaultTreeMatcher {
                                             IContextMapping<IAtomicConceptOfLabel> acolMapping)
             throws TreeMatcherException {
 
-            IContextMapping<INode> defaultMappings = super.treeMatch(sourceContext, targetContext, acolMapping);
+            IContextMapping<INode> defaultMappings = matchAll(sourceContext, targetContext, acolMapping);
           try {
 
             return spsmFilter.filter(defaultMappings);
@@ -106,4 +107,4 @@ public class SPSMTreeMatcher extends DefaultTreeMatcher {
         return ret;
 
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,47 @@
+package it.unitn.disi.smatch.oracles;
+
+import it.unitn.disi.smatch.data.ling.ISense;
+
+import java.util.List;
+
+/**
+ * An interface to sense matchers which can match senses encoded as numbers, avoiding per pair calls with sense
+ * objects. Sense sets are encoded once with {@link #getSenseCodes(java.util.List)} and then matched as many times as
+ * needed.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public interface IBatchSenseMatcher {
+
+    /**
+     * Encodes the senses. Senses unknown to the matcher, which are not related to any sense, might be left out.
+     *
+     * @param senses senses
+     * @return sense codes
+     * @throws SenseMatcherException SenseMatcherException
+     */
+    long[] getSenseCodes(List<ISense> senses) throws SenseMatcherException;
+
+    /**
+     * Returns semantic relation holding between two sets of encoded senses, the same as
+     * {@link ISenseMatcher#getRelation(java.util.List, java.util.List)} returns for the senses.
+     *
+     * @param sourceCodes source sense codes
+     * @param targetCodes target sense codes
+     * @return a relation
+     * @throws SenseMatcherException SenseMatcherException
+     */
+    char getRelation(long[] sourceCodes, long[] targetCodes) throws SenseMatcherException;
+
+    /**
+     * Returns semantic relations holding between a set of encoded senses and several other sets.
+     *
+     * @param sourceCodes source sense codes
+     * @param targetCodes target sense codes
+     * @param columns     indexes of target sense codes to match, null to match the first count of them
+     * @param count       number of target sense codes to match
+     * @param relations   where to put the relation with the k-th target into k-th position
+     * @throws SenseMatcherException SenseMatcherException
+     */
+    void getRelations(long[] sourceCodes, long[][] targetCodes, int[] columns, int count, char[] relations) throws SenseMatcherException;
+}
@@ -0,0 +1,33 @@
+package it.unitn.disi.smatch.oracles;
+
+import it.unitn.disi.smatch.data.ling.ISense;
+
+import java.util.List;
+
+/**
+ * An interface to sense matchers which can list the senses related to a sense. Used to generate candidate pairs of
+ * atomic concepts without comparing all pairs.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public interface IRelatedSenseProvider {
+
+    /**
+     * Returns the ids of all senses more general than the sense.
+     *
+     * @param sense sense
+     * @return ids of more general senses
+     * @throws SenseMatcherException SenseMatcherException
+     */
+    List<String> getMoreGeneralSenseIds(ISense sense) throws SenseMatcherException;
+
+    /**
+     * Returns the ids of senses related to the sense by symmetric relations, like synonymy or opposition, except the
+     * sense itself. Each related pair of senses is listed for at least one of them.
+     *
+     * @param sense sense
+     * @return ids of related senses
+     * @throws SenseMatcherException SenseMatcherException
+     */
+    List<String> getRelatedSenseIds(ISense sense) throws SenseMatcherException;
+}
@@ -0,0 +1,19 @@
+package it.unitn.disi.smatch.oracles;
+
+/**
+ * Carries a {@link LinguisticOracleException} out of methods which do not declare it, such as the lookup of the
+ * gloss and lemmas of a sense.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class UncheckedLinguisticOracleException extends RuntimeException {
+
+    public UncheckedLinguisticOracleException(LinguisticOracleException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public LinguisticOracleException getCause() {
+        return (LinguisticOracleException) super.getCause();
+    }
+}
@@ -0,0 +1,334 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import it.unitn.disi.common.DISIException;
+import it.unitn.disi.common.components.Configurable;
+import it.unitn.disi.common.components.ConfigurableException;
+import it.unitn.disi.common.utils.MiscUtils;
+import it.unitn.disi.smatch.SMatchException;
+import it.unitn.disi.smatch.data.ling.ISense;
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.oracles.IBatchSenseMatcher;
+import it.unitn.disi.smatch.oracles.ISenseMatcher;
+import net.sf.extjwnl.data.POS;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Base class for sense matchers which look up WordNet relations between synset offsets. WordNet senses are encoded as
+ * the part of speech code in the higher half and the synset offset in the lower half of a long number. Other senses
+ * are not related to anything and are left out.
+ * <p/>
+ * Relations between sets of senses are computed in one pass over the pairs of senses, which stops at the first
+ * synonyms.
+ * <p/>
+ * The relations are read from WordNet cache files, sorted arrays of keys (offset &lt;&lt; 32) + related offset, which
+ * are passed to the subclass one by one. Symmetric relations are keyed by the larger offset, nominalizations by the
+ * verb. Accepts the loadArrays boolean configuration parameter which allows to skip loading the caches, and the
+ * UseInternalFiles boolean configuration parameter which makes the cache file names resources names.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public abstract class BaseWordNetSenseMatcher extends Configurable implements ISenseMatcher, IBatchSenseMatcher {
+
+    private static final Logger log = Logger.getLogger(BaseWordNetSenseMatcher.class);
+
+    // configuration keys for WordNet cache files
+    protected static final String ADJ_SYN_KEY = "adjectiveSynonymFile";
+    protected static final String ADJ_ANT_KEY = "adjectiveAntonymFile";
+    protected static final String NOUN_MG_KEY = "nounMGFile";
+    protected static final String NOUN_ANT_KEY = "nounAntonymFile";
+    protected static final String VERB_MG_KEY = "verbMGFile";
+    protected static final String NOMINALIZATION_KEY = "nominalizationsFile";
+    protected static final String ADV_ANT_KEY = "adverbsAntonymFile";
+
+    protected static final String USE_INTERNAL_FILES = "UseInternalFiles";
+
+    // controls loading of arrays, used to skip loading before conversion
+    protected static final String LOAD_ARRAYS_KEY = "loadArrays";
+
+    // relations kept in WordNet cache files
+    protected static final int ADJ_SYN = 0;
+    protected static final int ADJ_OPP = 1;
+    protected static final int NOUN_MG = 2;
+    protected static final int NOUN_OPP = 3;
+    protected static final int VERB_MG = 4;
+    protected static final int ADV_OPP = 5;
+    protected static final int NOMINALIZATIONS = 6;
+    protected static final int RELATION_COUNT = 7;
+
+    // configuration keys and names of the relations, by relation
+    protected static final String[] RELATION_KEYS = {ADJ_SYN_KEY, ADJ_ANT_KEY, NOUN_MG_KEY, NOUN_ANT_KEY, VERB_MG_KEY,
+            ADV_ANT_KEY, NOMINALIZATION_KEY};
+    private static final String[] RELATION_NAMES = {"adjective synonyms", "adjective antonyms", "noun hypernyms",
+            "noun antonyms", "verb hypernyms", "adverb antonyms", "nominalizations"};
+
+    // part of speech codes
+    protected static final int NOUN = 1;
+    protected static final int VERB = 2;
+    protected static final int ADJECTIVE = 3;
+    protected static final int ADVERB = 4;
+
+    private static final long[] NO_CODES = new long[0];
+
+    @Override
+    public boolean setProperties(Properties newProperties) throws ConfigurableException {
+        boolean result = super.setProperties(newProperties);
+        if (result) {
+            boolean loadArrays = true;
+            if (newProperties.containsKey(LOAD_ARRAYS_KEY)) {
+                loadArrays = Boolean.parseBoolean(newProperties.getProperty(LOAD_ARRAYS_KEY));
+            }
+
+            boolean useInternalFiles = true;
+            if (properties.containsKey(USE_INTERNAL_FILES)) {
+                useInternalFiles = Boolean.parseBoolean(properties.getProperty(USE_INTERNAL_FILES));
+            }
+
+            if (loadArrays) {
+                log.info("Loading WordNet cache to memory...");
+                for (int relation = 0; relation < RELATION_COUNT; relation++) {
+                    setRelation(relation, RELATION_NAMES[relation],
+                            readArray(newProperties, RELATION_KEYS[relation], RELATION_NAMES[relation], useInternalFiles));
+                }
+                log.info("Loading WordNet cache to memory finished");
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Keeps the keys of a relation read from the cache.
+     *
+     * @param relation relation, one of ADJ_SYN, ADJ_OPP, NOUN_MG, NOUN_OPP, VERB_MG, ADV_OPP, NOMINALIZATIONS
+     * @param name     name of the relation
+     * @param keys     sorted keys (offset &lt;&lt; 32) + related offset
+     * @throws ConfigurableException ConfigurableException
+     */
+    protected abstract void setRelation(int relation, String name, LongBuffer keys) throws ConfigurableException;
+
+    public long[] getSenseCodes(List<ISense> senses) {
+        long[] result = new long[senses.size()];
+        int count = 0;
+        for (ISense sense : senses) {
+            final long code = getSenseCode(sense);
+            if (0 <= code) {
+                result[count] = code;
+                count++;
+            }
+        }
+        if (0 == count) {
+            return NO_CODES;
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    public char getRelation(List<ISense> sourceSenses, List<ISense> targetSenses) {
+        return getRelation(getSenseCodes(sourceSenses), getSenseCodes(targetSenses));
+    }
+
+    public char getRelation(long[] sourceCodes, long[] targetCodes) {
+        // the strongest relation found so far: synonymy, less general, more general, opposite meaning
+        char result = IMappingElement.IDK;
+        for (long source : sourceCodes) {
+            for (long target : targetCodes) {
+                if (isSynonym(source, target)) {
+                    return IMappingElement.EQUIVALENCE;
+                }
+                if (IMappingElement.LESS_GENERAL != result) {
+                    if (isLessGeneral(source, target)) {
+                        result = IMappingElement.LESS_GENERAL;
+                    } else if (IMappingElement.MORE_GENERAL != result) {
+                        if (isLessGeneral(target, source)) {
+                            result = IMappingElement.MORE_GENERAL;
+                        } else if (IMappingElement.DISJOINT != result && isOpposite(source, target)) {
+                            result = IMappingElement.DISJOINT;
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    public void getRelations(long[] sourceCodes, long[][] targetCodes, int[] columns, int count, char[] relations) {
+        if (0 == sourceCodes.length) {
+            Arrays.fill(relations, 0, count, IMappingElement.IDK);
+        } else {
+            for (int k = 0; k < count; k++) {
+                relations[k] = getRelation(sourceCodes, targetCodes[null == columns ? k : columns[k]]);
+            }
+        }
+    }
+
+    public boolean isSourceMoreGeneralThanTarget(ISense source, ISense target) {
+        return isSourceLessGeneralThanTarget(target, source);
+    }
+
+    public boolean isSourceLessGeneralThanTarget(ISense source, ISense target) {
+        final long sourceCode = getSenseCode(source);
+        final long targetCode = getSenseCode(target);
+        return 0 <= sourceCode && 0 <= targetCode && isLessGeneral(sourceCode, targetCode);
+    }
+
+    public boolean isSourceSynonymTarget(ISense source, ISense target) {
+        final long sourceCode = getSenseCode(source);
+        final long targetCode = getSenseCode(target);
+        return 0 <= sourceCode && 0 <= targetCode && isSynonym(sourceCode, targetCode);
+    }
+
+    public boolean isSourceOppositeToTarget(ISense source, ISense target) {
+        final long sourceCode = getSenseCode(source);
+        final long targetCode = getSenseCode(target);
+        return 0 <= sourceCode && 0 <= targetCode && isOpposite(sourceCode, targetCode);
+    }
+
+    /**
+     * Checks whether the source is a synonym of the target. Senses with the same offset are synonyms.
+     *
+     * @param source source sense code
+     * @param target target sense code
+     * @return whether relation holds
+     */
+    protected boolean isSynonym(long source, long target) {
+        return getOffset(source) == getOffset(target) || isSynonymOffset(source, target);
+    }
+
+    /**
+     * Checks whether the source is a synonym of the target with a different offset.
+     *
+     * @param source source sense code
+     * @param target target sense code
+     * @return whether relation holds
+     */
+    protected abstract boolean isSynonymOffset(long source, long target);
+
+    /**
+     * Checks whether the source is less general than the target.
+     *
+     * @param source source sense code
+     * @param target target sense code
+     * @return whether relation holds
+     */
+    protected abstract boolean isLessGeneral(long source, long target);
+
+    /**
+     * Checks whether the source is opposite to the target.
+     *
+     * @param source source sense code
+     * @param target target sense code
+     * @return whether relation holds
+     */
+    protected abstract boolean isOpposite(long source, long target);
+
+    /**
+     * Returns the code of a WordNet sense.
+     *
+     * @param sense sense
+     * @return sense code or -1 for senses which are not WordNet senses
+     */
+    protected static long getSenseCode(ISense sense) {
+        if (sense instanceof WordNetSense) {
+            final WordNetSense wnSense = (WordNetSense) sense;
+            final POS pos = wnSense.getPOS();
+            final int posCode;
+            if (POS.NOUN == pos) {
+                posCode = NOUN;
+            } else if (POS.VERB == pos) {
+                posCode = VERB;
+            } else if (POS.ADJECTIVE == pos) {
+                posCode = ADJECTIVE;
+            } else if (POS.ADVERB == pos) {
+                posCode = ADVERB;
+            } else {
+                return -1;
+            }
+            return ((long) posCode << 32) | (wnSense.getOffset() & 0xFFFFFFFFL);
+        }
+        return -1;
+    }
+
+    protected static int getPOS(long code) {
+        return (int) (code >>> 32);
+    }
+
+    protected static long getOffset(long code) {
+        return code & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Reads a cache file into the heap or maps it, if it is a raw array file outside of resources.
+     *
+     * @param properties     configuration
+     * @param key            configuration key of the cache file
+     * @param name           name of the relation
+     * @param isInternalFile whether the cache file is a resource
+     * @return sorted keys
+     * @throws ConfigurableException ConfigurableException
+     */
+    protected static LongBuffer readArray(Properties properties, String key, String name, boolean isInternalFile) throws ConfigurableException {
+        LongBuffer result;
+        if (properties.containsKey(key)) {
+            final String fileName = properties.getProperty(key);
+            if (!isInternalFile && LongArrayFile.isLongArrayFile(fileName)) {
+                result = LongArrayFile.map(fileName);
+                log.debug("Mapped " + name + ": " + result.limit());
+            } else {
+                result = LongBuffer.wrap(readHash(fileName, isInternalFile));
+                log.debug("Read " + name + ": " + result.limit());
+            }
+        } else {
+            final String errMessage = "Cannot find configuration key " + key;
+            log.error(errMessage);
+            throw new ConfigurableException(errMessage);
+        }
+        return result;
+    }
+
+    /**
+     * Reads a cache file, either serialized or raw, into the heap.
+     *
+     * @param fileName       cache file name
+     * @param isInternalFile whether the cache file is a resource
+     * @return sorted keys
+     * @throws SMatchException SMatchException
+     */
+    protected static long[] readHash(String fileName, boolean isInternalFile) throws SMatchException {
+        if (isInternalFile) {
+            // resources can not be mapped, but can be in the raw format
+            final InputStream stream = Thread.currentThread().getContextClassLoader().getResourceAsStream(fileName);
+            if (null == stream) {
+                throw new SMatchException("Cannot find resource " + fileName);
+            }
+            final PushbackInputStream pushback = new PushbackInputStream(stream, 1);
+            try {
+                final int first = pushback.read();
+                if (-1 != first) {
+                    pushback.unread(first);
+                }
+                // serialized streams start with 0xAC, the raw format with 'S'
+                if ('S' == first) {
+                    return LongArrayFile.read(fileName, pushback);
+                }
+                pushback.close();
+            } catch (IOException e) {
+                final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+                log.error(errMessage, e);
+                throw new SMatchException(errMessage, e);
+            }
+        } else if (LongArrayFile.isLongArrayFile(fileName)) {
+            return LongArrayFile.read(fileName);
+        }
+        try {
+            return (long[]) MiscUtils.readObject(fileName, isInternalFile);
+        } catch (DISIException e) {
+            throw new SMatchException(e.getMessage(), e);
+        }
+    }
+}
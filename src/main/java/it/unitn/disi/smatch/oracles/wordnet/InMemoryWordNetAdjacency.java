@@ -0,0 +1,117 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import it.unitn.disi.common.components.ConfigurableException;
+import it.unitn.disi.smatch.data.ling.ISense;
+import it.unitn.disi.smatch.oracles.IRelatedSenseProvider;
+import net.sf.extjwnl.data.POS;
+import org.apache.log4j.Logger;
+
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sense matcher which answers the same as {@link InMemoryWordNetBinaryArray} and reads the same cache files, but
+ * keeps the relations as {@link SenseAdjacency} lists. A lookup finds the row of the source synset in a hash table
+ * and scans a few targets, instead of binary searching millions of keys, and the relations take about half of the
+ * memory.
+ * <p/>
+ * Accepts the same configuration parameters as {@link InMemoryWordNetBinaryArray}, except the ones used for the
+ * creation of the caches, which should be created by {@link InMemoryWordNetBinaryArray}.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class InMemoryWordNetAdjacency extends BaseWordNetSenseMatcher implements IRelatedSenseProvider {
+
+    private static final Logger log = Logger.getLogger(InMemoryWordNetAdjacency.class);
+
+    // adjacency lists by relation, symmetric relations are keyed by the larger offset, nominalizations by the verb
+    private final SenseAdjacency[] relations = new SenseAdjacency[RELATION_COUNT];
+
+    protected void setRelation(int relation, String name, LongBuffer keys) throws ConfigurableException {
+        relations[relation] = new SenseAdjacency(keys);
+        log.debug("Indexed " + name + ": " + relations[relation].size());
+    }
+
+    protected boolean isLessGeneral(long source, long target) {
+        final int pos = getPOS(source);
+        if (pos != getPOS(target)) {
+            return false;
+        }
+        if (NOUN == pos) {
+            return relations[NOUN_MG].contains(getOffset(source), getOffset(target));
+        } else if (VERB == pos) {
+            return relations[VERB_MG].contains(getOffset(source), getOffset(target));
+        }
+        return false;
+    }
+
+    protected boolean isSynonymOffset(long source, long target) {
+        final int sourcePOS = getPOS(source);
+        final int targetPOS = getPOS(target);
+        if ((ADJECTIVE == sourcePOS) && (ADJECTIVE == targetPOS)) {
+            return containsSymmetric(relations[ADJ_SYN], getOffset(source), getOffset(target));
+        } else if ((NOUN == sourcePOS) && (VERB == targetPOS)) {
+            return relations[NOMINALIZATIONS].contains(getOffset(target), getOffset(source));
+        } else if ((VERB == sourcePOS) && (NOUN == targetPOS)) {
+            return relations[NOMINALIZATIONS].contains(getOffset(source), getOffset(target));
+        }
+        return false;
+    }
+
+    protected boolean isOpposite(long source, long target) {
+        final int pos = getPOS(source);
+        if (pos != getPOS(target)) {
+            return false;
+        }
+        if (NOUN == pos) {
+            return containsSymmetric(relations[NOUN_OPP], getOffset(source), getOffset(target));
+        } else if (ADJECTIVE == pos) {
+            return containsSymmetric(relations[ADJ_OPP], getOffset(source), getOffset(target));
+        } else if (ADVERB == pos) {
+            return containsSymmetric(relations[ADV_OPP], getOffset(source), getOffset(target));
+        }
+        return false;
+    }
+
+    public List<String> getMoreGeneralSenseIds(ISense sense) {
+        List<String> result = new ArrayList<String>();
+        if (sense instanceof WordNetSense) {
+            final long offset = ((WordNetSense) sense).getOffset();
+            final POS pos = ((WordNetSense) sense).getPOS();
+            if (POS.NOUN == pos) {
+                relations[NOUN_MG].addTargets(offset, POS.NOUN.getKey() + "#", result);
+            } else if (POS.VERB == pos) {
+                relations[VERB_MG].addTargets(offset, POS.VERB.getKey() + "#", result);
+            }
+        }
+        return result;
+    }
+
+    public List<String> getRelatedSenseIds(ISense sense) {
+        List<String> result = new ArrayList<String>();
+        if (sense instanceof WordNetSense) {
+            final long offset = ((WordNetSense) sense).getOffset();
+            final POS pos = ((WordNetSense) sense).getPOS();
+            if (POS.ADJECTIVE == pos) {
+                relations[ADJ_SYN].addTargets(offset, POS.ADJECTIVE.getKey() + "#", result);
+                relations[ADJ_OPP].addTargets(offset, POS.ADJECTIVE.getKey() + "#", result);
+            } else if (POS.NOUN == pos) {
+                relations[NOUN_OPP].addTargets(offset, POS.NOUN.getKey() + "#", result);
+            } else if (POS.ADVERB == pos) {
+                relations[ADV_OPP].addTargets(offset, POS.ADVERB.getKey() + "#", result);
+            } else if (POS.VERB == pos) {
+                relations[NOMINALIZATIONS].addTargets(offset, POS.NOUN.getKey() + "#", result);
+            }
+        }
+        return result;
+    }
+
+    private static boolean containsSymmetric(SenseAdjacency adjacency, long sourceOffset, long targetOffset) {
+        if (targetOffset > sourceOffset) {
+            return adjacency.contains(targetOffset, sourceOffset);
+        } else {
+            return adjacency.contains(sourceOffset, targetOffset);
+        }
+    }
+}
@@ -2,11 +2,8 @@ package it.unitn.disi.smatch.oracles.wordnet;
 
 import it.unitn.disi.common.DISIException;
 import it.unitn.disi.smatch.SMatchException;
-import it.unitn.disi.common.components.Configurable;
-import it.unitn.disi.common.components.ConfigurableException;
 import it.unitn.disi.smatch.data.ling.ISense;
-import it.unitn.disi.smatch.data.mappings.IMappingElement;
-import it.unitn.disi.smatch.oracles.ISenseMatcher;
+import it.unitn.disi.smatch.oracles.IRelatedSenseProvider;
 import it.unitn.disi.common.utils.MiscUtils;
 import net.sf.extjwnl.JWNL;
 import net.sf.extjwnl.JWNLException;
@@ -19,6 +16,7 @@ import org.apache.log4j.Logger;
 
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.nio.LongBuffer;
 import java.util.*;
 
 /**
@@ -29,226 +27,150 @@ import java.util.*;
  * <p/>
  * Accepts loadArray boolean configuration parameter which allows to skip loading arrays into memory.
  * By default equals true, it is useful during generation of WordNet caches when it should be set to false.
+ * <p/>
+ * Cache files are either serialized arrays, read into the heap, or raw arrays written by {@link LongArrayFile},
+ * which are memory-mapped and searched in place. The format is recognized when reading. The cacheFormat parameter,
+ * serialized (default) or mapped, selects the format of the created caches.
  *
  * @author Mikalai Yatskevich mikalai.yatskevich@comlab.ox.ac.uk
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
-public class InMemoryWordNetBinaryArray extends Configurable implements ISenseMatcher {
+public class InMemoryWordNetBinaryArray extends BaseWordNetSenseMatcher implements IRelatedSenseProvider {
 
     private static final Logger log = Logger.getLogger(InMemoryWordNetBinaryArray.class);
 
-    // configuration keys for WordNet cache files
-    private static final String ADJ_SYN_KEY = "adjectiveSynonymFile";
-    private static final String ADJ_ANT_KEY = "adjectiveAntonymFile";
-    private static final String NOUN_MG_KEY = "nounMGFile";
-    private static final String NOUN_ANT_KEY = "nounAntonymFile";
-    private static final String VERB_MG_KEY = "verbMGFile";
-    private static final String NOMINALIZATION_KEY = "nominalizationsFile";
-    private static final String ADV_ANT_KEY = "adverbsAntonymFile";
-
     private static final String JWNL_PROPERTIES_PATH_KEY = "JWNLPropertiesPath";
-    private static final String USE_INTERNAL_FILES = "UseInternalFiles";
-
-    // controls loading of arrays, used to skip loading before conversion
-    private static final String LOAD_ARRAYS_KEY = "loadArrays";
-
-    // array with WordNet keys
-    private long[] adj_syn = null;
-    private long[] adj_opp = null;
-    private long[] noun_mg = null;
-    private long[] noun_opp = null;
-    private long[] adv_opp = null;
-    private long[] verb_mg = null;
-    private long[] nominalizations = null;
-
-    @Override
-    public boolean setProperties(Properties newProperties) throws ConfigurableException {
-        boolean result = super.setProperties(newProperties);
-        if (result) {
-            boolean loadArrays = true;
-            if (newProperties.containsKey(LOAD_ARRAYS_KEY)) {
-                loadArrays = Boolean.parseBoolean(newProperties.getProperty(LOAD_ARRAYS_KEY));
-            }
 
-            boolean useInternalFiles = true;
+    // format of the written caches
+    private static final String CACHE_FORMAT_KEY = "cacheFormat";
+    private static final String FORMAT_SERIALIZED = "serialized";
+    private static final String FORMAT_MAPPED = "mapped";
 
-            if (properties.containsKey(USE_INTERNAL_FILES)) {
-                useInternalFiles = Boolean.parseBoolean(properties.getProperty(USE_INTERNAL_FILES));
-            }
+    // arrays with WordNet keys by relation, either wrapped heap arrays or mapped files
+    private final LongBuffer[] relations = new LongBuffer[RELATION_COUNT];
 
-            if (loadArrays) {
-                log.info("Loading WordNet cache to memory...");
-                adj_syn = readArray(newProperties, ADJ_SYN_KEY, "adjective synonyms", useInternalFiles);
-                adj_opp = readArray(newProperties, ADJ_ANT_KEY, "adjective antonyms", useInternalFiles);
-                noun_mg = readArray(newProperties, NOUN_MG_KEY, "noun hypernyms", useInternalFiles);
-                noun_opp = readArray(newProperties, NOUN_ANT_KEY, "noun antonyms", useInternalFiles);
-                verb_mg = readArray(newProperties, VERB_MG_KEY, "verb hypernyms", useInternalFiles);
-                adv_opp = readArray(newProperties, ADV_ANT_KEY, "adverb antonyms", useInternalFiles);
-                nominalizations = readArray(newProperties, NOMINALIZATION_KEY, "nominalizations", useInternalFiles);
-                log.info("Loading WordNet cache to memory finished");
-            }
-        }
-        return result;
+    protected void setRelation(int relation, String name, LongBuffer keys) {
+        relations[relation] = keys;
     }
 
-    public char getRelation(List<ISense> sourceSenses, List<ISense> targetSenses) {
-        // Check for synonymy
-        for (ISense sourceSense : sourceSenses) {
-            for (ISense targetSense : targetSenses) {
-                if (isSourceSynonymTarget(sourceSense, targetSense)) {
-                    return IMappingElement.EQUIVALENCE;
-                }
-            }
-        }
-        // Check for less general than
-        for (ISense sourceSense : sourceSenses) {
-            for (ISense targetSense : targetSenses) {
-                if (isSourceLessGeneralThanTarget(sourceSense, targetSense)) {
-                    return IMappingElement.LESS_GENERAL;
-                }
-            }
-        }
-        // Check for more general than
-        for (ISense sourceSense : sourceSenses) {
-            for (ISense targetSense : targetSenses) {
-                if (isSourceMoreGeneralThanTarget(sourceSense, targetSense)) {
-                    return IMappingElement.MORE_GENERAL;
-                }
-            }
+    protected boolean isOpposite(long source, long target) {
+        final int pos = getPOS(source);
+        if (pos != getPOS(target)) {
+            return false;
         }
-        // Check for opposite meaning
-        for (ISense sourceSense : sourceSenses) {
-            for (ISense targetSense : targetSenses) {
-                if (isSourceOppositeToTarget(sourceSense, targetSense)) {
-                    return IMappingElement.DISJOINT;
-                }
-            }
+        final long key = getSymmetricKey(getOffset(source), getOffset(target));
+        if (NOUN == pos) {
+            return LongArrayFile.binarySearch(relations[NOUN_OPP], key) >= 0;
+        } else if (ADJECTIVE == pos) {
+            return LongArrayFile.binarySearch(relations[ADJ_OPP], key) >= 0;
+        } else if (ADVERB == pos) {
+            return LongArrayFile.binarySearch(relations[ADV_OPP], key) >= 0;
         }
-        return IMappingElement.IDK;
+        return false;
     }
 
-    private boolean isSourceOppositeToTargetInt(long sourceSense, long targetSense, POS sourcePOS, POS targetPOS) {
-        long key;
-        if (targetSense > sourceSense) {
-            key = (targetSense << 32) + sourceSense;
-        } else {
-            key = (sourceSense << 32) + targetSense;
+    protected boolean isLessGeneral(long source, long target) {
+        final int pos = getPOS(source);
+        if (pos != getPOS(target)) {
+            return false;
         }
-
-        if ((POS.NOUN == sourcePOS) && (POS.NOUN == targetPOS)) {
-            if (java.util.Arrays.binarySearch(noun_opp, key) >= 0) {
-                return true;
-            }
-        } else {
-            if ((POS.ADJECTIVE == sourcePOS) && (POS.ADJECTIVE == targetPOS)) {
-                if (java.util.Arrays.binarySearch(adj_opp, key) >= 0) {
-                    return true;
-                }
-            } else {
-                if ((POS.ADVERB == sourcePOS) && (POS.ADVERB == targetPOS)) {
-                    if (java.util.Arrays.binarySearch(adv_opp, key) >= 0) {
-                        return true;
-                    }
-                }
-            }
+        final long key = (getOffset(source) << 32) + getOffset(target);
+        if (NOUN == pos) {
+            return LongArrayFile.binarySearch(relations[NOUN_MG], key) >= 0;
+        } else if (VERB == pos) {
+            return LongArrayFile.binarySearch(relations[VERB_MG], key) >= 0;
         }
-
         return false;
     }
 
-    private boolean isSourceLessGeneralThanTargetInt(long sourceSense, long targetSense, POS sourcePOS, POS targetPOS) {
-        long key = (sourceSense << 32) + targetSense;
-        if ((POS.NOUN == sourcePOS) && (POS.NOUN == targetPOS)) {
-            if (java.util.Arrays.binarySearch(noun_mg, key) >= 0) {
-                return true;
-            }
-        } else {
-            if ((POS.VERB == sourcePOS) && (POS.VERB == targetPOS)) {
-                if (java.util.Arrays.binarySearch(verb_mg, key) >= 0) {
-                    return true;
-                }
-            }
+    protected boolean isSynonymOffset(long source, long target) {
+        final int sourcePOS = getPOS(source);
+        final int targetPOS = getPOS(target);
+        if ((ADJECTIVE == sourcePOS) && (ADJECTIVE == targetPOS)) {
+            return LongArrayFile.binarySearch(relations[ADJ_SYN], getSymmetricKey(getOffset(source), getOffset(target))) >= 0;
+        } else if ((NOUN == sourcePOS) && (VERB == targetPOS)) {
+            return LongArrayFile.binarySearch(relations[NOMINALIZATIONS], (getOffset(target) << 32) + getOffset(source)) >= 0;
+        } else if ((VERB == sourcePOS) && (NOUN == targetPOS)) {
+            return LongArrayFile.binarySearch(relations[NOMINALIZATIONS], (getOffset(source) << 32) + getOffset(target)) >= 0;
         }
-
         return false;
     }
 
-    private boolean isSourceSynonymTargetInt(long sourceSense, long targetSense, POS sourcePOS, POS targetPOS) {
-        if (sourceSense == targetSense) {
-            return true;
-        }
-
-        long key;
-        if (targetSense > sourceSense) {
-            key = (targetSense << 32) + sourceSense;
+    private static long getSymmetricKey(long sourceOffset, long targetOffset) {
+        if (targetOffset > sourceOffset) {
+            return (targetOffset << 32) + sourceOffset;
         } else {
-            key = (sourceSense << 32) + targetSense;
-        }
-
-        if ((POS.ADJECTIVE == sourcePOS) && (POS.ADJECTIVE == targetPOS)) {
-            if (java.util.Arrays.binarySearch(adj_syn, key) >= 0) {
-                return true;
-            }
-        }
-        if ((POS.NOUN == sourcePOS) && (POS.VERB == targetPOS)) {
-            key = (targetSense << 32) + sourceSense;
-            if (java.util.Arrays.binarySearch(nominalizations, key) >= 0) {
-                return true;
-            }
-        }
-        if ((POS.VERB == sourcePOS) && (POS.NOUN == targetPOS)) {
-            key = (sourceSense << 32) + targetSense;
-            if (java.util.Arrays.binarySearch(nominalizations, key) >= 0) {
-                return true;
-            }
+            return (sourceOffset << 32) + targetOffset;
         }
-        return false;
     }
 
-    private static long[] readArray(Properties properties, String key, String name, boolean isInternalFile) throws ConfigurableException {
-        long[] result;
-        if (properties.containsKey(key)) {
-            result = readHash(properties.getProperty(key),  isInternalFile);
-            log.debug("Read " + name + ": " + result.length);
+    private static void writeArray(long[] array, Properties properties, String key) throws SMatchException {
+        final String fileName = properties.getProperty(key);
+        if (FORMAT_MAPPED.equals(properties.getProperty(CACHE_FORMAT_KEY, FORMAT_SERIALIZED))) {
+            LongArrayFile.write(array, fileName);
         } else {
-            final String errMessage = "Cannot find configuration key " + key;
-            log.error(errMessage);
-            throw new ConfigurableException(errMessage);
-        }
-        return result;
-    }
-
-    private static long[] readHash(String fileName, boolean isInternalFile) throws SMatchException {
-        try {
-            return (long[]) MiscUtils.readObject(fileName, isInternalFile);
-        } catch (DISIException e) {
-            throw new SMatchException(e.getMessage(), e);
+            try {
+                MiscUtils.writeObject(array, fileName);
+            } catch (DISIException e) {
+                throw new SMatchException(e.getMessage(), e);
+            }
         }
     }
 
-    public boolean isSourceMoreGeneralThanTarget(ISense source, ISense target) {
-        return isSourceLessGeneralThanTarget(target, source);
-    }
-
-    public boolean isSourceLessGeneralThanTarget(ISense source, ISense target) {
-        if ((source instanceof WordNetSense) && (target instanceof WordNetSense)) {
-            return isSourceLessGeneralThanTargetInt(((WordNetSense) source).getOffset(), ((WordNetSense) target).getOffset(), ((WordNetSense) source).getPOS(), ((WordNetSense) target).getPOS());
+    public List<String> getMoreGeneralSenseIds(ISense sense) {
+        List<String> result = new ArrayList<String>();
+        if (sense instanceof WordNetSense) {
+            final long offset = ((WordNetSense) sense).getOffset();
+            final POS pos = ((WordNetSense) sense).getPOS();
+            if (POS.NOUN == pos) {
+                addRange(relations[NOUN_MG], offset, POS.NOUN, result);
+            } else if (POS.VERB == pos) {
+                addRange(relations[VERB_MG], offset, POS.VERB, result);
+            }
         }
-        return false;
+        return result;
     }
 
-    public boolean isSourceSynonymTarget(ISense source, ISense target) {
-        if ((source instanceof WordNetSense) && (target instanceof WordNetSense)) {
-            return isSourceSynonymTargetInt(((WordNetSense) source).getOffset(), ((WordNetSense) target).getOffset(), ((WordNetSense) source).getPOS(), ((WordNetSense) target).getPOS());
+    public List<String> getRelatedSenseIds(ISense sense) {
+        List<String> result = new ArrayList<String>();
+        if (sense instanceof WordNetSense) {
+            final long offset = ((WordNetSense) sense).getOffset();
+            final POS pos = ((WordNetSense) sense).getPOS();
+            // symmetric pairs are keyed by the larger offset, nominalizations by the verb
+            if (POS.ADJECTIVE == pos) {
+                addRange(relations[ADJ_SYN], offset, POS.ADJECTIVE, result);
+                addRange(relations[ADJ_OPP], offset, POS.ADJECTIVE, result);
+            } else if (POS.NOUN == pos) {
+                addRange(relations[NOUN_OPP], offset, POS.NOUN, result);
+            } else if (POS.ADVERB == pos) {
+                addRange(relations[ADV_OPP], offset, POS.ADVERB, result);
+            } else if (POS.VERB == pos) {
+                addRange(relations[NOMINALIZATIONS], offset, POS.NOUN, result);
+            }
         }
-        return false;
+        return result;
     }
 
-    public boolean isSourceOppositeToTarget(ISense source, ISense target) {
-        if ((source instanceof WordNetSense) && (target instanceof WordNetSense)) {
-            return isSourceOppositeToTargetInt(((WordNetSense) source).getOffset(), ((WordNetSense) target).getOffset(), ((WordNetSense) source).getPOS(), ((WordNetSense) target).getPOS());
+    /**
+     * Adds sense ids of the keys (offset &lt;&lt; 32) + relatedOffset.
+     *
+     * @param array      sorted keys
+     * @param offset     offset in the higher half of the key
+     * @param relatedPOS part of speech of the related senses
+     * @param result     where to add sense ids
+     */
+    private static void addRange(LongBuffer array, long offset, POS relatedPOS, List<String> result) {
+        if (null != array) {
+            int i = LongArrayFile.binarySearch(array, offset << 32);
+            if (i < 0) {
+                i = -(i + 1);
+            }
+            final String prefix = relatedPOS.getKey() + "#";
+            while (i < array.limit() && offset == (array.get(i) >>> 32)) {
+                result.add(prefix + (array.get(i) & 0xFFFFFFFFL));
+                i++;
+            }
         }
-        return false;
     }
 
     /**
@@ -292,6 +214,32 @@ public class InMemoryWordNetBinaryArray extends Configurable implements ISenseMa
         log.info("Done");
     }
 
+    /**
+     * Converts existing caches of WordNet into the raw format, which is memory-mapped when the caches are loaded.
+     *
+     * @param componentKey a key to the component in the configuration
+     * @param properties   configuration
+     * @throws SMatchException SMatchException
+     */
+    public static void convertWordNetCaches(String componentKey, Properties properties) throws SMatchException {
+        properties = getComponentProperties(makeComponentPrefix(componentKey, InMemoryWordNetBinaryArray.class.getSimpleName()), properties);
+        log.info("Converting WordNet caches...");
+        for (String key : RELATION_KEYS) {
+            if (!properties.containsKey(key)) {
+                final String errMessage = "Cannot find configuration key " + key;
+                log.error(errMessage);
+                throw new SMatchException(errMessage);
+            }
+            final String fileName = properties.getProperty(key);
+            if (LongArrayFile.isLongArrayFile(fileName)) {
+                log.info("Skipping " + fileName + ", already converted");
+            } else {
+                LongArrayFile.write(readHash(fileName, false), fileName);
+            }
+        }
+        log.info("Done");
+    }
+
     private static void writeNominalizations(Properties properties) throws SMatchException {
         log.info("Creating nominalizations array...");
         HashSet<Long> keys = new HashSet<Long>();
@@ -320,13 +268,11 @@ public class InMemoryWordNetBinaryArray extends Configurable implements ISenseMa
                 i++;
             }
             Arrays.sort(keysArr);
-            MiscUtils.writeObject(keysArr, properties.getProperty(NOMINALIZATION_KEY));
+            writeArray(keysArr, properties, NOMINALIZATION_KEY);
         } catch (JWNLException e) {
             final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
             log.error(errMessage, e);
             throw new SMatchException(errMessage, e);
-        } catch (DISIException e) {
-            throw new SMatchException(e.getMessage(), e);
         }
     }
 
@@ -364,13 +310,11 @@ public class InMemoryWordNetBinaryArray extends Configurable implements ISenseMa
                 i++;
             }
             Arrays.sort(keysArr);
-            MiscUtils.writeObject(keysArr, properties.getProperty(ADJ_SYN_KEY));
+            writeArray(keysArr, properties, ADJ_SYN_KEY);
         } catch (JWNLException e) {
             final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
             log.error(errMessage, e);
             throw new SMatchException(errMessage, e);
-        } catch (DISIException e) {
-            throw new SMatchException(e.getMessage(), e);
         }
     }
 
@@ -409,13 +353,11 @@ public class InMemoryWordNetBinaryArray extends Configurable implements ISenseMa
                 i++;
             }
             Arrays.sort(keysArr);
-            MiscUtils.writeObject(keysArr, properties.getProperty(ADV_ANT_KEY));
+            writeArray(keysArr, properties, ADV_ANT_KEY);
         } catch (JWNLException e) {
             final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
             log.error(errMessage, e);
             throw new SMatchException(errMessage, e);
-        } catch (DISIException e) {
-            throw new SMatchException(e.getMessage(), e);
         }
     }
 
@@ -444,13 +386,11 @@ public class InMemoryWordNetBinaryArray extends Configurable implements ISenseMa
                 i++;
             }
             Arrays.sort(keysArr);
-            MiscUtils.writeObject(keysArr, properties.getProperty(ADJ_ANT_KEY));
+            writeArray(keysArr, properties, ADJ_ANT_KEY);
         } catch (JWNLException e) {
             final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
             log.error(errMessage, e);
             throw new SMatchException(errMessage, e);
-        } catch (DISIException e) {
-            throw new SMatchException(e.getMessage(), e);
         }
     }
 
@@ -482,13 +422,11 @@ public class InMemoryWordNetBinaryArray extends Configurable implements ISenseMa
                 i++;
             }
             Arrays.sort(keysArr);
-            MiscUtils.writeObject(keysArr, properties.getProperty(NOUN_ANT_KEY));
+            writeArray(keysArr, properties, NOUN_ANT_KEY);
         } catch (JWNLException e) {
             final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
             log.error(errMessage, e);
             throw new SMatchException(errMessage, e);
-        } catch (DISIException e) {
-            throw new SMatchException(e.getMessage(), e);
         }
     }
 
@@ -525,13 +463,11 @@ public class InMemoryWordNetBinaryArray extends Configurable implements ISenseMa
                 i++;
             }
             Arrays.sort(keysArr);
-            MiscUtils.writeObject(keysArr, properties.getProperty(NOUN_MG_KEY));
+            writeArray(keysArr, properties, NOUN_MG_KEY);
         } catch (JWNLException e) {
             final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
             log.error(errMessage, e);
             throw new SMatchException(errMessage, e);
-        } catch (DISIException e) {
-            throw new SMatchException(e.getMessage(), e);
         }
     }
 
@@ -560,13 +496,11 @@ public class InMemoryWordNetBinaryArray extends Configurable implements ISenseMa
                 i++;
             }
             Arrays.sort(keysArr);
-            MiscUtils.writeObject(keysArr, properties.getProperty(VERB_MG_KEY));
+            writeArray(keysArr, properties, VERB_MG_KEY);
         } catch (JWNLException e) {
             final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
             log.error(errMessage, e);
             throw new SMatchException(errMessage, e);
-        } catch (DISIException e) {
-            throw new SMatchException(e.getMessage(), e);
         }
     }
 
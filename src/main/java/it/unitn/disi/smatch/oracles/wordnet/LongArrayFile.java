@@ -0,0 +1,210 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import it.unitn.disi.smatch.SMatchException;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads and writes sorted arrays of longs in a raw format, which can be memory-mapped instead of being read into the
+ * heap. Mapped arrays are shared through the page cache by all processes which map the same file.
+ * <p/>
+ * The format is a header of 24 bytes: magic number, format version (int), reserved int and the number of longs (long),
+ * followed by the longs. All numbers are little-endian.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public final class LongArrayFile {
+
+    private static final Logger log = Logger.getLogger(LongArrayFile.class);
+
+    // "SMLONGS" followed by a zero byte, little-endian
+    private static final long MAGIC = 0x0053474E4F4C4D53L;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+
+    private LongArrayFile() {
+    }
+
+    /**
+     * Checks whether the file starts with the header of the raw format.
+     *
+     * @param fileName file name
+     * @return true if the file is in the raw format
+     * @throws SMatchException SMatchException
+     */
+    public static boolean isLongArrayFile(String fileName) throws SMatchException {
+        try {
+            RandomAccessFile file = new RandomAccessFile(fileName, "r");
+            try {
+                return HEADER_SIZE <= file.length() && MAGIC == Long.reverseBytes(file.readLong());
+            } finally {
+                file.close();
+            }
+        } catch (IOException e) {
+            final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error(errMessage, e);
+            throw new SMatchException(errMessage, e);
+        }
+    }
+
+    /**
+     * Writes the array in the raw format. The file is written under a temporary name and renamed, so the array can
+     * replace a file which is read or mapped at the moment.
+     *
+     * @param array    sorted array
+     * @param fileName file name
+     * @throws SMatchException SMatchException
+     */
+    public static void write(long[] array, String fileName) throws SMatchException {
+        log.info("Writing " + fileName);
+        final File file = new File(fileName);
+        final File tempFile = new File(fileName + ".tmp");
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), 1 << 16));
+            try {
+                out.writeLong(Long.reverseBytes(MAGIC));
+                out.writeInt(Integer.reverseBytes(VERSION));
+                out.writeInt(0);
+                out.writeLong(Long.reverseBytes(array.length));
+                for (long value : array) {
+                    out.writeLong(Long.reverseBytes(value));
+                }
+            } finally {
+                out.close();
+            }
+            if ((file.exists() && !file.delete()) || !tempFile.renameTo(file)) {
+                throw new IOException("Cannot rename " + tempFile + " to " + file);
+            }
+        } catch (IOException e) {
+            final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error(errMessage, e);
+            throw new SMatchException(errMessage, e);
+        }
+    }
+
+    /**
+     * Maps the array in the raw format into memory.
+     *
+     * @param fileName file name
+     * @return read-only buffer with the longs
+     * @throws SMatchException SMatchException
+     */
+    public static LongBuffer map(String fileName) throws SMatchException {
+        try {
+            RandomAccessFile file = new RandomAccessFile(fileName, "r");
+            try {
+                final long length = readHeader(fileName, file.readLong(), file.readInt(), file.readInt(), file.readLong(), file.length());
+                if (Integer.MAX_VALUE < HEADER_SIZE + 8 * length) {
+                    throw new SMatchException("Array in " + fileName + " is too large to be mapped: " + length);
+                }
+                // the mapping stays valid after the channel is closed
+                MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, 8 * length);
+                return buffer.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            } finally {
+                file.close();
+            }
+        } catch (IOException e) {
+            final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error(errMessage, e);
+            throw new SMatchException(errMessage, e);
+        }
+    }
+
+    /**
+     * Reads the array in the raw format from a stream into the heap. Used for files which can not be mapped, like
+     * resources.
+     *
+     * @param fileName file name, for messages
+     * @param stream   stream
+     * @return the array
+     * @throws SMatchException SMatchException
+     */
+    public static long[] read(String fileName, InputStream stream) throws SMatchException {
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+            try {
+                final long length = readHeader(fileName, in.readLong(), in.readInt(), in.readInt(), in.readLong(), -1);
+                long[] result = new long[(int) length];
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = Long.reverseBytes(in.readLong());
+                }
+                return result;
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error(errMessage, e);
+            throw new SMatchException(errMessage, e);
+        }
+    }
+
+    /**
+     * Reads the array in the raw format from a file into the heap.
+     *
+     * @param fileName file name
+     * @return the array
+     * @throws SMatchException SMatchException
+     */
+    public static long[] read(String fileName) throws SMatchException {
+        try {
+            return read(fileName, new FileInputStream(fileName));
+        } catch (IOException e) {
+            final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error(errMessage, e);
+            throw new SMatchException(errMessage, e);
+        }
+    }
+
+    /**
+     * Searches the sorted buffer for the key, as {@link java.util.Arrays#binarySearch(long[], long)} does.
+     *
+     * @param buffer sorted buffer
+     * @param key    the value to search for
+     * @return index of the key, if it is found, otherwise (-(insertion point) - 1)
+     */
+    public static int binarySearch(LongBuffer buffer, long key) {
+        int low = 0;
+        int high = buffer.limit() - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final long value = buffer.get(middle);
+            if (value < key) {
+                low = middle + 1;
+            } else if (value > key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static long readHeader(String fileName, long magic, int version, int reserved, long length, long fileLength) throws SMatchException {
+        if (MAGIC != Long.reverseBytes(magic)) {
+            throw new SMatchException("Not a long array file: " + fileName);
+        }
+        if (VERSION != Integer.reverseBytes(version)) {
+            throw new SMatchException("Unsupported version of long array file " + fileName + ": " + Integer.reverseBytes(version));
+        }
+        length = Long.reverseBytes(length);
+        if (length < 0 || Integer.MAX_VALUE < length || (0 <= fileLength && fileLength < HEADER_SIZE + 8 * length)) {
+            throw new SMatchException("Wrong length of long array file " + fileName + ": " + length);
+        }
+        return length;
+    }
+}
@@ -0,0 +1,154 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import it.unitn.disi.smatch.SMatchException;
+
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Adjacency lists of synset offsets built from sorted keys (source &lt;&lt; 32) + target. Targets of each source are
+ * kept in a sorted row of a shared int array, rows are found through an open-addressing table of source offsets.
+ * A lookup reads a table slot and a short row instead of binary searching all keys, and offsets take 4 bytes instead
+ * of 8.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public final class SenseAdjacency {
+
+    // rows up to this length are scanned, longer ones are binary searched
+    private static final int SCAN_LENGTH = 16;
+
+    // source offset + 1, 0 marks an empty slot
+    private final int[] slots;
+    private final int[] slotRows;
+    private final int mask;
+
+    // row i occupies targets[starts[i]..starts[i + 1])
+    private final int[] starts;
+    private final int[] targets;
+
+    /**
+     * Builds the adjacency lists.
+     *
+     * @param keys sorted keys
+     * @throws SMatchException if offsets do not fit into int numbers
+     */
+    public SenseAdjacency(LongBuffer keys) throws SMatchException {
+        final int count = keys.limit();
+        targets = new int[count];
+        int rowCount = 0;
+        long previousSource = -1;
+        for (int i = 0; i < count; i++) {
+            final long key = keys.get(i);
+            final long source = key >>> 32;
+            final long target = key & 0xFFFFFFFFL;
+            if (Integer.MAX_VALUE <= source || Integer.MAX_VALUE < target) {
+                throw new SMatchException("Offset does not fit into the adjacency index: " + key);
+            }
+            if (source != previousSource) {
+                rowCount++;
+                previousSource = source;
+            }
+            targets[i] = (int) target;
+        }
+
+        int capacity = 16;
+        while (capacity < 2 * rowCount) {
+            capacity = capacity << 1;
+        }
+        slots = new int[capacity];
+        slotRows = new int[capacity];
+        mask = capacity - 1;
+        starts = new int[rowCount + 1];
+
+        int row = -1;
+        previousSource = -1;
+        for (int i = 0; i < count; i++) {
+            final long source = keys.get(i) >>> 32;
+            if (source != previousSource) {
+                row++;
+                starts[row] = i;
+                int slot = hash((int) source) & mask;
+                while (0 != slots[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = (int) source + 1;
+                slotRows[slot] = row;
+                previousSource = source;
+            }
+        }
+        starts[rowCount] = count;
+    }
+
+    /**
+     * Checks whether the key (source &lt;&lt; 32) + target was among the keys.
+     *
+     * @param source source offset
+     * @param target target offset
+     * @return true if the pair is present
+     */
+    public boolean contains(long source, long target) {
+        final int row = getRow(source);
+        if (row < 0 || Integer.MAX_VALUE < target) {
+            return false;
+        }
+        final int from = starts[row];
+        final int to = starts[row + 1];
+        final int value = (int) target;
+        if (to - from <= SCAN_LENGTH) {
+            for (int i = from; i < to && targets[i] <= value; i++) {
+                if (value == targets[i]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return 0 <= Arrays.binarySearch(targets, from, to, value);
+    }
+
+    /**
+     * Adds the ids of the targets of the source.
+     *
+     * @param source source offset
+     * @param prefix prefix of the target sense ids, the part of speech with #
+     * @param result where to add sense ids
+     */
+    public void addTargets(long source, String prefix, List<String> result) {
+        final int row = getRow(source);
+        if (0 <= row) {
+            for (int i = starts[row]; i < starts[row + 1]; i++) {
+                result.add(prefix + targets[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of pairs.
+     *
+     * @return the number of pairs
+     */
+    public int size() {
+        return targets.length;
+    }
+
+    private int getRow(long source) {
+        if (source < 0 || Integer.MAX_VALUE <= source) {
+            return -1;
+        }
+        final int key = (int) source + 1;
+        int slot = hash((int) source) & mask;
+        while (0 != slots[slot]) {
+            if (key == slots[slot]) {
+                return slotRows[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static int hash(int value) {
+        final int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
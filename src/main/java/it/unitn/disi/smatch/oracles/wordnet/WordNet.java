@@ -10,6 +10,7 @@ import it.unitn.disi.smatch.data.mappings.IMappingElement;
 import it.unitn.disi.smatch.oracles.ILinguisticOracle;
 import it.unitn.disi.smatch.oracles.ISenseMatcher;
 import it.unitn.disi.smatch.oracles.LinguisticOracleException;
+import it.unitn.disi.smatch.oracles.UncheckedLinguisticOracleException;
 import it.unitn.disi.smatch.oracles.SenseMatcherException;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
@@ -31,6 +32,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.regex.Pattern;
 
@@ -64,7 +66,7 @@ public class WordNet extends Configurable implements ILinguisticOracle, ISenseMa
     private Map<String, Character> sensesCache;
 
     public WordNet() {
-        sensesCache = new HashMap<String, Character>();
+        sensesCache = new ConcurrentHashMap<String, Character>();
     }
 
     @Override
@@ -322,6 +324,10 @@ public class WordNet extends Configurable implements ILinguisticOracle, ISenseMa
                 final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
                 log.error(errMessage, e);
                 throw new SenseMatcherException(errMessage, e);
+            } catch (UncheckedLinguisticOracleException e) {
+                final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+                log.error(errMessage, e);
+                throw new SenseMatcherException(errMessage, e);
             }
         }
         return false;
@@ -347,6 +353,10 @@ public class WordNet extends Configurable implements ILinguisticOracle, ISenseMa
                 final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
                 log.error(errMessage, e);
                 throw new SenseMatcherException(errMessage, e);
+            } catch (UncheckedLinguisticOracleException e) {
+                final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+                log.error(errMessage, e);
+                throw new SenseMatcherException(errMessage, e);
             }
         }
         return false;
@@ -403,22 +413,31 @@ public class WordNet extends Configurable implements ILinguisticOracle, ISenseMa
                     final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
                     log.error(errMessage, e);
                     throw new SenseMatcherException(errMessage, e);
+                } catch (UncheckedLinguisticOracleException e) {
+                    final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+                    log.error(errMessage, e);
+                    throw new SenseMatcherException(errMessage, e);
                 }
             }
         }
         return false;
     }
 
+    /**
+     * Creates a sense from its id. The synset is looked up in the dictionary when it is used for the first time,
+     * so loading contexts with senses does not read the dictionary. A sense with an offset missing from the dictionary
+     * is therefore reported only then, by an UncheckedLinguisticOracleException from the sense or a SenseMatcherException from
+     * the sense matcher.
+     *
+     * @param id sense id, part of speech key followed by # and synset offset
+     * @return sense
+     * @throws LinguisticOracleException if the id is malformed
+     */
     public ISense createSense(String id) throws LinguisticOracleException {
         if (id.length() < 3 || 1 != id.indexOf('#') || !"navr".contains(id.substring(0, 1)) || !offset.matcher(id.substring(2)).matches()) {
             throw new LinguisticOracleException("Malformed sense id: " + id);
         }
-        try {
-            Synset synset = dic.getSynsetAt(POS.getPOSForKey(id.substring(0, 1)), Long.parseLong(id.substring(2)));
-            return new WordNetSense(synset);
-        } catch (JWNLException e) {
-            throw new LinguisticOracleException(e.getMessage(), e);
-        }
+        return new WordNetSense(dic, POS.getPOSForKey(id.substring(0, 1)), Long.parseLong(id.substring(2)));
     }
 
     public ArrayList<ArrayList<String>> getMultiwords(String beginning) throws LinguisticOracleException {
@@ -2,12 +2,16 @@ package it.unitn.disi.smatch.oracles.wordnet;
 
 import it.unitn.disi.smatch.data.ling.ISense;
 import it.unitn.disi.smatch.data.ling.Sense;
+import it.unitn.disi.smatch.oracles.LinguisticOracleException;
+import it.unitn.disi.smatch.oracles.UncheckedLinguisticOracleException;
+import net.sf.extjwnl.JWNLException;
 import net.sf.extjwnl.data.POS;
 import net.sf.extjwnl.data.PointerUtils;
 import net.sf.extjwnl.data.Synset;
 import net.sf.extjwnl.data.list.PointerTargetNode;
 import net.sf.extjwnl.data.list.PointerTargetNodeList;
 import net.sf.extjwnl.data.list.PointerTargetTree;
+import net.sf.extjwnl.dictionary.Dictionary;
 
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -21,7 +25,11 @@ import java.util.List;
  */
 public class WordNetSense extends Sense {
 
-    private Synset synset;
+    private final POS pos;
+    private final long offset;
+    // to look up the synset on first use, null if the sense is created with the synset
+    private final Dictionary dictionary;
+    private volatile Synset synset;
 
     /**
      * Constructs an instance linked to a synset.
@@ -31,16 +39,47 @@ public class WordNetSense extends Sense {
     public WordNetSense(Synset synset) {
         super(synset.getPOS().getKey() + "#" + synset.getOffset());
         this.synset = synset;
+        this.pos = synset.getPOS();
+        this.offset = synset.getOffset();
+        this.dictionary = null;
     }
 
+    /**
+     * Constructs an instance which looks up the synset in the dictionary on first use. Matchers which need only
+     * the part of speech and the offset do not read the dictionary at all.
+     *
+     * @param dictionary dictionary
+     * @param pos        part of speech
+     * @param offset     synset offset
+     */
+    public WordNetSense(Dictionary dictionary, POS pos, long offset) {
+        super(pos.getKey() + "#" + offset);
+        this.pos = pos;
+        this.offset = offset;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Returns the gloss of the synset.
+     *
+     * @return a gloss
+     * @throws UncheckedLinguisticOracleException if the synset cannot be looked up
+     */
     public String getGloss() {
-        return synset.getGloss();
+        return getSynset().getGloss();
     }
 
+    /**
+     * Returns the lemmas of the words of the synset.
+     *
+     * @return lemmas
+     * @throws UncheckedLinguisticOracleException if the synset cannot be looked up
+     */
     public List<String> getLemmas() {
         List<String> out = new ArrayList<String>();
         String lemmaToCompare;
 
+        final Synset synset = getSynset();
         for (int i = 0; i < synset.getWords().size(); i++) {
             lemmaToCompare = synset.getWords().get(i).getLemma();
             out.add(lemmaToCompare);
@@ -49,12 +88,13 @@ public class WordNetSense extends Sense {
         return out;
     }
 
-    public List<ISense> getParents() {
+    public List<ISense> getParents() throws LinguisticOracleException {
         return getParents(1);
     }
 
-    public List<ISense> getParents(int depth) {
+    public List<ISense> getParents(int depth) throws LinguisticOracleException {
         List<ISense> out = new ArrayList<ISense>();
+        final Synset synset = lookupSynset();
         PointerTargetTree hypernyms = PointerUtils.getHypernymTree(synset, depth);
         for (Iterator itr = hypernyms.toList().iterator(); itr.hasNext(); ) {
             if (itr.hasNext()) {
@@ -69,12 +109,13 @@ public class WordNetSense extends Sense {
         return out;
     }
 
-    public List<ISense> getChildren() {
+    public List<ISense> getChildren() throws LinguisticOracleException {
         return getChildren(1);
     }
 
-    public List<ISense> getChildren(int depth) {
+    public List<ISense> getChildren(int depth) throws LinguisticOracleException {
         List<ISense> out = new ArrayList<ISense>();
+        final Synset synset = lookupSynset();
         PointerTargetTree hypernyms = PointerUtils.getHyponymTree(synset, depth);
         for (Iterator itr = hypernyms.toList().iterator(); itr.hasNext(); ) {
             if (itr.hasNext()) {
@@ -90,14 +131,40 @@ public class WordNetSense extends Sense {
     }
 
     public POS getPOS() {
-        return synset.getPOS();
+        return pos;
     }
 
     public long getOffset() {
-        return synset.getOffset();
+        return offset;
     }
 
+    /**
+     * Returns the synset of the sense, looking it up in the dictionary on first use.
+     *
+     * @return the synset of the sense
+     * @throws UncheckedLinguisticOracleException if the dictionary cannot be read or has no synset with the offset
+     */
     public Synset getSynset() {
-        return synset;
+        try {
+            return lookupSynset();
+        } catch (LinguisticOracleException e) {
+            throw new UncheckedLinguisticOracleException(e);
+        }
+    }
+
+    private Synset lookupSynset() throws LinguisticOracleException {
+        Synset result = synset;
+        if (null == result) {
+            try {
+                result = dictionary.getSynsetAt(pos, offset);
+            } catch (JWNLException e) {
+                throw new LinguisticOracleException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+            }
+            if (null == result) {
+                throw new LinguisticOracleException("No synset for sense " + getId());
+            }
+            synset = result;
+        }
+        return result;
     }
 }
\ No newline at end of file
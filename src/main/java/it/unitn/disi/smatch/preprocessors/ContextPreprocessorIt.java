@@ -7,6 +7,7 @@ import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
 import it.unitn.disi.smatch.data.ling.ISense;
 import it.unitn.disi.smatch.data.trees.IContext;
 import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.data.trees.TreeIndex;
 import it.unitn.disi.smatch.oracles.ILinguisticOracle;
 import it.unitn.disi.smatch.oracles.ISenseMatcher;
 import it.unitn.disi.smatch.oracles.LinguisticOracleException;
@@ -597,29 +598,34 @@ public class ContextPreprocessorIt extends Configurable implements IContextPrepr
      * @throws ContextPreprocessorException ContextPreprocessorException
      */
     private IContext findMultiwordsInContextStructure(IContext context) throws ContextPreprocessorException {
+        final TreeIndex<INode> index = context.getTreeIndex();
+        final int[] descendants = new int[index.size()];
         for (Iterator<INode> i = context.getNodes(); i.hasNext(); ) {
             INode sourceNode = i.next();
+            final int number = index.getNumber(sourceNode);
+            final int descendantCount = index.getDescendantsBreadthFirst(number, descendants);
             // sense disambiguation within the context structure
             // for all ACoLs in the source node
             for (Iterator<IAtomicConceptOfLabel> j = sourceNode.getNodeData().getACoLs(); j.hasNext(); ) {
                 IAtomicConceptOfLabel synSource = j.next();
                 // in all descendants and ancestors
-                findMultiwordsAmong(sourceNode.getDescendants(), synSource);
-                findMultiwordsAmong(sourceNode.getAncestors(), synSource);
+                for (int d = 0; d < descendantCount; d++) {
+                    findMultiwordsAmong(index.getNode(descendants[d]), synSource);
+                }
+                for (int a = index.getParent(number); 0 <= a; a = index.getParent(a)) {
+                    findMultiwordsAmong(index.getNode(a), synSource);
+                }
             }
         }
         return context;
     }
 
-    private void findMultiwordsAmong(Iterator<INode> i, IAtomicConceptOfLabel synSource) throws ContextPreprocessorException {
-        while (i.hasNext()) {
-            INode targetNode = i.next();
-            for (Iterator<IAtomicConceptOfLabel> k = targetNode.getNodeData().getACoLs(); k.hasNext(); ) {
-                IAtomicConceptOfLabel synTarget = k.next();
-                List<ISense> wnSenses = checkMW(synSource.getLemma(), synTarget.getLemma());
-                enrichSensesSets(synSource, wnSenses);
-                enrichSensesSets(synTarget, wnSenses);
-            }
+    private void findMultiwordsAmong(INode targetNode, IAtomicConceptOfLabel synSource) throws ContextPreprocessorException {
+        for (Iterator<IAtomicConceptOfLabel> k = targetNode.getNodeData().getACoLs(); k.hasNext(); ) {
+            IAtomicConceptOfLabel synTarget = k.next();
+            List<ISense> wnSenses = checkMW(synSource.getLemma(), synTarget.getLemma());
+            enrichSensesSets(synSource, wnSenses);
+            enrichSensesSets(synTarget, wnSenses);
         }
     }
 
@@ -635,6 +641,8 @@ public class ContextPreprocessorIt extends Configurable implements IContextPrepr
     private void senseFiltering(IContext context) throws SenseMatcherException {
         HashMap<IAtomicConceptOfLabel, List<ISense>> refinedSenses = new HashMap<IAtomicConceptOfLabel, List<ISense>>();
 
+        final TreeIndex<INode> index = context.getTreeIndex();
+        final int[] descendants = new int[index.size()];
         for (Iterator<INode> i = context.getNodes(); i.hasNext(); ) {
             INode sourceNode = i.next();
             // if node is complex
@@ -666,14 +674,20 @@ public class ContextPreprocessorIt extends Configurable implements IContextPrepr
             }
             // sense disambiguation within the context structure
             // for all ACoLs in the source node
+            final int number = index.getNumber(sourceNode);
+            final int descendantCount = index.getDescendantsBreadthFirst(number, descendants);
             for (Iterator<IAtomicConceptOfLabel> j = sourceNode.getNodeData().getACoLs(); j.hasNext(); ) {
                 IAtomicConceptOfLabel sourceACoL = j.next();
                 if (!refinedSenses.containsKey(sourceACoL)) {
                     for (Iterator<ISense> s = sourceACoL.getSenses(); s.hasNext(); ) {
                         ISense sourceSense = s.next();
                         // for all target nodes (ancestors and descendants)
-                        senseFilteringAmong(sourceNode.getDescendants(), sourceSense, sourceACoL, refinedSenses);
-                        senseFilteringAmong(sourceNode.getAncestors(), sourceSense, sourceACoL, refinedSenses);
+                        for (int d = 0; d < descendantCount; d++) {
+                            senseFilteringAmong(index.getNode(descendants[d]), sourceSense, sourceACoL, refinedSenses);
+                        }
+                        for (int a = index.getParent(number); 0 <= a; a = index.getParent(a)) {
+                            senseFilteringAmong(index.getNode(a), sourceSense, sourceACoL, refinedSenses);
+                        }
                     }
                 }
             }
@@ -707,22 +721,19 @@ public class ContextPreprocessorIt extends Configurable implements IContextPrepr
         refinedSenses.put(acol, senses);
     }
 
-    private void senseFilteringAmong(Iterator<INode> i, ISense sourceSense, IAtomicConceptOfLabel sourceACoL, HashMap<IAtomicConceptOfLabel, List<ISense>> refinedSenses) throws SenseMatcherException {
-        while (i.hasNext()) {
-            INode targetNode = i.next();
-            for (Iterator<IAtomicConceptOfLabel> k = targetNode.getNodeData().getACoLs(); k.hasNext(); ) {
-                IAtomicConceptOfLabel targetACoL = k.next();
-                if (null == refinedSenses.get(targetACoL)) {
-                    for (Iterator<ISense> t = targetACoL.getSenses(); t.hasNext(); ) {
-                        ISense targetSense = t.next();
-                        // Check whether each sense not synonym or more general, less general then the senses of
-                        // the ancestors and descendants of the node in context hierarchy
-                        if ((senseMatcher.isSourceSynonymTarget(sourceSense, targetSense)) ||
-                                (senseMatcher.isSourceLessGeneralThanTarget(sourceSense, targetSense)) ||
-                                (senseMatcher.isSourceMoreGeneralThanTarget(sourceSense, targetSense))) {
-                            addToRefinedSenses(refinedSenses, sourceACoL, sourceSense);
-                            addToRefinedSenses(refinedSenses, targetACoL, targetSense);
-                        }
+    private void senseFilteringAmong(INode targetNode, ISense sourceSense, IAtomicConceptOfLabel sourceACoL, HashMap<IAtomicConceptOfLabel, List<ISense>> refinedSenses) throws SenseMatcherException {
+        for (Iterator<IAtomicConceptOfLabel> k = targetNode.getNodeData().getACoLs(); k.hasNext(); ) {
+            IAtomicConceptOfLabel targetACoL = k.next();
+            if (null == refinedSenses.get(targetACoL)) {
+                for (Iterator<ISense> t = targetACoL.getSenses(); t.hasNext(); ) {
+                    ISense targetSense = t.next();
+                    // Check whether each sense not synonym or more general, less general then the senses of
+                    // the ancestors and descendants of the node in context hierarchy
+                    if ((senseMatcher.isSourceSynonymTarget(sourceSense, targetSense)) ||
+                            (senseMatcher.isSourceLessGeneralThanTarget(sourceSense, targetSense)) ||
+                            (senseMatcher.isSourceMoreGeneralThanTarget(sourceSense, targetSense))) {
+                        addToRefinedSenses(refinedSenses, sourceACoL, sourceSense);
+                        addToRefinedSenses(refinedSenses, targetACoL, targetSense);
                     }
                 }
             }
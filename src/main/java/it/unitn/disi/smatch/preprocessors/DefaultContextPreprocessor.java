@@ -7,6 +7,7 @@ import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
 import it.unitn.disi.smatch.data.ling.ISense;
 import it.unitn.disi.smatch.data.trees.IContext;
 import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.data.trees.TreeIndex;
 import it.unitn.disi.smatch.oracles.ILinguisticOracle;
 import it.unitn.disi.smatch.oracles.ISenseMatcher;
 import it.unitn.disi.smatch.oracles.LinguisticOracleException;
@@ -27,7 +28,7 @@ import java.util.*;
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  * @author Moaz Reyad <reyad@disi.unitn.it>
  */
-public class DefaultContextPreprocessor extends Configurable implements IContextPreprocessor {
+public class DefaultContextPreprocessor extends Configurable implements IContextPreprocessor, IIncrementalContextPreprocessor {
 
     private static final Logger log = Logger.getLogger(DefaultContextPreprocessor.class);
 
@@ -137,15 +138,36 @@ public class DefaultContextPreprocessor extends Configurable implements IContext
         // construct cLabs
         context = buildCLabs(context);
         // sense filtering
-        context = findMultiwordsInContextStructure(context);
+        context = findMultiwordsInContextStructure(context, null);
         try {
-            senseFiltering(context);
+            senseFiltering(context, null);
         } catch (SenseMatcherException e) {
             final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
             log.error(errMessage, e);
             throw new ContextPreprocessorException(errMessage, e);
         }
 
+        logUnrecognizedWords();
+    }
+
+    public void preprocess(IContext context, List<INode> nodes) throws ContextPreprocessorException {
+        unrecognizedWords.clear();
+        for (INode node : nodes) {
+            processNode(node);
+        }
+        findMultiwordsInContextStructure(context, nodes);
+        try {
+            senseFiltering(context, nodes);
+        } catch (SenseMatcherException e) {
+            final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error(errMessage, e);
+            throw new ContextPreprocessorException(errMessage, e);
+        }
+
+        logUnrecognizedWords();
+    }
+
+    private void logUnrecognizedWords() {
         log.debug("Unrecognized words: " + unrecognizedWords.size());
         if (debugUnrecognizedWords) {
             TreeSet<String> sortedWords = new TreeSet<String>(unrecognizedWords);
@@ -591,32 +613,51 @@ public class DefaultContextPreprocessor extends Configurable implements IContext
      * Finds multiwords in context.
      *
      * @param context data structure of input label
+     * @param nodes   nodes whose senses to enrich, null for all nodes
      * @return context with multiwords
      * @throws ContextPreprocessorException ContextPreprocessorException
      */
-    private IContext findMultiwordsInContextStructure(IContext context) throws ContextPreprocessorException {
-        for (Iterator<INode> i = context.getNodes(); i.hasNext(); ) {
+    private IContext findMultiwordsInContextStructure(IContext context, List<INode> nodes) throws ContextPreprocessorException {
+        final TreeIndex<INode> index = context.getTreeIndex();
+        final int[] descendants = new int[index.size()];
+        for (Iterator<INode> i = null == nodes ? context.getNodes() : nodes.iterator(); i.hasNext(); ) {
             INode sourceNode = i.next();
+            final int number = index.getNumber(sourceNode);
+            final int descendantCount = index.getDescendantsBreadthFirst(number, descendants);
             // sense disambiguation within the context structure
             // for all ACoLs in the source node
             for (Iterator<IAtomicConceptOfLabel> j = sourceNode.getNodeData().getACoLs(); j.hasNext(); ) {
                 IAtomicConceptOfLabel synSource = j.next();
                 // in all descendants and ancestors
-                findMultiwordsAmong(sourceNode.getDescendants(), synSource);
-                findMultiwordsAmong(sourceNode.getAncestors(), synSource);
+                for (int d = 0; d < descendantCount; d++) {
+                    findMultiwordsAmong(index.getNode(descendants[d]), synSource, null == nodes);
+                }
+                for (int a = index.getParent(number); 0 <= a; a = index.getParent(a)) {
+                    findMultiwordsAmong(index.getNode(a), synSource, null == nodes);
+                }
             }
         }
         return context;
     }
 
-    private void findMultiwordsAmong(Iterator<INode> i, IAtomicConceptOfLabel synSource) throws ContextPreprocessorException {
-        while (i.hasNext()) {
-            INode targetNode = i.next();
-            for (Iterator<IAtomicConceptOfLabel> k = targetNode.getNodeData().getACoLs(); k.hasNext(); ) {
-                IAtomicConceptOfLabel synTarget = k.next();
-                List<ISense> wnSenses = checkMW(synSource.getLemma(), synTarget.getLemma());
-                enrichSensesSets(synSource, wnSenses);
+    /**
+     * Enriches the senses with multiwords made of the source and the target lemmas.
+     *
+     * @param targetNode node with the target acols
+     * @param synSource  source acol
+     * @param both       whether to enrich both acols, otherwise only the source one is enriched, taking into account
+     *                   multiwords in both orders
+     * @throws ContextPreprocessorException ContextPreprocessorException
+     */
+    private void findMultiwordsAmong(INode targetNode, IAtomicConceptOfLabel synSource, boolean both) throws ContextPreprocessorException {
+        for (Iterator<IAtomicConceptOfLabel> k = targetNode.getNodeData().getACoLs(); k.hasNext(); ) {
+            IAtomicConceptOfLabel synTarget = k.next();
+            List<ISense> wnSenses = checkMW(synSource.getLemma(), synTarget.getLemma());
+            enrichSensesSets(synSource, wnSenses);
+            if (both) {
                 enrichSensesSets(synTarget, wnSenses);
+            } else {
+                enrichSensesSets(synSource, checkMW(synTarget.getLemma(), synSource.getLemma()));
             }
         }
     }
@@ -628,12 +669,15 @@ public class DefaultContextPreprocessor extends Configurable implements IContext
      * - filtering within context
      *
      * @param context context to perform sense filtering
+     * @param nodes   nodes whose senses to filter, null for all nodes
      * @throws SenseMatcherException SenseMatcherException
      */
-    private void senseFiltering(IContext context) throws SenseMatcherException {
+    private void senseFiltering(IContext context, List<INode> nodes) throws SenseMatcherException {
         HashMap<IAtomicConceptOfLabel, List<ISense>> refinedSenses = new HashMap<IAtomicConceptOfLabel, List<ISense>>();
 
-        for (Iterator<INode> i = context.getNodes(); i.hasNext(); ) {
+        final TreeIndex<INode> index = context.getTreeIndex();
+        final int[] descendants = new int[index.size()];
+        for (Iterator<INode> i = null == nodes ? context.getNodes() : nodes.iterator(); i.hasNext(); ) {
             INode sourceNode = i.next();
             // if node is complex
             if (1 < sourceNode.getNodeData().getACoLCount()) {
@@ -664,14 +708,20 @@ public class DefaultContextPreprocessor extends Configurable implements IContext
             }
             // sense disambiguation within the context structure
             // for all ACoLs in the source node
+            final int number = index.getNumber(sourceNode);
+            final int descendantCount = index.getDescendantsBreadthFirst(number, descendants);
             for (Iterator<IAtomicConceptOfLabel> j = sourceNode.getNodeData().getACoLs(); j.hasNext(); ) {
                 IAtomicConceptOfLabel sourceACoL = j.next();
                 if (!refinedSenses.containsKey(sourceACoL)) {
                     for (Iterator<ISense> s = sourceACoL.getSenses(); s.hasNext(); ) {
                         ISense sourceSense = s.next();
                         // for all target nodes (ancestors and descendants)
-                        senseFilteringAmong(sourceNode.getDescendants(), sourceSense, sourceACoL, refinedSenses);
-                        senseFilteringAmong(sourceNode.getAncestors(), sourceSense, sourceACoL, refinedSenses);
+                        for (int d = 0; d < descendantCount; d++) {
+                            senseFilteringAmong(index.getNode(descendants[d]), sourceSense, sourceACoL, refinedSenses);
+                        }
+                        for (int a = index.getParent(number); 0 <= a; a = index.getParent(a)) {
+                            senseFilteringAmong(index.getNode(a), sourceSense, sourceACoL, refinedSenses);
+                        }
                     }
                 }
             }
@@ -680,7 +730,7 @@ public class DefaultContextPreprocessor extends Configurable implements IContext
         // Loop on senses of the all concepts and assign to them
         // senses mark as refined on the previous step
         // If there are no refined senses save the original ones
-        for (Iterator<INode> i = context.getNodes(); i.hasNext(); ) {
+        for (Iterator<INode> i = null == nodes ? context.getNodes() : nodes.iterator(); i.hasNext(); ) {
             for (Iterator<IAtomicConceptOfLabel> j = i.next().getNodeData().getACoLs(); j.hasNext(); ) {
                 IAtomicConceptOfLabel acol = j.next();
                 List<ISense> refined = refinedSenses.get(acol);
@@ -705,22 +755,19 @@ public class DefaultContextPreprocessor extends Configurable implements IContext
         refinedSenses.put(acol, senses);
     }
 
-    private void senseFilteringAmong(Iterator<INode> i, ISense sourceSense, IAtomicConceptOfLabel sourceACoL, HashMap<IAtomicConceptOfLabel, List<ISense>> refinedSenses) throws SenseMatcherException {
-        while (i.hasNext()) {
-            INode targetNode = i.next();
-            for (Iterator<IAtomicConceptOfLabel> k = targetNode.getNodeData().getACoLs(); k.hasNext(); ) {
-                IAtomicConceptOfLabel targetACoL = k.next();
-                if (null == refinedSenses.get(targetACoL)) {
-                    for (Iterator<ISense> t = targetACoL.getSenses(); t.hasNext(); ) {
-                        ISense targetSense = t.next();
-                        // Check whether each sense not synonym or more general, less general then the senses of
-                        // the ancestors and descendants of the node in context hierarchy
-                        if ((senseMatcher.isSourceSynonymTarget(sourceSense, targetSense)) ||
-                                (senseMatcher.isSourceLessGeneralThanTarget(sourceSense, targetSense)) ||
-                                (senseMatcher.isSourceMoreGeneralThanTarget(sourceSense, targetSense))) {
-                            addToRefinedSenses(refinedSenses, sourceACoL, sourceSense);
-                            addToRefinedSenses(refinedSenses, targetACoL, targetSense);
-                        }
+    private void senseFilteringAmong(INode targetNode, ISense sourceSense, IAtomicConceptOfLabel sourceACoL, HashMap<IAtomicConceptOfLabel, List<ISense>> refinedSenses) throws SenseMatcherException {
+        for (Iterator<IAtomicConceptOfLabel> k = targetNode.getNodeData().getACoLs(); k.hasNext(); ) {
+            IAtomicConceptOfLabel targetACoL = k.next();
+            if (null == refinedSenses.get(targetACoL)) {
+                for (Iterator<ISense> t = targetACoL.getSenses(); t.hasNext(); ) {
+                    ISense targetSense = t.next();
+                    // Check whether each sense not synonym or more general, less general then the senses of
+                    // the ancestors and descendants of the node in context hierarchy
+                    if ((senseMatcher.isSourceSynonymTarget(sourceSense, targetSense)) ||
+                            (senseMatcher.isSourceLessGeneralThanTarget(sourceSense, targetSense)) ||
+                            (senseMatcher.isSourceMoreGeneralThanTarget(sourceSense, targetSense))) {
+                        addToRefinedSenses(refinedSenses, sourceACoL, sourceSense);
+                        addToRefinedSenses(refinedSenses, targetACoL, targetSense);
                     }
                 }
             }
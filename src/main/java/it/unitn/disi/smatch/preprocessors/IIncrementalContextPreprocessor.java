@@ -0,0 +1,25 @@
+package it.unitn.disi.smatch.preprocessors;
+
+import it.unitn.disi.smatch.data.trees.IContext;
+import it.unitn.disi.smatch.data.trees.INode;
+
+import java.util.List;
+
+/**
+ * An interface to context preprocessors which can preprocess some nodes of an already preprocessed context, for
+ * example after their labels changed, leaving the atomic concepts of other nodes as they are.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public interface IIncrementalContextPreprocessor {
+
+    /**
+     * Translates natural language labels of the nodes into logical formulas. Senses of the nodes are disambiguated
+     * with respect to their ancestors and descendants, whose senses are not changed.
+     *
+     * @param context context with the nodes
+     * @param nodes   nodes to be preprocessed
+     * @throws ContextPreprocessorException ContextPreprocessorException
+     */
+    void preprocess(IContext context, List<INode> nodes) throws ContextPreprocessorException;
+}
@@ -39,14 +39,17 @@ public class BaseSimpleXMLContextRenderer<E extends IBaseContext<? extends IBase
             serializer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
             hd.setResult(streamResult);
             hd.startDocument();
-            hd.startElement("", "", "context", new AttributesImpl());
-
             if (null == context.getRoot()) {
                 final String errMessage = "Cannot render context without root node";
                 log.error(errMessage);
                 throw new ContextRendererException(errMessage);
             }
 
+            // node and children counts let loaders size their storage
+            AttributesImpl contextAtts = new AttributesImpl();
+            contextAtts.addAttribute("", "", "nodes", "CDATA", Integer.toString(context.getNodesList().size()));
+            hd.startElement("", "", "context", contextAtts);
+
             renderNode(hd, context.getRoot());
 
             hd.endElement("", "", "context");
@@ -78,7 +81,9 @@ public class BaseSimpleXMLContextRenderer<E extends IBaseContext<? extends IBase
         renderNodeContents(curNode, hd);
 
         if (0 < curNode.getChildCount()) {
-            hd.startElement("", "", "children", new AttributesImpl());
+            AttributesImpl childrenAtts = new AttributesImpl();
+            childrenAtts.addAttribute("", "", "count", "CDATA", Integer.toString(curNode.getChildCount()));
+            hd.startElement("", "", "children", childrenAtts);
             Iterator<INode> children;
             if (sort) {
                 ArrayList<INode> childrenList = new ArrayList<INode>(curNode.getChildrenList());
@@ -0,0 +1,223 @@
+package it.unitn.disi.smatch.renderers.context;
+
+import it.unitn.disi.smatch.data.formulas.CNFFormula;
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.ling.ISense;
+import it.unitn.disi.smatch.data.trees.IContext;
+import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.data.trees.INodeData;
+import it.unitn.disi.smatch.loaders.ILoader;
+import it.unitn.disi.smatch.loaders.context.BinaryContextLoader;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Renders a context into a binary snapshot, which {@link BinaryContextLoader} memory-maps. Meant for preprocessed
+ * contexts, which are loaded many times: the snapshot keeps the acols with their senses and the concept at node
+ * formulas together with their compiled form. See {@link BinaryContextLoader} for the format.
+ * <p/>
+ * The file is written under a temporary name and renamed, so a snapshot can replace one which is loaded at the
+ * moment.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class BinaryContextRenderer extends BaseContextRenderer<IContext> implements IContextRenderer {
+
+    private static final Logger log = Logger.getLogger(BinaryContextRenderer.class);
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    // string table being built
+    private ArrayList<String> strings;
+    private HashMap<String, Integer> stringNumbers;
+
+    @Override
+    protected void process(IContext context, String fileName) throws ContextRendererException {
+        if (null == context.getRoot()) {
+            final String errMessage = "Cannot render context without root node";
+            log.error(errMessage);
+            throw new ContextRendererException(errMessage);
+        }
+
+        final File file = new File(fileName);
+        final File tempFile = new File(fileName + ".tmp");
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), 1 << 16));
+            try {
+                write(context, out);
+            } finally {
+                out.close();
+            }
+            if (file.exists() && !file.delete()) {
+                throw new IOException("Cannot replace " + fileName);
+            }
+            if (!tempFile.renameTo(file)) {
+                throw new IOException("Cannot rename " + tempFile + " to " + fileName);
+            }
+        } catch (IOException e) {
+            final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error(errMessage, e);
+            throw new ContextRendererException(errMessage, e);
+        } finally {
+            strings = null;
+            stringNumbers = null;
+        }
+    }
+
+    private void write(IContext context, DataOutputStream out) throws IOException {
+        strings = new ArrayList<String>();
+        stringNumbers = new HashMap<String, Integer>();
+
+        final List<INode> nodeList = context.getNodesList();
+        final IdentityHashMap<INode, Integer> numbers = new IdentityHashMap<INode, Integer>(nodeList.size());
+        final ByteArrayOutputStream nodeBytes = new ByteArrayOutputStream(4 * BinaryContextLoader.NODE_SIZE * nodeList.size());
+        final DataOutputStream nodes = new DataOutputStream(nodeBytes);
+        final ByteArrayOutputStream acolBytes = new ByteArrayOutputStream();
+        final DataOutputStream acols = new DataOutputStream(acolBytes);
+        final ByteArrayOutputStream clauseBytes = new ByteArrayOutputStream();
+        final DataOutputStream clauses = new DataOutputStream(clauseBytes);
+        final ByteArrayOutputStream literalBytes = new ByteArrayOutputStream();
+        final DataOutputStream literals = new DataOutputStream(literalBytes);
+        final ByteArrayOutputStream senseBytes = new ByteArrayOutputStream();
+        final DataOutputStream senses = new DataOutputStream(senseBytes);
+
+        int acolCount = 0;
+        int senseCount = 0;
+        int clauseCount = 0;
+        int literalCount = 0;
+        for (INode node : nodeList) {
+            numbers.put(node, numbers.size());
+            final INodeData nd = node.getNodeData();
+            nodes.writeInt(node.hasParent() ? numbers.get(node.getParent()) : -1);
+            nodes.writeInt(getStringNumber(nd.getName()));
+            nodes.writeInt(getStringNumber(nd.getId()));
+            nodes.writeInt(getStringNumber(nd.getProvenance()));
+            nodes.writeInt(getStringNumber(nd.getcLabFormula()));
+            nodes.writeInt(getStringNumber(nd.getcNodeFormula()));
+            nodes.writeInt(nd.getIsPreprocessed() ? BinaryContextLoader.PREPROCESSED_FLAG : 0);
+
+            for (IAtomicConceptOfLabel acol : nd.getACoLsList()) {
+                acols.writeInt(acol.getId());
+                acols.writeInt(getStringNumber(acol.getToken()));
+                acols.writeInt(getStringNumber(acol.getLemma()));
+                for (ISense sense : acol.getSenseList()) {
+                    senses.writeLong(getSenseCode(sense.getId()));
+                    senseCount++;
+                }
+                acols.writeInt(senseCount);
+                acolCount++;
+            }
+            nodes.writeInt(acolCount);
+
+            CNFFormula formula = null;
+            try {
+                formula = nd.getcNodeClauses();
+            } catch (IllegalArgumentException e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Formula is not compiled: " + e.getMessage());
+                }
+            }
+            if (null == formula) {
+                nodes.writeInt(-1);
+                nodes.writeInt(0);
+            } else {
+                for (int c = 0; c < formula.getClauseCount(); c++) {
+                    for (int l = formula.getClauseStart(c); l < formula.getClauseEnd(c); l++) {
+                        literals.writeInt(formula.getLiteral(l));
+                        literalCount++;
+                    }
+                    clauses.writeInt(literalCount);
+                    clauseCount++;
+                }
+                nodes.writeInt(clauseCount);
+                nodes.writeInt(formula.getVariableCount());
+            }
+            reportProgress();
+        }
+
+        final byte[][] stringBytes = new byte[strings.size()][];
+        int stringByteCount = 0;
+        for (int i = 0; i < stringBytes.length; i++) {
+            stringBytes[i] = strings.get(i).getBytes(UTF8);
+            stringByteCount += stringBytes[i].length;
+        }
+
+        out.writeLong(BinaryContextLoader.MAGIC);
+        out.writeInt(BinaryContextLoader.VERSION);
+        out.writeInt(nodeList.size());
+        out.writeInt(acolCount);
+        out.writeInt(senseCount);
+        out.writeInt(clauseCount);
+        out.writeInt(literalCount);
+        out.writeInt(stringBytes.length);
+        out.writeInt(stringByteCount);
+        nodeBytes.writeTo(out);
+        acolBytes.writeTo(out);
+        clauseBytes.writeTo(out);
+        literalBytes.writeTo(out);
+        senseBytes.writeTo(out);
+        int stringEnd = 0;
+        for (byte[] bytes : stringBytes) {
+            stringEnd += bytes.length;
+            out.writeInt(stringEnd);
+        }
+        for (byte[] bytes : stringBytes) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Packs WordNet-like sense ids, a part of speech key, # and an offset, into a long, and refers to other ids
+     * through the string table.
+     *
+     * @param id sense id
+     * @return sense code
+     */
+    private long getSenseCode(String id) {
+        if (3 <= id.length() && 1 == id.indexOf('#') && id.length() <= 12) {
+            long offset = 0;
+            boolean digits = true;
+            for (int i = 2; i < id.length() && digits; i++) {
+                final char c = id.charAt(i);
+                digits = '0' <= c && c <= '9';
+                offset = 10 * offset + (c - '0');
+            }
+            if (digits && offset <= 0xFFFFFFFFL && '0' != id.charAt(2)) {
+                return ((long) id.charAt(0) << 32) | offset;
+            }
+        }
+        return -(getStringNumber(id) + 1L);
+    }
+
+    private int getStringNumber(String s) {
+        if (null == s) {
+            return -1;
+        }
+        Integer result = stringNumbers.get(s);
+        if (null == result) {
+            result = strings.size();
+            strings.add(s);
+            stringNumbers.put(s, result);
+        }
+        return result;
+    }
+
+    public String getDescription() {
+        return ILoader.BIN_FILES;
+    }
+
+    public ILoader.LoaderType getType() {
+        return ILoader.LoaderType.FILE;
+    }
+}
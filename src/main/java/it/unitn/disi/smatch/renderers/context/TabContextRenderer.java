@@ -14,14 +14,13 @@ import java.util.Iterator;
  *
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
-public class TabContextRenderer extends BaseFileContextRenderer<IBaseContext<IBaseNode<IBaseNode, IBaseNodeData>>> {
+public class TabContextRenderer<E extends IBaseNode<E, ?>> extends BaseFileContextRenderer<IBaseContext<E>> {
 
-    @SuppressWarnings({"unchecked"})
-    protected void process(IBaseContext<IBaseNode<IBaseNode, IBaseNodeData>> context, BufferedWriter out) throws IOException, ContextRendererException {
-        ArrayList<IBaseNode<IBaseNode, IBaseNodeData>> nodeQ = new ArrayList<IBaseNode<IBaseNode, IBaseNodeData>>();
+    protected void process(IBaseContext<E> context, BufferedWriter out) throws IOException, ContextRendererException {
+        ArrayList<E> nodeQ = new ArrayList<E>();
         String level = "";
         nodeQ.add(context.getRoot());
-        IBaseNode<IBaseNode, IBaseNodeData> curNode;
+        E curNode;
         String line;
         while (!nodeQ.isEmpty()) {
             curNode = nodeQ.remove(0);
@@ -35,9 +34,9 @@ public class TabContextRenderer extends BaseFileContextRenderer<IBaseContext<IBa
                 if (curNode.getChildCount() > 0) {
                     level = level + "\t";
                     nodeQ.add(0, null);
-                    Iterator<IBaseNode> children;
+                    Iterator<E> children;
                     if (sort) {
-                        ArrayList<IBaseNode> childrenList = new ArrayList<IBaseNode>(curNode.getChildrenList());
+                        ArrayList<E> childrenList = new ArrayList<E>(curNode.getChildrenList());
                         Collections.sort(childrenList, Node.NODE_NAME_COMPARATOR);
                         children = childrenList.iterator();
                     } else {
@@ -14,13 +14,12 @@ import java.util.Iterator;
  *
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
-public class TabPathContextRenderer extends BaseFileContextRenderer<IBaseContext<IBaseNode<IBaseNode, IBaseNodeData>>> {
+public class TabPathContextRenderer<E extends IBaseNode<E, ?>> extends BaseFileContextRenderer<IBaseContext<E>> {
 
-    @SuppressWarnings({"unchecked"})
-    protected void process(IBaseContext<IBaseNode<IBaseNode, IBaseNodeData>> context, BufferedWriter out) throws IOException, ContextRendererException {
-        ArrayList<IBaseNode<IBaseNode, IBaseNodeData>> nodeQ = new ArrayList<IBaseNode<IBaseNode, IBaseNodeData>>();
+    protected void process(IBaseContext<E> context, BufferedWriter out) throws IOException, ContextRendererException {
+        ArrayList<E> nodeQ = new ArrayList<E>();
         nodeQ.add(context.getRoot());
-        IBaseNode<IBaseNode, IBaseNodeData> curNode;
+        E curNode;
         while (!nodeQ.isEmpty()) {
             curNode = nodeQ.remove(0);
             if (0 == curNode.getChildCount()) {
@@ -28,9 +27,9 @@ public class TabPathContextRenderer extends BaseFileContextRenderer<IBaseContext
             }
             reportProgress();
             if (curNode.getChildCount() > 0) {
-                Iterator<IBaseNode> children;
+                Iterator<E> children;
                 if (sort) {
-                    ArrayList<IBaseNode> childrenList = new ArrayList<IBaseNode>(curNode.getChildrenList());
+                    ArrayList<E> childrenList = new ArrayList<E>(curNode.getChildrenList());
                     Collections.sort(childrenList, Node.NODE_NAME_COMPARATOR);
                     children = childrenList.iterator();
                 } else {
@@ -44,9 +43,9 @@ public class TabPathContextRenderer extends BaseFileContextRenderer<IBaseContext
         reportStats(context);
     }
 
-    private String getPathToRoot(IBaseNode node) {
+    private String getPathToRoot(E node) {
         StringBuilder result = new StringBuilder(node.getNodeData().getName());
-        IBaseNode curNode = node.getParent();
+        E curNode = node.getParent();
         while (null != curNode) {
             result.insert(0, curNode.getNodeData().getName() + "\t");
             curNode = curNode.getParent();
@@ -4,6 +4,7 @@ import it.unitn.disi.smatch.SMatchConstants;
 import it.unitn.disi.common.components.Configurable;
 import it.unitn.disi.common.components.ConfigurableException;
 import it.unitn.disi.smatch.data.mappings.IContextMapping;
+import it.unitn.disi.smatch.data.mappings.IMappingCursor;
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
 import it.unitn.disi.smatch.data.trees.INode;
 import it.unitn.disi.smatch.loaders.ILoader;
@@ -134,20 +135,21 @@ public class AlignAPIMappingRenderer extends Configurable implements IMappingRen
                 renderOntology(hd, "1", onto1URI, onto1Location);
                 renderOntology(hd, "2", onto2URI, onto2Location);
 
-                for (IMappingElement<INode> mappingElement : mapping) {
+                final IMappingCursor<INode> cursor = mapping.cursor();
+                while (cursor.next()) {
                     hd.startElement("", "", "map", new AttributesImpl());
                     hd.startElement("", "", "Cell", new AttributesImpl());
 
                     atts = new AttributesImpl();
-                    atts.addAttribute("", "", "rdf:resource", "CDATA", onto1URI + "#" + mappingElement.getSource().getNodeData().getId());
+                    atts.addAttribute("", "", "rdf:resource", "CDATA", onto1URI + "#" + cursor.getSource().getNodeData().getId());
                     hd.startElement("", "", "entity1", atts);
                     hd.endElement("", "", "entity1");
                     atts = new AttributesImpl();
 
-                    atts.addAttribute("", "", "rdf:resource", "CDATA", onto2URI + "#" + mappingElement.getTarget().getNodeData().getId());
+                    atts.addAttribute("", "", "rdf:resource", "CDATA", onto2URI + "#" + cursor.getTarget().getNodeData().getId());
                     hd.startElement("", "", "entity2", atts);
                     hd.endElement("", "", "entity2");
-                    char relation = mappingElement.getRelation();
+                    char relation = cursor.getRelation();
 
                     hd.startElement("", "", "relation", new AttributesImpl());
                     hd.characters(new char[]{relation}, 0, 1);
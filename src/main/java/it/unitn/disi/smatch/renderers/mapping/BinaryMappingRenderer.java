@@ -0,0 +1,316 @@
+package it.unitn.disi.smatch.renderers.mapping;
+
+import it.unitn.disi.smatch.data.mappings.IContextMapping;
+import it.unitn.disi.smatch.data.mappings.IMappingCursor;
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.data.mappings.MatrixMapping;
+import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.data.trees.TreeIndex;
+import it.unitn.disi.smatch.loaders.ILoader;
+import it.unitn.disi.smatch.loaders.mapping.BinaryMappingLoader;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Renders the mapping into a binary file, which {@link BinaryMappingLoader} memory-maps. Links are written as node
+ * numbers in sorted and delta-compressed blocks, usually in two or three bytes per link. See
+ * {@link BinaryMappingLoader} for the format.
+ * <p/>
+ * Links of matrix mappings are read row by row, in the order of the source numbers, and only the links of one source
+ * are sorted at a time. Links of other mappings are collected and sorted at once.
+ * <p/>
+ * The file is written under a temporary name and renamed, so a mapping can replace one which is loaded at the
+ * moment.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class BinaryMappingRenderer extends BaseMappingRenderer implements IMappingRenderer {
+
+    private static final Logger log = Logger.getLogger(BinaryMappingRenderer.class);
+
+    // targets are shifted to make room for the relation code
+    private static final int MAX_TARGET_COUNT = 1 << 28;
+
+    @Override
+    protected void process(IContextMapping<INode> mapping, String outputFile) throws MappingRendererException {
+        final TreeIndex<INode> sourceIndex = mapping.getSourceContext().getTreeIndex();
+        final TreeIndex<INode> targetIndex = mapping.getTargetContext().getTreeIndex();
+        if (MAX_TARGET_COUNT <= targetIndex.size()) {
+            final String errMessage = "Target context is too large: " + targetIndex.size() + " nodes";
+            log.error(errMessage);
+            throw new MappingRendererException(errMessage);
+        }
+
+        final File file = new File(outputFile);
+        final File tempFile = new File(outputFile + ".tmp");
+        try {
+            if (mapping instanceof MatrixMapping) {
+                // rows are read directly
+                write(tempFile, mapping, sourceIndex, targetIndex, null);
+            } else {
+                write(tempFile, mapping, sourceIndex, targetIndex, getLinks(mapping, sourceIndex, targetIndex));
+            }
+
+            if (file.exists() && !file.delete()) {
+                throw new IOException("Cannot replace " + outputFile);
+            }
+            if (!tempFile.renameTo(file)) {
+                throw new IOException("Cannot rename " + tempFile + " to " + outputFile);
+            }
+        } catch (IOException e) {
+            final String errMessage = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error(errMessage, e);
+            throw new MappingRendererException(errMessage, e);
+        }
+    }
+
+    /**
+     * Writes the mapping into the file. Without sorted links, the links are read from the mapping source by source
+     * and only the links of one source are sorted.
+     *
+     * @param file        file to write
+     * @param mapping     mapping
+     * @param sourceIndex source tree index
+     * @param targetIndex target tree index
+     * @param links       sorted links or null to read them from the mapping source by source
+     * @throws IOException              IOException
+     * @throws MappingRendererException MappingRendererException
+     */
+    private void write(File file, IContextMapping<INode> mapping, TreeIndex<INode> sourceIndex, TreeIndex<INode> targetIndex,
+                          long[] links) throws IOException, MappingRendererException {
+        final BlockWriter writer;
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        try {
+            out.writeLong(BinaryMappingLoader.MAGIC);
+            out.writeInt(BinaryMappingLoader.VERSION);
+            out.writeInt(sourceIndex.size());
+            out.writeInt(targetIndex.size());
+            // counts and the offset of the index are written when they are known
+            out.writeInt(0);
+            out.writeLong(BinaryMappingLoader.getFingerprint(sourceIndex));
+            out.writeLong(BinaryMappingLoader.getFingerprint(targetIndex));
+            out.writeLong(0);
+            out.writeLong(0);
+
+            writer = new BlockWriter(out);
+            if (null == links) {
+                writeRows(writer, mapping, sourceIndex, targetIndex);
+            } else {
+                for (long link : links) {
+                    writer.write(getSource(link), (int) link);
+                }
+            }
+            writer.finish();
+        } finally {
+            out.close();
+        }
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.seek(20);
+            raf.writeInt(writer.blockCount);
+            raf.seek(BinaryMappingLoader.HEADER_SIZE - 16);
+            raf.writeLong(writer.linkCount);
+            raf.writeLong(writer.offset);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Writes the links source by source, in the order of the source numbers, sorting the links of each source by
+     * target.
+     *
+     * @param writer      block writer
+     * @param mapping     mapping
+     * @param sourceIndex source tree index
+     * @param targetIndex target tree index
+     * @throws IOException              IOException
+     * @throws MappingRendererException MappingRendererException
+     */
+    private void writeRows(BlockWriter writer, IContextMapping<INode> mapping, TreeIndex<INode> sourceIndex,
+                           TreeIndex<INode> targetIndex) throws IOException, MappingRendererException {
+        // targets and relation codes of the links of the source
+        int[] row = new int[16];
+        for (int s = 0; s < sourceIndex.size(); s++) {
+            final List<IMappingElement<INode>> links = mapping.getSources(sourceIndex.getNode(s));
+            if (row.length < links.size()) {
+                row = new int[Math.max(links.size(), 2 * row.length)];
+            }
+            for (int i = 0; i < links.size(); i++) {
+                final IMappingElement<INode> link = links.get(i);
+                row[i] = getTarget(link.getSource(), link.getTarget(), link.getRelation(), s, targetIndex);
+
+                countRelation(link.getRelation());
+                reportProgress();
+            }
+            Arrays.sort(row, 0, links.size());
+            for (int i = 0; i < links.size(); i++) {
+                writer.write(s, row[i]);
+            }
+        }
+        if (counter != mapping.size()) {
+            final String errMessage = "Cannot render links of nodes missing from the contexts";
+            log.error(errMessage);
+            throw new MappingRendererException(errMessage);
+        }
+    }
+
+    /**
+     * Collects the links of the mapping and sorts them.
+     *
+     * @param mapping     mapping
+     * @param sourceIndex source tree index
+     * @param targetIndex target tree index
+     * @return sorted links
+     * @throws MappingRendererException MappingRendererException
+     */
+    private long[] getLinks(IContextMapping<INode> mapping, TreeIndex<INode> sourceIndex, TreeIndex<INode> targetIndex) throws MappingRendererException {
+        long[] result = new long[mapping.size()];
+        int count = 0;
+        final IMappingCursor<INode> cursor = mapping.cursor();
+        while (cursor.next()) {
+            if (result.length == count) {
+                result = Arrays.copyOf(result, 2 * count + 1);
+            }
+            final int s = sourceIndex.getNumber(cursor.getSource());
+            result[count] = ((long) s << 32) | getTarget(cursor.getSource(), cursor.getTarget(), cursor.getRelation(), s, targetIndex);
+            count++;
+
+            countRelation(cursor.getRelation());
+            reportProgress();
+        }
+        if (result.length != count) {
+            result = Arrays.copyOf(result, count);
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Packs the target of the link with the relation code: target number shifted by 3 bits with the relation code in
+     * the lower bits.
+     *
+     * @param source       source node
+     * @param target       target node
+     * @param relation     relation
+     * @param sourceNumber source number
+     * @param targetIndex  target tree index
+     * @return the packed target
+     * @throws MappingRendererException MappingRendererException
+     */
+    private static int getTarget(INode source, INode target, char relation, int sourceNumber, TreeIndex<INode> targetIndex) throws MappingRendererException {
+        final int code = BinaryMappingLoader.RELATIONS.indexOf(relation);
+        final int t = targetIndex.getNumber(target);
+        if (-1 == code || -1 == sourceNumber || -1 == t) {
+            final String errMessage = "Cannot render link " + source.getNodeData().getName() + " " + relation + " " + target.getNodeData().getName();
+            log.error(errMessage);
+            throw new MappingRendererException(errMessage);
+        }
+        return (t << 3) | code;
+    }
+
+    /**
+     * Writes sorted links into blocks and collects the block index.
+     */
+    private static final class BlockWriter {
+
+        private final DataOutputStream out;
+
+        private long offset = BinaryMappingLoader.HEADER_SIZE;
+        private long linkCount = 0;
+        private int blockCount = 0;
+
+        // first source, last source, link count and offset of the blocks
+        private int[] firstSources = new int[16];
+        private int[] lastSources = new int[16];
+        private int[] counts = new int[16];
+        private long[] starts = new long[16];
+
+        private int prevSource;
+        private int prevTarget;
+
+        private BlockWriter(DataOutputStream out) {
+            this.out = out;
+        }
+
+        /**
+         * Writes a link.
+         *
+         * @param source source number
+         * @param target target number shifted by 3 bits with the relation code in the lower bits
+         * @throws IOException IOException
+         */
+        private void write(int source, int target) throws IOException {
+            if (0 == blockCount || BinaryMappingLoader.BLOCK_SIZE == counts[blockCount - 1]) {
+                if (firstSources.length == blockCount) {
+                    firstSources = Arrays.copyOf(firstSources, 2 * blockCount);
+                    lastSources = Arrays.copyOf(lastSources, 2 * blockCount);
+                    counts = Arrays.copyOf(counts, 2 * blockCount);
+                    starts = Arrays.copyOf(starts, 2 * blockCount);
+                }
+                firstSources[blockCount] = source;
+                starts[blockCount] = offset;
+                blockCount++;
+                prevSource = source;
+                prevTarget = -1;
+            }
+            final int t = target >>> 3;
+            if (source != prevSource) {
+                prevTarget = -1;
+            }
+            offset += writeVarInt(out, source - prevSource);
+            offset += writeVarInt(out, ((t - prevTarget - 1) << 3) | (target & 7));
+            prevSource = source;
+            prevTarget = t;
+            lastSources[blockCount - 1] = source;
+            counts[blockCount - 1]++;
+            linkCount++;
+        }
+
+        /**
+         * Writes the block index, which starts at the current offset.
+         *
+         * @throws IOException IOException
+         */
+        private void finish() throws IOException {
+            for (int b = 0; b < blockCount; b++) {
+                out.writeInt(firstSources[b]);
+                out.writeInt(lastSources[b]);
+                out.writeInt(counts[b]);
+                out.writeLong(starts[b]);
+            }
+        }
+    }
+
+    private static int getSource(long link) {
+        return (int) (link >>> 32);
+    }
+
+    private static int writeVarInt(DataOutputStream out, int value) throws IOException {
+        int result = 1;
+        while (0 != (value & ~0x7F)) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+            result++;
+        }
+        out.writeByte(value);
+        return result;
+    }
+
+    public String getDescription() {
+        return ILoader.BIN_FILES;
+    }
+
+    public ILoader.LoaderType getType() {
+        return ILoader.LoaderType.FILE;
+    }
+}
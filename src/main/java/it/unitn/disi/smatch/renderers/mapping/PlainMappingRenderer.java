@@ -1,10 +1,11 @@
 package it.unitn.disi.smatch.renderers.mapping;
 
 import it.unitn.disi.smatch.data.mappings.IContextMapping;
-import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.data.mappings.IMappingCursor;
+import it.unitn.disi.smatch.data.trees.IContext;
 import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.data.trees.NodePathIndex;
 import it.unitn.disi.smatch.loaders.ILoader;
-import org.apache.log4j.Logger;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
@@ -12,41 +13,71 @@ import java.io.IOException;
 /**
  * Renders the mapping in a plain text file.
  * Format: source-node tab relation target-node.
- * Source and target nodes are rendered with \ separating path to root levels.
+ * Source and target nodes are rendered with \ separating path to root levels. Paths are assembled from a
+ * {@link NodePathIndex} of each context, built once per mapping.
  *
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
 public class PlainMappingRenderer extends BaseFileMappingRenderer implements IMappingRenderer {
 
-    private static final Logger log = Logger.getLogger(PlainMappingRenderer.class);
+    // paths of the contexts being rendered
+    private NodePathIndex<INode> sourcePaths;
+    private NodePathIndex<INode> targetPaths;
+    private char[] pathBuffer;
 
     @Override
-    protected void process(IContextMapping<INode> mapping, BufferedWriter out) throws IOException {
-        for (IMappingElement<INode> mappingElement : mapping) {
-            String sourceConceptName = getNodePathToRoot(mappingElement.getSource());
-            String targetConceptName = getNodePathToRoot(mappingElement.getTarget());
-            char relation = mappingElement.getRelation();
+    protected void process(IContextMapping<INode> mapping, String outputFile) throws MappingRendererException {
+        sourcePaths = createPathIndex(mapping.getSourceContext());
+        targetPaths = createPathIndex(mapping.getTargetContext());
+        pathBuffer = new char[Math.max(sourcePaths.getMaxPathLength(), targetPaths.getMaxPathLength())];
+        try {
+            super.process(mapping, outputFile);
+        } finally {
+            sourcePaths = null;
+            targetPaths = null;
+            pathBuffer = null;
+        }
+    }
 
-            out.write(sourceConceptName + "\t" + relation + "\t" + targetConceptName + "\n");
+    @Override
+    protected void process(IContextMapping<INode> mapping, BufferedWriter out) throws IOException {
+        final IMappingCursor<INode> cursor = mapping.cursor();
+        while (cursor.next()) {
+            char relation = cursor.getRelation();
+            writeLink(out, cursor.getSource(), relation, cursor.getTarget());
 
             countRelation(relation);
             reportProgress();
         }
     }
 
-    protected String getNodePathToRoot(INode node) {
-        StringBuilder sb = new StringBuilder();
-        INode parent = node;
-        while (null != parent) {
-            if (parent.getNodeData().getName().contains("\\")) {
-                log.debug("source: replacing \\ in: " + parent.getNodeData().getName());
-                sb.insert(0, "\\" + parent.getNodeData().getName().replaceAll("\\\\", "/"));
-            } else {
-                sb.insert(0, "\\" + parent.getNodeData().getName());
-            }
-            parent = parent.getParent();
+    protected void writeLink(BufferedWriter out, INode source, char relation, INode target) throws IOException {
+        writePath(out, sourcePaths, source);
+        out.write('\t');
+        out.write(relation);
+        out.write('\t');
+        writePath(out, targetPaths, target);
+        out.write('\n');
+    }
+
+    private void writePath(BufferedWriter out, NodePathIndex<INode> paths, INode node) throws IOException {
+        final int number = paths.getTreeIndex().getNumber(node);
+        if (-1 == number) {
+            // not in the context
+            out.write(paths.getPath(node));
+        } else {
+            out.write(pathBuffer, 0, paths.getPath(number, pathBuffer));
         }
-        return sb.toString();
+    }
+
+    /**
+     * Creates the index of the node paths in this format, with \ in the node names replaced by /.
+     *
+     * @param context a context
+     * @return the index of the node paths
+     */
+    public static NodePathIndex<INode> createPathIndex(IContext context) {
+        return new NodePathIndex<INode>(context.getTreeIndex(), '\\', true, '/');
     }
 
     public String getDescription() {
@@ -1,7 +1,7 @@
 package it.unitn.disi.smatch.renderers.mapping;
 
 import it.unitn.disi.smatch.data.mappings.IContextMapping;
-import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.data.mappings.IMappingCursor;
 import it.unitn.disi.smatch.data.trees.INode;
 import org.apache.log4j.Logger;
 
@@ -19,13 +19,11 @@ public class PlainXTopMappingRenderer extends PlainMappingRenderer {
 
     @Override
     protected void process(IContextMapping<INode> mapping, BufferedWriter out) throws IOException {
-        for (IMappingElement<INode> mappingElement : mapping) {
-            if (mappingElement.getSource().hasParent() && mappingElement.getTarget().hasParent()) {
-                String sourceConceptName = getNodePathToRoot(mappingElement.getSource());
-                String targetConceptName = getNodePathToRoot(mappingElement.getTarget());
-                char relation = mappingElement.getRelation();
-
-                out.write(sourceConceptName + "\t" + relation + "\t" + targetConceptName + "\n");
+        final IMappingCursor<INode> cursor = mapping.cursor();
+        while (cursor.next()) {
+            if (cursor.getSource().hasParent() && cursor.getTarget().hasParent()) {
+                char relation = cursor.getRelation();
+                writeLink(out, cursor.getSource(), relation, cursor.getTarget());
 
                 countRelation(relation);
                 reportProgress();
@@ -1,6 +1,7 @@
 package it.unitn.disi.smatch.renderers.mapping;
 
 import it.unitn.disi.smatch.data.mappings.IContextMapping;
+import it.unitn.disi.smatch.data.mappings.IMappingCursor;
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
 import it.unitn.disi.smatch.data.trees.INode;
 import org.apache.log4j.Level;
@@ -28,12 +29,10 @@ public class RelationSortingPlainMappingRenderer extends PlainMappingRenderer {
                 log.info("Rendering: " + relation);
             }
 
-            for (IMappingElement<INode> mappingElement : mapping) {
-                if (mappingElement.getRelation() == relation) {
-                    String sourceConceptName = getNodePathToRoot(mappingElement.getSource());
-                    String targetConceptName = getNodePathToRoot(mappingElement.getTarget());
-
-                    out.write(sourceConceptName + "\t" + relation + "\t" + targetConceptName + "\n");
+            final IMappingCursor<INode> cursor = mapping.cursor();
+            while (cursor.next()) {
+                if (cursor.getRelation() == relation) {
+                    writeLink(out, cursor.getSource(), relation, cursor.getTarget());
                     relationsRendered++;
 
                     reportProgress();
@@ -1,7 +1,7 @@
 package it.unitn.disi.smatch.renderers.mapping;
 
 import it.unitn.disi.smatch.data.mappings.IContextMapping;
-import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.data.mappings.IMappingCursor;
 import it.unitn.disi.smatch.data.trees.INode;
 import it.unitn.disi.smatch.loaders.ILoader;
 import org.apache.log4j.Level;
@@ -44,12 +44,13 @@ public class SimpleXMLMappingRenderer extends BaseFileMappingRenderer {
             atts.addAttribute("", "", "similarity", "CDATA", Double.toString(mapping.getSimilarity()));
             hd.startElement("", "", "mapping", atts);
 
-            for (IMappingElement<INode> mappingElement : mapping) {
-                String sourceConceptId = mappingElement.getSource().getNodeData().getId();
-                String targetConceptId = mappingElement.getTarget().getNodeData().getId();
+            final IMappingCursor<INode> cursor = mapping.cursor();
+            while (cursor.next()) {
+                String sourceConceptId = cursor.getSource().getNodeData().getId();
+                String targetConceptId = cursor.getTarget().getNodeData().getId();
                 if (null != sourceConceptId && 0 < sourceConceptId.length() && null != targetConceptId && 0 < targetConceptId.length()) {
 
-                    char relation = mappingElement.getRelation();
+                    char relation = cursor.getRelation();
 
                     atts = new AttributesImpl();
                     atts.addAttribute("", "", "source-id", "CDATA", sourceConceptId);
@@ -61,7 +62,8 @@ public class SimpleXMLMappingRenderer extends BaseFileMappingRenderer {
                     countRelation(relation);
                 } else {
                     if (log.isEnabledFor(Level.WARN)) {
-                        log.warn("Source or Target node ID absent for mapping element: " + mappingElement);
+                        log.warn("Source or Target node ID absent for mapping element: "
+                                + cursor.getSource() + " " + cursor.getRelation() + " " + cursor.getTarget());
                     }
                 }
                 reportProgress();
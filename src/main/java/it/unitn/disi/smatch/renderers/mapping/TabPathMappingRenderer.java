@@ -1,14 +1,14 @@
 package it.unitn.disi.smatch.renderers.mapping;
 
 import it.unitn.disi.smatch.data.mappings.IContextMapping;
-import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.data.mappings.IMappingCursor;
+import it.unitn.disi.smatch.data.trees.IContext;
 import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.data.trees.NodePathIndex;
 import it.unitn.disi.smatch.loaders.ILoader;
-import org.apache.log4j.Logger;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
-import java.util.ArrayList;
 
 /**
  * Renders the mapping in a plain text file.
@@ -19,38 +19,46 @@ import java.util.ArrayList;
  */
 public class TabPathMappingRenderer extends BaseFileMappingRenderer implements IMappingRenderer {
 
-    private static final Logger log = Logger.getLogger(TabPathMappingRenderer.class);
-
     @Override
     protected void process(IContextMapping<INode> mapping, BufferedWriter out) throws IOException {
-        for (IMappingElement<INode> mappingElement : mapping) {
-            String sourceConceptName = getPathToRoot(mappingElement.getSource());
-            String targetConceptName = getPathToRoot(mappingElement.getTarget());
-            char relation = mappingElement.getRelation();
+        final NodePathIndex<INode> sourcePaths = createPathIndex(mapping.getSourceContext());
+        final NodePathIndex<INode> targetPaths = createPathIndex(mapping.getTargetContext());
+        final char[] buffer = new char[Math.max(sourcePaths.getMaxPathLength(), targetPaths.getMaxPathLength())];
+
+        final IMappingCursor<INode> cursor = mapping.cursor();
+        while (cursor.next()) {
+            char relation = cursor.getRelation();
 
-            out.write(sourceConceptName + "\t\t" + relation + "\t\t" + targetConceptName + "\n");
+            writePath(out, sourcePaths, cursor.getSource(), buffer);
+            out.write("\t\t");
+            out.write(relation);
+            out.write("\t\t");
+            writePath(out, targetPaths, cursor.getTarget(), buffer);
+            out.write('\n');
 
             countRelation(relation);
             reportProgress();
         }
     }
 
-    private String getPathToRoot(INode node) {
-        StringBuilder result = new StringBuilder();
-        ArrayList<String> path = new ArrayList<String>();
-        INode curNode = node;
-        while (null != curNode) {
-            path.add(0, curNode.getNodeData().getName());
-            curNode = curNode.getParent();
-        }
-        for (int i = 0; i < path.size(); i++) {
-            if (0 == i) {
-                result.append(path.get(i));
-            } else {
-                result.append("\t").append(path.get(i));
-            }
+    private static void writePath(BufferedWriter out, NodePathIndex<INode> paths, INode node, char[] buffer) throws IOException {
+        final int number = paths.getTreeIndex().getNumber(node);
+        if (-1 == number) {
+            // not in the context
+            out.write(paths.getPath(node));
+        } else {
+            out.write(buffer, 0, paths.getPath(number, buffer));
         }
-        return result.toString();
+    }
+
+    /**
+     * Creates the index of the node paths in this format.
+     *
+     * @param context a context
+     * @return the index of the node paths
+     */
+    public static NodePathIndex<INode> createPathIndex(IContext context) {
+        return new NodePathIndex<INode>(context.getTreeIndex(), '\t', false, '\t');
     }
 
     public String getDescription() {
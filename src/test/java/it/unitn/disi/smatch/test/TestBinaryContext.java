@@ -0,0 +1,172 @@
+package it.unitn.disi.smatch.test;
+
+import it.unitn.disi.common.components.Configurable;
+import it.unitn.disi.smatch.data.formulas.CNFFormula;
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.ling.ISense;
+import it.unitn.disi.smatch.data.ling.Sense;
+import it.unitn.disi.smatch.data.trees.Context;
+import it.unitn.disi.smatch.data.trees.IContext;
+import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.data.trees.INodeData;
+import it.unitn.disi.smatch.loaders.context.BinaryContextLoader;
+import it.unitn.disi.smatch.oracles.ILinguisticOracle;
+import it.unitn.disi.smatch.renderers.context.BinaryContextRenderer;
+import it.unitn.disi.smatch.renderers.context.SimpleXMLContextRenderer;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Tests that a context written by the binary context renderer is loaded back unchanged.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class TestBinaryContext extends TestCase {
+
+    /**
+     * Creates senses from their ids and counts them.
+     */
+    public static class IdOracle extends Configurable implements ILinguisticOracle {
+
+        private static int createdSenses = 0;
+
+        public boolean isEqual(String str1, String str2) {
+            return str1.equals(str2);
+        }
+
+        public List<ISense> getSenses(String word) {
+            return new ArrayList<ISense>();
+        }
+
+        public List<String> getBaseForms(String derivation) {
+            return new ArrayList<String>();
+        }
+
+        public ISense createSense(String id) {
+            createdSenses++;
+            return new Sense(id) {
+            };
+        }
+
+        public ArrayList<ArrayList<String>> getMultiwords(String beginning) {
+            return null;
+        }
+    }
+
+    private final Random random = new Random(1);
+    private final Set<String> senseIds = new HashSet<String>();
+
+    public TestBinaryContext() {
+        super("Test Binary Context");
+    }
+
+    private IContext createContext(int size) {
+        IContext result = new Context();
+        List<INode> nodes = new ArrayList<INode>();
+        nodes.add(result.createRoot("root"));
+        for (int i = 1; i < size; i++) {
+            nodes.add(nodes.get(random.nextInt(nodes.size())).createChild("node " + i));
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            final INode node = nodes.get(i);
+            final INodeData nodeData = node.getNodeData();
+            nodeData.setId("n" + i);
+            nodeData.setIsPreprocessed(random.nextBoolean());
+            if (0 == random.nextInt(4)) {
+                nodeData.setProvenance("provenance " + random.nextInt(3));
+            }
+            final int acolCount = 1 + random.nextInt(3);
+            final StringBuilder formula = new StringBuilder();
+            for (int a = 0; a < acolCount; a++) {
+                IAtomicConceptOfLabel acol = nodeData.createACoL();
+                acol.setId(a);
+                acol.setToken("token" + random.nextInt(50));
+                acol.setLemma("lemma" + random.nextInt(50));
+                for (int s = random.nextInt(4); 0 < s; s--) {
+                    // WordNet-like ids and other ids
+                    final String id = 0 == random.nextInt(10) ? "x-" + random.nextInt(5) : "navr".charAt(random.nextInt(4)) + "#" + (1 + random.nextInt(100));
+                    senseIds.add(id);
+                    acol.addSense(new Sense(id) {
+                    });
+                }
+                nodeData.addACoL(acol);
+                if (0 < a) {
+                    formula.append(" & ");
+                }
+                if (0 == random.nextInt(5)) {
+                    formula.append('~');
+                }
+                formula.append(nodeData.getId()).append('.').append(a);
+            }
+            nodeData.setcLabFormula(formula.toString());
+            if (node.hasParent()) {
+                nodeData.setcNodeFormula("(" + formula + ") & " + node.getParent().getNodeData().getcNodeFormula());
+            } else {
+                nodeData.setcNodeFormula(formula.toString());
+            }
+            // compiled formulas are written too
+            nodeData.getcNodeClauses();
+        }
+        return result;
+    }
+
+    private static String toXML(IContext context, File file) throws Exception {
+        new SimpleXMLContextRenderer().render(context, file.getAbsolutePath());
+        return new String(Files.readAllBytes(file.toPath()), "UTF-8");
+    }
+
+    private static String getClauses(IContext context) {
+        StringBuilder result = new StringBuilder();
+        for (INode node : context.getNodesList()) {
+            CNFFormula formula = node.getNodeData().getcNodeClauses();
+            result.append(formula.getVariableCount()).append(':');
+            for (int c = 0; c < formula.getClauseCount(); c++) {
+                for (int l = formula.getClauseStart(c); l < formula.getClauseEnd(c); l++) {
+                    result.append(formula.getLiteral(l)).append(',');
+                }
+                result.append(';');
+            }
+            result.append('\n');
+        }
+        return result.toString();
+    }
+
+    public void testRoundTrip() throws Exception {
+        final File directory = Files.createTempDirectory("smatch").toFile();
+        final File binary = new File(directory, "context.bin");
+        final File xml = new File(directory, "context.xml");
+        try {
+            IContext context = createContext(200);
+            new BinaryContextRenderer().render(context, binary.getAbsolutePath());
+            final String expected = toXML(context, xml);
+            final String clauses = getClauses(context);
+
+            for (String compact : new String[]{"false", "true"}) {
+                BinaryContextLoader loader = new BinaryContextLoader();
+                Properties properties = new Properties();
+                properties.setProperty("oracle", IdOracle.class.getName());
+                properties.setProperty("compact", compact);
+                loader.setProperties(properties);
+
+                IdOracle.createdSenses = 0;
+                IContext loaded = loader.loadContext(binary.getAbsolutePath());
+                assertEquals(expected, toXML(loaded, xml));
+                assertEquals(clauses, getClauses(loaded));
+                // each distinct sense is created once
+                assertEquals(senseIds.size(), IdOracle.createdSenses);
+            }
+        } finally {
+            binary.delete();
+            xml.delete();
+            directory.delete();
+        }
+    }
+}
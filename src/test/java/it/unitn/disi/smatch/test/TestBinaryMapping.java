@@ -0,0 +1,162 @@
+package it.unitn.disi.smatch.test;
+
+import it.unitn.disi.smatch.data.mappings.HashMapping;
+import it.unitn.disi.smatch.data.mappings.IContextMapping;
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.data.mappings.NodesMatrixMapping;
+import it.unitn.disi.smatch.data.matrices.IMatchMatrixFactory;
+import it.unitn.disi.smatch.data.matrices.MatchMatrix;
+import it.unitn.disi.smatch.data.trees.Context;
+import it.unitn.disi.smatch.data.trees.IContext;
+import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.loaders.mapping.BinaryMappingLoader;
+import it.unitn.disi.smatch.loaders.mapping.MappingLoaderException;
+import it.unitn.disi.smatch.renderers.mapping.BinaryMappingRenderer;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Tests that a mapping written by the binary mapping renderer is loaded back unchanged.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class TestBinaryMapping extends TestCase {
+
+    private final Random random = new Random(5);
+
+    private File directory;
+    private File file;
+    private BinaryMappingRenderer renderer;
+    private BinaryMappingLoader loader;
+
+    public TestBinaryMapping() {
+        super("Test Binary Mapping");
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = Files.createTempDirectory("smatch").toFile();
+        file = new File(directory, "mapping.bin");
+        renderer = new BinaryMappingRenderer();
+        renderer.setProperties(new Properties());
+        loader = new BinaryMappingLoader();
+        Properties properties = new Properties();
+        properties.setProperty("mappingFactory", HashMapping.class.getName());
+        loader.setProperties(properties);
+    }
+
+    @Override
+    protected void tearDown() {
+        file.delete();
+        directory.delete();
+    }
+
+    private IContext createContext(int size) {
+        IContext result = new Context();
+        List<INode> nodes = new ArrayList<INode>();
+        nodes.add(result.createRoot("root"));
+        for (int i = 1; i < size; i++) {
+            nodes.add(nodes.get(random.nextInt(nodes.size())).createChild("n" + i));
+        }
+        return result;
+    }
+
+    private void fill(IContextMapping<INode> mapping, int count) {
+        final List<INode> sources = mapping.getSourceContext().getNodesList();
+        final List<INode> targets = mapping.getTargetContext().getNodesList();
+        for (int i = 0; i < count; i++) {
+            // IDK removes links
+            final char relation = BinaryMappingLoader.RELATIONS.charAt(random.nextInt(BinaryMappingLoader.RELATIONS.length()));
+            mapping.setRelation(sources.get(random.nextInt(sources.size())), targets.get(random.nextInt(targets.size())), relation);
+        }
+    }
+
+    private static void assertMappingEquals(IContextMapping<INode> expected, IContextMapping<INode> mapping, Set<INode> sourceNodes) {
+        int size = 0;
+        for (INode x : expected.getSourceContext().getNodesList()) {
+            final boolean loaded = null == sourceNodes || sourceNodes.contains(x);
+            for (INode y : expected.getTargetContext().getNodesList()) {
+                if (loaded) {
+                    assertEquals(expected.getRelation(x, y), mapping.getRelation(x, y));
+                    if (IMappingElement.IDK != expected.getRelation(x, y)) {
+                        size++;
+                    }
+                } else {
+                    assertEquals(IMappingElement.IDK, mapping.getRelation(x, y));
+                }
+            }
+        }
+        assertEquals(size, mapping.size());
+    }
+
+    private void assertRoundTrip(IContextMapping<INode> mapping) throws Exception {
+        renderer.render(mapping, file.getAbsolutePath());
+        IContextMapping<INode> loaded = loader.loadMapping(mapping.getSourceContext(), mapping.getTargetContext(), file.getAbsolutePath());
+        assertMappingEquals(mapping, loaded, null);
+    }
+
+    public void testHashMapping() throws Exception {
+        // enough links for several blocks
+        IContextMapping<INode> mapping = new HashMapping<INode>().getContextMappingInstance(createContext(300), createContext(400));
+        fill(mapping, 20000);
+        assertRoundTrip(mapping);
+    }
+
+    public void testMatrixMapping() throws Exception {
+        // rows of the matrix do not follow the order of the tree
+        IContextMapping<INode> mapping = new NodesMatrixMapping((IMatchMatrixFactory) new MatchMatrix(), createContext(300), createContext(400));
+        fill(mapping, 20000);
+        assertRoundTrip(mapping);
+    }
+
+    public void testEmptyMapping() throws Exception {
+        assertRoundTrip(new HashMapping<INode>().getContextMappingInstance(createContext(10), createContext(10)));
+    }
+
+    public void testSourceNodes() throws Exception {
+        IContextMapping<INode> mapping = new HashMapping<INode>().getContextMappingInstance(createContext(300), createContext(400));
+        fill(mapping, 20000);
+        renderer.render(mapping, file.getAbsolutePath());
+
+        final List<INode> sources = mapping.getSourceContext().getNodesList();
+        Set<INode> sourceNodes = new HashSet<INode>();
+        for (int i = 0; i < sources.size(); i += 1 + random.nextInt(40)) {
+            sourceNodes.add(sources.get(i));
+        }
+        IContextMapping<INode> loaded = loader.loadMapping(mapping.getSourceContext(), mapping.getTargetContext(), file.getAbsolutePath(), sourceNodes);
+        assertMappingEquals(mapping, loaded, sourceNodes);
+    }
+
+    public void testChangedContext() throws Exception {
+        IContextMapping<INode> mapping = new HashMapping<INode>().getContextMappingInstance(createContext(30), createContext(40));
+        fill(mapping, 200);
+        renderer.render(mapping, file.getAbsolutePath());
+
+        mapping.getTargetContext().getRoot().createChild("added");
+        try {
+            loader.loadMapping(mapping.getSourceContext(), mapping.getTargetContext(), file.getAbsolutePath());
+            fail("Mapping loaded into a changed context");
+        } catch (MappingLoaderException e) {
+            // expected
+        }
+    }
+
+    public void testInvalidFile() throws IOException {
+        Files.write(file.toPath(), new byte[100]);
+        try {
+            loader.loadMapping(createContext(3), createContext(3), file.getAbsolutePath());
+            fail("Invalid file loaded");
+        } catch (MappingLoaderException e) {
+            // expected
+        }
+    }
+}
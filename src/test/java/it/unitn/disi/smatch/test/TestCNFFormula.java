@@ -0,0 +1,103 @@
+package it.unitn.disi.smatch.test;
+
+import it.unitn.disi.smatch.data.formulas.CNFFormula;
+import it.unitn.disi.smatch.data.formulas.ClauseBuffer;
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.trees.Context;
+import it.unitn.disi.smatch.data.trees.INode;
+import junit.framework.TestCase;
+
+/**
+ * Tests compilation of c@node formulas into integer clauses.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class TestCNFFormula extends TestCase {
+
+    public TestCNFFormula() {
+        super("Test CNF Formula");
+    }
+
+    private static void addACoLs(INode node, int count) {
+        for (int i = 0; i < count; i++) {
+            IAtomicConceptOfLabel acol = node.getNodeData().createACoL();
+            acol.setId(i);
+            node.getNodeData().addACoL(acol);
+        }
+    }
+
+    public void testCompile() {
+        Context context = new Context();
+        INode root = context.createRoot("root");
+        root.getNodeData().setId("r");
+        addACoLs(root, 2);
+        INode child = root.createChild("child");
+        child.getNodeData().setId("c");
+        addACoLs(child, 1);
+
+        child.getNodeData().setcNodeFormula("(c.0 | ~r.1) & r.0 & (~ r.1)");
+        CNFFormula formula = child.getNodeData().getcNodeClauses();
+
+        // child acols first, then root acols
+        assertEquals(3, formula.getVariableCount());
+        assertEquals(3, formula.getClauseCount());
+        assertEquals(2, formula.getClauseEnd(0) - formula.getClauseStart(0));
+        assertEquals(1, formula.getLiteral(formula.getClauseStart(0)));
+        assertEquals(-3, formula.getLiteral(formula.getClauseStart(0) + 1));
+        assertEquals(2, formula.getLiteral(formula.getClauseStart(1)));
+        assertEquals(-3, formula.getLiteral(formula.getClauseStart(2)));
+
+        // compiled once, recompiled after the change
+        assertSame(formula, child.getNodeData().getcNodeClauses());
+        child.getNodeData().setcNodeFormula("c.0");
+        assertEquals(1, child.getNodeData().getcNodeClauses().getClauseCount());
+    }
+
+    public void testAncestorACoLChange() {
+        Context context = new Context();
+        INode root = context.createRoot("root");
+        root.getNodeData().setId("r");
+        addACoLs(root, 1);
+        INode child = root.createChild("child");
+        child.getNodeData().setId("c");
+        addACoLs(child, 1);
+
+        child.getNodeData().setcNodeFormula("c.0 & r.0");
+        assertEquals(2, child.getNodeData().getcNodeClauses().getVariableCount());
+
+        // root acols follow child acols in the node matching task, the compiled formula should follow them
+        IAtomicConceptOfLabel acol = root.getNodeData().createACoL();
+        acol.setId(1);
+        root.getNodeData().addACoL(0, acol);
+        CNFFormula formula = child.getNodeData().getcNodeClauses();
+        assertEquals(3, formula.getVariableCount());
+        assertEquals(3, formula.getLiteral(formula.getClauseStart(1)));
+
+        root.getNodeData().removeACoL(acol);
+        assertEquals(2, child.getNodeData().getcNodeClauses().getVariableCount());
+    }
+
+    public void testClauseBuffer() {
+        CNFFormula formula = new CNFFormula(new int[]{1, -2, 3}, new int[]{2, 3}, 3);
+        int[] variables = new int[]{4, 5, 6};
+
+        ClauseBuffer buffer = new ClauseBuffer();
+        buffer.newVariables(6);
+        assertTrue(buffer.addBinaryClause(-1, 4));
+        assertFalse(buffer.addBinaryClause(4, -1));
+        assertFalse(buffer.addBinaryClause(2, -2));
+        final int axioms = buffer.getClauseCount();
+        assertEquals(1, axioms);
+
+        buffer.addNegatedFormula(formula, variables, 0);
+        StringBuilder dimacs = new StringBuilder();
+        buffer.appendDIMACS(dimacs);
+        assertEquals("p cnf 7 5\n-1 4 0\n7 -4 0\n7 5 0\n-7 4 -5 0\n-7 -6 0\n", dimacs.toString());
+
+        buffer.truncate(axioms, 6);
+        buffer.addFormula(formula, variables, 0);
+        dimacs.setLength(0);
+        buffer.appendDIMACS(dimacs);
+        assertEquals("p cnf 6 3\n-1 4 0\n4 -5 0\n6 0\n", dimacs.toString());
+    }
+}
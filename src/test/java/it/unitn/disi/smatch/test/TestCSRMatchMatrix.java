@@ -0,0 +1,127 @@
+package it.unitn.disi.smatch.test;
+
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.data.matrices.CSRMatchMatrix;
+import it.unitn.disi.smatch.data.matrices.MatchMatrix;
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests the compressed sparse row matrix against the char matrix, with reads interleaved with writes.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class TestCSRMatchMatrix extends TestCase {
+
+    private static final char[] RELATIONS = {IMappingElement.EQUIVALENCE, IMappingElement.LESS_GENERAL,
+            IMappingElement.MORE_GENERAL, IMappingElement.DISJOINT};
+
+    public TestCSRMatchMatrix() {
+        super("Test CSR Match Matrix");
+    }
+
+    private static char getRelation(Random random) {
+        return 0 == random.nextInt(3) ? IMappingElement.IDK : RELATIONS[random.nextInt(RELATIONS.length)];
+    }
+
+    /**
+     * Checks the cells of the matrix, read through the sparse interface, against the expected matrix.
+     *
+     * @param expected expected matrix
+     * @param matrix   matrix
+     */
+    private static void assertMatrixEquals(MatchMatrix expected, CSRMatchMatrix matrix) {
+        final int y = expected.getY();
+        for (int i = 0; i < expected.getX(); i++) {
+            char[] row = new char[y];
+            Arrays.fill(row, IMappingElement.IDK);
+            for (int k = matrix.getRowStart(i); k < matrix.getRowEnd(i); k++) {
+                if (matrix.getRowStart(i) < k) {
+                    assertTrue(matrix.getColumn(i, k - 1) < matrix.getColumn(i, k));
+                }
+                row[matrix.getColumn(i, k)] = matrix.getRelation(i, k);
+            }
+            char[] expectedRow = new char[y];
+            expected.getRow(i, expectedRow);
+            assertTrue(Arrays.equals(expectedRow, row));
+        }
+    }
+
+    public void testAgainstMatchMatrix() {
+        Random random = new Random(3);
+        for (int t = 0; t < 30; t++) {
+            final int x = 1 + random.nextInt(30);
+            final int y = 1 + random.nextInt(60);
+            MatchMatrix expected = new MatchMatrix();
+            CSRMatchMatrix matrix = new CSRMatchMatrix();
+            expected.init(x, y);
+            matrix.init(x, y);
+            for (int op = 0; op < 2000; op++) {
+                final int i = random.nextInt(x);
+                final int j = random.nextInt(y);
+                final int kind = random.nextInt(40);
+                if (0 == kind) {
+                    char[] row = new char[y];
+                    for (int k = 0; k < y; k++) {
+                        row[k] = getRelation(random);
+                    }
+                    expected.setRow(i, row);
+                    matrix.setRow(i, row);
+                } else if (kind < 4) {
+                    char[] expectedRow = new char[y];
+                    char[] row = new char[y];
+                    expected.getRow(i, expectedRow);
+                    matrix.getRow(i, row);
+                    assertTrue(Arrays.equals(expectedRow, row));
+                } else if (kind < 10) {
+                    assertEquals(expected.get(i, j), matrix.get(i, j));
+                } else {
+                    final char relation = getRelation(random);
+                    final boolean modified = expected.get(i, j) != relation;
+                    expected.set(i, j, relation);
+                    assertEquals(modified, matrix.set(i, j, relation));
+                }
+            }
+            assertMatrixEquals(expected, matrix);
+        }
+    }
+
+    public void testConcurrentRows() throws InterruptedException {
+        final int x = 200;
+        final int y = 300;
+        final MatchMatrix expected = new MatchMatrix();
+        final CSRMatchMatrix matrix = new CSRMatchMatrix();
+        expected.init(x, y);
+        matrix.init(x, y);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int first = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    Random random = new Random(first);
+                    for (int op = 0; op < 20000; op++) {
+                        // each thread writes its own rows, out of column order, so cells go through the buffers
+                        final int i = first + threads.length * random.nextInt(x / threads.length);
+                        final int j = random.nextInt(y);
+                        final char relation = getRelation(random);
+                        synchronized (expected) {
+                            expected.set(i, j, relation);
+                        }
+                        matrix.set(i, j, relation);
+                    }
+                }
+            };
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        matrix.freeze();
+        assertMatrixEquals(expected, matrix);
+    }
+}
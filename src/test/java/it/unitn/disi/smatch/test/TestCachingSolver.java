@@ -0,0 +1,184 @@
+package it.unitn.disi.smatch.test;
+
+import it.unitn.disi.smatch.deciders.CachingSolver;
+import it.unitn.disi.smatch.deciders.SAT4J;
+import it.unitn.disi.smatch.deciders.SATSolverException;
+import junit.framework.TestCase;
+
+import java.util.Properties;
+
+/**
+ * Tests the cache of answers of the caching solver.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class TestCachingSolver extends TestCase {
+
+    /**
+     * Counts the problems solved.
+     */
+    public static class CountingSolver extends SAT4J {
+
+        private static int solved = 0;
+
+        @Override
+        public boolean isSatisfiable(String input) throws SATSolverException {
+            solved++;
+            return super.isSatisfiable(input);
+        }
+    }
+
+    private final SAT4J reference = new SAT4J();
+
+    public TestCachingSolver() {
+        super("Test Caching Solver");
+    }
+
+    @Override
+    protected void setUp() {
+        CountingSolver.solved = 0;
+    }
+
+    @Override
+    protected void tearDown() {
+        CachingSolver.releaseSharedCaches();
+    }
+
+    private static CachingSolver createSolver(Integer cacheSize, Boolean sharedCache) throws Exception {
+        CachingSolver result = new CachingSolver();
+        Properties properties = new Properties();
+        properties.setProperty("SATSolver", CountingSolver.class.getName());
+        if (null != cacheSize) {
+            properties.setProperty("cacheSize", cacheSize.toString());
+        }
+        if (null != sharedCache) {
+            properties.setProperty("sharedCache", sharedCache.toString());
+        }
+        result.setProperties(properties);
+        return result;
+    }
+
+    /**
+     * Creates a problem of variableCount variables with the signs of the literals given by the bits of n.
+     *
+     * @param n             number of the problem
+     * @param variableCount number of variables
+     * @return problem in DIMACS format
+     */
+    private static String createProblem(int n, int variableCount) {
+        StringBuilder result = new StringBuilder();
+        result.append("p cnf ").append(variableCount).append(' ').append(variableCount).append('\n');
+        for (int i = 1; i <= variableCount; i++) {
+            result.append(0 == ((n >> (i - 1)) & 1) ? i : -i).append(' ');
+            result.append(i < variableCount ? i + 1 : 1).append(" 0\n");
+        }
+        return result.toString();
+    }
+
+    private void assertSolved(CachingSolver solver, int n) throws SATSolverException {
+        final String problem = createProblem(n, 12);
+        assertEquals(reference.isSatisfiable(problem), solver.isSatisfiable(problem));
+    }
+
+    private static void assertCounters(CachingSolver solver, long hits, long misses) {
+        assertEquals(hits, solver.getHits());
+        assertEquals(misses, solver.getMisses());
+        assertEquals(misses, CountingSolver.solved);
+    }
+
+    public void testRenumberedProblems() throws Exception {
+        CachingSolver solver = createSolver(null, null);
+        assertTrue(solver.isSatisfiable("p cnf 3 3\n1 -2 0\n2 3 0\n-1 0\n"));
+        assertCounters(solver, 0, 1);
+        // variables renumbered
+        assertTrue(solver.isSatisfiable("p cnf 9 3\n7 -5 0\n5 9 0\n-7 0\n"));
+        // header and comments are skipped
+        assertTrue(solver.isSatisfiable("c renumbered\np cnf 4 3\n4 -3 0\n3 2 0\n-4 0\n"));
+        assertCounters(solver, 2, 1);
+        assertEquals(1, solver.size());
+
+        assertFalse(solver.isSatisfiable("p cnf 1 2\n1 0\n-1 0\n"));
+        assertFalse(solver.isSatisfiable("p cnf 5 2\n5 0\n-5 0\n"));
+        assertCounters(solver, 3, 2);
+    }
+
+    public void testDistinctProblems() throws Exception {
+        CachingSolver solver = createSolver(null, null);
+        final String[] problems = {
+                "p cnf 2 1\n1 2 0\n",
+                "p cnf 2 1\n1 -2 0\n",
+                "p cnf 2 2\n1 0\n2 0\n",
+                "p cnf 2 2\n1 0\n-1 0\n",
+                "p cnf 2 2\n1 2 0\n-1 0\n",
+                "p cnf 3 1\n1 2 3 0\n"
+        };
+        for (String problem : problems) {
+            solver.isSatisfiable(problem);
+        }
+        assertCounters(solver, 0, problems.length);
+        assertEquals(problems.length, solver.size());
+        for (String problem : problems) {
+            solver.isSatisfiable(problem);
+        }
+        assertCounters(solver, problems.length, problems.length);
+    }
+
+    public void testEviction() throws Exception {
+        final int cacheSize = 64;
+        CachingSolver solver = createSolver(cacheSize, null);
+        final int count = 1000;
+        for (int i = 0; i < count; i++) {
+            assertSolved(solver, i);
+        }
+        assertCounters(solver, 0, count);
+        assertTrue(solver.size() <= cacheSize);
+        assertEquals(count - solver.size(), solver.getEvictions());
+
+        // the most recently used problems are kept, answers stay correct
+        for (int i = count - 1; count - 1 - 8 < i; i--) {
+            assertSolved(solver, i);
+        }
+        assertTrue(0 < solver.getHits());
+        for (int i = 0; i < count; i++) {
+            assertSolved(solver, i);
+        }
+        assertEquals(2 * count + 8, solver.getHits() + solver.getMisses());
+        assertEquals(solver.getMisses(), CountingSolver.solved);
+        assertTrue(solver.size() <= cacheSize);
+
+        solver.clear();
+        assertEquals(0, solver.size());
+        assertEquals(0, solver.getEvictions());
+        assertEquals(0, solver.getHits());
+        assertEquals(0, solver.getMisses());
+    }
+
+    public void testSharedCache() throws Exception {
+        final String problem = createProblem(3, 5);
+
+        // by default each instance has its own cache
+        CachingSolver first = createSolver(null, null);
+        CachingSolver second = createSolver(null, null);
+        first.isSatisfiable(problem);
+        second.isSatisfiable(problem);
+        assertEquals(2, CountingSolver.solved);
+
+        CachingSolver shared = createSolver(null, true);
+        CachingSolver otherShared = createSolver(null, true);
+        shared.isSatisfiable(problem);
+        otherShared.isSatisfiable(problem);
+        assertEquals(3, CountingSolver.solved);
+        assertEquals(1, otherShared.getHits());
+
+        // caches of other sizes are not shared
+        createSolver(1000, true).isSatisfiable(problem);
+        assertEquals(4, CountingSolver.solved);
+
+        CachingSolver.releaseSharedCaches();
+        createSolver(null, true).isSatisfiable(problem);
+        assertEquals(5, CountingSolver.solved);
+        // instances keep the released cache
+        shared.isSatisfiable(problem);
+        assertEquals(5, CountingSolver.solved);
+    }
+}
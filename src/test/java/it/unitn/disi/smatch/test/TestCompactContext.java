@@ -0,0 +1,286 @@
+package it.unitn.disi.smatch.test;
+
+import it.unitn.disi.smatch.data.formulas.CNFFormula;
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.trees.CompactContext;
+import it.unitn.disi.smatch.data.trees.Context;
+import it.unitn.disi.smatch.data.trees.IContext;
+import it.unitn.disi.smatch.data.trees.INode;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Tests that compact contexts and nodes behave as the plain ones.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class TestCompactContext extends TestCase {
+
+    private final Random random = new Random(9);
+
+    // the same nodes of both contexts share the position in the lists
+    private IContext plainContext;
+    private IContext compactContext;
+    private final List<INode> plainNodes = new ArrayList<INode>();
+    private final List<INode> compactNodes = new ArrayList<INode>();
+    private final Map<INode, Integer> numbers = new IdentityHashMap<INode, Integer>();
+
+    public TestCompactContext() {
+        super("Test Compact Context");
+    }
+
+    @Override
+    protected void setUp() {
+        plainContext = new Context();
+        compactContext = new CompactContext();
+        add(plainContext.createRoot("n0"), compactContext.createRoot("n0"));
+    }
+
+    private void add(INode plain, INode compact) {
+        numbers.put(plain, plainNodes.size());
+        numbers.put(compact, compactNodes.size());
+        plainNodes.add(plain);
+        compactNodes.add(compact);
+    }
+
+    private int getNumber(INode node) {
+        return null == node ? -1 : numbers.get(node);
+    }
+
+    private List<Integer> getNumbers(List<INode> nodes) {
+        List<Integer> result = new ArrayList<Integer>(nodes.size());
+        for (INode node : nodes) {
+            result.add(getNumber(node));
+        }
+        return result;
+    }
+
+    private List<Integer> getNumbers(Iterator<INode> nodes) {
+        List<Integer> result = new ArrayList<Integer>();
+        while (nodes.hasNext()) {
+            result.add(getNumber(nodes.next()));
+        }
+        return result;
+    }
+
+    private void assertSameStructure() {
+        assertEquals(getNumbers(plainContext.getNodesList()), getNumbers(compactContext.getNodesList()));
+        assertEquals(getNumbers(plainContext.getNodes()), getNumbers(compactContext.getNodes()));
+        for (int i = 0; i < plainNodes.size(); i++) {
+            final INode plain = plainNodes.get(i);
+            final INode compact = compactNodes.get(i);
+            assertEquals(plain.getNodeData().getName(), compact.getNodeData().getName());
+            assertEquals(getNumber(plain.getParent()), getNumber(compact.getParent()));
+            assertEquals(plain.hasParent(), compact.hasParent());
+            assertEquals(plain.isLeaf(), compact.isLeaf());
+            assertEquals(plain.getChildCount(), compact.getChildCount());
+            assertEquals(getNumbers(plain.getChildrenList()), getNumbers(compact.getChildrenList()));
+            assertEquals(getNumbers(plain.getChildren()), getNumbers(compact.getChildren()));
+            for (int c = 0; c < plain.getChildCount(); c++) {
+                assertEquals(getNumber(plain.getChildAt(c)), getNumber(compact.getChildAt(c)));
+                assertEquals(c, compact.getChildIndex(compact.getChildAt(c)));
+            }
+            // plain nodes cache their ancestors and counts, which do not follow moves, so these are compared with
+            // the parents of the plain nodes
+            final List<Integer> ancestors = new ArrayList<Integer>();
+            for (INode ancestor = plain.getParent(); null != ancestor; ancestor = ancestor.getParent()) {
+                ancestors.add(getNumber(ancestor));
+            }
+            assertEquals(ancestors.size(), compact.getLevel());
+            assertEquals(ancestors.size(), compact.getAncestorCount());
+            assertEquals(ancestors, getNumbers(compact.getAncestorsList()));
+            assertEquals(ancestors, getNumbers(compact.getAncestors()));
+            assertEquals(plain.getDescendantsList().size(), compact.getDescendantCount());
+            assertEquals(getNumbers(plain.getDescendantsList()), getNumbers(compact.getDescendantsList()));
+            assertEquals(getNumbers(plain.getDescendants()), getNumbers(compact.getDescendants()));
+        }
+    }
+
+    /**
+     * Calls addChild on both nodes and checks that both add the child or both refuse it.
+     *
+     * @param parent number of the parent
+     * @param index  position among the children
+     * @param child  number of the child
+     */
+    private void addChild(int parent, int index, int child) {
+        boolean plainAdded = true;
+        try {
+            plainNodes.get(parent).addChild(index, plainNodes.get(child));
+        } catch (IllegalArgumentException e) {
+            plainAdded = false;
+        }
+        boolean compactAdded = true;
+        try {
+            compactNodes.get(parent).addChild(index, compactNodes.get(child));
+        } catch (IllegalArgumentException e) {
+            compactAdded = false;
+        }
+        assertEquals(plainAdded, compactAdded);
+    }
+
+    public void testRandomChanges() {
+        for (int step = 0; step < 2000; step++) {
+            final int x = random.nextInt(plainNodes.size());
+            final INode plain = plainNodes.get(x);
+            final INode compact = compactNodes.get(x);
+            switch (random.nextInt(7)) {
+                case 0:
+                case 1: {
+                    final String name = "n" + plainNodes.size();
+                    add(plain.createChild(name), compact.createChild(name));
+                    break;
+                }
+                case 2: {
+                    // a new node inserted among the children
+                    final String name = "n" + plainNodes.size();
+                    add(plainContext.createNode(name), compactContext.createNode(name));
+                    addChild(x, random.nextInt(plain.getChildCount() + 1), plainNodes.size() - 1);
+                    break;
+                }
+                case 3: {
+                    // a node, maybe an ancestor, moved under another one
+                    if (1 == plainNodes.size()) {
+                        break;
+                    }
+                    final int child = 1 + random.nextInt(plainNodes.size() - 1);
+                    final int index = random.nextInt(plain.getChildCount() + 1 - (plain == plainNodes.get(child).getParent() ? 1 : 0));
+                    addChild(x, index, child);
+                    break;
+                }
+                case 4: {
+                    if (0 < plain.getChildCount()) {
+                        final int index = random.nextInt(plain.getChildCount());
+                        plain.removeChild(index);
+                        compact.removeChild(index);
+                    }
+                    break;
+                }
+                case 5: {
+                    // not necessarily a child
+                    final int child = random.nextInt(plainNodes.size());
+                    plain.removeChild(plainNodes.get(child));
+                    compact.removeChild(compactNodes.get(child));
+                    break;
+                }
+                default: {
+                    if (0 != x) {
+                        plain.removeFromParent();
+                        compact.removeFromParent();
+                    }
+                    break;
+                }
+            }
+            if (0 == step % 20) {
+                assertSameStructure();
+            }
+        }
+        assertSameStructure();
+    }
+
+    private static void addACoLs(INode node, int count) {
+        for (int i = 0; i < count; i++) {
+            IAtomicConceptOfLabel acol = node.getNodeData().createACoL();
+            acol.setId(node.getNodeData().getACoLCount());
+            node.getNodeData().addACoL(acol);
+        }
+    }
+
+    private static INode createPath(IContext context) {
+        INode root = context.createRoot("root");
+        root.getNodeData().setId("r");
+        addACoLs(root, 1);
+        INode child = root.createChild("child");
+        child.getNodeData().setId("c");
+        addACoLs(child, 2);
+        INode leaf = child.createChild("leaf");
+        leaf.getNodeData().setId("l");
+        addACoLs(leaf, 1);
+        leaf.getNodeData().setcLabFormula("l.0");
+        leaf.getNodeData().setcNodeFormula("l.0 & (c.0 | ~c.1) & r.0");
+        return leaf;
+    }
+
+    private static void assertSameFormula(CNFFormula expected, CNFFormula formula) {
+        assertEquals(expected.getVariableCount(), formula.getVariableCount());
+        assertEquals(expected.getClauseCount(), formula.getClauseCount());
+        for (int c = 0; c < expected.getClauseCount(); c++) {
+            assertEquals(expected.getClauseEnd(c) - expected.getClauseStart(c), formula.getClauseEnd(c) - formula.getClauseStart(c));
+            for (int l = 0; l < expected.getClauseEnd(c) - expected.getClauseStart(c); l++) {
+                assertEquals(expected.getLiteral(expected.getClauseStart(c) + l), formula.getLiteral(formula.getClauseStart(c) + l));
+            }
+        }
+    }
+
+    public void testACoLChanges() {
+        final INode plainLeaf = createPath(new Context());
+        final INode compactLeaf = createPath(new CompactContext());
+        assertSameFormula(plainLeaf.getNodeData().getcNodeClauses(), compactLeaf.getNodeData().getcNodeClauses());
+        // compiled once
+        final CNFFormula formula = compactLeaf.getNodeData().getcNodeClauses();
+        assertSame(formula, compactLeaf.getNodeData().getcNodeClauses());
+        assertEquals(4, formula.getVariableCount());
+
+        // acols of the ancestors shift the variables of the leaf
+        for (INode leaf : new INode[]{plainLeaf, compactLeaf}) {
+            IAtomicConceptOfLabel acol = leaf.getParent().getNodeData().createACoL();
+            acol.setId(2);
+            leaf.getParent().getNodeData().addACoL(0, acol);
+            leaf.getParent().getParent().getNodeData().removeACoL(0);
+            leaf.getParent().getParent().getNodeData().setcNodeFormula("");
+        }
+        try {
+            compactLeaf.getNodeData().getcNodeClauses();
+            fail("Formula refers to a removed acol");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        for (INode leaf : new INode[]{plainLeaf, compactLeaf}) {
+            leaf.getNodeData().setcNodeFormula("l.0 & (c.0 | ~c.1) & c.2");
+        }
+        final CNFFormula changed = compactLeaf.getNodeData().getcNodeClauses();
+        assertNotSame(formula, changed);
+        assertEquals(4, changed.getVariableCount());
+        assertSameFormula(plainLeaf.getNodeData().getcNodeClauses(), changed);
+        // c.2 is the first acol of the parent now
+        assertEquals(2, changed.getLiteral(changed.getClauseStart(2)));
+
+        // an explicitly set formula is kept until the acols change
+        for (INode leaf : new INode[]{plainLeaf, compactLeaf}) {
+            leaf.getNodeData().setcNodeClauses(formula);
+            assertSame(formula, leaf.getNodeData().getcNodeClauses());
+            leaf.getNodeData().removeACoL(0);
+            addACoLs(leaf, 1);
+            assertNotSame(formula, leaf.getNodeData().getcNodeClauses());
+        }
+    }
+
+    public void testHasFormulas() {
+        final String[] formulas = {null, "", "a.0"};
+        for (IContext context : new IContext[]{new Context(), new CompactContext()}) {
+            final INode node = context.createRoot("root");
+            for (String cLab : formulas) {
+                for (String cNode : formulas) {
+                    node.getNodeData().setcLabFormula(cLab);
+                    node.getNodeData().setcNodeFormula(cNode);
+                    assertEquals(cLab, node.getNodeData().getcLabFormula());
+                    assertEquals(cNode, node.getNodeData().getcNodeFormula());
+                    assertEquals(null != cLab && null != cNode && !cLab.isEmpty() && !cNode.isEmpty(),
+                            node.getNodeData().hasFormulas());
+                }
+            }
+            // shorter and longer formulas overwrite each other
+            node.getNodeData().setcNodeFormula("a.0 & b.0");
+            node.getNodeData().setcLabFormula("a.0");
+            node.getNodeData().setcNodeFormula("b.0");
+            assertEquals("a.0", node.getNodeData().getcLabFormula());
+            assertEquals("b.0", node.getNodeData().getcNodeFormula());
+        }
+    }
+}
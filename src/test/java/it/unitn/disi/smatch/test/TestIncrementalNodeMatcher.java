@@ -0,0 +1,191 @@
+package it.unitn.disi.smatch.test;
+
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.mappings.HashMapping;
+import it.unitn.disi.smatch.data.mappings.IContextMapping;
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.data.trees.Context;
+import it.unitn.disi.smatch.data.trees.IContext;
+import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.data.trees.INodeData;
+import it.unitn.disi.smatch.deciders.SAT4J;
+import it.unitn.disi.smatch.matchers.structure.node.DefaultNodeMatcher;
+import it.unitn.disi.smatch.matchers.structure.node.INodeMatcher;
+import it.unitn.disi.smatch.matchers.structure.node.IncrementalNodeMatcher;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Tests that the incremental node matcher finds the same relations as the default node matcher with SAT4J.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class TestIncrementalNodeMatcher extends TestCase {
+
+    private static final char[] RELATIONS = {IMappingElement.EQUIVALENCE, IMappingElement.LESS_GENERAL,
+            IMappingElement.MORE_GENERAL, IMappingElement.DISJOINT};
+
+    private final Random random = new Random(3);
+
+    private DefaultNodeMatcher defaultMatcher;
+    private IncrementalNodeMatcher incrementalMatcher;
+
+    public TestIncrementalNodeMatcher() {
+        super("Test Incremental Node Matcher");
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        defaultMatcher = new DefaultNodeMatcher();
+        Properties properties = new Properties();
+        properties.setProperty("SATSolver", SAT4J.class.getName());
+        defaultMatcher.setProperties(properties);
+        incrementalMatcher = new IncrementalNodeMatcher();
+        incrementalMatcher.setProperties(new Properties());
+    }
+
+    private IContext createContext(String prefix, int size) {
+        IContext result = new Context();
+        List<INode> nodes = new ArrayList<INode>();
+        nodes.add(result.createRoot("root"));
+        for (int i = 1; i < size; i++) {
+            nodes.add(nodes.get(random.nextInt(nodes.size())).createChild("n" + i));
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            final INode node = nodes.get(i);
+            final INodeData nodeData = node.getNodeData();
+            nodeData.setId(prefix + i);
+            final int acolCount = 1 + random.nextInt(3);
+            for (int a = 0; a < acolCount; a++) {
+                IAtomicConceptOfLabel acol = nodeData.createACoL();
+                acol.setId(a);
+                nodeData.addACoL(acol);
+            }
+            final String formula = createFormula(nodeData.getId(), acolCount);
+            nodeData.setcLabFormula(formula);
+            if (node.hasParent()) {
+                nodeData.setcNodeFormula(formula + " & " + node.getParent().getNodeData().getcNodeFormula());
+            } else {
+                nodeData.setcNodeFormula(formula);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates a random CNF formula over the acols of the node, with disjunctions and negations.
+     *
+     * @param id        node id
+     * @param acolCount number of acols of the node
+     * @return formula
+     */
+    private String createFormula(String id, int acolCount) {
+        final StringBuilder result = new StringBuilder();
+        final int clauseCount = 1 + random.nextInt(2);
+        for (int c = 0; c < clauseCount; c++) {
+            if (0 < c) {
+                result.append(" & ");
+            }
+            result.append('(');
+            final int literalCount = 1 + random.nextInt(2);
+            for (int l = 0; l < literalCount; l++) {
+                if (0 < l) {
+                    result.append(" | ");
+                }
+                if (0 == random.nextInt(4)) {
+                    result.append('~');
+                }
+                result.append(id).append('.').append(random.nextInt(acolCount));
+            }
+            result.append(')');
+        }
+        return result.toString();
+    }
+
+    private IContextMapping<IAtomicConceptOfLabel> createACoLMapping(IContext source, IContext target) {
+        IContextMapping<IAtomicConceptOfLabel> result = new HashMapping<INode>().getACoLMappingInstance(source, target);
+        List<IAtomicConceptOfLabel> targetACoLs = new ArrayList<IAtomicConceptOfLabel>();
+        for (INode node : target.getNodesList()) {
+            targetACoLs.addAll(node.getNodeData().getACoLsList());
+        }
+        for (INode node : source.getNodesList()) {
+            for (IAtomicConceptOfLabel acol : node.getNodeData().getACoLsList()) {
+                for (IAtomicConceptOfLabel targetACoL : targetACoLs) {
+                    if (0 == random.nextInt(4)) {
+                        result.setRelation(acol, targetACoL, RELATIONS[random.nextInt(RELATIONS.length)]);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static char nodeMatch(INodeMatcher matcher, IContextMapping<IAtomicConceptOfLabel> acolMapping,
+                                  INode source, INode target) throws Exception {
+        return matcher.nodeMatch(acolMapping, new HashMap<INode, ArrayList<IAtomicConceptOfLabel>>(), null, null, source, target);
+    }
+
+    /**
+     * Matches all pairs of nodes with both matchers and compares the relations.
+     *
+     * @param source source context
+     * @param target target context
+     * @return number of pairs with a relation
+     * @throws Exception Exception
+     */
+    private int assertSameRelations(IContext source, IContext target) throws Exception {
+        final IContextMapping<IAtomicConceptOfLabel> acolMapping = createACoLMapping(source, target);
+        int related = 0;
+        for (INode x : source.getNodesList()) {
+            for (INode y : target.getNodesList()) {
+                final char expected = nodeMatch(defaultMatcher, acolMapping, x, y);
+                assertEquals(x.getNodeData().getcNodeFormula() + " vs " + y.getNodeData().getcNodeFormula(),
+                        expected, nodeMatch(incrementalMatcher, acolMapping, x, y));
+                if (IMappingElement.IDK != expected) {
+                    related++;
+                }
+            }
+        }
+        return related;
+    }
+
+    public void testRandomTrees() throws Exception {
+        int related = 0;
+        for (int trial = 0; trial < 30; trial++) {
+            related += assertSameRelations(createContext("s", 2 + random.nextInt(8)), createContext("t", 2 + random.nextInt(8)));
+        }
+        // the relations are not all unknown
+        assertTrue(0 < related);
+    }
+
+    public void testSameTree() throws Exception {
+        // nodes of one tree share the acols of their common ancestors
+        for (int trial = 0; trial < 10; trial++) {
+            final IContext context = createContext("n", 2 + random.nextInt(8));
+            assertSameRelations(context, context);
+        }
+    }
+
+    public void testRootRelations() throws Exception {
+        IContext source = createContext("s", 1);
+        IContext target = createContext("t", 1);
+        IContextMapping<IAtomicConceptOfLabel> acolMapping = new HashMapping<INode>().getACoLMappingInstance(source, target);
+        INode x = source.getRoot();
+        INode y = target.getRoot();
+        x.getNodeData().setcNodeFormula("s0.0");
+        y.getNodeData().setcNodeFormula("t0.0");
+        IAtomicConceptOfLabel a = x.getNodeData().getACoLAt(0);
+        IAtomicConceptOfLabel b = y.getNodeData().getACoLAt(0);
+        acolMapping.setRelation(a, b, IMappingElement.EQUIVALENCE);
+        assertEquals(IMappingElement.EQUIVALENCE, nodeMatch(defaultMatcher, acolMapping, x, y));
+        assertEquals(IMappingElement.EQUIVALENCE, nodeMatch(incrementalMatcher, acolMapping, x, y));
+        acolMapping.setRelation(a, b, IMappingElement.DISJOINT);
+        assertEquals(IMappingElement.DISJOINT, nodeMatch(defaultMatcher, acolMapping, x, y));
+        assertEquals(IMappingElement.DISJOINT, nodeMatch(incrementalMatcher, acolMapping, x, y));
+    }
+}
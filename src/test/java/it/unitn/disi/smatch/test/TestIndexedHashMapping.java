@@ -0,0 +1,166 @@
+package it.unitn.disi.smatch.test;
+
+import it.unitn.disi.smatch.data.mappings.IContextMapping;
+import it.unitn.disi.smatch.data.mappings.IMappingCursor;
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.data.mappings.IndexedHashMapping;
+import it.unitn.disi.smatch.data.mappings.MappingElement;
+import it.unitn.disi.smatch.data.mappings.NodesMatrixMapping;
+import it.unitn.disi.smatch.data.matrices.IMatchMatrixFactory;
+import it.unitn.disi.smatch.data.matrices.MatchMatrix;
+import it.unitn.disi.smatch.data.trees.Context;
+import it.unitn.disi.smatch.data.trees.IContext;
+import it.unitn.disi.smatch.data.trees.INode;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests the open addressing mapping against a matrix mapping.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class TestIndexedHashMapping extends TestCase {
+
+    private static final char[] RELATIONS = {IMappingElement.EQUIVALENCE, IMappingElement.LESS_GENERAL,
+            IMappingElement.MORE_GENERAL, IMappingElement.DISJOINT, IMappingElement.IDK, IMappingElement.IDK};
+
+    private final Random random = new Random(7);
+
+    public TestIndexedHashMapping() {
+        super("Test Indexed Hash Mapping");
+    }
+
+    private IContext createContext(int size) {
+        IContext result = new Context();
+        List<INode> nodes = new ArrayList<INode>();
+        nodes.add(result.createRoot("root"));
+        for (int i = 1; i < size; i++) {
+            nodes.add(nodes.get(random.nextInt(nodes.size())).createChild("n" + i));
+        }
+        return result;
+    }
+
+    private static String toString(List<IMappingElement<INode>> links) {
+        List<String> result = new ArrayList<String>();
+        for (IMappingElement<INode> link : links) {
+            result.add(link.getSource().getIndex() + "" + link.getRelation() + link.getTarget().getIndex());
+        }
+        Collections.sort(result);
+        return result.toString();
+    }
+
+    public void testAgainstMatrix() {
+        IContext source = createContext(60);
+        IContext target = createContext(60);
+        List<INode> sources = source.getNodesList();
+        List<INode> targets = target.getNodesList();
+        IContextMapping<INode> expected = new NodesMatrixMapping((IMatchMatrixFactory) new MatchMatrix(), source, target);
+        IContextMapping<INode> mapping = new IndexedHashMapping<INode>().getContextMappingInstance(source, target);
+
+        for (int i = 0; i < 20000; i++) {
+            // few sources, so that the keys collide and clusters form
+            INode x = sources.get(random.nextInt(20));
+            INode y = targets.get(random.nextInt(targets.size()));
+            final int operation = random.nextInt(100);
+            if (operation < 60) {
+                char relation = RELATIONS[random.nextInt(RELATIONS.length)];
+                assertEquals(expected.setRelation(x, y, relation), mapping.setRelation(x, y, relation));
+            } else if (operation < 90) {
+                assertEquals(expected.getRelation(x, y), mapping.getRelation(x, y));
+            } else if (operation < 95) {
+                // twice, from the cached order
+                for (int j = 0; j < 2; j++) {
+                    assertEquals(toString(expected.getSources(x)), toString(mapping.getSources(x)));
+                    assertEquals(toString(expected.getTargets(y)), toString(mapping.getTargets(y)));
+                }
+            } else if (operation < 98) {
+                MappingElement<INode> link = new MappingElement<INode>(x, y, expected.getRelation(x, y));
+                assertEquals(expected.contains(link), mapping.contains(link));
+            } else {
+                MappingElement<INode> link = new MappingElement<INode>(x, y, RELATIONS[random.nextInt(RELATIONS.length)]);
+                final boolean contained = mapping.contains(link);
+                assertEquals(contained, mapping.remove(link));
+                if (contained) {
+                    expected.setRelation(x, y, IMappingElement.IDK);
+                }
+                assertEquals(expected.getRelation(x, y), mapping.getRelation(x, y));
+            }
+            assertEquals(expected.size(), mapping.size());
+        }
+    }
+
+    public void testForeignObjects() {
+        IContext source = createContext(10);
+        IContext target = createContext(10);
+        IContext other = createContext(10);
+        IContextMapping<INode> mapping = new IndexedHashMapping<INode>().getContextMappingInstance(source, target);
+        INode x = source.getNodesList().get(3);
+        INode y = target.getNodesList().get(4);
+        mapping.setRelation(x, y, IMappingElement.LESS_GENERAL);
+
+        // a node of another context with the same index
+        INode z = other.getNodesList().get(4);
+        z.setIndex(y.getIndex());
+        assertFalse(mapping.contains(new MappingElement<INode>(x, z, IMappingElement.LESS_GENERAL)));
+        assertFalse(mapping.remove(new MappingElement<INode>(x, z, IMappingElement.LESS_GENERAL)));
+        assertFalse(mapping.contains(new MappingElement<INode>(x, y, IMappingElement.MORE_GENERAL)));
+        assertFalse(mapping.remove(new MappingElement<INode>(x, y, IMappingElement.MORE_GENERAL)));
+        assertFalse(mapping.contains(new MappingElement<String>("x", "y", IMappingElement.LESS_GENERAL)));
+        assertFalse(mapping.contains(x));
+        assertEquals(1, mapping.size());
+
+        assertTrue(mapping.remove(new MappingElement<INode>(x, y, IMappingElement.LESS_GENERAL)));
+        assertEquals(0, mapping.size());
+        assertTrue(mapping.getSources(x).isEmpty());
+        assertTrue(mapping.getTargets(y).isEmpty());
+    }
+
+    public void testRemove() {
+        IContext source = createContext(40);
+        IContext target = createContext(40);
+        List<INode> sources = source.getNodesList();
+        List<INode> targets = target.getNodesList();
+        IContextMapping<INode> expected = new NodesMatrixMapping((IMatchMatrixFactory) new MatchMatrix(), source, target);
+        IContextMapping<INode> mapping = new IndexedHashMapping<INode>().getContextMappingInstance(source, target);
+        for (INode x : sources) {
+            for (INode y : targets) {
+                char relation = RELATIONS[random.nextInt(RELATIONS.length)];
+                expected.setRelation(x, y, relation);
+                mapping.setRelation(x, y, relation);
+            }
+        }
+
+        // removals shift the following links of the cluster back, each link must stay reachable
+        int count = 0;
+        for (Iterator<IMappingElement<INode>> i = mapping.iterator(); i.hasNext(); ) {
+            IMappingElement<INode> link = i.next();
+            if (0 == count % 3) {
+                i.remove();
+                expected.setRelation(link.getSource(), link.getTarget(), IMappingElement.IDK);
+            }
+            count++;
+        }
+        assertEquals(expected.size(), mapping.size());
+        for (INode x : sources) {
+            for (INode y : targets) {
+                assertEquals(expected.getRelation(x, y), mapping.getRelation(x, y));
+            }
+        }
+
+        // the cursor returns the same links in the same order as the matrix
+        IMappingCursor<INode> e = expected.cursor();
+        IMappingCursor<INode> c = mapping.cursor();
+        while (e.next()) {
+            assertTrue(c.next());
+            assertSame(e.getSource(), c.getSource());
+            assertSame(e.getTarget(), c.getTarget());
+            assertEquals(e.getRelation(), c.getRelation());
+        }
+        assertFalse(c.next());
+    }
+}
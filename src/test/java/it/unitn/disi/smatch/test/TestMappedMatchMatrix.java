@@ -0,0 +1,142 @@
+package it.unitn.disi.smatch.test;
+
+import it.unitn.disi.common.components.ConfigurableException;
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.data.matrices.IMatchMatrix;
+import it.unitn.disi.smatch.data.matrices.MappedMatchMatrix;
+import it.unitn.disi.smatch.data.matrices.MatchMatrix;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Tests the memory-mapped matrix: contents, several chunks, saving, reopening and deleting the files.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class TestMappedMatchMatrix extends TestCase {
+
+    private static final char[] RELATIONS = {IMappingElement.IDK, IMappingElement.EQUIVALENCE,
+            IMappingElement.LESS_GENERAL, IMappingElement.MORE_GENERAL, IMappingElement.DISJOINT};
+
+    private File directory;
+
+    public TestMappedMatchMatrix() {
+        super("Test Mapped Match Matrix");
+    }
+
+    @Override
+    protected void setUp() throws IOException {
+        directory = Files.createTempDirectory("smatch").toFile();
+    }
+
+    @Override
+    protected void tearDown() {
+        File[] files = directory.listFiles();
+        if (null != files) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private MappedMatchMatrix createMatrix() throws ConfigurableException {
+        MappedMatchMatrix result = new MappedMatchMatrix();
+        Properties properties = new Properties();
+        properties.setProperty("directory", directory.getAbsolutePath());
+        // a few rows per chunk
+        properties.setProperty("chunkSize", "64");
+        result.setProperties(properties);
+        return result;
+    }
+
+    private static void fill(Random random, IMatchMatrix expected, IMatchMatrix matrix) {
+        for (int i = 0; i < 2000; i++) {
+            final int r = random.nextInt(expected.getX());
+            if (0 == random.nextInt(20)) {
+                char[] row = new char[expected.getY()];
+                for (int j = 0; j < row.length; j++) {
+                    row[j] = RELATIONS[random.nextInt(RELATIONS.length)];
+                }
+                expected.setRow(r, row);
+                matrix.setRow(r, row);
+            } else {
+                final int c = random.nextInt(expected.getY());
+                final char relation = RELATIONS[random.nextInt(RELATIONS.length)];
+                final boolean modified = expected.get(r, c) != relation;
+                expected.set(r, c, relation);
+                assertEquals(modified, matrix.set(r, c, relation));
+            }
+        }
+    }
+
+    private static void assertMatrixEquals(IMatchMatrix expected, IMatchMatrix matrix) {
+        assertEquals(expected.getX(), matrix.getX());
+        assertEquals(expected.getY(), matrix.getY());
+        char[] expectedRow = new char[expected.getY()];
+        char[] row = new char[expected.getY()];
+        for (int r = 0; r < expected.getX(); r++) {
+            expected.getRow(r, expectedRow);
+            matrix.getRow(r, row);
+            assertTrue(Arrays.equals(expectedRow, row));
+            for (int c = 0; c < expected.getY(); c++) {
+                assertEquals(expected.get(r, c), matrix.get(r, c));
+            }
+        }
+    }
+
+    public void testAgainstMatchMatrix() throws ConfigurableException {
+        MappedMatchMatrix matrix = createMatrix();
+        IMatchMatrix expected = new MatchMatrix();
+        expected.init(13, 37);
+        matrix.init(13, 37);
+        fill(new Random(3), expected, matrix);
+        assertMatrixEquals(expected, matrix);
+        matrix.release();
+    }
+
+    public void testSaveAndOpen() throws ConfigurableException, IOException {
+        Random random = new Random(4);
+        MappedMatchMatrix matrix = createMatrix();
+        IMatchMatrix expected = new MatchMatrix();
+        expected.init(9, 20);
+        matrix.init(9, 20);
+        fill(random, expected, matrix);
+
+        final File saved = new File(directory, "saved.smm");
+        matrix.save(saved.getAbsolutePath());
+        final File temporary = matrix.getFile();
+        assertTrue(temporary.exists());
+        matrix.release();
+        assertFalse(temporary.exists());
+
+        MappedMatchMatrix opened = MappedMatchMatrix.open(saved.getAbsolutePath());
+        assertMatrixEquals(expected, opened);
+        // changes are written into the saved file
+        fill(random, expected, opened);
+        opened.flush();
+        opened.release();
+        assertTrue(saved.exists());
+
+        opened = MappedMatchMatrix.open(saved.getAbsolutePath());
+        assertMatrixEquals(expected, opened);
+        opened.release();
+    }
+
+    public void testOpenInvalidFile() throws IOException {
+        final File file = new File(directory, "invalid.smm");
+        Files.write(file.toPath(), new byte[100]);
+        try {
+            MappedMatchMatrix.open(file.getAbsolutePath());
+            fail("Invalid file opened");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package it.unitn.disi.smatch.test;
+
+import it.unitn.disi.smatch.data.trees.Context;
+import it.unitn.disi.smatch.data.trees.IContext;
+import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.data.trees.NodePathIndex;
+import it.unitn.disi.smatch.data.trees.TreeIndex;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests writing the paths of the nodes and finding the nodes by their paths.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class TestNodePathIndex extends TestCase {
+
+    public TestNodePathIndex() {
+        super("Test Node Path Index");
+    }
+
+    private static NodePathIndex<INode> createPlainIndex(IContext context) {
+        return new NodePathIndex<INode>(new TreeIndex<INode>(context.getRoot()), '\\', true, '/');
+    }
+
+    public void testDuplicateSiblings() {
+        IContext context = new Context();
+        INode root = context.createRoot("Top");
+        INode first = root.createChild("a");
+        INode b = first.createChild("b");
+        INode firstX = first.createChild("x");
+        INode second = root.createChild("a");
+        INode c = second.createChild("c");
+        INode secondX = second.createChild("x");
+        root.createChild("0");
+        root.createChild("z");
+        NodePathIndex<INode> index = createPlainIndex(context);
+
+        // the last sibling with the path is found
+        assertSame(second, index.findNode("\\Top\\a"));
+        assertSame(secondX, index.findNode("\\Top\\a\\x"));
+        assertSame(c, index.findNode("\\Top\\a\\c"));
+        // the path continues under the first sibling only
+        assertSame(b, index.findNode("\\Top\\a\\b"));
+        assertNull(index.findNode("\\Top\\a\\y"));
+        assertEquals("\\Top\\a\\x", index.getPath(firstX));
+    }
+
+    public void testSeparators() {
+        IContext context = new Context();
+        INode root = context.createRoot("Top");
+        INode node = root.createChild("a\\b");
+        INode empty = node.createChild("");
+        NodePathIndex<INode> index = createPlainIndex(context);
+
+        assertEquals("\\Top\\a/b", index.getPath(node));
+        assertEquals("\\Top\\a/b\\", index.getPath(empty));
+        assertSame(node, index.findNode("\\Top\\a/b"));
+        assertSame(empty, index.findNode("\\Top\\a/b\\"));
+        assertNull(index.findNode("Top\\a/b"));
+        assertNull(index.findNode("\\Top\\a\\b"));
+        assertNull(index.findNode(""));
+
+        NodePathIndex<INode> tabIndex = new NodePathIndex<INode>(new TreeIndex<INode>(root), '\t', false, '\t');
+        assertEquals("Top\ta\\b", tabIndex.getPath(node));
+        assertSame(node, tabIndex.findNode("Top\ta\\b"));
+        assertNull(tabIndex.findNode("\tTop\ta\\b"));
+    }
+
+    public void testRoundTrip() {
+        Random random = new Random(7);
+        IContext context = new Context();
+        List<INode> nodes = new ArrayList<INode>();
+        nodes.add(context.createRoot("Top"));
+        for (int i = 1; i < 2000; i++) {
+            // few names, so that siblings share them
+            nodes.add(nodes.get(random.nextInt(nodes.size())).createChild("n" + random.nextInt(20)));
+        }
+        NodePathIndex<INode> index = createPlainIndex(context);
+
+        final char[] buffer = new char[index.getMaxPathLength()];
+        for (int i = 0; i < index.getTreeIndex().size(); i++) {
+            final int length = index.getPath(i, buffer);
+            assertEquals(index.getPathLength(i), length);
+            final String path = new String(buffer, 0, length);
+            assertEquals(path, index.getPath(i));
+            assertEquals(path, index.getPath(index.getTreeIndex().getNode(i)));
+
+            final int found = index.find(" " + path + " ", 1, length + 1);
+            assertEquals(path, index.getPath(found));
+        }
+    }
+
+    public void testUnindexedNode() {
+        IContext context = new Context();
+        INode root = context.createRoot("Top");
+        INode node = root.createChild("a");
+        NodePathIndex<INode> index = createPlainIndex(context);
+
+        INode added = node.createChild("b\\c");
+        assertEquals(-1, index.getTreeIndex().getNumber(added));
+        assertEquals("\\Top\\a\\b/c", index.getPath(added));
+        assertNull(index.findNode("\\Top\\a\\b/c"));
+    }
+}
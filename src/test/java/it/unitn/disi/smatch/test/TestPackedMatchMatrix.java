@@ -0,0 +1,82 @@
+package it.unitn.disi.smatch.test;
+
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.data.matrices.IMatchMatrix;
+import it.unitn.disi.smatch.data.matrices.MatchMatrix;
+import it.unitn.disi.smatch.data.matrices.PackedMatchMatrix;
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests the packed matrix against the char matrix.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class TestPackedMatchMatrix extends TestCase {
+
+    private static final char[] RELATIONS = {IMappingElement.IDK, IMappingElement.EQUIVALENCE,
+            IMappingElement.LESS_GENERAL, IMappingElement.MORE_GENERAL, IMappingElement.DISJOINT,
+            IMappingElement.ENTAILED_LESS_GENERAL, IMappingElement.ENTAILED_MORE_GENERAL, IMappingElement.ENTAILED_DISJOINT};
+
+    public TestPackedMatchMatrix() {
+        super("Test Packed Match Matrix");
+    }
+
+    public void testAgainstMatchMatrix() {
+        Random random = new Random(2);
+        for (int t = 0; t < 30; t++) {
+            // sizes around the 16 cells of a word
+            final int x = 1 + random.nextInt(20);
+            final int y = 1 + random.nextInt(50);
+            IMatchMatrix expected = new MatchMatrix();
+            IMatchMatrix matrix = new PackedMatchMatrix();
+            expected.init(x, y);
+            matrix.init(x, y);
+            for (int i = 0; i < 1000; i++) {
+                if (0 == random.nextInt(20)) {
+                    char[] row = new char[y];
+                    for (int j = 0; j < y; j++) {
+                        row[j] = RELATIONS[random.nextInt(RELATIONS.length)];
+                    }
+                    final int r = random.nextInt(x);
+                    expected.setRow(r, row);
+                    matrix.setRow(r, row);
+                } else {
+                    final int r = random.nextInt(x);
+                    final int c = random.nextInt(y);
+                    final char relation = RELATIONS[random.nextInt(RELATIONS.length)];
+                    final boolean modified = expected.get(r, c) != relation;
+                    expected.set(r, c, relation);
+                    assertEquals(modified, matrix.set(r, c, relation));
+                }
+            }
+            for (int r = 0; r < x; r++) {
+                // the cells after the row are not touched
+                char[] expectedRow = new char[y + 3];
+                char[] row = new char[y + 3];
+                Arrays.fill(expectedRow, 'z');
+                Arrays.fill(row, 'z');
+                expected.getRow(r, expectedRow);
+                matrix.getRow(r, row);
+                assertTrue(Arrays.equals(expectedRow, row));
+                for (int c = 0; c < y; c++) {
+                    assertEquals(expected.get(r, c), matrix.get(r, c));
+                }
+            }
+        }
+    }
+
+    public void testUnsupportedRelation() {
+        PackedMatchMatrix matrix = new PackedMatchMatrix();
+        matrix.init(2, 2);
+        assertEquals(IMappingElement.IDK, matrix.get(1, 1));
+        try {
+            matrix.set(0, 0, 'q');
+            fail("Relation q stored");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
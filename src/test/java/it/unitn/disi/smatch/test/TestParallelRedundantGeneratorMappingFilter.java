@@ -0,0 +1,124 @@
+package it.unitn.disi.smatch.test;
+
+import it.unitn.disi.smatch.data.mappings.HashMapping;
+import it.unitn.disi.smatch.data.mappings.IContextMapping;
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.data.mappings.NodesMatrixMapping;
+import it.unitn.disi.smatch.data.matrices.IMatchMatrixFactory;
+import it.unitn.disi.smatch.data.matrices.MatchMatrix;
+import it.unitn.disi.smatch.data.trees.Context;
+import it.unitn.disi.smatch.data.trees.IContext;
+import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.filters.ParallelRedundantGeneratorMappingFilter;
+import it.unitn.disi.smatch.filters.RedundantGeneratorMappingFilter;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Tests that the parallel generator filter generates the same links as the sequential one.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class TestParallelRedundantGeneratorMappingFilter extends TestCase {
+
+    private static final char[] RELATIONS = {IMappingElement.EQUIVALENCE, IMappingElement.LESS_GENERAL,
+            IMappingElement.MORE_GENERAL, IMappingElement.DISJOINT};
+
+    private static final char[] CONSISTENT_RELATIONS = {IMappingElement.EQUIVALENCE, IMappingElement.LESS_GENERAL,
+            IMappingElement.MORE_GENERAL};
+
+    private final Random random = new Random(11);
+
+    public TestParallelRedundantGeneratorMappingFilter() {
+        super("Test Parallel Redundant Generator Mapping Filter");
+    }
+
+    private IContext createContext(int size) {
+        IContext result = new Context();
+        List<INode> nodes = new ArrayList<INode>();
+        nodes.add(result.createRoot("root"));
+        for (int i = 1; i < size; i++) {
+            nodes.add(nodes.get(random.nextInt(nodes.size())).createChild("n" + i));
+        }
+        return result;
+    }
+
+    private static IContextMapping<INode> createMapping(boolean matrix, IContext source, IContext target) {
+        if (matrix) {
+            return new NodesMatrixMapping((IMatchMatrixFactory) new MatchMatrix(), source, target);
+        } else {
+            return new HashMapping<INode>().getContextMappingInstance(source, target);
+        }
+    }
+
+    private static ParallelRedundantGeneratorMappingFilter createParallelFilter() throws Exception {
+        ParallelRedundantGeneratorMappingFilter result = new ParallelRedundantGeneratorMappingFilter();
+        Properties properties = new Properties();
+        properties.setProperty("threads", "4");
+        result.setProperties(properties);
+        return result;
+    }
+
+    /**
+     * Filters random mappings with both filters and compares the results.
+     *
+     * @param relations relations of the random links
+     * @param snapshot  whether the sequential filter reads the links of the original mapping, as the parallel one
+     *                  does, instead of the links it has already generated
+     * @throws Exception Exception
+     */
+    private void assertSameLinks(char[] relations, boolean snapshot) throws Exception {
+        final ParallelRedundantGeneratorMappingFilter parallel = createParallelFilter();
+        for (int trial = 0; trial < 20; trial++) {
+            final IContext source = createContext(5 + random.nextInt(50));
+            final IContext target = createContext(5 + random.nextInt(70));
+            final boolean matrix = 0 == trial % 2;
+            final IContextMapping<INode> expected = createMapping(matrix, source, target);
+            final IContextMapping<INode> original = createMapping(matrix, source, target);
+            final IContextMapping<INode> mapping = createMapping(matrix, source, target);
+            final int density = 2 + random.nextInt(20);
+            for (INode x : source.getNodesList()) {
+                for (INode y : target.getNodesList()) {
+                    if (0 == random.nextInt(density)) {
+                        final char relation = relations[random.nextInt(relations.length)];
+                        expected.setRelation(x, y, relation);
+                        original.setRelation(x, y, relation);
+                        mapping.setRelation(x, y, relation);
+                    }
+                }
+            }
+
+            if (snapshot) {
+                new RedundantGeneratorMappingFilter() {
+                    @Override
+                    protected char getRelation(IContextMapping<INode> m, INode a, INode b) {
+                        return original.getRelation(a, b);
+                    }
+                }.filter(expected);
+            } else {
+                new RedundantGeneratorMappingFilter().filter(expected);
+            }
+            assertSame(mapping, parallel.filter(mapping));
+
+            for (INode x : source.getNodesList()) {
+                for (INode y : target.getNodesList()) {
+                    assertEquals(expected.getRelation(x, y), mapping.getRelation(x, y));
+                }
+            }
+            assertEquals(expected.size(), mapping.size());
+        }
+    }
+
+    public void testAgainstSnapshot() throws Exception {
+        assertSameLinks(RELATIONS, true);
+    }
+
+    public void testConsistentMappings() throws Exception {
+        // without disjointness no link is overridden, so the order of generation does not matter
+        assertSameLinks(CONSISTENT_RELATIONS, false);
+    }
+}
@@ -0,0 +1,90 @@
+package it.unitn.disi.smatch.test;
+
+import it.unitn.disi.common.utils.RangeExecutor;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Tests running tasks over ranges of rows.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class TestRangeExecutor extends TestCase {
+
+    public TestRangeExecutor() {
+        super("Test Range Executor");
+    }
+
+    private static void assertEachRowOnce(int threads, int count) {
+        final AtomicIntegerArray rows = new AtomicIntegerArray(count);
+        new RangeExecutor(threads).run(count, new RangeExecutor.IRangeTask<RuntimeException>() {
+            public void run(int from, int to) {
+                assertTrue(from < to);
+                for (int i = from; i < to; i++) {
+                    rows.incrementAndGet(i);
+                }
+            }
+        }, RuntimeException.class);
+        for (int i = 0; i < count; i++) {
+            assertEquals(1, rows.get(i));
+        }
+    }
+
+    public void testRows() {
+        for (int threads = 1; threads <= 4; threads++) {
+            for (int count : new int[]{0, 1, 2, 7, 100, 1001}) {
+                assertEachRowOnce(threads, count);
+            }
+        }
+    }
+
+    public void testCheckedException() {
+        for (int threads = 1; threads <= 4; threads++) {
+            try {
+                new RangeExecutor(threads).run(100, new RangeExecutor.IRangeTask<IOException>() {
+                    public void run(int from, int to) throws IOException {
+                        if (from <= 50 && 50 < to) {
+                            throw new IOException("row 50");
+                        }
+                    }
+                }, IOException.class);
+                fail("Exception lost");
+            } catch (IOException e) {
+                assertEquals("row 50", e.getMessage());
+            }
+        }
+    }
+
+    public void testRuntimeException() {
+        try {
+            new RangeExecutor(4).run(100, new RangeExecutor.IRangeTask<IOException>() {
+                public void run(int from, int to) {
+                    throw new IllegalStateException("failed");
+                }
+            }, IOException.class);
+            fail("Exception lost");
+        } catch (IllegalStateException e) {
+            // expected
+        } catch (IOException e) {
+            fail("Unexpected exception " + e);
+        }
+    }
+
+    public void testPoolShutDown() {
+        final int before = Thread.activeCount();
+        for (int i = 0; i < 20; i++) {
+            assertEachRowOnce(4, 1000);
+        }
+        // the workers of the pools stop after the runs
+        for (int attempt = 0; attempt < 100 && before < Thread.activeCount(); attempt++) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        assertTrue(Thread.activeCount() <= before);
+    }
+}
@@ -0,0 +1,137 @@
+package it.unitn.disi.smatch.test;
+
+import it.unitn.disi.smatch.data.ling.AtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.matchers.element.RelationCache;
+import it.unitn.disi.smatch.oracles.wordnet.WordNetSense;
+import junit.framework.TestCase;
+import net.sf.extjwnl.data.POS;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Tests the cache of relations between atomic concepts.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class TestRelationCache extends TestCase {
+
+    private static final char[] RELATIONS = {IMappingElement.EQUIVALENCE, IMappingElement.LESS_GENERAL,
+            IMappingElement.MORE_GENERAL, IMappingElement.DISJOINT, IMappingElement.IDK};
+
+    private final Random random = new Random(13);
+
+    public TestRelationCache() {
+        super("Test Relation Cache");
+    }
+
+    private static IAtomicConceptOfLabel createACoL(String lemma, long... offsets) {
+        IAtomicConceptOfLabel result = new AtomicConceptOfLabel(0, lemma, lemma);
+        for (long offset : offsets) {
+            result.addSense(new WordNetSense(null, POS.NOUN, offset));
+        }
+        return result;
+    }
+
+    public void testSignatures() {
+        RelationCache cache = new RelationCache(1000);
+        final int signature = cache.getSignature(createACoL("car", 1, 2));
+        assertTrue(0 < signature);
+        // the token and the id are not a part of the signature
+        IAtomicConceptOfLabel same = createACoL("car", 1, 2);
+        same.setToken("cars");
+        same.setId(5);
+        assertEquals(signature, cache.getSignature(same));
+        assertFalse(signature == cache.getSignature(createACoL("car", 1)));
+        assertFalse(signature == cache.getSignature(createACoL("auto", 1, 2)));
+        assertFalse(signature == cache.getSignature(createACoL("car", 2, 1)));
+        assertFalse(signature == cache.getSignature(createACoL("car")));
+        assertEquals(5, cache.getSignatureCount());
+
+        final int[] signatures = cache.getSignatures(new IAtomicConceptOfLabel[]{createACoL("auto", 1, 2), same});
+        assertEquals(cache.getSignature(createACoL("auto", 1, 2)), signatures[0]);
+        assertEquals(signature, signatures[1]);
+    }
+
+    public void testHitsAndMisses() {
+        RelationCache cache = new RelationCache(1000);
+        assertEquals(0.0, cache.getHitRatio());
+        assertEquals(RelationCache.NO_RELATION, cache.get(1, 2));
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        cache.put(1, 2, IMappingElement.LESS_GENERAL);
+        assertEquals(IMappingElement.LESS_GENERAL, cache.get(1, 2));
+        // pairs are ordered
+        assertEquals(RelationCache.NO_RELATION, cache.get(2, 1));
+        // unknown relations are cached too
+        cache.put(2, 1, IMappingElement.IDK);
+        assertEquals(IMappingElement.IDK, cache.get(2, 1));
+        cache.put(1, 2, IMappingElement.DISJOINT);
+        assertEquals(IMappingElement.DISJOINT, cache.get(1, 2));
+        assertEquals(2, cache.size());
+        assertEquals(3, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(0.6, cache.getHitRatio(), 1e-9);
+        assertEquals(0, cache.getEvictions());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getHits());
+        assertEquals(0, cache.getMisses());
+        assertEquals(RelationCache.NO_RELATION, cache.get(1, 2));
+    }
+
+    public void testEviction() {
+        final int capacity = 6400;
+        RelationCache cache = new RelationCache(capacity);
+        final int count = 50000;
+        final int[] sources = new int[count];
+        final int[] targets = new int[count];
+        final char[] relations = new char[count];
+        final Set<Long> pairs = new HashSet<Long>();
+        for (int i = 0; i < count; i++) {
+            do {
+                sources[i] = 1 + random.nextInt(1000000);
+                targets[i] = 1 + random.nextInt(1000000);
+            } while (!pairs.add(((long) sources[i] << 32) | targets[i]));
+            relations[i] = RELATIONS[random.nextInt(RELATIONS.length)];
+            cache.put(sources[i], targets[i], relations[i]);
+        }
+        // each segment is emptied before its table grows past twice its share of the capacity
+        assertTrue(cache.size() < 2 * capacity);
+        assertEquals(count, cache.size() + cache.getEvictions());
+
+        // cached relations stay correct
+        int found = 0;
+        for (int i = 0; i < count; i++) {
+            final char relation = cache.get(sources[i], targets[i]);
+            if (RelationCache.NO_RELATION != relation) {
+                assertEquals(relations[i], relation);
+                found++;
+            }
+        }
+        assertEquals(cache.size(), found);
+        assertEquals(found, cache.getHits());
+        assertEquals(count - found, cache.getMisses());
+    }
+
+    public void testSignatureEviction() {
+        final int capacity = 100;
+        RelationCache cache = new RelationCache(capacity);
+        int previous = 0;
+        for (int i = 0; i < 1000; i++) {
+            final int signature = cache.getSignature(createACoL("lemma" + i, i));
+            // numbers are never reused
+            assertTrue(previous < signature);
+            previous = signature;
+            assertTrue(cache.getSignatureCount() <= capacity);
+        }
+        assertTrue(0 < cache.getEvictions());
+        // forgotten signatures get new numbers
+        assertFalse(1 == cache.getSignature(createACoL("lemma0", 0)));
+    }
+}
@@ -0,0 +1,234 @@
+package it.unitn.disi.smatch.test;
+
+import it.unitn.disi.common.components.Configurable;
+import it.unitn.disi.smatch.MatchManager;
+import it.unitn.disi.smatch.SMatchException;
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.mappings.HashMapping;
+import it.unitn.disi.smatch.data.mappings.IContextMapping;
+import it.unitn.disi.smatch.data.mappings.IMappingFactory;
+import it.unitn.disi.smatch.data.trees.Context;
+import it.unitn.disi.smatch.data.trees.IContext;
+import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.data.trees.INodeData;
+import it.unitn.disi.smatch.matchers.element.IMatcherLibrary;
+import it.unitn.disi.smatch.preprocessors.IContextPreprocessor;
+import it.unitn.disi.smatch.preprocessors.IIncrementalContextPreprocessor;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Tests that rematching the changed nodes gives the same mapping as matching the contexts from scratch.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class TestRematch extends TestCase {
+
+    /**
+     * Makes an atomic concept of each word of the label, without an oracle.
+     */
+    public static class WordPreprocessor extends Configurable implements IContextPreprocessor, IIncrementalContextPreprocessor {
+
+        public void preprocess(IContext context) {
+            preprocess(context, context.getNodesList());
+        }
+
+        public void preprocess(IContext context, List<INode> nodes) {
+            for (INode node : nodes) {
+                final INodeData nodeData = node.getNodeData();
+                while (0 < nodeData.getACoLCount()) {
+                    nodeData.removeACoL(0);
+                }
+                final String[] words = nodeData.getName().split(" ");
+                final StringBuilder formula = new StringBuilder();
+                for (int i = 0; i < words.length; i++) {
+                    IAtomicConceptOfLabel acol = nodeData.createACoL();
+                    acol.setId(i);
+                    acol.setToken(words[i]);
+                    acol.setLemma(words[i]);
+                    nodeData.addACoL(acol);
+                    if (0 < i) {
+                        formula.append(" & ");
+                    }
+                    formula.append(nodeData.getId()).append('.').append(i);
+                }
+                nodeData.setcLabFormula(formula.toString());
+                nodeData.setIsPreprocessed(true);
+            }
+        }
+    }
+
+    /**
+     * Relates words by their text only.
+     */
+    public static class WordMatcherLibrary extends Configurable implements IMatcherLibrary {
+
+        private final IMappingFactory mappingFactory = new HashMapping();
+
+        private static char getRelation(String source, String target) {
+            if (source.equals(target)) {
+                return '=';
+            }
+            switch (Math.abs(source.hashCode() * 31 + target.hashCode()) % 9) {
+                case 0:
+                    return '<';
+                case 1:
+                    return '>';
+                case 2:
+                    return '!';
+                default:
+                    return '?';
+            }
+        }
+
+        public IContextMapping<IAtomicConceptOfLabel> elementLevelMatching(IContext sourceContext, IContext targetContext) {
+            IContextMapping<IAtomicConceptOfLabel> result = mappingFactory.getACoLMappingInstance(sourceContext, targetContext);
+            elementLevelMatching(result, sourceContext.getNodesList(), targetContext.getNodesList());
+            return result;
+        }
+
+        public void elementLevelMatching(IContextMapping<IAtomicConceptOfLabel> acolMapping, List<INode> sourceNodes, List<INode> targetNodes) {
+            for (INode sourceNode : sourceNodes) {
+                for (IAtomicConceptOfLabel sourceACoL : sourceNode.getNodeData().getACoLsList()) {
+                    for (INode targetNode : targetNodes) {
+                        for (IAtomicConceptOfLabel targetACoL : targetNode.getNodeData().getACoLsList()) {
+                            acolMapping.setRelation(sourceACoL, targetACoL, getRelation(sourceACoL.getLemma(), targetACoL.getLemma()));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private final Random random = new Random(3);
+    private int ids = 0;
+
+    public TestRematch() {
+        super("Test Rematch");
+    }
+
+    private String createName() {
+        final int count = 1 + random.nextInt(2);
+        final StringBuilder result = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (0 < i) {
+                result.append(' ');
+            }
+            result.append('w').append(random.nextInt(25));
+        }
+        return result.toString();
+    }
+
+    private IContext createContext(String prefix, int size) {
+        IContext result = new Context();
+        INode root = result.createRoot(createName());
+        root.getNodeData().setId(prefix + ids++);
+        List<INode> nodes = new ArrayList<INode>();
+        nodes.add(root);
+        for (int i = 1; i < size; i++) {
+            INode child = nodes.get(random.nextInt(nodes.size())).createChild(createName());
+            child.getNodeData().setId(prefix + ids++);
+            nodes.add(child);
+        }
+        return result;
+    }
+
+    private static Properties getProperties(String treeMatcher, String nodeMatcher) {
+        Properties result = new Properties();
+        result.setProperty("MappingFactory", "it.unitn.disi.smatch.data.mappings.HashMapping");
+        result.setProperty("ContextPreprocessor", WordPreprocessor.class.getName());
+        result.setProperty("ContextClassifier", "it.unitn.disi.smatch.classifiers.CNFContextClassifier");
+        result.setProperty("MatcherLibrary", WordMatcherLibrary.class.getName());
+        final String prefix = "TreeMatcher." + treeMatcher.substring(treeMatcher.lastIndexOf('.') + 1);
+        result.setProperty("TreeMatcher", treeMatcher);
+        result.setProperty(prefix + ".mappingFactory", "it.unitn.disi.smatch.data.mappings.HashMapping");
+        result.setProperty(prefix + ".nodeMatcher", nodeMatcher);
+        result.setProperty(prefix + ".nodeMatcher." + nodeMatcher.substring(nodeMatcher.lastIndexOf('.') + 1) + ".SATSolver",
+                "it.unitn.disi.smatch.deciders.SAT4J");
+        return result;
+    }
+
+    private static String getRelations(IContextMapping<INode> mapping) {
+        StringBuilder result = new StringBuilder();
+        for (INode source : mapping.getSourceContext().getNodesList()) {
+            for (INode target : mapping.getTargetContext().getNodesList()) {
+                result.append(mapping.getRelation(source, target));
+            }
+        }
+        return result.toString();
+    }
+
+    private void checkRematch(MatchManager mm) throws SMatchException {
+        IContext source = createContext("s", 12);
+        IContext target = createContext("t", 12);
+        IContextMapping<INode> mapping = mm.match(source, target);
+
+        List<INode> sourceNodes = source.getNodesList();
+        List<INode> targetNodes = target.getNodesList();
+        List<INode> changedSource = new ArrayList<INode>();
+        List<INode> changedTarget = new ArrayList<INode>();
+
+        // relabel
+        sourceNodes.get(5).getNodeData().setName(createName());
+        changedSource.add(sourceNodes.get(5));
+        targetNodes.get(3).getNodeData().setName(createName());
+        changedTarget.add(targetNodes.get(3));
+
+        // add
+        INode added = targetNodes.get(2).createChild(createName());
+        added.getNodeData().setId("t" + ids++);
+        changedTarget.add(added);
+
+        // remove a leaf, removed nodes may be passed too
+        INode removed = null;
+        for (INode node : targetNodes) {
+            if (node.isLeaf() && !changedTarget.contains(node)) {
+                removed = node;
+            }
+        }
+        assertNotNull(removed);
+        removed.removeFromParent();
+        changedTarget.add(removed);
+
+        // move a leaf under the root
+        INode moved = null;
+        for (INode node : sourceNodes) {
+            if (node.isLeaf() && node.getParent() != source.getRoot() && !changedSource.contains(node)) {
+                moved = node;
+            }
+        }
+        assertNotNull(moved);
+        moved.removeFromParent();
+        source.getRoot().addChild(moved);
+        changedSource.add(moved);
+
+        final String rematched = getRelations(mm.rematch(mapping, changedSource, changedTarget));
+        for (INode node : source.getNodesList()) {
+            node.getNodeData().setIsPreprocessed(false);
+        }
+        for (INode node : target.getNodesList()) {
+            node.getNodeData().setIsPreprocessed(false);
+        }
+        assertEquals(getRelations(mm.match(source, target)), rematched);
+    }
+
+    public void testRematch() throws SMatchException {
+        checkRematch(new MatchManager(getProperties("it.unitn.disi.smatch.matchers.structure.tree.def.DefaultTreeMatcher",
+                "it.unitn.disi.smatch.matchers.structure.node.DefaultNodeMatcher")));
+    }
+
+    public void testParallelRematch() throws SMatchException {
+        checkRematch(new MatchManager(getProperties("it.unitn.disi.smatch.matchers.structure.tree.def.ParallelTreeMatcher",
+                "it.unitn.disi.smatch.matchers.structure.node.DefaultNodeMatcher")));
+    }
+
+    public void testNonIncrementalTreeMatcher() throws SMatchException {
+        // matches from scratch
+        checkRematch(new MatchManager(getProperties("it.unitn.disi.smatch.matchers.structure.tree.mini.OptimizedStageTreeMatcher",
+                "it.unitn.disi.smatch.matchers.structure.node.OptimizedStageNodeMatcher")));
+    }
+}
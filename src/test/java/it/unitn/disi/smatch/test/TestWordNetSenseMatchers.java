@@ -0,0 +1,156 @@
+package it.unitn.disi.smatch.test;
+
+import it.unitn.disi.common.utils.MiscUtils;
+import it.unitn.disi.smatch.data.ling.ISense;
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.oracles.wordnet.InMemoryWordNetAdjacency;
+import it.unitn.disi.smatch.oracles.wordnet.InMemoryWordNetBinaryArray;
+import it.unitn.disi.smatch.oracles.wordnet.LongArrayFile;
+import it.unitn.disi.smatch.oracles.wordnet.WordNetSense;
+import junit.framework.TestCase;
+import net.sf.extjwnl.data.POS;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Tests that the binary array and the adjacency WordNet sense matchers find the same relations in the same caches.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class TestWordNetSenseMatchers extends TestCase {
+
+    // cache file keys, symmetric relations are keyed by the larger offset
+    private static final String[] KEYS = {"adjectiveSynonymFile", "adjectiveAntonymFile", "nounMGFile",
+            "nounAntonymFile", "verbMGFile", "adverbsAntonymFile", "nominalizationsFile"};
+    private static final boolean[] SYMMETRIC = {true, true, false, true, false, true, false};
+
+    // parts of speech in the order of their codes
+    private static final POS[] POS_CODES = {POS.NOUN, POS.VERB, POS.ADJECTIVE, POS.ADVERB};
+
+    private static final int OFFSETS = 40;
+
+    private final Random random = new Random(11);
+
+    private File directory;
+    private InMemoryWordNetBinaryArray binaryArray;
+    private InMemoryWordNetAdjacency adjacency;
+
+    public TestWordNetSenseMatchers() {
+        super("Test WordNet Sense Matchers");
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = Files.createTempDirectory("smatch").toFile();
+        Properties properties = new Properties();
+        properties.setProperty("UseInternalFiles", "false");
+        for (int i = 0; i < KEYS.length; i++) {
+            final File file = new File(directory, KEYS[i]);
+            final long[] keys = createKeys(SYMMETRIC[i]);
+            // both cache formats are read
+            if (0 == i % 2) {
+                LongArrayFile.write(keys, file.getPath());
+            } else {
+                MiscUtils.writeObject(keys, file.getPath());
+            }
+            properties.setProperty(KEYS[i], file.getPath());
+        }
+        binaryArray = new InMemoryWordNetBinaryArray();
+        binaryArray.setProperties(properties);
+        adjacency = new InMemoryWordNetAdjacency();
+        adjacency.setProperties(properties);
+    }
+
+    @Override
+    protected void tearDown() {
+        for (String key : KEYS) {
+            new File(directory, key).delete();
+        }
+        directory.delete();
+    }
+
+    /**
+     * Creates sorted keys (offset &lt;&lt; 32) + related offset of random pairs of offsets.
+     *
+     * @param symmetric whether pairs are keyed by the larger offset
+     * @return sorted keys
+     */
+    private long[] createKeys(boolean symmetric) {
+        final TreeSet<Long> keys = new TreeSet<Long>();
+        final int count = random.nextInt(3 * OFFSETS);
+        for (int i = 0; i < count; i++) {
+            long source = random.nextInt(OFFSETS);
+            long target = random.nextInt(OFFSETS);
+            if (symmetric && source < target) {
+                final long swap = source;
+                source = target;
+                target = swap;
+            }
+            keys.add((source << 32) + target);
+        }
+        final long[] result = new long[keys.size()];
+        int i = 0;
+        for (Long key : keys) {
+            result[i] = key;
+            i++;
+        }
+        return result;
+    }
+
+    private ISense createSense() {
+        return new WordNetSense(null, POS_CODES[random.nextInt(POS_CODES.length)], random.nextInt(OFFSETS));
+    }
+
+    private List<ISense> createSenses() {
+        final List<ISense> result = new ArrayList<ISense>();
+        final int count = 1 + random.nextInt(3);
+        for (int i = 0; i < count; i++) {
+            result.add(createSense());
+        }
+        return result;
+    }
+
+    private static List<String> sorted(List<String> ids) {
+        final String[] result = ids.toArray(new String[ids.size()]);
+        Arrays.sort(result);
+        return Arrays.asList(result);
+    }
+
+    public void testSenses() {
+        final int[] relationCounts = new int[128];
+        for (int i = 0; i < 5000; i++) {
+            final ISense source = createSense();
+            final ISense target = createSense();
+            assertEquals(binaryArray.isSourceSynonymTarget(source, target), adjacency.isSourceSynonymTarget(source, target));
+            assertEquals(binaryArray.isSourceLessGeneralThanTarget(source, target), adjacency.isSourceLessGeneralThanTarget(source, target));
+            assertEquals(binaryArray.isSourceMoreGeneralThanTarget(source, target), adjacency.isSourceMoreGeneralThanTarget(source, target));
+            assertEquals(binaryArray.isSourceOppositeToTarget(source, target), adjacency.isSourceOppositeToTarget(source, target));
+            final List<ISense> sources = createSenses();
+            final List<ISense> targets = createSenses();
+            final char relation = binaryArray.getRelation(sources, targets);
+            assertEquals(relation, adjacency.getRelation(sources, targets));
+            relationCounts[relation]++;
+        }
+        // the relations are not all unknown
+        assertTrue(0 < relationCounts[IMappingElement.LESS_GENERAL]);
+        assertTrue(0 < relationCounts[IMappingElement.MORE_GENERAL]);
+        assertTrue(0 < relationCounts[IMappingElement.DISJOINT]);
+    }
+
+    public void testSenseIds() {
+        for (POS pos : POS_CODES) {
+            for (int offset = 0; offset < OFFSETS; offset++) {
+                final ISense sense = new WordNetSense(null, pos, offset);
+                assertEquals(sorted(binaryArray.getMoreGeneralSenseIds(sense)), sorted(adjacency.getMoreGeneralSenseIds(sense)));
+                assertEquals(sorted(binaryArray.getRelatedSenseIds(sense)), sorted(adjacency.getRelatedSenseIds(sense)));
+            }
+        }
+    }
+}